@@ -29,15 +29,29 @@ for VERTYPE in VM Versioned
 do
   for RETYPE in Thin Stats ThinLRU StatsLRU ThinDisk StatsDisk ThinDiskLRU StatsDiskLRU
   do
-    for KEY_INFO in 'ObjectKey KEY_OBJECT' 'IntKey KEY_INT' 'LongKey KEY_LONG' 'UUIDKey KEY_UUID' 'StringKey1 KEY_STRING1' 'StringKey2 KEY_STRING2'
+    for KEY_INFO in 'ObjectKey KEY_OBJECT' 'IntKey KEY_INT' 'LongKey KEY_LONG' 'UUIDKey KEY_UUID' 'StringKey1 KEY_STRING1' 'StringKey2 KEY_STRING2' 'SerializedKey KEY_SERIALIZED'
     do
       for MEMTYPE in Heap OffHeap
       do
+      for LINKTYPE in '' Unlinked
+      do
       declare -a KEY_ARRAY=($KEY_INFO)
       KEY_CLASS=${KEY_ARRAY[0]}
       KEY_TYPE=${KEY_ARRAY[1]}
+      if [ "$KEY_CLASS" = "SerializedKey" ]; then
+        # only off-heap entries store their key serialized
+        if [ "$MEMTYPE" = "Heap" -o "$LINKTYPE" = "Unlinked" ]; then
+          continue
+        fi
+      fi
+      if [ "$LINKTYPE" = "Unlinked" ]; then
+        # only keys that can be hashed without creating the key object have unlinked entries
+        if [ "$KEY_CLASS" = "ObjectKey" -o "$KEY_CLASS" = "UUIDKey" ]; then
+          continue
+        fi
+      fi
       BASE=${VERTYPE}${RETYPE}RegionEntry${MEMTYPE}
-      OUT=${BASE}${KEY_CLASS}
+      OUT=${BASE}${KEY_CLASS}${LINKTYPE}
       WP_ARGS=-Wp,-C,-P,-D${KEY_TYPE},-DPARENT_CLASS=$BASE,-DLEAF_CLASS=$OUT
       if [ "$VERTYPE" = "Versioned" ]; then
         WP_ARGS=${WP_ARGS},-DVERSIONED
@@ -54,10 +68,14 @@ do
       if [[ "$MEMTYPE" = "OffHeap" ]]; then
         WP_ARGS=${WP_ARGS},-DOFFHEAP
       fi
+      if [ "$LINKTYPE" = "Unlinked" ]; then
+        WP_ARGS=${WP_ARGS},-DUNLINKED
+      fi
       echo generating $SRCDIR/$OUT.java
       cpp -E $WP_ARGS $SRCFILE >$SRCDIR/$OUT.java
       #echo VERTYPE=$VERTYPE RETYPE=$RETYPE $KEY_INFO KEY_CLASS=$KEY_CLASS KEY_TYPE=$KEY_TYPE args=$WP_ARGS 
       done
+      done
     done
   done
 done
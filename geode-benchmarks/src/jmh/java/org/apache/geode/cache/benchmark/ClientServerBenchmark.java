@@ -0,0 +1,186 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.cache.benchmark;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.geode.cache.Cache;
+import org.apache.geode.cache.CacheFactory;
+import org.apache.geode.cache.Region;
+import org.apache.geode.cache.RegionShortcut;
+import org.apache.geode.cache.client.ClientCache;
+import org.apache.geode.cache.client.ClientCacheFactory;
+import org.apache.geode.cache.client.ClientRegionShortcut;
+import org.apache.geode.cache.server.CacheServer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures get, put, getAll and putAll from a client to a PartitionedRegion hosted by a cache
+ * server on the loopback interface. A JVM can only host one cache, so the server is launched as a
+ * child process from {@link #main(String[])} using the benchmark's own classpath.
+ */
+@Fork(3)
+@Warmup(iterations = 10)
+@Measurement(iterations = 10)
+public class ClientServerBenchmark {
+
+  private static final int ENTRY_COUNT = 10_000;
+
+  private static final String READY = "SERVER READY ON PORT ";
+
+  @State(Scope.Benchmark)
+  public static class ClientState {
+    @Param({"100", "10000"})
+    private int valueSize;
+
+    @Param({"100"})
+    private int batchSize;
+
+    private Process server;
+    private ClientCache clientCache;
+    private Region<Integer, byte[]> region;
+    private byte[] value;
+
+    @Setup
+    public void setup() throws IOException, InterruptedException {
+      server = new ProcessBuilder(
+          System.getProperty("java.home") + File.separator + "bin" + File.separator + "java",
+          "-cp", System.getProperty("java.class.path"), ClientServerBenchmark.class.getName())
+              .redirectErrorStream(true).start();
+      int port = awaitServer(server);
+
+      clientCache = new ClientCacheFactory().addPoolServer("localhost", port).create();
+      region = clientCache.<Integer, byte[]>createClientRegionFactory(ClientRegionShortcut.PROXY)
+          .create("region");
+
+      value = new byte[valueSize];
+      Map<Integer, byte[]> entries = new HashMap<>();
+      for (int i = 0; i < ENTRY_COUNT; i++) {
+        entries.put(i, value);
+      }
+      region.putAll(entries);
+    }
+
+    @TearDown
+    public void tearDown() throws InterruptedException {
+      clientCache.close();
+      server.destroy();
+      server.waitFor();
+    }
+
+    int randomKey() {
+      return ThreadLocalRandom.current().nextInt(ENTRY_COUNT);
+    }
+
+    List<Integer> randomKeys() {
+      List<Integer> keys = new ArrayList<>(batchSize);
+      for (int i = 0; i < batchSize; i++) {
+        keys.add(randomKey());
+      }
+      return keys;
+    }
+
+    Map<Integer, byte[]> randomEntries() {
+      Map<Integer, byte[]> entries = new HashMap<>(batchSize * 2);
+      for (int i = 0; i < batchSize; i++) {
+        entries.put(randomKey(), value);
+      }
+      return entries;
+    }
+  }
+
+  /**
+   * Reads the output of the server until it is ready and returns its port. The rest of its output
+   * is read and discarded by a daemon thread so that the server never blocks writing to a full
+   * pipe.
+   */
+  private static int awaitServer(Process server) throws IOException, InterruptedException {
+    BufferedReader reader = new BufferedReader(new InputStreamReader(server.getInputStream()));
+    String line;
+    while ((line = reader.readLine()) != null) {
+      if (line.startsWith(READY)) {
+        Thread drainer = new Thread(() -> drain(reader), "Cache server output drainer");
+        drainer.setDaemon(true);
+        drainer.start();
+        return Integer.parseInt(line.substring(READY.length()).trim());
+      }
+    }
+    if (server.waitFor(30, TimeUnit.SECONDS)) {
+      throw new IOException("Cache server exited with status " + server.exitValue());
+    }
+    throw new IOException("Cache server closed its output without starting");
+  }
+
+  private static void drain(BufferedReader reader) {
+    try {
+      while (reader.readLine() != null) {
+        // discard the output of the server
+      }
+    } catch (IOException ignore) {
+      // the server was destroyed
+    }
+  }
+
+  @Benchmark
+  public Object get(ClientState state) {
+    return state.region.get(state.randomKey());
+  }
+
+  @Benchmark
+  public Object put(ClientState state) {
+    return state.region.put(state.randomKey(), state.value);
+  }
+
+  @Benchmark
+  public Object getAll(ClientState state) {
+    return state.region.getAll(state.randomKeys());
+  }
+
+  @Benchmark
+  public void putAll(ClientState state) {
+    state.region.putAll(state.randomEntries());
+  }
+
+  /**
+   * Starts the cache server used by the benchmark and blocks until the process is destroyed.
+   */
+  public static void main(String[] args) throws IOException, InterruptedException {
+    Cache cache = new CacheFactory().set("mcast-port", "0").set("locators", "").create();
+    cache.createRegionFactory(RegionShortcut.PARTITION).create("region");
+    CacheServer cacheServer = cache.addCacheServer();
+    cacheServer.setPort(0);
+    cacheServer.start();
+    System.out.println(READY + cacheServer.getPort());
+    System.out.flush();
+    Thread.currentThread().join();
+  }
+}
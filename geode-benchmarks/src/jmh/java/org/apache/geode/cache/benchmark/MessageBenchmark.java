@@ -0,0 +1,97 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.cache.benchmark;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+
+import org.apache.geode.internal.Version;
+import org.apache.geode.internal.cache.tier.MessageType;
+import org.apache.geode.internal.cache.tier.sockets.Message;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures encoding and decoding of a client/server put {@link Message} and its Parts. The message
+ * is written to and read from in-memory streams so that only the framing and Part handling is
+ * measured, not the network.
+ */
+@Fork(3)
+@Warmup(iterations = 10)
+@Measurement(iterations = 10)
+public class MessageBenchmark {
+
+  @State(Scope.Thread)
+  public static class MessageState {
+    @Param({"100", "10000", "200000"})
+    private int valueSize;
+
+    private final Socket socket = new Socket();
+    private final ByteBuffer commBuffer = ByteBuffer.allocate(32 * 1024);
+    private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+    private byte[] value;
+    private byte[] encoded;
+
+    @Setup
+    public void setup() throws IOException {
+      value = new byte[valueSize];
+      encoded = encodeMessage(this);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+      socket.close();
+    }
+  }
+
+  static byte[] encodeMessage(MessageState state) throws IOException {
+    state.out.reset();
+    Message message = new Message(3, Version.CURRENT);
+    message.setComms(state.socket, null, state.out, state.commBuffer, null);
+    message.setMessageType(MessageType.PUT);
+    message.setTransactionId(1);
+    message.addStringPart("/region");
+    message.addStringOrObjPart("key");
+    message.addRawPart(state.value, false);
+    message.send();
+    return state.out.toByteArray();
+  }
+
+  @Benchmark
+  public byte[] encode(MessageState state) throws IOException {
+    return encodeMessage(state);
+  }
+
+  @Benchmark
+  public Object decode(MessageState state) throws IOException, ClassNotFoundException {
+    Message message = new Message(3, Version.CURRENT);
+    message.setComms(state.socket, new ByteArrayInputStream(state.encoded), null,
+        state.commBuffer, null);
+    message.recv();
+    message.getPart(0).getString();
+    message.getPart(1).getStringOrObject();
+    return message.getPart(2).getSerializedForm();
+  }
+}
@@ -0,0 +1,154 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.cache.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.geode.cache.Cache;
+import org.apache.geode.cache.CacheFactory;
+import org.apache.geode.cache.EvictionAction;
+import org.apache.geode.cache.EvictionAttributes;
+import org.apache.geode.cache.Region;
+import org.apache.geode.cache.RegionShortcut;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures Oplog appends for synchronous persistent regions, faulting overflowed values back in
+ * from an OverflowOplog, and recovery of a persistent region from its oplogs.
+ */
+@Fork(3)
+@Warmup(iterations = 10)
+@Measurement(iterations = 10)
+public class OplogBenchmark {
+
+  private static final int ENTRY_COUNT = 50_000;
+
+  private static final String DISK_STORE_NAME = "benchmarkStore";
+
+  static Cache createCache(File diskDir) {
+    Cache cache = new CacheFactory().set("mcast-port", "0").set("locators", "").create();
+    cache.createDiskStoreFactory().setDiskDirs(new File[] {diskDir}).create(DISK_STORE_NAME);
+    return cache;
+  }
+
+  @State(Scope.Benchmark)
+  public static class PersistentState {
+    @Param({"100", "10000"})
+    private int valueSize;
+
+    private File diskDir;
+    private Cache cache;
+    private Region<Integer, byte[]> persistentRegion;
+    private Region<Integer, byte[]> overflowRegion;
+    private byte[] value;
+
+    @Setup
+    public void setup() throws IOException {
+      diskDir = Files.createTempDirectory("OplogBenchmark").toFile();
+      cache = createCache(diskDir);
+      value = new byte[valueSize];
+
+      persistentRegion = cache.<Integer, byte[]>createRegionFactory(RegionShortcut.LOCAL_PERSISTENT)
+          .setDiskStoreName(DISK_STORE_NAME).setDiskSynchronous(true).create("persistent");
+
+      // keep only a small fraction of the values in memory so that most gets fault in from disk
+      overflowRegion = cache.<Integer, byte[]>createRegionFactory(RegionShortcut.LOCAL)
+          .setDiskStoreName(DISK_STORE_NAME).setDiskSynchronous(true)
+          .setEvictionAttributes(EvictionAttributes.createLRUEntryAttributes(ENTRY_COUNT / 100,
+              EvictionAction.OVERFLOW_TO_DISK))
+          .create("overflow");
+      for (int i = 0; i < ENTRY_COUNT; i++) {
+        overflowRegion.put(i, value);
+      }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+      cache.close();
+      FileUtils.deleteDirectory(diskDir);
+    }
+
+    int randomKey() {
+      return ThreadLocalRandom.current().nextInt(ENTRY_COUNT);
+    }
+  }
+
+  @Benchmark
+  public Object append(PersistentState state) {
+    return state.persistentRegion.put(state.randomKey(), state.value);
+  }
+
+  @Benchmark
+  public Object faultIn(PersistentState state) {
+    return state.overflowRegion.get(state.randomKey());
+  }
+
+  @State(Scope.Benchmark)
+  public static class RecoveryState {
+    @Param({"1000"})
+    private int valueSize;
+
+    private File diskDir;
+
+    @Setup
+    public void setup() throws IOException {
+      diskDir = Files.createTempDirectory("OplogBenchmark").toFile();
+      Cache cache = createCache(diskDir);
+      Region<Integer, byte[]> region = createPersistentRegion(cache);
+      byte[] value = new byte[valueSize];
+      for (int i = 0; i < ENTRY_COUNT; i++) {
+        region.put(i, value);
+      }
+      cache.close();
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+      FileUtils.deleteDirectory(diskDir);
+    }
+
+    Region<Integer, byte[]> createPersistentRegion(Cache cache) {
+      return cache.<Integer, byte[]>createRegionFactory(RegionShortcut.LOCAL_PERSISTENT)
+          .setDiskStoreName(DISK_STORE_NAME).create("recovered");
+    }
+  }
+
+  @Benchmark
+  @BenchmarkMode(Mode.SingleShotTime)
+  @Warmup(iterations = 3)
+  @Measurement(iterations = 10)
+  public int recover(RecoveryState state) {
+    Cache cache = createCache(state.diskDir);
+    try {
+      return state.createPersistentRegion(cache).size();
+    } finally {
+      cache.close();
+    }
+  }
+}
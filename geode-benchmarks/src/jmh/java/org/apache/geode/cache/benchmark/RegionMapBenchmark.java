@@ -0,0 +1,128 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.cache.benchmark;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.apache.geode.cache.Cache;
+import org.apache.geode.cache.CacheFactory;
+import org.apache.geode.cache.Region;
+import org.apache.geode.cache.RegionShortcut;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures put/get/destroy through AbstractRegionMap. The key type selects which generated
+ * VM*RegionEntry variant backs the entries (inlined int, long and string keys versus an object key)
+ * and the shortcut selects between the plain heap entries and the LRU/stats entry classes.
+ */
+@Fork(3)
+@Warmup(iterations = 10)
+@Measurement(iterations = 10)
+public class RegionMapBenchmark {
+
+  private static final int ENTRY_COUNT = 100_000;
+
+  @State(Scope.Benchmark)
+  public static class CacheState {
+    @Param({"int", "long", "string", "object"})
+    private String keyType;
+
+    @Param({"LOCAL", "LOCAL_HEAP_LRU"})
+    private RegionShortcut shortcut;
+
+    private Cache cache;
+    private Region<Object, Object> region;
+    private Object[] keys;
+
+    @Setup
+    public void setup() {
+      cache = new CacheFactory().set("mcast-port", "0").set("locators", "").create();
+      region = cache.createRegionFactory(shortcut).create("region");
+
+      keys = new Object[ENTRY_COUNT];
+      for (int i = 0; i < ENTRY_COUNT; i++) {
+        keys[i] = createKey(i);
+        region.put(keys[i], "value" + i);
+      }
+    }
+
+    @TearDown
+    public void tearDown() {
+      cache.close();
+    }
+
+    private Object createKey(int i) {
+      switch (keyType) {
+        case "int":
+          return i;
+        case "long":
+          return (long) i;
+        case "string":
+          // short enough to be inlined into a StringKey1 entry
+          return Integer.toString(i);
+        default:
+          return new ObjectKey(i);
+      }
+    }
+
+    Object randomKey() {
+      return keys[ThreadLocalRandom.current().nextInt(ENTRY_COUNT)];
+    }
+  }
+
+  @Benchmark
+  public Object get(CacheState state) {
+    return state.region.get(state.randomKey());
+  }
+
+  @Benchmark
+  public Object put(CacheState state) {
+    return state.region.put(state.randomKey(), "value");
+  }
+
+  @Benchmark
+  public Object destroyAndCreate(CacheState state) {
+    Object key = state.randomKey();
+    Object oldValue = state.region.remove(key);
+    state.region.put(key, "value");
+    return oldValue;
+  }
+
+  public static class ObjectKey {
+    private final int id;
+
+    public ObjectKey(int id) {
+      this.id = id;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      return o instanceof ObjectKey && ((ObjectKey) o).id == id;
+    }
+
+    @Override
+    public int hashCode() {
+      return id;
+    }
+  }
+}
@@ -0,0 +1,199 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.cache.benchmark;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.geode.DataSerializable;
+import org.apache.geode.DataSerializer;
+import org.apache.geode.cache.Cache;
+import org.apache.geode.cache.CacheFactory;
+import org.apache.geode.internal.HeapDataOutputStream;
+import org.apache.geode.internal.Version;
+import org.apache.geode.pdx.PdxReader;
+import org.apache.geode.pdx.PdxSerializable;
+import org.apache.geode.pdx.PdxWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures DataSerializer/InternalDataSerializer round trips for the well known types, a
+ * DataSerializable and a PdxSerializable value.
+ */
+@Fork(3)
+@Warmup(iterations = 10)
+@Measurement(iterations = 10)
+public class SerializationBenchmark {
+
+  @State(Scope.Benchmark)
+  public static class SerializationState {
+    private Cache cache;
+    private String string;
+    private Map<String, Integer> map;
+    private DataSerializableValue dataSerializable;
+    private PdxValue pdx;
+
+    private byte[] serializedString;
+    private byte[] serializedMap;
+    private byte[] serializedDataSerializable;
+    private byte[] serializedPdx;
+
+    @Setup
+    public void setup() throws IOException {
+      // PDX needs a cache for its type registry
+      cache = new CacheFactory().set("mcast-port", "0").set("locators", "").create();
+
+      string = "a reasonably sized string value used as a payload";
+      map = new HashMap<>();
+      for (int i = 0; i < 16; i++) {
+        map.put("key" + i, i);
+      }
+      dataSerializable = new DataSerializableValue(1, "name", 3.0d);
+      pdx = new PdxValue(1, "name", 3.0d);
+
+      serializedString = serialize(string);
+      serializedMap = serialize(map);
+      serializedDataSerializable = serialize(dataSerializable);
+      serializedPdx = serialize(pdx);
+    }
+
+    @TearDown
+    public void tearDown() {
+      cache.close();
+    }
+  }
+
+  static byte[] serialize(Object o) throws IOException {
+    HeapDataOutputStream out = new HeapDataOutputStream(Version.CURRENT);
+    DataSerializer.writeObject(o, out);
+    return out.toByteArray();
+  }
+
+  static Object deserialize(byte[] bytes) throws IOException, ClassNotFoundException {
+    return DataSerializer.readObject(new DataInputStream(new ByteArrayInputStream(bytes)));
+  }
+
+  @Benchmark
+  public byte[] serializeString(SerializationState state) throws IOException {
+    return serialize(state.string);
+  }
+
+  @Benchmark
+  public Object deserializeString(SerializationState state)
+      throws IOException, ClassNotFoundException {
+    return deserialize(state.serializedString);
+  }
+
+  @Benchmark
+  public byte[] serializeHashMap(SerializationState state) throws IOException {
+    return serialize(state.map);
+  }
+
+  @Benchmark
+  public Object deserializeHashMap(SerializationState state)
+      throws IOException, ClassNotFoundException {
+    return deserialize(state.serializedMap);
+  }
+
+  @Benchmark
+  public byte[] serializeDataSerializable(SerializationState state) throws IOException {
+    return serialize(state.dataSerializable);
+  }
+
+  @Benchmark
+  public Object deserializeDataSerializable(SerializationState state)
+      throws IOException, ClassNotFoundException {
+    return deserialize(state.serializedDataSerializable);
+  }
+
+  @Benchmark
+  public byte[] serializePdx(SerializationState state) throws IOException {
+    return serialize(state.pdx);
+  }
+
+  @Benchmark
+  public Object deserializePdx(SerializationState state)
+      throws IOException, ClassNotFoundException {
+    return deserialize(state.serializedPdx);
+  }
+
+  public static class DataSerializableValue implements DataSerializable {
+    private int id;
+    private String name;
+    private double amount;
+
+    public DataSerializableValue() {}
+
+    public DataSerializableValue(int id, String name, double amount) {
+      this.id = id;
+      this.name = name;
+      this.amount = amount;
+    }
+
+    @Override
+    public void toData(DataOutput out) throws IOException {
+      out.writeInt(id);
+      DataSerializer.writeString(name, out);
+      out.writeDouble(amount);
+    }
+
+    @Override
+    public void fromData(DataInput in) throws IOException, ClassNotFoundException {
+      id = in.readInt();
+      name = DataSerializer.readString(in);
+      amount = in.readDouble();
+    }
+  }
+
+  public static class PdxValue implements PdxSerializable {
+    private int id;
+    private String name;
+    private double amount;
+
+    public PdxValue() {}
+
+    public PdxValue(int id, String name, double amount) {
+      this.id = id;
+      this.name = name;
+      this.amount = amount;
+    }
+
+    @Override
+    public void toData(PdxWriter writer) {
+      writer.writeInt("id", id);
+      writer.writeString("name", name);
+      writer.writeDouble("amount", amount);
+    }
+
+    @Override
+    public void fromData(PdxReader reader) {
+      id = reader.readInt("id");
+      name = reader.readString("name");
+      amount = reader.readDouble("amount");
+    }
+  }
+}
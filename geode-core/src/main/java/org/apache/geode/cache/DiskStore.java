@@ -194,6 +194,15 @@ public interface DiskStore {
    */
   public float getDiskUsageCriticalPercentage();
 
+  /**
+   * Returns the number of oplogs this disk store recovers values from concurrently when a member
+   * restarts.
+   * 
+   * @return the recovery parallelism
+   * @since Geode 1.3.0
+   */
+  public int getRecoveryParallelism();
+
   /**
    * Sets the value of the disk usage warning percentage.
    * 
@@ -130,6 +130,13 @@ public interface DiskStoreFactory {
    */
   public static final float DEFAULT_DISK_USAGE_CRITICAL_PERCENTAGE = 99;
 
+  /**
+   * The default recovery parallelism.
+   * <p>
+   * Current value: <code>1</code>.
+   */
+  public static final int DEFAULT_RECOVERY_PARALLELISM = 1;
+
   /**
    * Set to <code>true</code> to cause the disk files to be automatically compacted. Set to
    * <code>false</code> if no compaction is needed or manual compaction will be used.
@@ -246,6 +253,20 @@ public interface DiskStoreFactory {
    */
   public DiskStoreFactory setDiskUsageCriticalPercentage(float criticalPercent);
 
+  /**
+   * Sets the number of threads used to recover values from the oplogs of this disk store when a
+   * member restarts. Each oplog is read by a single thread, so values are recovered from up to
+   * this many oplogs at once. Keys and versions are always recovered in oplog order by a single
+   * thread before the disk store comes online, so this setting only affects the values recovered in
+   * the background after that.
+   * 
+   * @param recoveryParallelism number of oplogs to recover values from concurrently. Must be
+   *        positive.
+   * @return a reference to <code>this</code>
+   * @since Geode 1.3.0
+   */
+  public DiskStoreFactory setRecoveryParallelism(int recoveryParallelism);
+
   /**
    * Create a new disk store or find an existing one. In either case the returned disk store's
    * configuration will be the same as this factory's configuration.
@@ -0,0 +1,233 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.cache.client.internal;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import org.apache.geode.cache.Region;
+import org.apache.geode.cache.client.PoolManager;
+import org.apache.geode.cache.execute.Execution;
+import org.apache.geode.internal.cache.TXManagerImpl;
+
+/**
+ * Non-blocking variants of the common operations on a region that uses a client pool. Each
+ * operation is the same as the corresponding {@link Region} operation but runs on the pool's async
+ * operation threads (see {@link PoolImpl#executeAsync}) and returns a {@link CompletableFuture}
+ * instead of blocking the caller for the server round trip.
+ * <p>
+ * Gets can optionally be batched: while the configured number of get requests are in flight, new
+ * gets are queued and then sent together as a single getAll when a request completes. Under load
+ * many gets then share one request and one connection; when idle each get is sent right away.
+ * 
+ * @since Geode 1.3.0
+ */
+public class AsyncRegion<K, V> {
+  private final Region<K, V> region;
+  private final PoolImpl pool;
+
+  /**
+   * The number of get requests that may be in flight before further gets are batched. Zero
+   * disables batching.
+   */
+  private final int maxGetsInFlight;
+
+  /**
+   * Gets waiting to be sent, by key. Guarded by {@link #batchLock}.
+   */
+  private Map<K, List<CompletableFuture<V>>> pendingGets =
+      new LinkedHashMap<K, List<CompletableFuture<V>>>();
+
+  /**
+   * The number of get requests currently in flight. Guarded by {@link #batchLock}.
+   */
+  private int getsInFlight = 0;
+
+  private final Object batchLock = new Object();
+
+  /**
+   * Creates async operations for the given region that do not batch gets.
+   * 
+   * @throws IllegalStateException if the region does not have a client pool
+   */
+  public AsyncRegion(Region<K, V> region) {
+    this(region, 0);
+  }
+
+  /**
+   * Creates async operations for the given region that batch gets once
+   * {@code maxGetsInFlight} get requests are in flight.
+   * 
+   * @param maxGetsInFlight the number of get requests to allow in flight before batching, or zero
+   *        to send every get on its own
+   * @throws IllegalStateException if the region does not have a client pool
+   */
+  public AsyncRegion(Region<K, V> region, int maxGetsInFlight) {
+    this(region, findPool(region), maxGetsInFlight);
+  }
+
+  AsyncRegion(Region<K, V> region, PoolImpl pool, int maxGetsInFlight) {
+    if (maxGetsInFlight < 0) {
+      throw new IllegalArgumentException(
+          "maxGetsInFlight must not be negative but was " + maxGetsInFlight);
+    }
+    this.region = region;
+    this.pool = pool;
+    this.maxGetsInFlight = maxGetsInFlight;
+  }
+
+  private static PoolImpl findPool(Region<?, ?> region) {
+    String poolName = region.getAttributes().getPoolName();
+    if (poolName == null || "".equals(poolName)) {
+      throw new IllegalStateException(
+          "The region " + region.getFullPath() + " did not have a client pool configured.");
+    }
+    PoolImpl pool = (PoolImpl) PoolManager.find(poolName);
+    if (pool == null) {
+      throw new IllegalStateException("The pool " + poolName + " does not exist.");
+    }
+    return pool;
+  }
+
+  public Region<K, V> getRegion() {
+    return this.region;
+  }
+
+  /**
+   * @see Region#get(Object)
+   */
+  public CompletableFuture<V> get(K key) {
+    // a transaction is bound to the calling thread so its gets can not share a request
+    if (this.maxGetsInFlight == 0
+        || TXManagerImpl.getCurrentTXUniqueId() != TXManagerImpl.NOTX) {
+      return this.pool.executeAsync(() -> this.region.get(key));
+    }
+    CompletableFuture<V> result = new CompletableFuture<V>();
+    Map<K, List<CompletableFuture<V>>> batch = null;
+    synchronized (this.batchLock) {
+      List<CompletableFuture<V>> waiters = this.pendingGets.get(key);
+      if (waiters == null) {
+        waiters = new ArrayList<CompletableFuture<V>>(1);
+        this.pendingGets.put(key, waiters);
+      }
+      waiters.add(result);
+      if (this.getsInFlight < this.maxGetsInFlight) {
+        batch = takePendingGets();
+      }
+    }
+    if (batch != null) {
+      sendGets(batch);
+    }
+    return result;
+  }
+
+  private Map<K, List<CompletableFuture<V>>> takePendingGets() {
+    Map<K, List<CompletableFuture<V>>> batch = this.pendingGets;
+    this.pendingGets = new LinkedHashMap<K, List<CompletableFuture<V>>>();
+    this.getsInFlight++;
+    return batch;
+  }
+
+  private void sendGets(Map<K, List<CompletableFuture<V>>> batch) {
+    CompletableFuture<Map<K, V>> response;
+    try {
+      if (batch.size() == 1) {
+        K key = batch.keySet().iterator().next();
+        response = this.pool.executeAsync(() -> {
+          V value = this.region.get(key);
+          Map<K, V> values = new LinkedHashMap<K, V>(2);
+          values.put(key, value);
+          return values;
+        });
+      } else {
+        response = this.pool.executeAsync(() -> this.region.getAll(batch.keySet()));
+      }
+    } catch (RuntimeException e) {
+      response = new CompletableFuture<Map<K, V>>();
+      response.completeExceptionally(e);
+    }
+    response.whenComplete((values, failure) -> {
+      if (failure instanceof CompletionException && failure.getCause() != null) {
+        failure = failure.getCause();
+      }
+      for (Map.Entry<K, List<CompletableFuture<V>>> entry : batch.entrySet()) {
+        for (CompletableFuture<V> waiter : entry.getValue()) {
+          if (failure != null) {
+            waiter.completeExceptionally(failure);
+          } else {
+            waiter.complete(values.get(entry.getKey()));
+          }
+        }
+      }
+      Map<K, List<CompletableFuture<V>>> next = null;
+      synchronized (this.batchLock) {
+        this.getsInFlight--;
+        if (!this.pendingGets.isEmpty()) {
+          next = takePendingGets();
+        }
+      }
+      if (next != null) {
+        sendGets(next);
+      }
+    });
+  }
+
+  /**
+   * @see Region#put(Object, Object)
+   */
+  public CompletableFuture<V> put(K key, V value) {
+    return this.pool.executeAsync(() -> this.region.put(key, value));
+  }
+
+  /**
+   * @see Region#getAll(Collection)
+   */
+  public CompletableFuture<Map<K, V>> getAll(Collection<? extends K> keys) {
+    return this.pool.executeAsync(() -> this.region.getAll(keys));
+  }
+
+  /**
+   * @see Region#putAll(Map)
+   */
+  public CompletableFuture<Void> putAll(Map<? extends K, ? extends V> map) {
+    return this.pool.executeAsync(() -> {
+      this.region.putAll(map);
+      return null;
+    });
+  }
+
+  /**
+   * @see Region#remove(Object)
+   */
+  public CompletableFuture<V> remove(Object key) {
+    return this.pool.executeAsync(() -> this.region.remove(key));
+  }
+
+  /**
+   * Executes the function with the given id and completes with its aggregated result. The execution
+   * is usually created with {@code FunctionService.onRegion(getRegion())}.
+   * 
+   * @see Execution#execute(String)
+   */
+  public <OUT, AGG> CompletableFuture<AGG> execute(Execution<?, OUT, AGG> execution,
+      String functionId) {
+    return this.pool.executeAsync(() -> execution.execute(functionId).getResult());
+  }
+}
@@ -25,11 +25,16 @@ import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Properties;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
 
 import org.apache.logging.log4j.Logger;
 
@@ -64,6 +69,7 @@ import org.apache.geode.internal.cache.InternalCache;
 import org.apache.geode.internal.cache.PoolFactoryImpl;
 import org.apache.geode.internal.cache.PoolManagerImpl;
 import org.apache.geode.internal.cache.PoolStats;
+import org.apache.geode.internal.cache.TXManagerImpl;
 import org.apache.geode.internal.cache.tier.sockets.AcceptorImpl;
 import org.apache.geode.internal.cache.tier.sockets.ClientProxyMembershipID;
 import org.apache.geode.internal.i18n.LocalizedStrings;
@@ -93,6 +99,15 @@ public class PoolImpl implements InternalPool {
   private static final int BACKGROUND_TASK_POOL_KEEP_ALIVE = Integer.getInteger(
       DistributionConfig.GEMFIRE_PREFIX + "PoolImpl.BACKGROUND_TASK_POOL_KEEP_ALIVE", 1000);
 
+  /**
+   * The maximum number of threads that run operations submitted through
+   * {@link #executeAsync(Supplier)}. Never more than max-connections when that is limited, since
+   * each running operation holds a connection.
+   */
+  private static final int ASYNC_OP_POOL_SIZE =
+      Integer.getInteger(DistributionConfig.GEMFIRE_PREFIX + "PoolImpl.ASYNC_OP_POOL_SIZE",
+          Runtime.getRuntime().availableProcessors() * 4);
+
   /**
    * For durable client tests only. Connection Sources read this flag and return an empty list of
    * servers.
@@ -134,6 +149,7 @@ public class PoolImpl implements InternalPool {
   protected volatile boolean destroyed;
   private final PoolStats stats;
   private ScheduledExecutorService backgroundProcessor;
+  private ThreadPoolExecutor asyncOpProcessor;
   private final OpExecutorImpl executor;
   private final RegisterInterestTracker riTracker = new RegisterInterestTracker();
   private final InternalDistributedSystem dsys;
@@ -591,6 +607,17 @@ public class PoolImpl implements InternalPool {
             .create(LocalizedStrings.PoolImpl_INTERRUPTED_WHILE_STOPPING_BACKGROUNDPROCESSOR), e);
       }
 
+      try {
+        if (this.asyncOpProcessor != null) {
+          // already submitted operations still run and fail because the pool is destroyed, so
+          // their futures complete
+          this.asyncOpProcessor.shutdown();
+        }
+      } catch (RuntimeException e) {
+        logger.error(LocalizedMessage.create(
+            LocalizedStrings.PoolImpl_ERROR_ENCOUNTERED_WHILE_STOPPING_BACKGROUNDPROCESSOR), e);
+      }
+
       try {
         if (this.source != null) {
           this.source.stop();
@@ -867,6 +894,71 @@ public class PoolImpl implements InternalPool {
     return backgroundProcessor;
   }
 
+  /**
+   * Runs the given client operation, for example a region get or a function execution that uses
+   * this pool, on a bounded set of threads owned by this pool instead of the calling thread. The
+   * returned future completes with the operation's result or exception. Operations waiting for a
+   * thread are queued, so the number of outstanding operations is not limited by the number of
+   * threads. Each running operation still holds one of those threads, and a connection, until its
+   * reply arrives, so at most that many operations are in progress at once.
+   * <p>
+   * The caller's multiuser {@link UserAttributes} are used by the operation. Operations done while
+   * the calling thread is in a transaction are run by the calling thread since transactions are
+   * bound to it.
+   */
+  public <T> CompletableFuture<T> executeAsync(Supplier<T> operation) {
+    getCancelCriterion().checkCancelInProgress(null);
+    if (TXManagerImpl.getCurrentTXUniqueId() != TXManagerImpl.NOTX) {
+      CompletableFuture<T> result = new CompletableFuture<T>();
+      try {
+        result.complete(operation.get());
+      } catch (RuntimeException e) {
+        result.completeExceptionally(e);
+      }
+      return result;
+    }
+    final UserAttributes callerAttributes = UserAttributes.userAttributes.get();
+    try {
+      return CompletableFuture.supplyAsync(() -> {
+        UserAttributes.userAttributes.set(callerAttributes);
+        try {
+          return operation.get();
+        } finally {
+          UserAttributes.userAttributes.remove();
+        }
+      }, getAsyncOpProcessor());
+    } catch (RejectedExecutionException e) {
+      // the pool was destroyed after it was checked above
+      CompletableFuture<T> result = new CompletableFuture<T>();
+      result.completeExceptionally(e);
+      return result;
+    }
+  }
+
+  private synchronized ThreadPoolExecutor getAsyncOpProcessor() {
+    if (this.asyncOpProcessor == null) {
+      getCancelCriterion().checkCancelInProgress(null);
+      int size = ASYNC_OP_POOL_SIZE;
+      if (this.maxConnections > 0) {
+        size = Math.min(size, this.maxConnections);
+      }
+      size = Math.max(1, size);
+      final String threadName = "poolAsyncOp-" + getName() + "-";
+      this.asyncOpProcessor = new ThreadPoolExecutor(size, size, BACKGROUND_TASK_POOL_KEEP_ALIVE,
+          TimeUnit.MILLISECONDS, new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+            AtomicInteger threadNum = new AtomicInteger();
+
+            public Thread newThread(final Runnable r) {
+              Thread result = new Thread(r, threadName + threadNum.incrementAndGet());
+              result.setDaemon(true);
+              return result;
+            }
+          });
+      this.asyncOpProcessor.allowCoreThreadTimeOut(true);
+    }
+    return this.asyncOpProcessor;
+  }
+
   public RegisterInterestTracker getRITracker() {
     return this.riTracker;
   }
@@ -257,7 +257,7 @@ public abstract class AbstractGroupOrRangeJunction extends AbstractCompiledValue
         this.getCondtionsSortedOnIncreasingEstimatedIndexResultSize(context);
 
     // Sort the operands in increasing order of resultset size
-    Iterator i = sortedConditionsList.iterator();
+    ListIterator i = sortedConditionsList.listIterator();
     // SortedSet intersectionSet = new TreeSet(new SelectResultsComparator());
     while (i.hasNext()) {
       // Asif:TODO The intermediate ResultSet should be passed as null when
@@ -286,13 +286,18 @@ public abstract class AbstractGroupOrRangeJunction extends AbstractCompiledValue
       // isConditioningNeeded because there is no provision right now to pass
       // intermediate results from RangeJunction & also no code to utilize the
       // intermediate results in the evaluator created out of RangeJunction.
-      filterResults = filter.filterEvaluate(context,
-          !isConditioningNeeded ? intermediateResults : null, this.completeExpansion,
-          null/*
-               * Asif * Asif :The iter operands passed are null, as a not null value can exists only
-               * if there exists a single Filter operand in original GroupJunction
-               */, this.indpndntItr, _operator == LITERAL_and, isConditioningNeeded,
-          false /* do not evaluate projection */);
+      SelectResults filterInput = !isConditioningNeeded ? intermediateResults : null;
+      context.startOperator(filter, filterInput);
+      try {
+        filterResults = filter.filterEvaluate(context, filterInput, this.completeExpansion,
+            null/*
+                 * Asif * Asif :The iter operands passed are null, as a not null value can exists
+                 * only if there exists a single Filter operand in original GroupJunction
+                 */, this.indpndntItr, _operator == LITERAL_and, isConditioningNeeded,
+            false /* do not evaluate projection */);
+      } finally {
+        context.endOperator(filterResults);
+      }
       if (_operator == LITERAL_and) {
         if (filterResults != null && filterResults.isEmpty()) {
           return filterResults;
@@ -301,7 +306,9 @@ public abstract class AbstractGroupOrRangeJunction extends AbstractCompiledValue
               (intermediateResults == null || !isConditioningNeeded) ? filterResults
                   : QueryUtils.intersection(intermediateResults, filterResults, context);
           i.remove();
-          if (intermediateResults.size() <= indexThresholdSize) {
+          if (intermediateResults.size() <= indexThresholdSize
+              || i.hasNext() && QueryUtils.isIterationCheaperThanIndex(context,
+                  intermediateResults.size(), (Filter) sortedConditionsList.get(i.nextIndex()))) {
             // Abort further intersection , the residual filter operands will be transferred for
             // iter evaluation
             break;
@@ -20,6 +20,7 @@ import org.apache.geode.cache.query.NameResolutionException;
 import org.apache.geode.cache.query.QueryInvocationTargetException;
 import org.apache.geode.cache.query.TypeMismatchException;
 import org.apache.geode.cache.query.internal.aggregate.AvgBucketNode;
+import org.apache.geode.cache.query.internal.aggregate.AvgBucketNodeCombiner;
 import org.apache.geode.cache.query.internal.aggregate.AvgDistinct;
 import org.apache.geode.cache.query.internal.aggregate.AvgDistinctPRQueryNode;
 import org.apache.geode.cache.query.internal.aggregate.AvgPRQueryNode;
@@ -29,6 +30,7 @@ import org.apache.geode.cache.query.internal.aggregate.CountDistinctPRQueryNode;
 import org.apache.geode.cache.query.internal.aggregate.SumDistinctPRQueryNode;
 import org.apache.geode.cache.query.internal.aggregate.CountPRQueryNode;
 import org.apache.geode.cache.query.internal.aggregate.DistinctAggregator;
+import org.apache.geode.cache.query.internal.aggregate.DistinctBucketNodeCombiner;
 import org.apache.geode.cache.query.internal.aggregate.MaxMin;
 import org.apache.geode.cache.query.internal.aggregate.Avg;
 import org.apache.geode.cache.query.internal.aggregate.Sum;
@@ -68,11 +70,14 @@ public class CompiledAggregateFunction extends AbstractCompiledValue {
       TypeMismatchException, NameResolutionException, QueryInvocationTargetException {
     boolean isPRQueryNode = context.getIsPRQueryNode();
     boolean isBucketNode = context.getBucketList() != null;
+    boolean isBucketNodeCombiner = context.getIsBucketNodeCombiner();
     switch (this.aggFuncType) {
 
       case OQLLexerTokenTypes.SUM:
         if (isPRQueryNode) {
           return this.distinctOnly ? new SumDistinctPRQueryNode() : new Sum();
+        } else if (isBucketNodeCombiner) {
+          return this.distinctOnly ? new DistinctBucketNodeCombiner() : new Sum();
         } else {
           return this.distinctOnly ? (isBucketNode ? new DistinctAggregator() : new SumDistinct())
               : new Sum();
@@ -87,6 +92,8 @@ public class CompiledAggregateFunction extends AbstractCompiledValue {
       case OQLLexerTokenTypes.AVG:
         if (isPRQueryNode) {
           return this.distinctOnly ? new AvgDistinctPRQueryNode() : new AvgPRQueryNode();
+        } else if (isBucketNodeCombiner) {
+          return this.distinctOnly ? new DistinctBucketNodeCombiner() : new AvgBucketNodeCombiner();
         } else {
           return this.distinctOnly ? (isBucketNode ? new DistinctAggregator() : new AvgDistinct())
               : (isBucketNode ? new AvgBucketNode() : new Avg());
@@ -95,6 +102,9 @@ public class CompiledAggregateFunction extends AbstractCompiledValue {
       case OQLLexerTokenTypes.COUNT:
         if (isPRQueryNode) {
           return this.distinctOnly ? new CountDistinctPRQueryNode() : new CountPRQueryNode();
+        } else if (isBucketNodeCombiner) {
+          // the counts of the buckets are added up like on the PR query node
+          return this.distinctOnly ? new DistinctBucketNodeCombiner() : new CountPRQueryNode();
         } else {
           return this.distinctOnly ? (isBucketNode ? new DistinctAggregator() : new CountDistinct())
               : new Count();
@@ -38,7 +38,10 @@ import org.apache.geode.cache.query.types.ObjectType;
 import org.apache.geode.cache.query.types.StructType;
 import org.apache.geode.internal.offheap.annotations.Retained;
 import org.apache.geode.pdx.PdxInstance;
+import org.apache.geode.pdx.internal.PdxField;
+import org.apache.geode.pdx.internal.PdxInstanceImpl;
 import org.apache.geode.pdx.internal.PdxString;
+import org.apache.geode.pdx.internal.PdxType;
 
 /**
  * Comparison value: <, >, <=, >=, <>, =
@@ -52,6 +55,12 @@ public class CompiledComparison extends AbstractCompiledValue
   public final CompiledValue _right;
   private int _operator;
 
+  /**
+   * The pdx type and field last read by {@link #comparePdxIntegralField}, so that consecutive
+   * values of the same type skip the field lookup.
+   */
+  private volatile PdxFieldRef lastPdxField;
+
   // List groupRuntimeItrs = null;
   // List definitions = null;
   CompiledComparison(CompiledValue left, CompiledValue right, int op) {
@@ -79,8 +88,21 @@ public class CompiledComparison extends AbstractCompiledValue
 
   public Object evaluate(ExecutionContext context) throws FunctionDomainException,
       TypeMismatchException, NameResolutionException, QueryInvocationTargetException {
-    Object left = _left.evaluate(context);
-    Object right = _right.evaluate(context);
+    Object left;
+    Object right;
+    if (isPdxIntegralFieldCandidate(context)) {
+      CompiledPath path = (CompiledPath) _left;
+      Object target = path.getReceiver().evaluate(context);
+      right = _right.evaluate(context);
+      Boolean result = comparePdxIntegralField(path, target, right);
+      if (result != null) {
+        return result;
+      }
+      left = path.evaluateTail(context, target);
+    } else {
+      left = _left.evaluate(context);
+      right = _right.evaluate(context);
+    }
 
     if (context.isCqQueryContext() && left instanceof Region.Entry) {
       left = ((Region.Entry) left).getValue();
@@ -135,6 +157,81 @@ public class CompiledComparison extends AbstractCompiledValue
     return TypeUtils.compare(left, right, _operator);
   }
 
+  /**
+   * Returns true if this comparison has the form of the common scan predicate {@code p.id > $1},
+   * a field of an iterator compared with a constant, which {@link #comparePdxIntegralField} can
+   * evaluate when the iterator is over pdx values that are read serialized.
+   */
+  private boolean isPdxIntegralFieldCandidate(ExecutionContext context) {
+    if (_left.getType() != PATH || context.isCqQueryContext()) {
+      return false;
+    }
+    int rightType = _right.getType();
+    if (rightType != LITERAL && rightType != QUERY_PARAM) {
+      return false;
+    }
+    int receiverType = ((CompiledPath) _left).getReceiver().getType();
+    return receiverType == Identifier || receiverType == ITERATOR_DEF;
+  }
+
+  /**
+   * Compares an integral field of a pdx instance with an integral constant without deserializing
+   * the value or boxing the field.
+   *
+   * @param target the evaluated receiver of the path
+   * @param right the evaluated constant
+   * @return the result of the comparison, or null if the operands are not of that form and must be
+   *         compared the general way
+   */
+  private Boolean comparePdxIntegralField(CompiledPath path, Object target, Object right) {
+    // subclasses such as WritablePdxInstanceImpl may hold modified fields
+    if (target == null || target.getClass() != PdxInstanceImpl.class) {
+      return null;
+    }
+    if (!(right instanceof Integer || right instanceof Long || right instanceof Short
+        || right instanceof Byte)) {
+      return null;
+    }
+    PdxInstanceImpl pdx = (PdxInstanceImpl) target;
+    PdxType pdxType = pdx.getPdxType();
+    PdxFieldRef ref = this.lastPdxField;
+    if (ref == null || ref.pdxType != pdxType) {
+      ref = new PdxFieldRef(pdxType, pdx.getIntegralField(path.getTailID()));
+      this.lastPdxField = ref;
+    }
+    if (ref.field == null) {
+      return null;
+    }
+    long l = pdx.readIntegralField(ref.field);
+    long r = ((Number) right).longValue();
+    switch (_operator) {
+      case TOK_EQ:
+        return l == r;
+      case TOK_NE:
+        return l != r;
+      case TOK_LT:
+        return l < r;
+      case TOK_LE:
+        return l <= r;
+      case TOK_GT:
+        return l > r;
+      case TOK_GE:
+        return l >= r;
+      default:
+        return null;
+    }
+  }
+
+  private static class PdxFieldRef {
+    final PdxType pdxType;
+    final PdxField field;
+
+    PdxFieldRef(PdxType pdxType, PdxField field) {
+      this.pdxType = pdxType;
+      this.field = field;
+    }
+  }
+
   /**
    * Asif : Evaluates as a filter taking advantage of indexes if appropriate. This function has a
    * meaningful implementation only in CompiledComparison & CompiledUndefined . It is unsupported in
@@ -772,8 +869,9 @@ public class CompiledComparison extends AbstractCompiledValue
     int thatSize = comparedTo.getSizeEstimate(context);
     int thatOperator = comparedTo.getOperator();
 
-    // Go with the lowest cost when hint is used.
-    if (context instanceof QueryExecutionContext && ((QueryExecutionContext) context).hasHints()) {
+    // Go with the lowest cost when hint is used or indexes are selected by cost.
+    if (context.isCostBasedIndexSelection() || context instanceof QueryExecutionContext
+        && ((QueryExecutionContext) context).hasHints()) {
       return thisSize <= thatSize;
     }
 
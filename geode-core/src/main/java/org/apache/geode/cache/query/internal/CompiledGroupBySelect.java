@@ -156,12 +156,23 @@ public class CompiledGroupBySelect extends CompiledSelect {
 
   }
 
+  @Override
+  boolean canStreamResults() {
+    return false;
+  }
+
   @Override
   public SelectResults evaluate(ExecutionContext context) throws FunctionDomainException,
       TypeMismatchException, NameResolutionException, QueryInvocationTargetException {
     SelectResults sr = super.evaluate(context);
-    return this.applyAggregateAndGroupBy(sr, context);
-
+    context.startOperator(QueryProfile.GROUP_BY, sr);
+    SelectResults results = null;
+    try {
+      results = this.applyAggregateAndGroupBy(sr, context);
+      return results;
+    } finally {
+      context.endOperator(results);
+    }
   }
 
   public SelectResults applyAggregateAndGroupBy(SelectResults baseResults, ExecutionContext context)
@@ -22,6 +22,7 @@ import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.ListIterator;
 import java.util.Map;
 import java.util.Set;
 
@@ -266,7 +267,7 @@ public class CompiledJunction extends AbstractCompiledValue implements Negatable
         this.getCondtionsSortedOnIncreasingEstimatedIndexResultSize(context);
 
     // Sort the operands in increasing order of resultset size
-    Iterator sortedConditionsItr = sortedConditionsList.iterator();
+    ListIterator sortedConditionsItr = sortedConditionsList.listIterator();
     while (sortedConditionsItr.hasNext()) {
       // Asif:TODO The intermediate ResultSet should be passed as null when invoking
       // filterEvaluate. Just because filterEvaluate is being called, itself
@@ -280,8 +281,14 @@ public class CompiledJunction extends AbstractCompiledValue implements Negatable
       // recursion being ended by evaluating auxIterEvaluate if any. The passing
       // of IntermediateResult in filterEvalaute causes AND junction evaluation
       // to be corrupted , if the intermediateResultset contains some value.
-      SelectResults filterResults =
-          ((Filter) sortedConditionsItr.next()).filterEvaluate(context, null);
+      Filter filter = (Filter) sortedConditionsItr.next();
+      SelectResults filterResults = null;
+      context.startOperator(filter);
+      try {
+        filterResults = filter.filterEvaluate(context, null);
+      } finally {
+        context.endOperator(filterResults);
+      }
       if (_operator == LITERAL_and) {
         if (filterResults != null && filterResults.isEmpty()) {
           return filterResults;
@@ -291,7 +298,10 @@ public class CompiledJunction extends AbstractCompiledValue implements Negatable
 
           sortedConditionsItr.remove();
 
-          if (intermediateResults.size() <= indexThresholdSize) {
+          if (intermediateResults.size() <= indexThresholdSize
+              || sortedConditionsItr.hasNext() && QueryUtils.isIterationCheaperThanIndex(context,
+                  intermediateResults.size(),
+                  (Filter) sortedConditionsList.get(sortedConditionsItr.nextIndex()))) {
             // Abort further intersection , the remaining filter operands will be
             // transferred for
             // iter evaluation
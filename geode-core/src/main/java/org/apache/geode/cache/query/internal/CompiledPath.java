@@ -136,6 +136,14 @@ public class CompiledPath extends AbstractCompiledValue {
     // getTailID());
     // }
 
+    return evaluateTail(context, evalRcvr);
+  }
+
+  /**
+   * Evaluates the tail of this path on the already evaluated receiver.
+   */
+  Object evaluateTail(ExecutionContext context, Object evalRcvr) throws FunctionDomainException,
+      TypeMismatchException, NameResolutionException, QueryInvocationTargetException {
     Object obj = PathUtils.evaluateAttribute(evalRcvr, getTailID());
     // check for BucketRegion substitution
     PartitionedRegion pr = context.getPartitionedRegion();
@@ -0,0 +1,163 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.cache.query.internal;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.geode.cache.query.internal.parse.GemFireAST;
+
+/**
+ * A bounded cache of parsed queries keyed by their normalized query text. Applications that run the
+ * same parameterized queries over and over have each query parsed once instead of every time a
+ * {@link DefaultQuery} is created. The least recently used query is dropped once the cache is full.
+ *
+ * Only the parse tree is shared. Every {@link #compile} returns a new compiled tree, since a
+ * compiled select is transformed for the regions it is executed on when it is first evaluated.
+ * The parse tree depends on nothing but the query text, so entries do not need to be invalidated
+ * when indexes or regions change.
+ */
+class CompiledQueryCache {
+
+  private final int maxSize;
+
+  private final Map<String, GemFireAST> entries;
+
+  private final AtomicLong hits = new AtomicLong();
+
+  private final AtomicLong misses = new AtomicLong();
+
+  /**
+   * @param maxSize the number of compiled queries to keep; zero or less disables the cache
+   */
+  CompiledQueryCache(final int maxSize) {
+    this.maxSize = maxSize;
+    this.entries = new LinkedHashMap<String, GemFireAST>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<String, GemFireAST> eldest) {
+        return size() > CompiledQueryCache.this.maxSize;
+      }
+    };
+  }
+
+  /**
+   * Returns a new compiled tree of the given query, parsing the query if it is not already cached.
+   *
+   * @throws org.apache.geode.cache.query.QueryInvalidException if the query does not compile
+   */
+  Entry compile(String queryString) {
+    QCompiler compiler = new QCompiler();
+    CompiledValue compiledQuery = compiler.compileQuery(parse(queryString));
+    return new Entry(compiledQuery, compiler.isTraceRequested());
+  }
+
+  private GemFireAST parse(String queryString) {
+    if (this.maxSize <= 0) {
+      return QCompiler.parseQuery(queryString);
+    }
+    String key = normalize(queryString);
+    GemFireAST parsedQuery;
+    synchronized (this.entries) {
+      parsedQuery = this.entries.get(key);
+    }
+    if (parsedQuery != null) {
+      this.hits.incrementAndGet();
+      return parsedQuery;
+    }
+    this.misses.incrementAndGet();
+    parsedQuery = QCompiler.parseQuery(queryString);
+    synchronized (this.entries) {
+      GemFireAST existing = this.entries.putIfAbsent(key, parsedQuery);
+      if (existing != null) {
+        parsedQuery = existing;
+      }
+    }
+    return parsedQuery;
+  }
+
+  /**
+   * Collapses each run of whitespace outside of quoted literals into a single character so that
+   * queries differing only in layout share a cache entry. A run that contains a line break becomes
+   * a line break so that "--" comments still end where they did.
+   */
+  static String normalize(String queryString) {
+    String trimmed = queryString.trim();
+    StringBuilder sb = new StringBuilder(trimmed.length());
+    char quote = 0;
+    boolean inWhitespace = false;
+    boolean sawNewline = false;
+    for (int i = 0; i < trimmed.length(); i++) {
+      char c = trimmed.charAt(i);
+      if (quote == 0 && Character.isWhitespace(c)) {
+        inWhitespace = true;
+        sawNewline |= c == '\n' || c == '\r';
+        continue;
+      }
+      if (inWhitespace) {
+        sb.append(sawNewline ? '\n' : ' ');
+        inWhitespace = false;
+        sawNewline = false;
+      }
+      if (quote == 0) {
+        if (c == '\'' || c == '"') {
+          quote = c;
+        }
+      } else if (c == quote) {
+        // a doubled quote escapes a quote; ending the literal and starting it again on the next
+        // char comes to the same thing
+        quote = 0;
+      }
+      sb.append(c);
+    }
+    return sb.toString();
+  }
+
+  void clear() {
+    synchronized (this.entries) {
+      this.entries.clear();
+    }
+  }
+
+  int size() {
+    synchronized (this.entries) {
+      return this.entries.size();
+    }
+  }
+
+  long getHits() {
+    return this.hits.get();
+  }
+
+  long getMisses() {
+    return this.misses.get();
+  }
+
+  /**
+   * A compiled query along with what the compiler found out about it while compiling. Each entry
+   * has a compiled tree of its own.
+   */
+  static class Entry {
+
+    final CompiledValue compiledQuery;
+
+    final boolean traceRequested;
+
+    Entry(CompiledValue compiledQuery, boolean traceRequested) {
+      this.compiledQuery = compiledQuery;
+      this.traceRequested = traceRequested;
+    }
+  }
+}
@@ -384,12 +384,32 @@ public class CompiledSelect extends AbstractCompiledValue {
     return results;
   }
 
+  /**
+   * Returns true if the results of this select can be passed to a {@link StreamingResultsHandler}
+   * while it is evaluated, which is not the case if they are processed further once collected.
+   */
+  boolean canStreamResults() {
+    return true;
+  }
+
   public ObjectType getElementTypeForOrderByQueries() {
     return this.cachedElementTypeForOrderBy;
   }
 
   public SelectResults evaluate(ExecutionContext context) throws FunctionDomainException,
       TypeMismatchException, NameResolutionException, QueryInvocationTargetException {
+    context.startOperator(QueryProfile.SELECT);
+    SelectResults results = null;
+    try {
+      results = evaluateSelect(context);
+      return results;
+    } finally {
+      context.endOperator(results);
+    }
+  }
+
+  private SelectResults evaluateSelect(ExecutionContext context) throws FunctionDomainException,
+      TypeMismatchException, NameResolutionException, QueryInvocationTargetException {
     context.newScope((Integer) context.cacheGet(scopeID));
     context.pushExecCache((Integer) context.cacheGet(scopeID));
     context.setDistinct(this.distinct);
@@ -533,7 +553,12 @@ public class CompiledSelect extends AbstractCompiledValue {
               }
 
 
-              result = ((Filter) this.whereClause).filterEvaluate(context, null);
+              context.startOperator(this.whereClause);
+              try {
+                result = ((Filter) this.whereClause).filterEvaluate(context, null);
+              } finally {
+                context.endOperator(result);
+              }
               if (!(context.cacheGet(RESULT_TYPE) instanceof Boolean)) {
                 QueryObserverHolder.getInstance()
                     .beforeApplyingProjectionOnFilterEvaluatedResults(result);
@@ -677,31 +702,36 @@ public class CompiledSelect extends AbstractCompiledValue {
       QueryInvocationTargetException {
 
     SelectResults results = prepareEmptyResultSet(context, false);
-
-    // TODO: SELF : Work on limit implementation on bulk get
-    // check for bulk get optimization
-    if (evaluateWhereClause) {
-      List tmpResults = optimizeBulkGet(context);
-      if (tmpResults != null) {
-        // (has only one iterator)
-        RuntimeIterator rIter = (RuntimeIterator) context.getCurrentIterators().get(0);
-        for (Iterator itr = tmpResults.iterator(); itr.hasNext();) {
-          Object currObj = itr.next();
-          rIter.setCurrent(currObj);
-          QueryObserver observer = QueryObserverHolder.getInstance();
-          observer.beforeIterationEvaluation(rIter, currObj);
-          applyProjectionAndAddToResultSet(context, results, this.orderByAttrs == null);
+    context.startOperator(QueryProfile.ITERATE);
+    try {
+      // TODO: SELF : Work on limit implementation on bulk get
+      // check for bulk get optimization
+      if (evaluateWhereClause) {
+        List tmpResults = optimizeBulkGet(context);
+        if (tmpResults != null) {
+          // (has only one iterator)
+          RuntimeIterator rIter = (RuntimeIterator) context.getCurrentIterators().get(0);
+          for (Iterator itr = tmpResults.iterator(); itr.hasNext();) {
+            Object currObj = itr.next();
+            rIter.setCurrent(currObj);
+            QueryObserver observer = QueryObserverHolder.getInstance();
+            observer.beforeIterationEvaluation(rIter, currObj);
+            context.countOperatorRowIn();
+            applyProjectionAndAddToResultSet(context, results, this.orderByAttrs == null);
+          }
+          return results;
         }
-        return results;
       }
+      int numElementsInResult = 0;
+      try {
+        doNestedIterations(0, results, context, evaluateWhereClause, numElementsInResult);
+      } catch (CompiledSelect.NullIteratorException ignore) {
+        return null;
+      }
+      return results;
+    } finally {
+      context.endOperator(results);
     }
-    int numElementsInResult = 0;
-    try {
-      doNestedIterations(0, results, context, evaluateWhereClause, numElementsInResult);
-    } catch (CompiledSelect.NullIteratorException ignore) {
-      return null;
-    }
-    return results;
   }
 
   // TODO: make this more general to work for any kind of map, not just regions
@@ -767,6 +797,7 @@ public class CompiledSelect extends AbstractCompiledValue {
       QueryInvocationTargetException, CompiledSelect.NullIteratorException {
     List iterList = context.getCurrentIterators();
     if (level == iterList.size()) {
+      context.countOperatorRowIn();
       boolean addToResults = true;
       if (evaluateWhereClause) {
         Object result = this.whereClause.evaluate(context);
@@ -865,6 +896,10 @@ public class CompiledSelect extends AbstractCompiledValue {
         resultSet.setElementType(type);
       }
 
+      // The results of an index lookup are returned without passing through the container of
+      // this select, so they are not streamed to a StreamingResultsHandler but sent once complete.
+      // Copying them into a streaming container would not save memory since they are already
+      // collected.
       return resultSet;
     } else {
       int numElementsAdded = 0;
@@ -979,6 +1014,7 @@ public class CompiledSelect extends AbstractCompiledValue {
     boolean nullValuesAtStart = orderByAttrs != null && !orderByAttrs.get(0).getCriterion();
     OrderByComparator comparator;
     boolean isOrdered = this.orderByAttrs != null;
+    StreamingResultsHandler handler = context.getStreamingResultsHandler(this);
 
     switch (DataContainerType.determineDataContainerType(isOrdered, distinct,
         elementType.isStructType(), ignoreOrderBy)) {
@@ -987,8 +1023,15 @@ public class CompiledSelect extends AbstractCompiledValue {
       case UNORDERED_DISTINCT_RESULTS:
         return new ResultsSet(elementType);
       case UNORDERED_INDISTINCT_STRUCT:
+        if (handler != null) {
+          return new StreamingStructBag((StructType) elementType, context.getCachePerfStats(),
+              handler);
+        }
         return new StructBag((StructType) elementType, context.getCachePerfStats());
       case UNORDERED_INDISTINCT_RESULTS:
+        if (handler != null) {
+          return new StreamingResultsBag(elementType, context.getCachePerfStats(), handler);
+        }
         return new ResultsBag(elementType, context.getCachePerfStats());
 
       case ORDERED_DISTINCT_STRUCT_IGNORED:
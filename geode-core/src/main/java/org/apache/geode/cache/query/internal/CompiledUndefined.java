@@ -269,8 +269,9 @@ public class CompiledUndefined extends AbstractCompiledValue implements Negatabl
     int thatSize = comparedTo.getSizeEstimate(context);
     int thatOperator = comparedTo.getOperator();
 
-    // Go with the lowest cost when hint is used.
-    if (context instanceof QueryExecutionContext && ((QueryExecutionContext) context).hasHints()) {
+    // Go with the lowest cost when hint is used or indexes are selected by cost.
+    if (context.isCostBasedIndexSelection() || context instanceof QueryExecutionContext
+        && ((QueryExecutionContext) context).hasHints()) {
       return thisSize <= thatSize;
     }
 
@@ -48,14 +48,17 @@ import org.apache.geode.cache.query.RegionNotFoundException;
 import org.apache.geode.cache.query.SelectResults;
 import org.apache.geode.cache.query.TypeMismatchException;
 import org.apache.geode.cache.query.internal.cq.InternalCqQuery;
+import org.apache.geode.cache.query.internal.index.IndexManager;
 import org.apache.geode.distributed.internal.DistributionConfig;
 import org.apache.geode.internal.NanoTimer;
 import org.apache.geode.internal.cache.BucketRegion;
 import org.apache.geode.internal.cache.CachePerfStats;
 import org.apache.geode.internal.cache.InternalCache;
 import org.apache.geode.internal.cache.LocalDataSet;
+import org.apache.geode.internal.cache.LocalRegion;
 import org.apache.geode.internal.cache.PRQueryProcessor;
 import org.apache.geode.internal.cache.PartitionedRegion;
+import org.apache.geode.internal.cache.PartitionedRegionDataStore;
 import org.apache.geode.internal.cache.TXManagerImpl;
 import org.apache.geode.internal.cache.TXStateProxy;
 import org.apache.geode.internal.i18n.LocalizedStrings;
@@ -81,6 +84,18 @@ public class DefaultQuery implements Query {
 
   private boolean traceOn = false;
 
+  /**
+   * The profile of the latest completed execution of this query, if it was profiled. Executions
+   * record into their own profile, see {@link #getExecutionProfile()}.
+   */
+  private volatile QueryProfile lastProfile;
+
+  /**
+   * The innermost profiled execution running on this thread
+   */
+  private static final ThreadLocal<ProfiledExecution> profiledExecution =
+      new ThreadLocal<ProfiledExecution>();
+
   private static final Object[] EMPTY_ARRAY = new Object[0];
 
   public static boolean QUERY_VERBOSE =
@@ -96,6 +111,17 @@ public class DefaultQuery implements Query {
 
   public static int TEST_COMPILED_QUERY_CLEAR_TIME = -1;
 
+  /**
+   * System property to set how many parsed queries are kept so that creating a query whose text was
+   * seen before skips parsing. By default its set to 0 which disables the cache.
+   */
+  public static final int COMPILED_QUERY_CACHE_SIZE = Integer
+      .getInteger(DistributionConfig.GEMFIRE_PREFIX + "Query.COMPILED_QUERY_CACHE_SIZE", 0);
+
+  /** Not final so tests can set it. */
+  static CompiledQueryCache compiledQueryCache =
+      new CompiledQueryCache(COMPILED_QUERY_CACHE_SIZE);
+
   /**
    * Use to represent null result. Used while adding PR results to the results-queue, which is a
    * blocking queue.
@@ -131,6 +157,12 @@ public class DefaultQuery implements Query {
   private static final ThreadLocal<Boolean> pdxReadSerialized =
       ThreadLocal.withInitial(() -> Boolean.FALSE);
 
+  /**
+   * The handler that queries executed by this thread stream their results to, if any.
+   */
+  private static final ThreadLocal<StreamingResultsHandler> streamingResultsHandler =
+      new ThreadLocal<>();
+
   /** indicates query executed remotely */
   private boolean isRemoteQuery = false;
 
@@ -267,8 +299,8 @@ public class DefaultQuery implements Query {
    */
   public DefaultQuery(String queryString, InternalCache cache, boolean isForRemote) {
     this.queryString = queryString;
-    QCompiler compiler = new QCompiler();
-    this.compiledQuery = compiler.compileQuery(queryString);
+    CompiledQueryCache.Entry compiled = compiledQueryCache.compile(queryString);
+    this.compiledQuery = compiled.compiledQuery;
     CompiledSelect cs = getSimpleSelect();
     if (cs != null && !isForRemote && (cs.isGroupBy() || cs.isOrderBy())) {
       QueryExecutionContext ctx = new QueryExecutionContext(null, cache);
@@ -278,7 +310,7 @@ public class DefaultQuery implements Query {
         throw new QueryInvalidException("", qe);
       }
     }
-    this.traceOn = compiler.isTraceRequested() || QUERY_VERBOSE;
+    this.traceOn = compiled.traceRequested || QUERY_VERBOSE;
     this.cache = cache;
     this.stats = new DefaultQueryStatistics();
   }
@@ -291,6 +323,21 @@ public class DefaultQuery implements Query {
     pdxReadSerialized.set(readSerialized);
   }
 
+  /**
+   * Sets the handler that queries executed by this thread pass their results to in chunks while
+   * they are evaluated, or null to collect all results before returning them. Queries on
+   * partitioned regions are not streamed. A {@code select *} whose where clause is evaluated with
+   * an index returns the results of the index lookup as they are, so it is not streamed either and
+   * all of its results are returned once complete.
+   */
+  public static void setStreamingResultsHandler(StreamingResultsHandler handler) {
+    if (handler == null) {
+      streamingResultsHandler.remove();
+    } else {
+      streamingResultsHandler.set(handler);
+    }
+  }
+
   /**
    * helper method for setPdxReadSerialized
    */
@@ -351,8 +398,8 @@ public class DefaultQuery implements Query {
     try {
       // Setting the readSerialized flag for local queries
       setPdxReadSerialized(this.cache, true);
-      ExecutionContext context = new QueryExecutionContext(params, this.cache, this);
       indexObserver = this.startTrace();
+      ExecutionContext context = new QueryExecutionContext(params, this.cache, this);
       if (qe != null) {
         if (DefaultQuery.testHook != null) {
           DefaultQuery.testHook.doTestHook(1);
@@ -382,6 +429,12 @@ public class DefaultQuery implements Query {
       }
 
       context.setCqQueryContext(this.isCqQuery);
+      StreamingResultsHandler handler = streamingResultsHandler.get();
+      if (handler != null && this.compiledQuery instanceof CompiledSelect
+          && ((CompiledSelect) this.compiledQuery).canStreamResults()) {
+        ((QueryExecutionContext) context).setStreamingResultsHandler(
+            (CompiledSelect) this.compiledQuery, handler);
+      }
       result = executeUsingContext(context);
       // Only wrap/copy results when copy on read is set and an index is used
       // This is because when an index is used, the results are actual references to values in the
@@ -548,6 +601,12 @@ public class DefaultQuery implements Query {
         DefaultQuery.testHook.doTestHook(6);
       }
       Object results = null;
+      long asyncIndexUpdateWait = IndexManager.TEST_ASYNC_INDEX_UPDATE_QUERY_WAIT > 0
+          ? IndexManager.TEST_ASYNC_INDEX_UPDATE_QUERY_WAIT
+          : IndexManager.ASYNC_INDEX_UPDATE_QUERY_WAIT;
+      if (asyncIndexUpdateWait > 0) {
+        waitForAsyncIndexUpdates(context, asyncIndexUpdateWait);
+      }
       try {
         // two-pass evaluation.
         // first pre-compute dependencies, cached in the context.
@@ -580,6 +639,50 @@ public class DefaultQuery implements Query {
     }
   }
 
+  /**
+   * Waits for the asynchronous index maintenance of the regions the query reads, or of the buckets
+   * of the context for a partitioned region, to apply the updates of the operations completed
+   * before the query started. Stops waiting once the timeout elapsed, in which case the query may
+   * not see the latest updates.
+   */
+  private void waitForAsyncIndexUpdates(ExecutionContext context, long timeoutMs) {
+    List<IndexManager> indexManagers = new ArrayList<>();
+    for (Object regionPath : getRegionsInQuery(context.bindArguments)) {
+      Region region = this.cache.getRegion((String) regionPath);
+      if (region instanceof PartitionedRegion) {
+        PartitionedRegionDataStore dataStore = ((PartitionedRegion) region).getDataStore();
+        if (dataStore != null && context.getBucketList() != null) {
+          for (Object bucketId : context.getBucketList()) {
+            BucketRegion bucket = dataStore.getLocalBucketById((Integer) bucketId);
+            if (bucket != null && bucket.getIndexManager() != null) {
+              indexManagers.add(bucket.getIndexManager());
+            }
+          }
+        }
+      } else if (region instanceof LocalRegion) {
+        IndexManager indexManager = ((LocalRegion) region).getIndexManager();
+        if (indexManager != null) {
+          indexManagers.add(indexManager);
+        }
+      }
+    }
+    long deadline = System.currentTimeMillis() + timeoutMs;
+    try {
+      for (IndexManager indexManager : indexManagers) {
+        long remaining = Math.max(deadline - System.currentTimeMillis(), 0);
+        if (!indexManager.waitForPendingIndexUpdates(remaining)) {
+          if (this.cache.getLogger().fineEnabled()) {
+            this.cache.getLogger().fine("Timed out waiting for the index updates of region "
+                + indexManager.getRegion().getFullPath() + " before query " + this.queryString);
+          }
+          return;
+        }
+      }
+    } catch (InterruptedException ignore) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
   private QueryExecutor checkQueryOnPR(Object[] parameters)
       throws RegionNotFoundException, PartitionOfflineException {
 
@@ -745,6 +848,72 @@ public class DefaultQuery implements Query {
     return this.traceOn;
   }
 
+  /**
+   * Returns the profile of the latest completed execution of this query, or null if it was not
+   * profiled.
+   *
+   * @see QueryProfile
+   */
+  public QueryProfile getProfile() {
+    return this.lastProfile;
+  }
+
+  /**
+   * Returns the profile of the execution of this query started by {@link #startTrace()} on this
+   * thread, or null if it is not profiled. Concurrent executions of the same query each have their
+   * own profile.
+   */
+  public QueryProfile getExecutionProfile() {
+    ProfiledExecution execution = getProfiledExecution();
+    return execution == null ? null : execution.profile;
+  }
+
+  private ProfiledExecution getProfiledExecution() {
+    ProfiledExecution execution = profiledExecution.get();
+    return execution != null && execution.query == this ? execution : null;
+  }
+
+  /**
+   * Ends the profile of the given execution unless it is a nested trace of the same execution.
+   *
+   * @return the profile of the execution, or null if there is none
+   */
+  private QueryProfile endProfiledExecution(ProfiledExecution execution, int resultSize) {
+    if (execution == null) {
+      return null;
+    }
+    if (execution.nestedTraces > 0) {
+      execution.nestedTraces--;
+      return execution.profile;
+    }
+    if (execution.outer == null) {
+      profiledExecution.remove();
+    } else {
+      profiledExecution.set(execution.outer);
+    }
+    execution.profile.executionEnded(resultSize);
+    this.lastProfile = execution.profile;
+    return execution.profile;
+  }
+
+  /**
+   * A profiled execution of a query on one thread, from startTrace to endTrace
+   */
+  private static class ProfiledExecution {
+    final DefaultQuery query;
+    final QueryProfile profile;
+    /** the execution of another query this one is running in */
+    final ProfiledExecution outer;
+    /** the number of startTrace calls for this execution that are not ended yet, less one */
+    int nestedTraces;
+
+    ProfiledExecution(DefaultQuery query, QueryProfile profile, ProfiledExecution outer) {
+      this.query = query;
+      this.profile = profile;
+      this.outer = outer;
+    }
+  }
+
   class DefaultQueryStatistics implements QueryStatistics {
 
     /**
@@ -1023,6 +1192,14 @@ public class DefaultQuery implements Query {
   }
 
   public QueryObserver startTrace() {
+    ProfiledExecution execution = getProfiledExecution();
+    if (execution != null) {
+      // the same execution traced again, for example by the LocalDataSet it runs on
+      execution.nestedTraces++;
+    } else if (this.traceOn || QueryProfile.isProfilingAllQueries()) {
+      profiledExecution.set(new ProfiledExecution(this, new QueryProfile(this.queryString),
+          profiledExecution.get()));
+    }
     QueryObserver queryObserver = null;
     if (this.traceOn && this.cache != null) {
 
@@ -1040,35 +1217,46 @@ public class DefaultQuery implements Query {
   }
 
   public void endTrace(QueryObserver indexObserver, long startTime, Object result) {
-    if (this.traceOn && this.cache != null) {
+    ProfiledExecution execution = getProfiledExecution();
+    if (this.traceOn && this.cache != null || execution != null) {
       int resultSize = -1;
 
       if (result instanceof Collection) {
         resultSize = ((Collection) result).size();
       }
+      QueryProfile queryProfile = endProfiledExecution(execution, resultSize);
 
-      String queryVerboseMsg =
-          DefaultQuery.getLogMessage(indexObserver, startTime, resultSize, this.queryString);
-      this.cache.getLogger().info(queryVerboseMsg);
+      if (this.traceOn && this.cache != null) {
+        String queryVerboseMsg =
+            DefaultQuery.getLogMessage(indexObserver, startTime, resultSize, this.queryString);
+        this.cache.getLogger().info(appendProfile(queryVerboseMsg, queryProfile));
+      }
     }
   }
 
   public void endTrace(QueryObserver indexObserver, long startTime, Collection<Collection> result) {
-    if (this.cache != null && this.cache.getLogger().infoEnabled() && this.traceOn) {
+    ProfiledExecution execution = getProfiledExecution();
+    if (this.cache != null && this.cache.getLogger().infoEnabled() && this.traceOn
+        || execution != null) {
       int resultSize = 0;
 
       for (Collection aResult : result) {
         resultSize += aResult.size();
       }
+      QueryProfile queryProfile = endProfiledExecution(execution, resultSize);
 
-      String queryVerboseMsg =
-          DefaultQuery.getLogMessage(indexObserver, startTime, resultSize, this.queryString);
-      if (this.cache.getLogger().infoEnabled()) {
-        this.cache.getLogger().info(queryVerboseMsg);
+      if (this.cache != null && this.cache.getLogger().infoEnabled() && this.traceOn) {
+        String queryVerboseMsg =
+            DefaultQuery.getLogMessage(indexObserver, startTime, resultSize, this.queryString);
+        this.cache.getLogger().info(appendProfile(queryVerboseMsg, queryProfile));
       }
     }
   }
 
+  private static String appendProfile(String queryVerboseMsg, QueryProfile queryProfile) {
+    return queryProfile == null ? queryVerboseMsg : queryVerboseMsg + "\n" + queryProfile;
+  }
+
   public boolean isRemoteQuery() {
     return this.isRemoteQuery;
   }
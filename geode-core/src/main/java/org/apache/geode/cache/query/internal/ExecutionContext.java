@@ -15,6 +15,7 @@
 package org.apache.geode.cache.query.internal;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -92,6 +93,7 @@ public class ExecutionContext {
   private boolean distinct = false;
   private Object currentProjectionField = null;
   private boolean isPRQueryNode = false;
+  private boolean isBucketNodeCombiner = false;
 
   /**
    * Param specialIteratorVar name of special variable to use to denote the current iteration
@@ -585,10 +587,61 @@ public class ExecutionContext {
     return false;
   }
 
+  /**
+   * Returns true if the conditions of a query that can use an index are chosen by their estimated
+   * result sizes rather than preferred by their operator.
+   */
+  public boolean isCostBasedIndexSelection() {
+    return IndexManager.COST_BASED_INDEX_SELECTION || IndexManager.TEST_COST_BASED_INDEX_SELECTION;
+  }
+
+  public StreamingResultsHandler getStreamingResultsHandler(CompiledSelect select) {
+    return null;
+  }
+
   public List getBucketList() {
     return null;
   }
 
+  /**
+   * Returns the profile of the query evaluated in this context, or null if it is not profiled.
+   */
+  public QueryProfile getProfile() {
+    return null;
+  }
+
+  /**
+   * Starts recording an invocation of an operator of a profiled query, nested in the operator
+   * invoked last. The operator is a compiled value, an index, the id of a bucket or the name of
+   * an operator. Every call has to be paired with a call to {@link #endOperator(Object)}.
+   */
+  public void startOperator(Object operator) {
+    startOperator(operator, null);
+  }
+
+  /**
+   * Starts recording an invocation of an operator whose rows in are the elements of the input, if
+   * not null.
+   */
+  public void startOperator(Object operator, Collection input) {}
+
+  /**
+   * Starts recording an invocation of an operator that adds its rows out to the results rather
+   * than returning them. Rows already in the results are not counted.
+   */
+  public void startOperatorAddingTo(Object operator, Collection results) {}
+
+  /**
+   * Counts a row going into the operator invoked last.
+   */
+  public void countOperatorRowIn() {}
+
+  /**
+   * Ends recording the operator invoked last, whose rows out are the elements of the results if
+   * they are a collection.
+   */
+  public void endOperator(Object results) {}
+
   public void pushExecCache(int scopeNum) {
     throw new UnsupportedOperationException("Method should not have been called");
   }
@@ -645,4 +698,16 @@ public class ExecutionContext {
     return this.isPRQueryNode;
   }
 
+  /**
+   * Marks this context as combining the partial aggregates computed on the buckets of a member,
+   * which keeps them in their partial form for the PR query node.
+   */
+  public void setIsBucketNodeCombiner(boolean isBucketNodeCombiner) {
+    this.isBucketNodeCombiner = isBucketNodeCombiner;
+  }
+
+  public boolean getIsBucketNodeCombiner() {
+    return this.isBucketNodeCombiner;
+  }
+
 }
@@ -18,6 +18,7 @@
 package org.apache.geode.cache.query.internal;
 
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
 import org.apache.geode.cache.query.FunctionDomainException;
 import org.apache.geode.cache.query.NameResolutionException;
@@ -162,6 +163,22 @@ public class GroupJunction extends AbstractGroupOrRangeJunction {
           }
         }
         evalOperands.add(0, currentBestFilter);
+        if (context.isCostBasedIndexSelection()) {
+          // Intersect with the index results of the other conditions that are estimated to be
+          // cheaper to fetch than to evaluate on the results of the best one
+          List indexOperands = new ArrayList();
+          for (Iterator itr = evalOperands.listIterator(1); itr.hasNext();) {
+            CompiledValue operand = (CompiledValue) itr.next();
+            PlanInfo pi = operand.getPlanInfo(context);
+            if (pi.evalAsFilter && pi.indexes.size() == 1 && QueryUtils
+                .isIndexCheaperThanIteration(context, currentBestFilterSize, (Filter) operand)) {
+              itr.remove();
+              indexOperands.add(operand);
+            }
+          }
+          evalOperands.addAll(1, indexOperands);
+          indexCount += indexOperands.size();
+        }
       }
     } else {
       indexCount = _operands.length;
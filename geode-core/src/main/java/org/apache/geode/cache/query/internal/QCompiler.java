@@ -71,6 +71,15 @@ public class QCompiler implements OQLLexerTokenTypes {
    * compile the string into a Query (returns the root CompiledValue)
    */
   public CompiledValue compileQuery(String oqlSource) {
+    return compileQuery(parseQuery(oqlSource));
+  }
+
+  /**
+   * Parses a query without compiling it. Compiling does not modify the returned tree, so it can be
+   * compiled any number of times, also by several threads at once, and each compilation returns
+   * a new CompiledValue tree.
+   */
+  static GemFireAST parseQuery(String oqlSource) {
     try {
       OQLLexer lexer = new OQLLexer(new StringReader(oqlSource));
       OQLParser parser = new OQLParser(lexer);
@@ -78,8 +87,21 @@ public class QCompiler implements OQLLexerTokenTypes {
       // operators in the grammer proper
       parser.setASTNodeClass("org.apache.geode.cache.query.internal.parse.ASTUnsupported");
       parser.queryProgram();
-      GemFireAST n = (GemFireAST) parser.getAST();
-      n.compile(this);
+      return (GemFireAST) parser.getAST();
+    } catch (Exception ex) { // This is to make sure that we are wrapping any antlr exception with
+                             // GemFire Exception.
+      throw new QueryInvalidException(
+          LocalizedStrings.QCompiler_SYNTAX_ERROR_IN_QUERY_0.toLocalizedString(ex.getMessage()),
+          ex);
+    }
+  }
+
+  /*
+   * compile a parsed query into a Query (returns the root CompiledValue)
+   */
+  CompiledValue compileQuery(GemFireAST parsedQuery) {
+    try {
+      parsedQuery.compile(this);
     } catch (Exception ex) { // This is to make sure that we are wrapping any antlr exception with
                              // GemFire Exception.
       throw new QueryInvalidException(
@@ -15,6 +15,7 @@
 package org.apache.geode.cache.query.internal;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -43,6 +44,21 @@ public class QueryExecutionContext extends ExecutionContext {
 
   private boolean indexUsed = false;
 
+  /**
+   * The select whose results are streamed to the streamingResultsHandler; nested selects
+   * evaluated in this context collect their results as usual
+   */
+  private CompiledSelect streamingSelect;
+
+  private StreamingResultsHandler streamingResultsHandler;
+
+  private final QueryProfile profile;
+
+  /**
+   * The operator of the profiled query being evaluated in this context
+   */
+  private QueryProfile.Invocation invocation;
+
   /**
    * stack used to determine which execCache to currently be using
    */
@@ -67,11 +83,23 @@ public class QueryExecutionContext extends ExecutionContext {
   public QueryExecutionContext(Object[] bindArguments, InternalCache cache) {
     super(bindArguments, cache);
     this.query = null;
+    this.profile = null;
   }
 
   public QueryExecutionContext(Object[] bindArguments, InternalCache cache, Query query) {
+    this(bindArguments, cache, query,
+        query instanceof DefaultQuery ? ((DefaultQuery) query).getExecutionProfile() : null);
+  }
+
+  /**
+   * Creates a context that records into the given profile, for evaluating part of a query on a
+   * thread other than the one that started its execution.
+   */
+  public QueryExecutionContext(Object[] bindArguments, InternalCache cache, Query query,
+      QueryProfile profile) {
     super(bindArguments, cache);
     this.query = query;
+    this.profile = profile;
   }
 
   @Override
@@ -151,11 +179,73 @@ public class QueryExecutionContext extends ExecutionContext {
     return this.cqQueryContext;
   }
 
+  void setStreamingResultsHandler(CompiledSelect select, StreamingResultsHandler handler) {
+    this.streamingSelect = select;
+    this.streamingResultsHandler = handler;
+  }
+
+  @Override
+  public StreamingResultsHandler getStreamingResultsHandler(CompiledSelect select) {
+    return select == this.streamingSelect ? this.streamingResultsHandler : null;
+  }
+
   @Override
   public Query getQuery() {
     return query;
   }
 
+  @Override
+  public QueryProfile getProfile() {
+    return this.profile;
+  }
+
+  @Override
+  public void startOperator(Object operator, Collection input) {
+    if (this.profile != null) {
+      startInvocation(operator, input, null);
+    }
+  }
+
+  @Override
+  public void startOperatorAddingTo(Object operator, Collection results) {
+    if (this.profile != null) {
+      startInvocation(operator, null, results);
+    }
+  }
+
+  private void startInvocation(Object operator, Collection input, Collection results) {
+    QueryProfile.Operator parent = this.invocation == null ? null : this.invocation.operator;
+    QueryProfile.Operator profiled =
+        this.profile.getOperator(parent, QueryProfile.getOperatorName(operator, this));
+    this.invocation = new QueryProfile.Invocation(this.invocation, profiled, input, results);
+  }
+
+  @Override
+  public void countOperatorRowIn() {
+    if (this.invocation != null) {
+      this.invocation.rowsIn = Math.max(this.invocation.rowsIn, 0) + 1;
+    }
+  }
+
+  @Override
+  public void endOperator(Object results) {
+    QueryProfile.Invocation ended = this.invocation;
+    if (ended == null) {
+      return;
+    }
+    long rowsOut;
+    if (ended.results != null) {
+      rowsOut = ended.results.size() - ended.resultsBefore;
+    } else if (results instanceof Collection) {
+      rowsOut = ((Collection) results).size();
+    } else {
+      rowsOut = results == null ? 0 : 1;
+    }
+    this.profile.operatorEnded(ended.operator, System.nanoTime() - ended.startTime, ended.rowsIn,
+        rowsOut);
+    this.invocation = ended.caller;
+  }
+
   @Override
   public void setBucketList(List list) {
     this.bucketList = list;
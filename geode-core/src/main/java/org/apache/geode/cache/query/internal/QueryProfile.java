@@ -0,0 +1,337 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.cache.query.internal;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+
+import org.apache.geode.cache.query.Index;
+import org.apache.geode.cache.query.internal.parse.OQLLexerTokenTypes;
+import org.apache.geode.distributed.internal.DistributionConfig;
+
+/**
+ * Profile of one execution of a query on a member, in the manner of an EXPLAIN ANALYZE. For each
+ * operator of the query, that is the select, the filters of the where clause, the index lookups,
+ * the iteration over the from clause, the grouping and the queried buckets of a partitioned
+ * region, it records how often it was invoked, the time spent in it and the rows going into and
+ * coming out of it. Operators are nested the way they invoke each other.
+ * <p>
+ * Queries are profiled when they are traced, with the {@code <trace>} hint or the Query.VERBOSE
+ * system property, or when the Query.PROFILE system property is set. The profiles of the most
+ * recent queries executed on a member are retained and returned by {@link #getRecentProfiles()}.
+ * Each member executing a query on a partitioned region profiles and retains its part of it.
+ *
+ * @see ExecutionContext#startOperator(Object)
+ */
+public class QueryProfile {
+
+  /**
+   * System property to profile every query executed on this member rather than only traced ones.
+   */
+  public static final boolean PROFILE_QUERIES =
+      Boolean.getBoolean(DistributionConfig.GEMFIRE_PREFIX + "Query.PROFILE");
+
+  public static boolean TEST_PROFILE_QUERIES = false;
+
+  /**
+   * System property to set how many profiles of recently executed queries are retained on this
+   * member. By default its set to 20.
+   */
+  public static final int RETAINED_PROFILES =
+      Integer.getInteger(DistributionConfig.GEMFIRE_PREFIX + "Query.RETAINED_PROFILES", 20);
+
+  static final String SELECT = "SELECT";
+  static final String ITERATE = "ITERATE";
+  static final String GROUP_BY = "GROUP BY";
+
+  private static final Deque<QueryProfile> recentProfiles = new ArrayDeque<>();
+
+  private final String queryString;
+
+  private final long startTime = System.nanoTime();
+
+  private final Operator root = new Operator(null, null);
+
+  private long elapsedNanos = -1;
+
+  private int numResults = -1;
+
+  public QueryProfile(String queryString) {
+    this.queryString = queryString;
+  }
+
+  public static boolean isProfilingAllQueries() {
+    return PROFILE_QUERIES || TEST_PROFILE_QUERIES;
+  }
+
+  public String getQueryString() {
+    return this.queryString;
+  }
+
+  /**
+   * Returns the operator that the given operator invoked by its parent is recorded in, adding it if
+   * the parent has not invoked the same operator before.
+   */
+  synchronized Operator getOperator(Operator parent, String name) {
+    if (parent == null) {
+      parent = this.root;
+    }
+    for (Operator child : parent.children) {
+      if (child.name.equals(name)) {
+        return child;
+      }
+    }
+    Operator child = new Operator(parent, name);
+    parent.children.add(child);
+    return child;
+  }
+
+  synchronized void operatorEnded(Operator operator, long nanos, long rowsIn, long rowsOut) {
+    operator.invocations++;
+    operator.nanos += nanos;
+    if (rowsIn >= 0) {
+      operator.rowsIn = Math.max(operator.rowsIn, 0) + rowsIn;
+    }
+    operator.rowsOut += rowsOut;
+  }
+
+  /**
+   * Records the end of the execution of the query on this member and retains the profile.
+   */
+  public void executionEnded(int numResults) {
+    synchronized (this) {
+      this.elapsedNanos = System.nanoTime() - this.startTime;
+      this.numResults = numResults;
+    }
+    retain(this);
+  }
+
+  synchronized Operator getRoot() {
+    return this.root;
+  }
+
+  @Override
+  public synchronized String toString() {
+    StringBuilder sb = new StringBuilder();
+    sb.append("Profile of query: ").append(this.queryString);
+    if (this.elapsedNanos >= 0) {
+      sb.append(" executed in ").append(formatMillis(this.elapsedNanos));
+    }
+    if (this.numResults >= 0) {
+      sb.append(", results ").append(this.numResults);
+    }
+    for (Operator child : this.root.children) {
+      child.appendTo(sb, 1);
+    }
+    return sb.toString();
+  }
+
+  private static String formatMillis(long nanos) {
+    return String.format("%.3f ms", nanos / 1.0e6d);
+  }
+
+  private static void retain(QueryProfile profile) {
+    synchronized (recentProfiles) {
+      if (RETAINED_PROFILES <= 0) {
+        return;
+      }
+      while (recentProfiles.size() >= RETAINED_PROFILES) {
+        recentProfiles.removeFirst();
+      }
+      recentProfiles.addLast(profile);
+    }
+  }
+
+  /**
+   * Returns the profiles of the queries most recently executed on this member, most recent first.
+   */
+  public static List<QueryProfile> getRecentProfiles() {
+    List<QueryProfile> profiles = new ArrayList<>();
+    synchronized (recentProfiles) {
+      for (Iterator<QueryProfile> itr = recentProfiles.descendingIterator(); itr.hasNext();) {
+        profiles.add(itr.next());
+      }
+    }
+    return profiles;
+  }
+
+  /**
+   * Only for test purposes.
+   */
+  public static void clearRecentProfiles() {
+    synchronized (recentProfiles) {
+      recentProfiles.clear();
+    }
+  }
+
+  /**
+   * Returns the name an operator of a query is profiled under.
+   *
+   * @see ExecutionContext#startOperator(Object)
+   */
+  static String getOperatorName(Object operator, ExecutionContext context) {
+    if (operator instanceof Index) {
+      return "INDEX " + ((Index) operator).getName();
+    } else if (operator instanceof Integer) {
+      // the id of a bucket queried on its own
+      return "BUCKET " + operator;
+    } else if (operator instanceof CompiledComparison || operator instanceof CompiledIn
+        || operator instanceof CompiledUndefined) {
+      StringBuilder sb = new StringBuilder("FILTER");
+      List operands = ((CompiledValue) operator).getChildren();
+      if (operator instanceof CompiledUndefined) {
+        sb.append(((Filter) operator).getOperator() == OQLLexerTokenTypes.TOK_NE ? " IS_DEFINED"
+            : " IS_UNDEFINED");
+      }
+      for (int i = 0; i < operands.size(); i++) {
+        if (i == 1) {
+          sb.append(' ').append(getOperatorSymbol(operator));
+        }
+        sb.append(' ').append(getExpression((CompiledValue) operands.get(i), context));
+      }
+      return sb.toString();
+    } else if (operator instanceof CompiledJunction
+        || operator instanceof AbstractGroupOrRangeJunction) {
+      return "FILTER " + operator.getClass().getSimpleName() + " "
+          + (((Filter) operator).getOperator() == OQLLexerTokenTypes.LITERAL_or ? "OR" : "AND");
+    } else if (operator instanceof CompiledValue) {
+      return "FILTER " + operator.getClass().getSimpleName();
+    }
+    return String.valueOf(operator);
+  }
+
+  private static String getOperatorSymbol(Object operator) {
+    if (operator instanceof CompiledIn) {
+      return "IN";
+    } else if (operator instanceof CompiledLike) {
+      return "LIKE";
+    }
+    switch (((Filter) operator).getOperator()) {
+      case OQLLexerTokenTypes.TOK_EQ:
+        return "=";
+      case OQLLexerTokenTypes.TOK_NE:
+      case OQLLexerTokenTypes.TOK_NE_ALT:
+        return "!=";
+      case OQLLexerTokenTypes.TOK_LT:
+        return "<";
+      case OQLLexerTokenTypes.TOK_LE:
+        return "<=";
+      case OQLLexerTokenTypes.TOK_GT:
+        return ">";
+      case OQLLexerTokenTypes.TOK_GE:
+        return ">=";
+      default:
+        return "?";
+    }
+  }
+
+  private static String getExpression(CompiledValue value, ExecutionContext context) {
+    if (value instanceof CompiledLiteral || value instanceof CompiledBindArgument
+        || value instanceof CompiledID || value instanceof CompiledPath
+        || value instanceof CompiledOperation || value instanceof CompiledIndexOperation
+        || value instanceof CompiledFunction) {
+      try {
+        StringBuilder sb = new StringBuilder();
+        value.generateCanonicalizedExpression(sb, context);
+        return sb.toString();
+      } catch (Exception ignore) {
+        // fall back to the type of the expression
+      }
+    }
+    return value.getClass().getSimpleName();
+  }
+
+  /**
+   * The time and rows recorded for an operator invoked by the same parent operator.
+   */
+  static class Operator {
+    private final Operator parent;
+    private final String name;
+    private final List<Operator> children = new ArrayList<>(2);
+    private int invocations;
+    private long nanos;
+    private long rowsIn = -1;
+    private long rowsOut;
+
+    Operator(Operator parent, String name) {
+      this.parent = parent;
+      this.name = name;
+    }
+
+    Operator getParent() {
+      return this.parent;
+    }
+
+    String getName() {
+      return this.name;
+    }
+
+    List<Operator> getChildren() {
+      return this.children;
+    }
+
+    int getInvocations() {
+      return this.invocations;
+    }
+
+    long getRowsIn() {
+      return this.rowsIn;
+    }
+
+    long getRowsOut() {
+      return this.rowsOut;
+    }
+
+    private void appendTo(StringBuilder sb, int depth) {
+      sb.append('\n');
+      for (int i = 0; i < depth; i++) {
+        sb.append("  ");
+      }
+      sb.append(this.name).append(" (calls=").append(this.invocations).append(", time=")
+          .append(formatMillis(this.nanos));
+      if (this.rowsIn >= 0) {
+        sb.append(", rowsIn=").append(this.rowsIn);
+      }
+      sb.append(", rowsOut=").append(this.rowsOut).append(')');
+      for (Operator child : this.children) {
+        child.appendTo(sb, depth + 1);
+      }
+    }
+  }
+
+  /**
+   * An invocation of an operator by the thread evaluating the query in an execution context.
+   */
+  static class Invocation {
+    final Invocation caller;
+    final Operator operator;
+    final long startTime = System.nanoTime();
+    final Collection results;
+    final int resultsBefore;
+    long rowsIn;
+
+    Invocation(Invocation caller, Operator operator, Collection input, Collection results) {
+      this.caller = caller;
+      this.operator = operator;
+      this.rowsIn = input == null ? -1 : input.size();
+      this.results = results;
+      this.resultsBefore = results == null ? 0 : results.size();
+    }
+  }
+}
@@ -95,6 +95,43 @@ public class QueryUtils {
     }
   }
 
+  /**
+   * With cost based index selection, the number of intermediate results the remaining conditions of
+   * an AND junction are evaluated on for the cost of fetching one result from an index and
+   * intersecting it
+   */
+  private static final int INDEX_RESULT_COST_FACTOR = 4;
+
+  /**
+   * Returns true if, with cost based index selection, evaluating the filter on each of the
+   * intermediate results of an AND junction is estimated to be cheaper than using its index and
+   * intersecting the index results with the intermediate results. Index hints always use the
+   * indexes.
+   */
+  static boolean isIterationCheaperThanIndex(ExecutionContext context, int intermediateSize,
+      Filter filter) throws FunctionDomainException, TypeMismatchException,
+      NameResolutionException, QueryInvocationTargetException {
+    return selectsIndexesByCost(context)
+        && filter.getSizeEstimate(context) > (long) intermediateSize * INDEX_RESULT_COST_FACTOR;
+  }
+
+  /**
+   * Returns true if, with cost based index selection, using the index of the filter and
+   * intersecting its results with the intermediate results of an AND junction is estimated to be
+   * cheaper than evaluating the filter on each of the intermediate results.
+   */
+  static boolean isIndexCheaperThanIteration(ExecutionContext context, int intermediateSize,
+      Filter filter) throws FunctionDomainException, TypeMismatchException,
+      NameResolutionException, QueryInvocationTargetException {
+    return selectsIndexesByCost(context)
+        && filter.getSizeEstimate(context) <= (long) intermediateSize * INDEX_RESULT_COST_FACTOR;
+  }
+
+  private static boolean selectsIndexesByCost(ExecutionContext context) {
+    return context.isCostBasedIndexSelection() && !(context instanceof QueryExecutionContext
+        && ((QueryExecutionContext) context).hasHints());
+  }
+
   private static void assertCompatible(SelectResults sr1, SelectResults sr2) {
     Assert.assertTrue(
         sr1.getCollectionType().getElementType().equals(sr2.getCollectionType().getElementType()));
@@ -33,6 +33,7 @@ import org.apache.geode.cache.query.QueryService;
 import org.apache.geode.cache.query.SelectResults;
 import org.apache.geode.cache.query.Struct;
 import org.apache.geode.cache.query.TypeMismatchException;
+import org.apache.geode.cache.query.internal.index.AbstractIndex;
 import org.apache.geode.cache.query.internal.parse.OQLLexerTokenTypes;
 import org.apache.geode.internal.i18n.LocalizedStrings;
 import org.apache.geode.cache.query.internal.types.StructTypeImpl;
@@ -114,8 +115,9 @@ public class RangeJunction extends AbstractGroupOrRangeJunction {
     // return the one with lower size estimate is better
     boolean isThisBetter = true;
 
-    // Go with the lowest cost when hint is used.
-    if (context instanceof QueryExecutionContext && ((QueryExecutionContext) context).hasHints()) {
+    // Go with the lowest cost when hint is used or indexes are selected by cost.
+    if (context.isCostBasedIndexSelection() || context instanceof QueryExecutionContext
+        && ((QueryExecutionContext) context).hasHints()) {
       return thisSize <= comparedTo.getSizeEstimate(context);
     }
 
@@ -517,7 +519,20 @@ public class RangeJunction extends AbstractGroupOrRangeJunction {
     Support.assertionFailed("Should not have come here");
   }
 
-  public int getSizeEstimate(ExecutionContext context) {
+  public int getSizeEstimate(ExecutionContext context) throws FunctionDomainException,
+      TypeMismatchException, NameResolutionException, QueryInvocationTargetException {
+    if (context.isCostBasedIndexSelection()) {
+      // estimate from the evaluator the conditions are combined into; a junction may be compared
+      // with several others, so the operands are organized once per scope
+      OrganizedOperands operands = (OrganizedOperands) context.cacheGet(this);
+      if (operands == null) {
+        operands = organizeOperands(context);
+        context.cachePut(this, operands);
+      }
+      if (operands.isSingleFilter) {
+        return operands.filterOperand.getSizeEstimate(context);
+      }
+    }
     // TODO:Asif:Try to estimate better
     return RANGE_SIZE_ESTIMATE;
   }
@@ -821,7 +836,12 @@ public class RangeJunction extends AbstractGroupOrRangeJunction {
       return NOTEQUALCONDITIONEVALUATOR;
     }
 
-    public int getSizeEstimate(ExecutionContext context) {
+    public int getSizeEstimate(ExecutionContext context) throws TypeMismatchException {
+      if (context.isCostBasedIndexSelection() && this.notEqualTypeKeys != null
+          && !this.notEqualTypeKeys.isEmpty()) {
+        Object key = this.notEqualTypeKeys.iterator().next();
+        return this.indxInfo._index.getSizeEstimate(key, TOK_NE, this.indxInfo._matchLevel);
+      }
       return RANGE_SIZE_ESTIMATE;
     }
 
@@ -843,8 +863,8 @@ public class RangeJunction extends AbstractGroupOrRangeJunction {
 
       int thatOperator = comparedTo.getOperator();
 
-      // Go with the lowest cost when hint is used.
-      if (context instanceof QueryExecutionContext
+      // Go with the lowest cost when hint is used or indexes are selected by cost.
+      if (context.isCostBasedIndexSelection() || context instanceof QueryExecutionContext
           && ((QueryExecutionContext) context).hasHints()) {
         return thisSize <= comparedTo.getSizeEstimate(context);
       }
@@ -981,6 +1001,15 @@ public class RangeJunction extends AbstractGroupOrRangeJunction {
       return SINGLECONDNEVALUATOR;
     }
 
+    @Override
+    public int getSizeEstimate(ExecutionContext context) throws TypeMismatchException {
+      if (context.isCostBasedIndexSelection()) {
+        return this.indxInfo._index.getSizeEstimate(this.condnKey, this.condnOp,
+            this.indxInfo._matchLevel);
+      }
+      return super.getSizeEstimate(context);
+    }
+
     @Override
     public void visitNodes(NodeVisitor visitor) {
       Support.assertionFailed("Should not have come here");
@@ -1133,6 +1162,19 @@ public class RangeJunction extends AbstractGroupOrRangeJunction {
       return DOUBLECONDNRANGEJUNCTIONEVALUATOR;
     }
 
+    @Override
+    public int getSizeEstimate(ExecutionContext context) throws TypeMismatchException {
+      if (context.isCostBasedIndexSelection() && this.indxInfo._index instanceof AbstractIndex) {
+        int estimate = ((AbstractIndex) this.indxInfo._index).getRangeSizeEstimate(
+            this.greaterCondnKey, this.greaterCondnOp, this.lessCondnKey, this.lessCondnOp,
+            this.indxInfo._matchLevel);
+        if (estimate >= 0) {
+          return estimate;
+        }
+      }
+      return RANGE_SIZE_ESTIMATE;
+    }
+
     @Override
     public void visitNodes(NodeVisitor visitor) {
       Support.assertionFailed("Should not have come here");
@@ -0,0 +1,43 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.cache.query.internal;
+
+import org.apache.geode.cache.query.types.ObjectType;
+import org.apache.geode.internal.cache.CachePerfStats;
+
+/**
+ * A {@link ResultsBag} that passes its contents to a {@link StreamingResultsHandler} and clears
+ * itself whenever it holds a full chunk of results.
+ */
+class StreamingResultsBag extends ResultsBag {
+
+  private final StreamingResultsHandler handler;
+
+  StreamingResultsBag(ObjectType elementType, CachePerfStats stats,
+      StreamingResultsHandler handler) {
+    super(elementType, stats);
+    this.handler = handler;
+  }
+
+  @Override
+  public int addAndGetOccurence(Object element) {
+    int occurrence = super.addAndGetOccurence(element);
+    if (size() >= this.handler.getChunkSize()) {
+      this.handler.handleChunk(this);
+      clear();
+    }
+    return occurrence;
+  }
+}
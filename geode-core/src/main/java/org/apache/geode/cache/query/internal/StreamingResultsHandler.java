@@ -0,0 +1,41 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.cache.query.internal;
+
+import org.apache.geode.cache.query.SelectResults;
+
+/**
+ * Receives the results of a query in chunks while the query is still being evaluated, so that the
+ * results can be sent on without holding the complete result set in memory. Only queries whose
+ * results need no further processing once collected, that is queries without DISTINCT, ORDER BY,
+ * GROUP BY or COUNT, are streamed. A {@code select *} whose where clause is evaluated with an index
+ * is not streamed either, since the results of the index lookup are returned as they are. The
+ * results that remain when the query completes are returned from the query execution as usual.
+ *
+ * @see DefaultQuery#setStreamingResultsHandler(StreamingResultsHandler)
+ */
+public interface StreamingResultsHandler {
+
+  /**
+   * Returns the number of results collected before they are passed to {@link #handleChunk}.
+   */
+  int getChunkSize();
+
+  /**
+   * Handles a chunk of results. The chunk is cleared once this method returns, so it must not be
+   * retained. Blocking in this method holds up the evaluation of the query.
+   */
+  void handleChunk(SelectResults chunk);
+}
@@ -0,0 +1,34 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.cache.query.internal.aggregate;
+
+import java.util.Set;
+
+/**
+ * Combines the sets of distinct values collected on the buckets of a member for partitioned region
+ * based distinct queries for sum, count, average into a single set, which is sent to the PR query
+ * node.
+ *
+ */
+public class DistinctBucketNodeCombiner extends DistinctAggregator {
+
+  /**
+   * The input data is the Set of distinct values collected on each of the buckets.
+   */
+  @Override
+  public void accumulate(Object value) {
+    this.distinct.addAll((Set) value);
+  }
+}
@@ -23,6 +23,7 @@ import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
@@ -61,6 +62,7 @@ import org.apache.geode.cache.query.internal.Support;
 import org.apache.geode.cache.query.internal.index.IndexStore.IndexStoreEntry;
 import org.apache.geode.cache.query.internal.parse.OQLLexerTokenTypes;
 import org.apache.geode.cache.query.internal.types.StructTypeImpl;
+import org.apache.geode.cache.query.internal.types.TypeUtils;
 import org.apache.geode.cache.query.types.ObjectType;
 import org.apache.geode.internal.Assert;
 import org.apache.geode.internal.cache.BucketRegion;
@@ -138,6 +140,15 @@ public abstract class AbstractIndex implements IndexProtocol {
   /** Flag to indicate if the index is populated with data */
   volatile boolean isPopulated = false;
 
+  /**
+   * Histogram of the index keys, used for cost based index selection. Kept up to date by the index
+   * maintenance once built.
+   */
+  private volatile IndexHistogram histogram;
+
+  /** Whether a thread is building {@link #histogram} */
+  private final AtomicBoolean buildingHistogram = new AtomicBoolean();
+
   AbstractIndex(String indexName, Region region, String fromClause, String indexedExpression,
       String projectionAttributes, String originalFromClause, String originalIndexedExpression,
       String[] defintions, IndexStatistics stats) {
@@ -213,6 +224,16 @@ public abstract class AbstractIndex implements IndexProtocol {
     return result;
   }
 
+  long updateIndexUseStats(Collection results, ExecutionContext context) {
+    context.startOperatorAddingTo(this, results);
+    return updateIndexUseStats();
+  }
+
+  void updateIndexUseEndStats(long start, ExecutionContext context) {
+    updateIndexUseEndStats(start);
+    context.endOperator(null);
+  }
+
   void updateIndexUseEndStats(long start) {
     updateIndexUseEndStats(start, true);
   }
@@ -256,7 +277,7 @@ public abstract class AbstractIndex implements IndexProtocol {
     // get a read lock when doing a lookup
     if (context.getBucketList() != null && this.region instanceof BucketRegion) {
       PartitionedRegion pr = ((Bucket) this.region).getPartitionedRegion();
-      long start = updateIndexUseStats();
+      long start = updateIndexUseStats(results, context);
       try {
         for (Object bucketId : context.getBucketList()) {
           AbstractIndex bucketIndex =
@@ -264,18 +285,24 @@ public abstract class AbstractIndex implements IndexProtocol {
           if (bucketIndex == null) {
             continue;
           }
-          bucketIndex.lockedQuery(key, operator, results, null/* No Keys to be removed */, context);
+          context.startOperatorAddingTo(bucketId, results);
+          try {
+            bucketIndex.lockedQuery(key, operator, results, null/* No Keys to be removed */,
+                context);
+          } finally {
+            context.endOperator(null);
+          }
 
         }
       } finally {
-        updateIndexUseEndStats(start);
+        updateIndexUseEndStats(start, context);
       }
     } else {
-      long start = updateIndexUseStats();
+      long start = updateIndexUseStats(results, context);
       try {
         lockedQuery(key, operator, results, null/* No Keys to be removed */, context);
       } finally {
-        updateIndexUseEndStats(start);
+        updateIndexUseEndStats(start, context);
       }
     }
   }
@@ -289,7 +316,7 @@ public abstract class AbstractIndex implements IndexProtocol {
     // get a read lock when doing a lookup
     if (context.getBucketList() != null && this.region instanceof BucketRegion) {
       PartitionedRegion pr = ((Bucket) region).getPartitionedRegion();
-      long start = updateIndexUseStats();
+      long start = updateIndexUseStats(results, context);
       try {
         for (Object bucketId : context.getBucketList()) {
           AbstractIndex bucketIndex =
@@ -297,19 +324,24 @@ public abstract class AbstractIndex implements IndexProtocol {
           if (bucketIndex == null) {
             continue;
           }
-          bucketIndex.lockedQuery(key, operator, results, iterOp, indpndntItr, context, projAttrib,
-              intermediateResults, isIntersection);
+          context.startOperatorAddingTo(bucketId, results);
+          try {
+            bucketIndex.lockedQuery(key, operator, results, iterOp, indpndntItr, context,
+                projAttrib, intermediateResults, isIntersection);
+          } finally {
+            context.endOperator(null);
+          }
         }
       } finally {
-        updateIndexUseEndStats(start);
+        updateIndexUseEndStats(start, context);
       }
     } else {
-      long start = updateIndexUseStats();
+      long start = updateIndexUseStats(results, context);
       try {
         lockedQuery(key, operator, results, iterOp, indpndntItr, context, projAttrib,
             intermediateResults, isIntersection);
       } finally {
-        updateIndexUseEndStats(start);
+        updateIndexUseEndStats(start, context);
       }
     }
   }
@@ -322,7 +354,7 @@ public abstract class AbstractIndex implements IndexProtocol {
     // get a read lock when doing a lookup
     if (context.getBucketList() != null && this.region instanceof BucketRegion) {
       PartitionedRegion pr = ((Bucket) region).getPartitionedRegion();
-      long start = updateIndexUseStats();
+      long start = updateIndexUseStats(results, context);
       try {
         for (Object bucketId : context.getBucketList()) {
           AbstractIndex bucketIndex =
@@ -330,17 +362,22 @@ public abstract class AbstractIndex implements IndexProtocol {
           if (bucketIndex == null) {
             continue;
           }
-          bucketIndex.lockedQuery(key, operator, results, keysToRemove, context);
+          context.startOperatorAddingTo(bucketId, results);
+          try {
+            bucketIndex.lockedQuery(key, operator, results, keysToRemove, context);
+          } finally {
+            context.endOperator(null);
+          }
         }
       } finally {
-        updateIndexUseEndStats(start);
+        updateIndexUseEndStats(start, context);
       }
     } else {
-      long start = updateIndexUseStats();
+      long start = updateIndexUseStats(results, context);
       try {
         lockedQuery(key, operator, results, keysToRemove, context);
       } finally {
-        updateIndexUseEndStats(start);
+        updateIndexUseEndStats(start, context);
       }
     }
   }
@@ -354,7 +391,7 @@ public abstract class AbstractIndex implements IndexProtocol {
     Object temp = iterator.next();
     iterator.remove();
     if (context.getBucketList() != null && this.region instanceof BucketRegion) {
-      long start = updateIndexUseStats();
+      long start = updateIndexUseStats(results, context);
       try {
         PartitionedRegion partitionedRegion = ((Bucket) this.region).getPartitionedRegion();
         for (Object bucketId : context.getBucketList()) {
@@ -363,19 +400,24 @@ public abstract class AbstractIndex implements IndexProtocol {
           if (bucketIndex == null) {
             continue;
           }
-          bucketIndex.lockedQuery(temp, OQLLexerTokenTypes.TOK_NE, results,
-              iterator.hasNext() ? keysToRemove : null, context);
+          context.startOperatorAddingTo(bucketId, results);
+          try {
+            bucketIndex.lockedQuery(temp, OQLLexerTokenTypes.TOK_NE, results,
+                iterator.hasNext() ? keysToRemove : null, context);
+          } finally {
+            context.endOperator(null);
+          }
         }
       } finally {
-        updateIndexUseEndStats(start);
+        updateIndexUseEndStats(start, context);
       }
     } else {
-      long start = updateIndexUseStats();
+      long start = updateIndexUseStats(results, context);
       try {
         lockedQuery(temp, OQLLexerTokenTypes.TOK_NE, results,
             iterator.hasNext() ? keysToRemove : null, context);
       } finally {
-        updateIndexUseEndStats(start);
+        updateIndexUseEndStats(start, context);
       }
     }
   }
@@ -389,7 +431,7 @@ public abstract class AbstractIndex implements IndexProtocol {
     if (context.getBucketList() != null) {
       if (this.region instanceof BucketRegion) {
         PartitionedRegion partitionedRegion = ((Bucket) this.region).getPartitionedRegion();
-        long start = updateIndexUseStats();
+        long start = updateIndexUseStats(results, context);
         try {
           for (Object bucketId : context.getBucketList()) {
             AbstractIndex bucketIndex = PartitionedIndex.getBucketIndex(partitionedRegion,
@@ -397,20 +439,25 @@ public abstract class AbstractIndex implements IndexProtocol {
             if (bucketIndex == null) {
               continue;
             }
-            bucketIndex.lockedQuery(lowerBoundKey, lowerBoundOperator, upperBoundKey,
-                upperBoundOperator, results, keysToRemove, context);
+            context.startOperatorAddingTo(bucketId, results);
+            try {
+              bucketIndex.lockedQuery(lowerBoundKey, lowerBoundOperator, upperBoundKey,
+                  upperBoundOperator, results, keysToRemove, context);
+            } finally {
+              context.endOperator(null);
+            }
           }
         } finally {
-          updateIndexUseEndStats(start);
+          updateIndexUseEndStats(start, context);
         }
       }
     } else {
-      long start = updateIndexUseStats();
+      long start = updateIndexUseStats(results, context);
       try {
         lockedQuery(lowerBoundKey, lowerBoundOperator, upperBoundKey, upperBoundOperator, results,
             keysToRemove, context);
       } finally {
-        updateIndexUseEndStats(start);
+        updateIndexUseEndStats(start, context);
       }
     }
   }
@@ -837,6 +884,120 @@ public abstract class AbstractIndex implements IndexProtocol {
     return this.prIndex;
   }
 
+  /**
+   * Estimates the number of entries matching an inequality on the indexed expression from a
+   * histogram of the index keys. Returns -1 if cost based index selection is disabled or the
+   * estimate cannot be made, in which case the caller falls back to its own estimate.
+   */
+  int getHistogramSizeEstimate(Object key, int operator, int matchLevel)
+      throws TypeMismatchException {
+    IndexHistogram histogram = matchLevel <= 0 && isHistogramKey(key) ? getHistogram() : null;
+    if (histogram == null) {
+      return -1;
+    }
+    key = getPdxStringForIndexedPdxKeys(TypeUtils.indexKeyFor(key));
+    try {
+      return (int) Math.min(histogram.estimate(key, operator), Integer.MAX_VALUE);
+    } catch (ClassCastException ignore) {
+      // the key is not comparable with the keys in the index
+      return -1;
+    }
+  }
+
+  /**
+   * Estimates the number of entries whose indexed expression lies between the given bounds from a
+   * histogram of the index keys. Returns -1 if cost based index selection is disabled or the
+   * estimate cannot be made.
+   */
+  public int getRangeSizeEstimate(Object lowerBoundKey, int lowerBoundOperator,
+      Object upperBoundKey, int upperBoundOperator, int matchLevel) throws TypeMismatchException {
+    IndexHistogram histogram =
+        matchLevel <= 0 && isHistogramKey(lowerBoundKey) && isHistogramKey(upperBoundKey)
+            ? getHistogram() : null;
+    if (histogram == null) {
+      return -1;
+    }
+    lowerBoundKey = getPdxStringForIndexedPdxKeys(TypeUtils.indexKeyFor(lowerBoundKey));
+    upperBoundKey = getPdxStringForIndexedPdxKeys(TypeUtils.indexKeyFor(upperBoundKey));
+    try {
+      long estimate = histogram.estimate(lowerBoundKey,
+          lowerBoundOperator == OQLLexerTokenTypes.TOK_GE, upperBoundKey,
+          upperBoundOperator == OQLLexerTokenTypes.TOK_LE);
+      return (int) Math.min(estimate, Integer.MAX_VALUE);
+    } catch (ClassCastException ignore) {
+      return -1;
+    }
+  }
+
+  private static boolean isHistogramKey(Object key) {
+    return key != null && !IndexManager.NULL.equals(key) && !QueryService.UNDEFINED.equals(key);
+  }
+
+  private static boolean isCostBasedIndexSelection() {
+    return IndexManager.COST_BASED_INDEX_SELECTION || IndexManager.TEST_COST_BASED_INDEX_SELECTION;
+  }
+
+  /**
+   * Returns the histogram of the index keys, building a new one if there is none yet or the current
+   * one has become unbalanced. Only one thread builds a histogram at a time; the others use the
+   * current one meanwhile, or return null if there is none.
+   */
+  IndexHistogram getHistogram() {
+    if (!isCostBasedIndexSelection()) {
+      return null;
+    }
+    IndexHistogram current = this.histogram;
+    if (current == null || current.isUnbalanced()) {
+      IndexHistogram built = buildHistogramIfIdle();
+      if (built != null) {
+        current = built;
+      }
+    }
+    return current;
+  }
+
+  private IndexHistogram buildHistogramIfIdle() {
+    if (!this.buildingHistogram.compareAndSet(false, true)) {
+      return null;
+    }
+    try {
+      // updates made while it is built may be missed or counted twice, which only skews the
+      // estimates until it is rebuilt
+      IndexHistogram built = buildHistogram();
+      this.histogram = built;
+      return built;
+    } finally {
+      this.buildingHistogram.set(false);
+    }
+  }
+
+  /**
+   * Builds a histogram of the keys of this index by scanning it. Indexes that do not keep their
+   * keys sorted return null.
+   */
+  IndexHistogram buildHistogram() {
+    return null;
+  }
+
+  /**
+   * Called by the index maintenance when the number of entries having the given key changes.
+   */
+  void updateHistogram(Object key, int delta) {
+    IndexHistogram current = this.histogram;
+    if (current != null && delta != 0 && key != null && !IndexManager.NULL.equals(key)
+        && !QueryService.UNDEFINED.equals(key)) {
+      current.update(key, delta);
+    }
+  }
+
+  /**
+   * Drops the histogram of the index keys when the index is cleared; a new one is built when it is
+   * next needed.
+   */
+  void clearHistogram() {
+    this.histogram = null;
+  }
+
   void setPRIndex(Index parIndex) {
     this.prIndex = parIndex;
   }
@@ -2080,6 +2241,10 @@ public abstract class AbstractIndex implements IndexProtocol {
 
   public void setPopulated(boolean isPopulated) {
     this.isPopulated = isPopulated;
+    if (isPopulated && this.histogram == null && isCostBasedIndexSelection()) {
+      // build it along with the index rather than on the first query
+      buildHistogramIfIdle();
+    }
   }
 
   boolean isIndexOnPdxKeys() {
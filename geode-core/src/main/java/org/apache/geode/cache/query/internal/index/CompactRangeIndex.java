@@ -103,8 +103,11 @@ public class CompactRangeIndex extends AbstractIndex {
     if (IndexManager.IS_TEST_LDM) {
       indexStore = new MapIndexStore(
           ((LocalRegion) region).getIndexMap(indexName, indexedExpression, origFromClause), region);
+    } else if ((IndexManager.PRIMITIVE_INDEX_STORE || IndexManager.TEST_PRIMITIVE_INDEX_STORE)
+        && !IndexManager.isObjectModificationInplace()) {
+      indexStore = new PrimitiveLongIndexStore(region, internalIndexStats, this);
     } else {
-      indexStore = new MemoryIndexStore(region, internalIndexStats);
+      indexStore = new MemoryIndexStore(region, internalIndexStats, this);
     }
   }
 
@@ -129,8 +132,14 @@ public class CompactRangeIndex extends AbstractIndex {
   @Override
   public void initializeIndex(boolean loadEntries) throws IMQException {
     long startTime = System.nanoTime();
-    this.evaluator.initializeIndex(loadEntries);
-    this.internalIndexStats.incNumUpdates(((IMQEvaluator) this.evaluator).getTotalEntriesUpdated());
+    int loaded = loadEntries ? loadCheckpoint() : -1;
+    if (loaded >= 0) {
+      this.internalIndexStats.incNumUpdates(loaded);
+    } else {
+      this.evaluator.initializeIndex(loadEntries);
+      this.internalIndexStats
+          .incNumUpdates(((IMQEvaluator) this.evaluator).getTotalEntriesUpdated());
+    }
     long endTime = System.nanoTime();
     this.internalIndexStats.incUpdateTime(endTime - startTime);
   }
@@ -140,6 +149,48 @@ public class CompactRangeIndex extends AbstractIndex {
     this.internalIndexStats.incNumUpdates();
   }
 
+  /**
+   * Adds a mapping read from a checkpoint, converting Strings to PdxStrings the same way as the
+   * evaluation of the indexed expression does.
+   */
+  void addCheckpointedMapping(Object indexKey, RegionEntry entry) throws IMQException {
+    if (!isIndexedPdxKeysFlagSet) {
+      setPdxStringFlag(indexKey);
+    }
+    indexKey = getPdxStringForIndexedPdxKeys(indexKey);
+    indexStore.addMapping(indexKey, entry);
+  }
+
+  /**
+   * Loads the mappings of this index from the checkpoint written when its persistent region was
+   * last closed. Returns the number of entries loaded, or -1 if there was no usable checkpoint and
+   * the index still needs to be populated.
+   */
+  int loadCheckpoint() throws IMQException {
+    if (!IndexCheckpoint.isSupported(this) || !IndexCheckpoint.getFile(this).exists()) {
+      return -1;
+    }
+    this.evaluator.initializeIndex(false);
+    int loaded = -1;
+    try {
+      loaded = IndexCheckpoint.load(this);
+    } finally {
+      if (loaded < 0) {
+        clearIndexData();
+      }
+    }
+    return loaded;
+  }
+
+  /**
+   * Writes the mappings of this index to a checkpoint if its region is persistent.
+   */
+  void writeCheckpoint() {
+    if (IndexCheckpoint.isSupported(this)) {
+      IndexCheckpoint.write(this);
+    }
+  }
+
   /**
    * @param opCode one of OTHER_OP, BEFORE_UPDATE_OP, AFTER_UPDATE_OP.
    */
@@ -170,6 +221,7 @@ public class CompactRangeIndex extends AbstractIndex {
   }
 
   public boolean clear() {
+    clearHistogram();
     return indexStore.clear();
   }
 
@@ -283,6 +335,24 @@ public class CompactRangeIndex extends AbstractIndex {
     return evaluateEntry(indexInfo, context, keyVal);
   }
 
+  @Override
+  IndexHistogram buildHistogram() {
+    IndexHistogram.Builder builder = new IndexHistogram.Builder(
+        TypeUtils.getExtendedNumericComparator(), this.internalIndexStats.getNumberOfValues());
+    CloseableIterator<IndexStoreEntry> iterator = this.indexStore.iterator(null);
+    try {
+      while (iterator.hasNext()) {
+        Object key = iterator.next().getDeserializedKey();
+        if (!IndexManager.NULL.equals(key) && !QueryService.UNDEFINED.equals(key)) {
+          builder.add(key, 1);
+        }
+      }
+    } finally {
+      iterator.close();
+    }
+    return builder.build();
+  }
+
   public int getSizeEstimate(Object key, int operator, int matchLevel)
       throws TypeMismatchException {
     // Get approx size;
@@ -308,6 +378,10 @@ public class CompactRangeIndex extends AbstractIndex {
           break;
         case OQLLexerTokenTypes.TOK_LE:
         case OQLLexerTokenTypes.TOK_LT:
+          size = getHistogramSizeEstimate(key, operator, matchLevel);
+          if (size >= 0) {
+            break;
+          }
           if (matchLevel <= 0 && (key instanceof Number)) {
 
             int totalSize = indexStore.size();
@@ -372,6 +446,10 @@ public class CompactRangeIndex extends AbstractIndex {
 
         case OQLLexerTokenTypes.TOK_GE:
         case OQLLexerTokenTypes.TOK_GT:
+          size = getHistogramSizeEstimate(key, operator, matchLevel);
+          if (size >= 0) {
+            break;
+          }
           if (matchLevel <= 0 && (key instanceof Number)) {
             int totalSize = indexStore.size();
             if (CompactRangeIndex.testHook != null) {
@@ -921,7 +999,17 @@ public class CompactRangeIndex extends AbstractIndex {
   }
 
   void recreateIndexData() throws IMQException {
+    clearIndexData();
+    int updates = (int) this.internalIndexStats.getNumUpdates();
+    if (updates > 0) {
+      this.internalIndexStats.incNumUpdates(updates);
+    }
+    this.initializeIndex(true);
+  }
+
+  private void clearIndexData() {
     indexStore.clear();
+    clearHistogram();
     int numKeys = (int) this.internalIndexStats.getNumberOfKeys();
     if (numKeys > 0) {
       this.internalIndexStats.incNumKeys(-numKeys);
@@ -930,11 +1018,6 @@ public class CompactRangeIndex extends AbstractIndex {
     if (numValues > 0) {
       this.internalIndexStats.incNumValues(-numValues);
     }
-    int updates = (int) this.internalIndexStats.getNumUpdates();
-    if (updates > 0) {
-      this.internalIndexStats.incNumUpdates(updates);
-    }
-    this.initializeIndex(true);
   }
 
   public String dump() {
@@ -0,0 +1,299 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.cache.query.internal.index;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Objects;
+
+import org.apache.logging.log4j.Logger;
+
+import org.apache.geode.DataSerializer;
+import org.apache.geode.cache.query.QueryService;
+import org.apache.geode.internal.cache.DiskStoreImpl;
+import org.apache.geode.internal.cache.LocalRegion;
+import org.apache.geode.internal.cache.RegionEntry;
+import org.apache.geode.internal.cache.persistence.DiskStoreID;
+import org.apache.geode.internal.cache.versions.VersionStamp;
+import org.apache.geode.internal.logging.LogService;
+import org.apache.geode.pdx.internal.PdxString;
+
+/**
+ * Writes the mappings of a {@link CompactRangeIndex} on a persistent region to a file in the first
+ * directory of the region's disk store when the region is closed, and loads them back when the
+ * index is created on the recovered region instead of evaluating the indexed expression on every
+ * entry.
+ * <p>
+ * Each mapping is stored with the region key and the version stamp of its entry, including the
+ * member that made the version, and the checkpoint records the id of the disk store that wrote it.
+ * A checkpoint written by another disk store is ignored. On load an entry whose version no longer
+ * matches is evaluated again, an entry that no longer exists is skipped, and if the region holds
+ * entries that are not in the checkpoint the checkpoint is discarded and the index is rebuilt. The
+ * file is deleted once it has been read so that it is never applied to a region that was modified
+ * after an unclean shutdown, and the checkpoints of a region are deleted when it is destroyed.
+ */
+class IndexCheckpoint {
+  private static final Logger logger = LogService.getLogger();
+
+  private static final String PREFIX = "OQLINDEX_";
+  private static final String SUFFIX = ".chk";
+
+  private static final int MAGIC = 0x4f514c49;
+  private static final byte VERSION = 1;
+
+  private static final byte RECORD = 1;
+  private static final byte END = 0;
+
+  private static final byte KEY_OBJECT = 0;
+  private static final byte KEY_NULL = 1;
+  private static final byte KEY_UNDEFINED = 2;
+  private static final byte KEY_PDX_STRING = 3;
+
+  private IndexCheckpoint() {
+    // static methods only
+  }
+
+  /**
+   * Returns true if checkpoints are enabled and the region of the index is persistent and versions
+   * its entries, without which a checkpoint could not be validated.
+   */
+  static boolean isSupported(CompactRangeIndex index) {
+    if (!isEnabled()) {
+      return false;
+    }
+    if (!(index.getRegion() instanceof LocalRegion)
+        || !(index.getIndexStorage() instanceof MemoryIndexStore)) {
+      return false;
+    }
+    LocalRegion region = (LocalRegion) index.getRegion();
+    return region.getDataPolicy().withPersistence() && region.getDiskStore() != null
+        && region.getConcurrencyChecksEnabled();
+  }
+
+  private static boolean isEnabled() {
+    return IndexManager.PERSIST_INDEX_CHECKPOINTS || IndexManager.TEST_PERSIST_INDEX_CHECKPOINTS;
+  }
+
+  static File getFile(CompactRangeIndex index) {
+    LocalRegion region = (LocalRegion) index.getRegion();
+    DiskStoreImpl diskStore = region.getDiskStore();
+    String name = getFilePrefix(diskStore, region) + index.getName();
+    return new File(diskStore.getDiskDirs()[0], name.replaceAll("[^A-Za-z0-9_.-]", "_") + SUFFIX);
+  }
+
+  private static String getFilePrefix(DiskStoreImpl diskStore, LocalRegion region) {
+    return PREFIX + diskStore.getName() + region.getFullPath() + "_";
+  }
+
+  /**
+   * Deletes the checkpoints of all the indexes of a persistent region that is being destroyed, so
+   * that they are not applied to a region of the same name created later.
+   */
+  static void deleteAll(LocalRegion region) {
+    DiskStoreImpl diskStore = region.getDiskStore();
+    if (!isEnabled() || diskStore == null) {
+      return;
+    }
+    String prefix = getFilePrefix(diskStore, region).replaceAll("[^A-Za-z0-9_.-]", "_");
+    File[] files = diskStore.getDiskDirs()[0]
+        .listFiles((dir, name) -> name.startsWith(prefix) && name.endsWith(SUFFIX));
+    if (files == null) {
+      return;
+    }
+    for (File file : files) {
+      // names of other regions can map to the same prefix, so check the region in the file
+      String regionPath;
+      try (DataInputStream in = new DataInputStream(new FileInputStream(file))) {
+        regionPath = in.readInt() == MAGIC && in.readByte() == VERSION ? in.readUTF() : null;
+      } catch (IOException e) {
+        regionPath = null;
+      }
+      if (region.getFullPath().equals(regionPath)) {
+        file.delete();
+      }
+    }
+  }
+
+  /**
+   * Writes the mappings of the index to its checkpoint file, replacing any previous checkpoint.
+   * Failures are logged and leave no checkpoint behind.
+   */
+  static void write(CompactRangeIndex index) {
+    File file = getFile(index);
+    File tmpFile = new File(file.getPath() + ".tmp");
+    MemoryIndexStore store = (MemoryIndexStore) index.getIndexStorage();
+    try {
+      try (DataOutputStream out =
+          new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmpFile)))) {
+        writeHeader(index, out);
+        long[] count = new long[1];
+        store.visitMappings((indexKey, re) -> {
+          if (re.isInvalidOrRemoved()) {
+            return;
+          }
+          VersionStamp stamp = re.getVersionStamp();
+          if (stamp == null) {
+            throw new IOException("Entry " + re.getKey() + " has no version stamp");
+          }
+          out.writeByte(RECORD);
+          DataSerializer.writeObject(re.getKey(), out);
+          DataSerializer.writeObject(stamp.getMemberID(), out);
+          out.writeLong(stamp.getRegionVersion());
+          out.writeInt(stamp.getEntryVersion());
+          writeIndexKey(indexKey, out);
+          count[0]++;
+        });
+        out.writeByte(END);
+        out.writeLong(count[0]);
+      }
+      Files.move(tmpFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    } catch (IOException | RuntimeException e) {
+      tmpFile.delete();
+      file.delete();
+      logger.info("Unable to write checkpoint of index {} on region {}: {}", index.getName(),
+          index.getRegion().getFullPath(), e.getMessage());
+    }
+  }
+
+  /**
+   * Adds the mappings in the checkpoint of the index to it and deletes the checkpoint. Returns the
+   * number of entries added, or -1 if there is no checkpoint or it could not be used, in which
+   * case the index may hold some of the mappings and needs to be cleared.
+   */
+  static int load(CompactRangeIndex index) throws IMQException {
+    File file = getFile(index);
+    if (!file.exists()) {
+      return -1;
+    }
+    LocalRegion region = (LocalRegion) index.getRegion();
+    int loaded = 0;
+    int changed = 0;
+    try (DataInputStream in =
+        new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+      if (!readHeader(index, in)) {
+        logger.info(
+            "Ignoring checkpoint of index {} on region {} written for another index or member",
+            index.getName(), region.getFullPath());
+        return -1;
+      }
+      while (in.readByte() == RECORD) {
+        Object regionKey = DataSerializer.readObject(in);
+        Object versionMember = DataSerializer.readObject(in);
+        long regionVersion = in.readLong();
+        int entryVersion = in.readInt();
+        Object indexKey = readIndexKey(in);
+        RegionEntry re = region.getRegionEntry(regionKey);
+        if (re == null || re.isInvalidOrRemoved()) {
+          continue;
+        }
+        VersionStamp stamp = re.getVersionStamp();
+        if (stamp != null && Objects.equals(stamp.getMemberID(), versionMember)
+            && stamp.getRegionVersion() == regionVersion
+            && stamp.getEntryVersion() == entryVersion) {
+          index.addCheckpointedMapping(indexKey, re);
+        } else {
+          // the entry was modified after the checkpoint was written
+          index.addMapping(re);
+          changed++;
+        }
+        loaded++;
+      }
+      in.readLong();
+    } catch (IOException | ClassNotFoundException | RuntimeException e) {
+      logger.info("Unable to load checkpoint of index {} on region {}: {}", index.getName(),
+          region.getFullPath(), e.getMessage());
+      return -1;
+    } finally {
+      file.delete();
+    }
+    int entries = 0;
+    for (RegionEntry re : region.getRegionMap().regionEntries()) {
+      if (!re.isInvalidOrRemoved()) {
+        entries++;
+      }
+    }
+    if (loaded != entries) {
+      logger.info("Ignoring checkpoint of index {} on region {} holding {} of its {} entries",
+          index.getName(), region.getFullPath(), loaded, entries);
+      return -1;
+    }
+    if (logger.isDebugEnabled()) {
+      logger.debug("Loaded {} entries of index {} on region {} from its checkpoint, {} changed",
+          loaded, index.getName(), region.getFullPath(), changed);
+    }
+    return loaded;
+  }
+
+  private static void writeHeader(CompactRangeIndex index, DataOutputStream out)
+      throws IOException {
+    out.writeInt(MAGIC);
+    out.writeByte(VERSION);
+    out.writeUTF(index.getRegion().getFullPath());
+    DiskStoreID diskStoreID = ((LocalRegion) index.getRegion()).getDiskStore().getDiskStoreID();
+    out.writeLong(diskStoreID.getMostSignificantBits());
+    out.writeLong(diskStoreID.getLeastSignificantBits());
+    out.writeUTF(index.getName());
+    out.writeUTF(index.getCanonicalizedIndexedExpression());
+    out.writeUTF(index.getCanonicalizedFromClause());
+  }
+
+  private static boolean readHeader(CompactRangeIndex index, DataInputStream in)
+      throws IOException {
+    DiskStoreID diskStoreID = ((LocalRegion) index.getRegion()).getDiskStore().getDiskStoreID();
+    return in.readInt() == MAGIC && in.readByte() == VERSION
+        && in.readUTF().equals(index.getRegion().getFullPath())
+        && in.readLong() == diskStoreID.getMostSignificantBits()
+        && in.readLong() == diskStoreID.getLeastSignificantBits()
+        && in.readUTF().equals(index.getName())
+        && in.readUTF().equals(index.getCanonicalizedIndexedExpression())
+        && in.readUTF().equals(index.getCanonicalizedFromClause());
+  }
+
+  private static void writeIndexKey(Object indexKey, DataOutputStream out) throws IOException {
+    if (IndexManager.NULL.equals(indexKey)) {
+      out.writeByte(KEY_NULL);
+    } else if (QueryService.UNDEFINED.equals(indexKey)) {
+      out.writeByte(KEY_UNDEFINED);
+    } else if (indexKey instanceof PdxString) {
+      out.writeByte(KEY_PDX_STRING);
+      DataSerializer.writeString(indexKey.toString(), out);
+    } else {
+      out.writeByte(KEY_OBJECT);
+      DataSerializer.writeObject(indexKey, out);
+    }
+  }
+
+  private static Object readIndexKey(DataInputStream in)
+      throws IOException, ClassNotFoundException {
+    switch (in.readByte()) {
+      case KEY_NULL:
+        return IndexManager.NULL;
+      case KEY_UNDEFINED:
+        return QueryService.UNDEFINED;
+      case KEY_PDX_STRING:
+        return new PdxString(DataSerializer.readString(in));
+      default:
+        return DataSerializer.readObject(in);
+    }
+  }
+}
@@ -0,0 +1,336 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.cache.query.internal.index;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.apache.geode.cache.query.internal.parse.OQLLexerTokenTypes;
+
+/**
+ * An equi-depth histogram of the keys of a range index, used to estimate the number of entries
+ * matched by an inequality or a bounded range condition. When built each bucket holds about the
+ * same number of entries and is described by its largest key. The histogram counts the entries
+ * having the largest key of each bucket and the entries between it and the largest key of the
+ * previous bucket. Within a bucket numeric keys are assumed to be uniformly distributed, other keys
+ * are assumed to fall in the middle of the bucket.
+ * <p>
+ * The bucket bounds are fixed when the histogram is built, while the counts are kept up to date by
+ * the index maintenance through {@link #update}. Keys outside of the bounds are counted below the
+ * smallest or above the largest key. Once the entries within a bucket, or outside of the bounds,
+ * have grown to several times the size of a bucket when built, the histogram reports that it is
+ * unbalanced and the owning index builds a new one.
+ */
+class IndexHistogram {
+
+  static final int NUM_BUCKETS = 64;
+
+  /** how many times the built bucket size a bucket may grow to before it is unbalanced */
+  static final int UNBALANCED_FACTOR = 4;
+
+  private final Comparator comparator;
+
+  private final Object minKey;
+
+  /** whether the smallest key is counted on its own rather than as the first bucket bound */
+  private final boolean minKeySeparate;
+
+  private final AtomicLong minKeyCount;
+
+  /** the largest key of each bucket */
+  private final Object[] bounds;
+
+  /** the number of entries having the largest key of each bucket */
+  private final AtomicLongArray boundCounts;
+
+  /** the number of entries between the largest key of each bucket and that of the previous one */
+  private final AtomicLongArray innerCounts;
+
+  /** the number of entries with a key less than the smallest key when built */
+  private final AtomicLong belowCount = new AtomicLong();
+
+  /** the number of entries with a key greater than the largest key when built */
+  private final AtomicLong aboveCount = new AtomicLong();
+
+  /** the number of entries a bucket may hold before the histogram is unbalanced */
+  private final long unbalancedCount;
+
+  private volatile boolean unbalanced;
+
+  private IndexHistogram(Comparator comparator, Object minKey, long minKeyCount, Object[] bounds,
+      long[] boundCounts, long[] innerCounts, long bucketSize) {
+    this.comparator = comparator;
+    this.minKey = minKey;
+    this.minKeySeparate = bounds.length > 0 && comparator.compare(minKey, bounds[0]) < 0;
+    this.minKeyCount = new AtomicLong(this.minKeySeparate ? minKeyCount : 0);
+    this.bounds = bounds;
+    this.boundCounts = new AtomicLongArray(boundCounts);
+    this.innerCounts = new AtomicLongArray(innerCounts);
+    this.unbalancedCount = bucketSize * UNBALANCED_FACTOR;
+  }
+
+  /**
+   * Returns whether the entries within a bucket, or those outside of the bounds, have grown so much
+   * that a new histogram should be built.
+   */
+  boolean isUnbalanced() {
+    return this.unbalanced;
+  }
+
+  /**
+   * Adds the given number, which may be negative, to the count of entries having the given key.
+   * Keys that cannot be compared with the keys of the histogram are ignored.
+   */
+  void update(Object key, int delta) {
+    if (this.bounds.length == 0) {
+      // built from an empty index so every key unbalances it
+      if (delta > 0) {
+        this.unbalanced = true;
+      }
+      return;
+    }
+    // the counts of single keys are exact however large they get, only the counts that are
+    // interpolated can unbalance the histogram
+    long interpolated;
+    try {
+      int cmp = this.comparator.compare(key, this.minKey);
+      if (cmp < 0) {
+        interpolated = this.belowCount.addAndGet(delta);
+      } else if (cmp == 0 && this.minKeySeparate) {
+        this.minKeyCount.addAndGet(delta);
+        return;
+      } else {
+        int bucket = findBucket(key);
+        if (bucket == this.bounds.length) {
+          interpolated = this.aboveCount.addAndGet(delta);
+        } else if (this.comparator.compare(key, this.bounds[bucket]) == 0) {
+          this.boundCounts.addAndGet(bucket, delta);
+          return;
+        } else {
+          interpolated = this.innerCounts.addAndGet(bucket, delta);
+        }
+      }
+    } catch (ClassCastException ignore) {
+      return;
+    }
+    if (interpolated > this.unbalancedCount) {
+      this.unbalanced = true;
+    }
+  }
+
+  /**
+   * Returns the number of entries in the index.
+   */
+  long getTotalCount() {
+    long total = count(this.belowCount) + count(this.minKeyCount) + count(this.aboveCount);
+    for (int i = 0; i < this.bounds.length; i++) {
+      total += count(this.innerCounts, i) + count(this.boundCounts, i);
+    }
+    return total;
+  }
+
+  /**
+   * Estimates the number of entries whose key satisfies the inequality with the given operator.
+   *
+   * @throws ClassCastException if the key cannot be compared with the keys of the index
+   */
+  long estimate(Object key, int operator) {
+    switch (operator) {
+      case OQLLexerTokenTypes.TOK_LT:
+        return countLessThan(key, false);
+      case OQLLexerTokenTypes.TOK_LE:
+        return countLessThan(key, true);
+      case OQLLexerTokenTypes.TOK_GT:
+        return Math.max(getTotalCount() - countLessThan(key, true), 0);
+      case OQLLexerTokenTypes.TOK_GE:
+        return Math.max(getTotalCount() - countLessThan(key, false), 0);
+      default:
+        throw new IllegalArgumentException("Unexpected operator " + operator);
+    }
+  }
+
+  /**
+   * Estimates the number of entries whose key lies between the given bounds.
+   *
+   * @throws ClassCastException if a key cannot be compared with the keys of the index
+   */
+  long estimate(Object lowerBoundKey, boolean lowerBoundInclusive, Object upperBoundKey,
+      boolean upperBoundInclusive) {
+    long count = countLessThan(upperBoundKey, upperBoundInclusive)
+        - countLessThan(lowerBoundKey, !lowerBoundInclusive);
+    return Math.max(count, 0);
+  }
+
+  private long countLessThan(Object key, boolean inclusive) {
+    if (this.bounds.length == 0) {
+      return 0;
+    }
+    long below = count(this.belowCount);
+    int cmp = this.comparator.compare(key, this.minKey);
+    if (cmp < 0) {
+      // nothing is known about the keys below the smallest one
+      return below / 2;
+    }
+    if (cmp == 0 && this.minKeySeparate) {
+      return inclusive ? below + count(this.minKeyCount) : below;
+    }
+    int bucket = findBucket(key);
+    long count = below + count(this.minKeyCount);
+    for (int i = 0; i < bucket; i++) {
+      count += count(this.innerCounts, i) + count(this.boundCounts, i);
+    }
+    if (bucket == this.bounds.length) {
+      return count + count(this.aboveCount) / 2;
+    }
+    long inBucket = count(this.innerCounts, bucket);
+    if (this.comparator.compare(key, this.bounds[bucket]) == 0) {
+      return count + inBucket + (inclusive ? count(this.boundCounts, bucket) : 0);
+    }
+    Object bucketStart = bucket == 0 ? this.minKey : this.bounds[bucket - 1];
+    return count + (long) (inBucket * fraction(bucketStart, key, this.bounds[bucket]));
+  }
+
+  /**
+   * Returns the first bucket whose largest key is not less than the key, or the number of buckets
+   * if the key is greater than all of them.
+   */
+  private int findBucket(Object key) {
+    int low = 0;
+    int high = this.bounds.length;
+    while (low < high) {
+      int mid = (low + high) >>> 1;
+      if (this.comparator.compare(this.bounds[mid], key) < 0) {
+        low = mid + 1;
+      } else {
+        high = mid;
+      }
+    }
+    return low;
+  }
+
+  /** counts may briefly be negative while concurrent updates of an entry are applied */
+  private static long count(AtomicLong count) {
+    return Math.max(count.get(), 0);
+  }
+
+  private static long count(AtomicLongArray counts, int i) {
+    return Math.max(counts.get(i), 0);
+  }
+
+  /**
+   * Returns the position of the key between the start and the end of a bucket.
+   */
+  private static double fraction(Object start, Object key, Object end) {
+    if (start instanceof Number && key instanceof Number && end instanceof Number) {
+      double startValue = ((Number) start).doubleValue();
+      double range = ((Number) end).doubleValue() - startValue;
+      if (range > 0) {
+        double position = (((Number) key).doubleValue() - startValue) / range;
+        return Math.min(Math.max(position, 0), 1);
+      }
+    }
+    return 0.5;
+  }
+
+  /**
+   * Collects the keys of an index in ascending order into a histogram.
+   */
+  static class Builder {
+    private final Comparator comparator;
+    private final long bucketSize;
+
+    private final List<Object> bounds = new ArrayList<>();
+    private final List<Long> boundCounts = new ArrayList<>();
+    private final List<Long> innerCounts = new ArrayList<>();
+
+    private Object minKey;
+    private long minKeyCount;
+    private Object currentKey;
+    private long currentKeyCount;
+    private Object lastKey;
+    private long lastKeyCount;
+    private long bucketCount;
+
+    /**
+     * @param comparator the comparator ordering the keys of the index
+     * @param expectedCount the approximate number of entries in the index
+     */
+    Builder(Comparator comparator, long expectedCount) {
+      this.comparator = comparator;
+      this.bucketSize = Math.max(1, expectedCount / NUM_BUCKETS);
+    }
+
+    /**
+     * Adds entries with the given key, which must not be less than the keys added before.
+     */
+    void add(Object key, int count) {
+      if (this.currentKey != null && this.comparator.compare(this.currentKey, key) == 0) {
+        this.currentKeyCount += count;
+        return;
+      }
+      finishKey();
+      this.currentKey = key;
+      this.currentKeyCount = count;
+    }
+
+    private void finishKey() {
+      if (this.currentKey == null) {
+        return;
+      }
+      if (this.minKey == null) {
+        this.minKey = this.currentKey;
+        this.minKeyCount = this.currentKeyCount;
+      }
+      this.bucketCount += this.currentKeyCount;
+      this.lastKey = this.currentKey;
+      this.lastKeyCount = this.currentKeyCount;
+      this.currentKey = null;
+      if (this.bucketCount >= this.bucketSize) {
+        closeBucket();
+      }
+    }
+
+    private void closeBucket() {
+      long inner = this.bucketCount - this.lastKeyCount;
+      if (this.bounds.isEmpty() && this.minKey != this.lastKey) {
+        // the smallest key is counted separately
+        inner -= this.minKeyCount;
+      }
+      this.bounds.add(this.lastKey);
+      this.boundCounts.add(this.lastKeyCount);
+      this.innerCounts.add(inner);
+      this.bucketCount = 0;
+    }
+
+    IndexHistogram build() {
+      finishKey();
+      if (this.bucketCount > 0) {
+        closeBucket();
+      }
+      int size = this.bounds.size();
+      long[] boundCountArray = new long[size];
+      long[] innerCountArray = new long[size];
+      for (int i = 0; i < size; i++) {
+        boundCountArray[i] = this.boundCounts.get(i);
+        innerCountArray[i] = this.innerCounts.get(i);
+      }
+      return new IndexHistogram(this.comparator, this.minKey, this.minKeyCount,
+          this.bounds.toArray(), boundCountArray, innerCountArray, this.bucketSize);
+    }
+  }
+}
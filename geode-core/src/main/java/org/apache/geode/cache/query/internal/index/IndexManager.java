@@ -20,6 +20,7 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
@@ -138,6 +139,57 @@ public class IndexManager {
 
   /** For test purpose only */
   public static boolean TEST_RANGEINDEX_ONLY = false;
+
+  /**
+   * System property to store the keys of compact range indexes on int or long values in sorted
+   * primitive arrays (see {@link PrimitiveLongIndexStore}) instead of a skip list of boxed keys.
+   */
+  public static final boolean PRIMITIVE_INDEX_STORE = Boolean.getBoolean(
+      DistributionConfig.GEMFIRE_PREFIX + "index.PRIMITIVE_INDEX_STORE");
+
+  /** For test purpose only */
+  public static boolean TEST_PRIMITIVE_INDEX_STORE = false;
+
+  /**
+   * System property to write a checkpoint of the compact range indexes of persistent regions when
+   * the region is closed and load it instead of rebuilding the index on recovery.
+   */
+  public static final boolean PERSIST_INDEX_CHECKPOINTS = Boolean.getBoolean(
+      DistributionConfig.GEMFIRE_PREFIX + "index.PERSIST_INDEX_CHECKPOINTS");
+
+  /** For test purpose only */
+  public static boolean TEST_PERSIST_INDEX_CHECKPOINTS = false;
+
+  /**
+   * System property to choose among the conditions of a query that can use an index by their
+   * estimated result sizes, estimating inequalities and ranges from histograms of the index keys,
+   * instead of preferring conditions by their operator.
+   */
+  public static final boolean COST_BASED_INDEX_SELECTION =
+      Boolean.getBoolean(DistributionConfig.GEMFIRE_PREFIX + "index.COST_BASED_SELECTION");
+
+  /** For test purpose only */
+  public static boolean TEST_COST_BASED_INDEX_SELECTION = false;
+
+  /**
+   * System property holding the largest number of queued updates the updater thread of a region
+   * with asynchronous index maintenance takes from its queue at once. Repeated updates of an entry
+   * within such a batch are applied once, see {@link IndexUpdaterThread#coalesce}.
+   */
+  public static final int ASYNC_INDEX_UPDATE_BATCH_SIZE = Integer
+      .getInteger(DistributionConfig.GEMFIRE_PREFIX + "index.ASYNC_UPDATE_BATCH_SIZE", 1000);
+
+  /**
+   * System property holding the number of milliseconds a query waits for the asynchronous index
+   * maintenance of the regions it reads to apply the updates of the operations completed before the
+   * query started, so that the query sees its own writes. By default queries do not wait.
+   */
+  public static final long ASYNC_INDEX_UPDATE_QUERY_WAIT =
+      Long.getLong(DistributionConfig.GEMFIRE_PREFIX + "index.ASYNC_UPDATE_QUERY_WAIT", 0);
+
+  /** For test purpose only */
+  public static long TEST_ASYNC_INDEX_UPDATE_QUERY_WAIT = 0;
+
   public static final String INDEX_ELEMARRAY_THRESHOLD_PROP = "index_elemarray_threshold";
   public static final String INDEX_ELEMARRAY_SIZE_PROP = "index_elemarray_size";
   public static final int INDEX_ELEMARRAY_THRESHOLD =
@@ -908,6 +960,23 @@ public class IndexManager {
     boolean oldReadSerialized = DefaultQuery.getPdxReadSerialized();
     DefaultQuery.setPdxReadSerialized(true);
     try {
+      // indexes loaded from a checkpoint do not need to evaluate the region entries
+      Iterator<Index> checkpointIterator = indexSet.iterator();
+      while (checkpointIterator.hasNext()) {
+        AbstractIndex index = (AbstractIndex) checkpointIterator.next();
+        if (!(index instanceof CompactRangeIndex) || index.isPopulated()) {
+          continue;
+        }
+        try {
+          if (((CompactRangeIndex) index).loadCheckpoint() >= 0) {
+            index.setPopulated(true);
+          }
+        } catch (IMQException e) {
+          exceptionsMap.put(index.indexName, e);
+          checkpointIterator.remove();
+          throwException = true;
+        }
+      }
       Iterator entryIter = ((LocalRegion) region).getBestIterator(true);
       while (entryIter.hasNext()) {
         RegionEntry entry = (RegionEntry) entryIter.next();
@@ -1287,6 +1356,25 @@ public class IndexManager {
       updater.shutdown();
   }
 
+  /**
+   * Writes a checkpoint of every compact range index of a persistent region, so that the indexes
+   * can be loaded instead of rebuilt when the region is recovered.
+   */
+  public void writeIndexCheckpoints() {
+    for (Object index : this.indexes.values()) {
+      if (index instanceof CompactRangeIndex) {
+        ((CompactRangeIndex) index).writeCheckpoint();
+      }
+    }
+  }
+
+  /**
+   * Deletes the index checkpoints of a persistent region that is being destroyed.
+   */
+  public static void deleteIndexCheckpoints(LocalRegion region) {
+    IndexCheckpoint.deleteAll(region);
+  }
+
   /**
    * Removes indexes for a destroyed bucket region from the list of bucket indexes in the
    * {@link PartitionedIndex}.
@@ -1327,6 +1415,18 @@ public class IndexManager {
     return this.indexMaintenanceSynchronous;
   }
 
+  /**
+   * Waits up to the given number of milliseconds for the updater thread to apply the index updates
+   * of the operations completed before this call. Returns true at once if the indexes are
+   * maintained synchronously, and false if the timeout elapsed first.
+   */
+  public boolean waitForPendingIndexUpdates(long timeoutMs) throws InterruptedException {
+    if (isIndexMaintenanceTypeSynchronous()) {
+      return true;
+    }
+    return this.updater.waitForQueuedTasks(timeoutMs);
+  }
+
   public boolean isOverFlowRegion() {
     return this.isOverFlowToDisk;
   }
@@ -1392,6 +1492,14 @@ public class IndexManager {
 
     private volatile BlockingQueue pendingTasks;
 
+    /** the number of tasks queued so far */
+    private final AtomicLong queuedTasks = new AtomicLong();
+
+    /** the number of tasks applied so far, guarded by processedLock */
+    private long processedTasks = 0;
+
+    private final Object processedLock = new Object();
+
     /**
      * Creates instance of IndexUpdaterThread
      */
@@ -1413,7 +1521,41 @@ public class IndexManager {
       task[0] = action;
       task[1] = entry;
       task[2] = opCode;
-      pendingTasks.add(task);
+      // count the task before queuing it, so that waiting for the tasks counted so far also waits
+      // for every task queued ahead of them
+      queuedTasks.incrementAndGet();
+      try {
+        pendingTasks.add(task);
+      } catch (RuntimeException e) {
+        queuedTasks.decrementAndGet();
+        throw e;
+      }
+    }
+
+    /**
+     * Waits until the tasks queued before this call have been applied, or the timeout elapses.
+     * Returns false if the timeout elapsed or the thread stopped first.
+     */
+    boolean waitForQueuedTasks(long timeoutMs) throws InterruptedException {
+      long watermark = this.queuedTasks.get();
+      long deadline = System.currentTimeMillis() + timeoutMs;
+      synchronized (this.processedLock) {
+        while (this.processedTasks < watermark) {
+          long remaining = deadline - System.currentTimeMillis();
+          if (remaining <= 0 || !this.running) {
+            return false;
+          }
+          this.processedLock.wait(remaining);
+        }
+      }
+      return true;
+    }
+
+    private void tasksProcessed(int count) {
+      synchronized (this.processedLock) {
+        this.processedTasks += count;
+        this.processedLock.notifyAll();
+      }
     }
 
     /**
@@ -1438,6 +1580,9 @@ public class IndexManager {
       // async writers main loop
       // logger.debug("DiskRegion writer started (writer=" + this + ")");
       org.apache.geode.CancelCriterion stopper = ((LocalRegion) region).getCancelCriterion();
+      // apply the tasks queued while the previous batch was applied together
+      int batchSize = Math.max(1, ASYNC_INDEX_UPDATE_BATCH_SIZE);
+      List<Object[]> batch = new ArrayList<>(Math.min(batchSize, 1024));
       try {
         while (!this.shutdownRequested) {
           // Termination checks
@@ -1450,14 +1595,75 @@ public class IndexManager {
             if (this.shutdownRequested) {
               break;
             }
-            updateIndexes(task);
+            batch.add(task);
+            pendingTasks.drainTo(batch, batchSize - 1);
+            for (Object[] queuedTask : coalesce(batch)) {
+              updateIndexes(queuedTask);
+            }
+            tasksProcessed(batch.size());
+            batch.clear();
           } catch (InterruptedException ignore) {
             return; // give up (exit the thread)
           }
         }
       } finally {
         this.running = false;
+        synchronized (this.processedLock) {
+          this.processedLock.notifyAll();
+        }
+      }
+    }
+
+    /**
+     * Returns the tasks of a batch that have to be applied, grouped by entry in the order they were
+     * queued for each entry. A task indexes the value its entry has when the task is applied, so
+     * when an entry is updated several times in a row, only the removal and addition queued by its
+     * last update are applied. Recreating the indexes applies to all entries, so the tasks queued
+     * before and after it are not grouped together.
+     */
+    List<Object[]> coalesce(List<Object[]> batch) {
+      List<Object[]> result = new ArrayList<>(batch.size());
+      Map<RegionEntry, List<Object[]>> tasksByEntry = new IdentityHashMap<>();
+      List<List<Object[]>> entryTasks = new ArrayList<>();
+      for (Object[] task : batch) {
+        RegionEntry entry = (RegionEntry) task[1];
+        if (entry == null) {
+          for (List<Object[]> tasks : entryTasks) {
+            result.addAll(tasks);
+          }
+          tasksByEntry.clear();
+          entryTasks.clear();
+          result.add(task);
+          continue;
+        }
+        List<Object[]> tasks = tasksByEntry.get(entry);
+        if (tasks == null) {
+          tasks = new ArrayList<>(2);
+          tasksByEntry.put(entry, tasks);
+          entryTasks.add(tasks);
+        }
+        int size = tasks.size();
+        if (isAfterUpdate(task) && size >= 3 && isBeforeUpdate(tasks.get(size - 1))
+            && isAfterUpdate(tasks.get(size - 2)) && isBeforeUpdate(tasks.get(size - 3))) {
+          // the previous update is superseded by this one
+          tasks.subList(size - 3, size - 1).clear();
+        }
+        tasks.add(task);
+      }
+      for (List<Object[]> tasks : entryTasks) {
+        result.addAll(tasks);
       }
+      return result;
+    }
+
+    private boolean isBeforeUpdate(Object[] task) {
+      return (Integer) task[0] == REMOVE_ENTRY
+          && (Integer) task[2] == IndexProtocol.BEFORE_UPDATE_OP;
+    }
+
+    private boolean isAfterUpdate(Object[] task) {
+      return (Integer) task[0] == UPDATE_ENTRY
+          && (Integer) task[2] == IndexProtocol.AFTER_UPDATE_OP;
     }
 
     private void updateIndexes(Object[] task) {
@@ -1486,12 +1692,12 @@ public class IndexManager {
     }
 
     /**
-     * Used by tests to determine if the updater thread has finished updating its indexes. The list
-     * is cleared without synchronization, which makes this methods somewhat unsafe from a threading
-     * point of view.
+     * Used by tests to determine if the updater thread has finished updating its indexes.
      */
-    public synchronized boolean isDone() {
-      return this.pendingTasks.size() == 0;
+    public boolean isDone() {
+      synchronized (this.processedLock) {
+        return this.processedTasks >= this.queuedTasks.get();
+      }
     }
 
   }
@@ -14,6 +14,7 @@
  */
 package org.apache.geode.cache.query.internal.index;
 
+import java.io.IOException;
 import java.util.Collection;
 import java.util.HashSet;
 import java.util.Iterator;
@@ -66,6 +67,9 @@ public class MemoryIndexStore implements IndexStore {
 
   private final InternalIndexStatistics internalIndexStats;
 
+  /** the index whose histogram is kept up to date with this store; null if none */
+  private final AbstractIndex index;
+
   private final InternalCache cache;
 
   private final Region region;
@@ -84,11 +88,16 @@ public class MemoryIndexStore implements IndexStore {
   private final Object TRANSITIONING_TOKEN = new IndexElemArray(1);
 
   MemoryIndexStore(Region region, InternalIndexStatistics internalIndexStats) {
-    this(region, internalIndexStats, GemFireCacheImpl.getInstance());
+    this(region, internalIndexStats, null);
+  }
+
+  MemoryIndexStore(Region region, InternalIndexStatistics internalIndexStats,
+      AbstractIndex index) {
+    this(region, internalIndexStats, index, GemFireCacheImpl.getInstance());
   }
 
   private MemoryIndexStore(Region region, InternalIndexStatistics internalIndexStats,
-      InternalCache cache) {
+      AbstractIndex index, InternalCache cache) {
     this.region = region;
     RegionAttributes ra = region.getAttributes();
     // Initialize the reverse-map if in-place modification is set by the
@@ -98,6 +107,7 @@ public class MemoryIndexStore implements IndexStore {
           ra.getConcurrencyLevel());
     }
     this.internalIndexStats = internalIndexStats;
+    this.index = index;
     this.cache = cache;
   }
 
@@ -246,6 +256,13 @@ public class MemoryIndexStore implements IndexStore {
       throw new IMQException("Could not add object of type " + indexKey.getClass().getName(), ex);
     }
     internalIndexStats.incNumValues(1);
+    updateHistogram(indexKey, 1);
+  }
+
+  void updateHistogram(Object indexKey, int delta) {
+    if (this.index != null) {
+      this.index.updateHistogram(indexKey, delta);
+    }
   }
 
   /**
@@ -297,8 +314,9 @@ public class MemoryIndexStore implements IndexStore {
       throws IMQException {
     boolean found = false;
     boolean possiblyAlreadyRemoved = false;
+    Object newKey = null;
     try {
-      Object newKey = convertToIndexKey(key, entry);
+      newKey = convertToIndexKey(key, entry);
       if (DefaultQuery.testHook != null) {
         DefaultQuery.testHook.doTestHook("ATTEMPT_REMOVE");
       }
@@ -369,6 +387,7 @@ public class MemoryIndexStore implements IndexStore {
     if (found) {
       // Update stats if entry was actually removed
       internalIndexStats.incNumValues(-1);
+      updateHistogram(newKey, -1);
     } else if (!found && !possiblyAlreadyRemoved && !IndexManager.isObjectModificationInplace()
         && key != null) {
       // if there is an inplace-modification find old key by iterating
@@ -515,7 +534,7 @@ public class MemoryIndexStore implements IndexStore {
     return ((LocalRegion) this.region).new NonTXEntry(entry);
   }
 
-  private Object getTargetObjectForUpdate(RegionEntry entry) {
+  Object getTargetObjectForUpdate(RegionEntry entry) {
     if (indexOnValues) {
       Object o = entry.getValue((LocalRegion) this.region);
       try {
@@ -664,22 +683,51 @@ public class MemoryIndexStore implements IndexStore {
     public void close() {
       // do nothing
     }
+  }
 
-    public boolean removeFromKeysToRemove(Collection keysToRemove, Object key) {
-      Iterator iterator = keysToRemove.iterator();
-      while (iterator.hasNext()) {
-        try {
-          if (TypeUtils.compare(key, iterator.next(), OQLLexerTokenTypes.TOK_EQ)
-              .equals(Boolean.TRUE)) {
-            iterator.remove();
-            return true;
-          }
-        } catch (TypeMismatchException e) {
-          // they are not equals, so we just continue iterating
+  /**
+   * Removes the first element of keysToRemove that is equal to key, returning true if one was
+   * found.
+   */
+  static boolean removeFromKeysToRemove(Collection keysToRemove, Object key) {
+    Iterator iterator = keysToRemove.iterator();
+    while (iterator.hasNext()) {
+      try {
+        if (TypeUtils.compare(key, iterator.next(), OQLLexerTokenTypes.TOK_EQ)
+            .equals(Boolean.TRUE)) {
+          iterator.remove();
+          return true;
         }
+      } catch (TypeMismatchException e) {
+        // they are not equals, so we just continue iterating
       }
-      return false;
     }
+    return false;
+  }
+
+  /**
+   * Passes every mapping of the store, including those of NULL and UNDEFINED, to the visitor
+   * without reading the values of the region entries.
+   */
+  void visitMappings(MappingVisitor visitor) throws IOException {
+    for (Object mapping : this.valueToEntriesMap.entrySet()) {
+      Object indexKey = ((Entry) mapping).getKey();
+      Object regionEntries = ((Entry) mapping).getValue();
+      if (regionEntries instanceof RegionEntry) {
+        visitor.visit(indexKey, (RegionEntry) regionEntries);
+      } else if (regionEntries instanceof Collection) {
+        for (Object re : (Collection) regionEntries) {
+          visitor.visit(indexKey, (RegionEntry) re);
+        }
+      }
+    }
+  }
+
+  /**
+   * Receives the mappings of a store from {@link #visitMappings}.
+   */
+  interface MappingVisitor {
+    void visit(Object indexKey, RegionEntry re) throws IOException;
   }
 
   public String printAll() {
@@ -714,7 +762,7 @@ public class MemoryIndexStore implements IndexStore {
     private Object value;
     private long iteratorStartTime;
 
-    private MemoryIndexStoreEntry(long iteratorStartTime) {
+    MemoryIndexStoreEntry(long iteratorStartTime) {
       this.iteratorStartTime = iteratorStartTime;
     }
 
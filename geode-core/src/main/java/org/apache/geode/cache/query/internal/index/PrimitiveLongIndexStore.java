@@ -0,0 +1,970 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.cache.query.internal.index;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.apache.geode.cache.Region;
+import org.apache.geode.cache.query.QueryService;
+import org.apache.geode.cache.query.TypeMismatchException;
+import org.apache.geode.cache.query.internal.index.AbstractIndex.InternalIndexStatistics;
+import org.apache.geode.cache.query.internal.types.TypeUtils;
+import org.apache.geode.internal.cache.GemFireCacheImpl;
+import org.apache.geode.internal.cache.RegionEntry;
+import org.apache.geode.internal.cache.Token;
+import org.apache.geode.internal.cache.persistence.query.CloseableIterator;
+
+/**
+ * An index storage for indexes whose keys are all ints or all longs. Instead of a skip list of
+ * boxed keys, each holding a RegionEntry or a collection of them, the mappings are kept in a
+ * sorted run: a long[] of keys and a parallel RegionEntry[] sorted by key and then by identity
+ * hash, with a bitmap marking removed slots. Additions go to a small concurrent delta map that is
+ * merged into a new run once it grows past a fraction of the run, so a mapping costs about 12
+ * bytes instead of the ~100 bytes of a skip list node, boxed key and hash set node.
+ * <p>
+ * Mutations hold the read lock of {@link #lock} and a per key stripe lock, merges hold the write
+ * lock. Iterators read whichever run was current when they were created and are weakly
+ * consistent, like those of {@link MemoryIndexStore}.
+ * <p>
+ * The first key that is neither an Integer nor a Long of the same kind as the keys already stored
+ * (a String, a Double, or a Long in an int index) inflates the store: all mappings are moved into
+ * the skip list of the superclass, which handles every operation from then on.
+ * {@link QueryService#UNDEFINED} and {@link IndexManager#NULL} keys are kept in separate sets.
+ */
+public class PrimitiveLongIndexStore extends MemoryIndexStore {
+
+  private static final int KIND_UNKNOWN = 0;
+  private static final int KIND_INT = 1;
+  private static final int KIND_LONG = 2;
+
+  // results of addToStore
+  private static final int NOT_STORED = 0;
+  private static final int ADDED = 1;
+  private static final int ALREADY_STORED = 2;
+
+  /** The delta is merged once it holds this many changes or 1/16th of the run, if larger */
+  private static final int MIN_MERGE_SIZE = 8192;
+
+  private static final int LOCK_STRIPES = 64;
+
+  private static final Comparator<RegionEntry> IDENTITY_ORDER =
+      (entry1, entry2) -> Integer.compare(System.identityHashCode(entry1),
+          System.identityHashCode(entry2));
+
+  private final InternalIndexStatistics internalIndexStats;
+
+  private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+  private final Object[] keyLocks = new Object[LOCK_STRIPES];
+
+  private final AtomicInteger keyKind = new AtomicInteger(KIND_UNKNOWN);
+
+  // number of keys, including NULL and UNDEFINED
+  private final AtomicInteger numIndexKeys = new AtomicInteger(0);
+
+  // readers that do not hold the lock read the run and these sets before they check inflated,
+  // since inflate sets inflated before it drops them
+  private volatile Set<RegionEntry> nullEntries = ConcurrentHashMap.newKeySet();
+
+  private volatile Set<RegionEntry> undefinedEntries = ConcurrentHashMap.newKeySet();
+
+  private volatile Run run = new Run(new long[0], new RegionEntry[0]);
+
+  private volatile boolean inflated;
+
+  PrimitiveLongIndexStore(Region region, InternalIndexStatistics internalIndexStats) {
+    this(region, internalIndexStats, null);
+  }
+
+  PrimitiveLongIndexStore(Region region, InternalIndexStatistics internalIndexStats,
+      AbstractIndex index) {
+    super(region, internalIndexStats, index);
+    this.internalIndexStats = internalIndexStats;
+    for (int i = 0; i < LOCK_STRIPES; i++) {
+      keyLocks[i] = new Object();
+    }
+  }
+
+  /**
+   * Returns true once the mappings have been moved to the skip list of {@link MemoryIndexStore}.
+   */
+  boolean isInflated() {
+    return this.inflated;
+  }
+
+  @Override
+  public void updateMapping(Object indexKey, Object oldKey, RegionEntry re, Object oldValue)
+      throws IMQException {
+    if (this.inflated) {
+      super.updateMapping(indexKey, oldKey, re, oldValue);
+      return;
+    }
+    try {
+      indexKey = TypeUtils.indexKeyFor(indexKey);
+    } catch (TypeMismatchException ex) {
+      throw new IMQException("Could not add object of type " + indexKey.getClass().getName(), ex);
+    }
+    // Check if the old value and new value same. If they are same, that means the value got
+    // updated in place, so find the old index key in the store.
+    if (oldValue != null && oldValue == getTargetObjectInVM(re)) {
+      oldKey = getOldKey(indexKey, re);
+    }
+    // No need to update the store if new and old index key are same.
+    if (oldKey != null && oldKey.equals(indexKey)) {
+      return;
+    }
+    if (indexKey.equals(QueryService.UNDEFINED)
+        && Token.isInvalidOrRemoved(getTargetObjectForUpdate(re))) {
+      if (oldKey != null) {
+        removeMapping(oldKey, re, false);
+      }
+      return;
+    }
+
+    int result = NOT_STORED;
+    this.lock.readLock().lock();
+    try {
+      if (!this.inflated) {
+        result = addToStore(indexKey, re);
+        if (result != NOT_STORED && oldKey != null) {
+          basicRemoveMapping(oldKey, re, false);
+        }
+      }
+    } finally {
+      this.lock.readLock().unlock();
+    }
+    if (result == NOT_STORED) {
+      inflate();
+      super.updateMapping(indexKey, oldKey, re, null);
+      return;
+    }
+    if (result == ADDED) {
+      this.internalIndexStats.incNumValues(1);
+      updateHistogram(indexKey, 1);
+    }
+    mergeIfNeeded();
+  }
+
+  @Override
+  public void removeMapping(Object indexKey, RegionEntry re) throws IMQException {
+    removeMapping(indexKey, re, true);
+  }
+
+  private void removeMapping(Object indexKey, RegionEntry re, boolean findOldKey)
+      throws IMQException {
+    boolean handled = false;
+    this.lock.readLock().lock();
+    try {
+      if (!this.inflated) {
+        basicRemoveMapping(indexKey, re, findOldKey);
+        handled = true;
+      }
+    } finally {
+      this.lock.readLock().unlock();
+    }
+    if (handled) {
+      mergeIfNeeded();
+    } else {
+      super.removeMapping(indexKey, re);
+    }
+  }
+
+  /**
+   * Must be called with the read lock held. Merges are left to the caller as they need the write
+   * lock.
+   */
+  private boolean basicRemoveMapping(Object key, RegionEntry entry, boolean findOldKey)
+      throws IMQException {
+    Object indexKey;
+    try {
+      indexKey = TypeUtils.indexKeyFor(key);
+    } catch (TypeMismatchException ex) {
+      throw new IMQException("Could not add object of type " + key.getClass().getName(), ex);
+    }
+    boolean found = removeFromStore(indexKey, entry);
+    if (!found && findOldKey && indexKey != null) {
+      // the value may have been modified in place, look for the entry under any other key
+      Object oldKey = getOldKey(indexKey, entry);
+      if (oldKey != indexKey) {
+        found = removeFromStore(oldKey, entry);
+      }
+    }
+    return found;
+  }
+
+  /**
+   * Must be called with the read lock held. Returns {@link #NOT_STORED} if the key can't be kept
+   * in a run, so that the store has to be inflated, and {@link #ALREADY_STORED} if the key already
+   * maps to the entry.
+   */
+  private int addToStore(Object indexKey, RegionEntry re) {
+    Set<RegionEntry> tokenEntries = tokenEntries(indexKey);
+    if (tokenEntries != null) {
+      synchronized (tokenEntries) {
+        boolean newKey = tokenEntries.isEmpty();
+        if (!tokenEntries.add(re)) {
+          return ALREADY_STORED;
+        }
+        if (newKey) {
+          this.numIndexKeys.incrementAndGet();
+          this.internalIndexStats.incNumKeys(1);
+        }
+      }
+      return ADDED;
+    }
+    int kind = kindOf(indexKey);
+    if (kind == KIND_UNKNOWN
+        || !this.keyKind.compareAndSet(KIND_UNKNOWN, kind) && this.keyKind.get() != kind) {
+      return NOT_STORED;
+    }
+    long key = ((Number) indexKey).longValue();
+    synchronized (keyLock(key)) {
+      Run r = this.run;
+      if (r.find(key, re) >= 0) {
+        return ALREADY_STORED;
+      }
+      boolean newKey = !r.containsKey(key);
+      if (!r.delta.computeIfAbsent(key, k -> ConcurrentHashMap.newKeySet()).add(re)) {
+        return ALREADY_STORED;
+      }
+      r.pendingChanges.incrementAndGet();
+      if (newKey) {
+        this.numIndexKeys.incrementAndGet();
+        this.internalIndexStats.incNumKeys(1);
+      }
+    }
+    return ADDED;
+  }
+
+  private boolean removeFromStore(Object indexKey, RegionEntry re) {
+    Set<RegionEntry> tokenEntries = tokenEntries(indexKey);
+    if (tokenEntries != null) {
+      synchronized (tokenEntries) {
+        if (!tokenEntries.remove(re)) {
+          return false;
+        }
+        if (tokenEntries.isEmpty()) {
+          this.numIndexKeys.decrementAndGet();
+          this.internalIndexStats.incNumKeys(-1);
+        }
+      }
+      this.internalIndexStats.incNumValues(-1);
+      updateHistogram(indexKey, -1);
+      return true;
+    }
+    if (kindOf(indexKey) == KIND_UNKNOWN) {
+      return false;
+    }
+    long key = ((Number) indexKey).longValue();
+    synchronized (keyLock(key)) {
+      Run r = this.run;
+      Set<RegionEntry> added = r.delta.get(key);
+      if (added == null || !added.remove(re)) {
+        int slot = r.find(key, re);
+        if (slot < 0 || !r.markRemoved(slot)) {
+          return false;
+        }
+        r.pendingChanges.incrementAndGet();
+      }
+      if (!r.containsKey(key)) {
+        this.numIndexKeys.decrementAndGet();
+        this.internalIndexStats.incNumKeys(-1);
+      }
+    }
+    this.internalIndexStats.incNumValues(-1);
+    updateHistogram(indexKey, -1);
+    return true;
+  }
+
+  /**
+   * Find the old key by traversing the store in case of in-place update modification. If not found
+   * it means the value object was modified with same value. So oldKey is same as newKey.
+   */
+  private Object getOldKey(Object newKey, RegionEntry entry) {
+    if (!IndexManager.NULL.equals(newKey) && this.nullEntries.contains(entry)) {
+      return IndexManager.NULL;
+    }
+    if (!QueryService.UNDEFINED.equals(newKey) && this.undefinedEntries.contains(entry)) {
+      return QueryService.UNDEFINED;
+    }
+    boolean numeric = kindOf(newKey) != KIND_UNKNOWN;
+    long key = numeric ? ((Number) newKey).longValue() : 0;
+    Run r = this.run;
+    for (int slot = 0; slot < r.keys.length; slot++) {
+      if (r.entries[slot] == entry && (!numeric || r.keys[slot] != key) && r.isLive(slot)) {
+        return box(r.keys[slot]);
+      }
+    }
+    for (Map.Entry<Long, Set<RegionEntry>> added : r.delta.entrySet()) {
+      if ((!numeric || added.getKey() != key) && added.getValue().contains(entry)) {
+        return box(added.getKey());
+      }
+    }
+    return newKey;
+  }
+
+  private Set<RegionEntry> tokenEntries(Object indexKey) {
+    if (IndexManager.NULL.equals(indexKey)) {
+      return this.nullEntries;
+    } else if (QueryService.UNDEFINED.equals(indexKey)) {
+      return this.undefinedEntries;
+    }
+    return null;
+  }
+
+  private static int kindOf(Object indexKey) {
+    if (indexKey instanceof Integer) {
+      return KIND_INT;
+    } else if (indexKey instanceof Long) {
+      return KIND_LONG;
+    }
+    return KIND_UNKNOWN;
+  }
+
+  private Object keyLock(long key) {
+    return this.keyLocks[(int) (key ^ (key >>> 32)) & (LOCK_STRIPES - 1)];
+  }
+
+  private Object box(long key) {
+    if (this.keyKind.get() == KIND_INT) {
+      return Integer.valueOf((int) key);
+    }
+    return Long.valueOf(key);
+  }
+
+  private void mergeIfNeeded() {
+    Run r = this.run;
+    if (r.pendingChanges.get() >= Math.max(MIN_MERGE_SIZE, r.keys.length >>> 4)) {
+      merge();
+    }
+  }
+
+  /**
+   * Replaces the current run with one that also holds the mappings of its delta and no longer
+   * holds the removed slots.
+   */
+  void merge() {
+    this.lock.writeLock().lock();
+    try {
+      if (this.inflated) {
+        return;
+      }
+      Run old = this.run;
+      int size = old.liveCount();
+      for (Set<RegionEntry> added : old.delta.values()) {
+        size += added.size();
+      }
+      long[] keys = new long[size];
+      RegionEntry[] entries = new RegionEntry[size];
+      int slot = 0;
+      int next = 0;
+      for (Map.Entry<Long, Set<RegionEntry>> added : old.delta.entrySet()) {
+        long key = added.getKey();
+        RegionEntry[] addedEntries = added.getValue().toArray(new RegionEntry[0]);
+        Arrays.sort(addedEntries, IDENTITY_ORDER);
+        for (RegionEntry re : addedEntries) {
+          int hash = System.identityHashCode(re);
+          for (; slot < old.keys.length && (old.keys[slot] < key || old.keys[slot] == key
+              && System.identityHashCode(old.entries[slot]) <= hash); slot++) {
+            if (old.isLive(slot)) {
+              keys[next] = old.keys[slot];
+              entries[next++] = old.entries[slot];
+            }
+          }
+          keys[next] = key;
+          entries[next++] = re;
+        }
+      }
+      for (; slot < old.keys.length; slot++) {
+        if (old.isLive(slot)) {
+          keys[next] = old.keys[slot];
+          entries[next++] = old.entries[slot];
+        }
+      }
+      this.run = new Run(keys, entries);
+    } finally {
+      this.lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Moves every mapping into the skip list of the superclass, which handles all operations from
+   * then on.
+   */
+  private void inflate() throws IMQException {
+    this.lock.writeLock().lock();
+    try {
+      if (this.inflated) {
+        return;
+      }
+      // the superclass counts the keys, values and histogram again as they are added
+      this.internalIndexStats.incNumKeys(-this.numIndexKeys.get());
+      Run r = this.run;
+      for (int slot = 0; slot < r.keys.length; slot++) {
+        if (r.isLive(slot)) {
+          inflateMapping(box(r.keys[slot]), r.entries[slot]);
+        }
+      }
+      for (Map.Entry<Long, Set<RegionEntry>> added : r.delta.entrySet()) {
+        for (RegionEntry re : added.getValue()) {
+          inflateMapping(box(added.getKey()), re);
+        }
+      }
+      for (RegionEntry re : this.nullEntries) {
+        inflateMapping(IndexManager.NULL, re);
+      }
+      for (RegionEntry re : this.undefinedEntries) {
+        inflateMapping(QueryService.UNDEFINED, re);
+      }
+      // set before the mappings are dropped, so that a reader that still finds them sees the
+      // store as it was before inflating rather than an empty one
+      this.inflated = true;
+      this.run = new Run(new long[0], new RegionEntry[0]);
+      this.nullEntries = ConcurrentHashMap.newKeySet();
+      this.undefinedEntries = ConcurrentHashMap.newKeySet();
+      this.numIndexKeys.set(0);
+    } finally {
+      this.lock.writeLock().unlock();
+    }
+  }
+
+  private void inflateMapping(Object indexKey, RegionEntry re) throws IMQException {
+    this.internalIndexStats.incNumValues(-1);
+    updateHistogram(indexKey, -1);
+    super.updateMapping(indexKey, null, re, null);
+  }
+
+  @Override
+  public CloseableIterator<IndexStoreEntry> get(Object indexKey) {
+    Set<RegionEntry> tokenEntries = tokenEntries(indexKey);
+    Run r = this.run;
+    if (this.inflated) {
+      return super.get(indexKey);
+    }
+    if (tokenEntries != null) {
+      return new TokenIterator(indexKey, tokenEntries);
+    }
+    return rangeIterator(r, indexKey, true, indexKey, true, null, false);
+  }
+
+  @Override
+  public CloseableIterator<IndexStoreEntry> iterator(Object start, boolean startInclusive,
+      Object end, boolean endInclusive, Collection keysToRemove) {
+    Run r = this.run;
+    if (this.inflated) {
+      return super.iterator(start, startInclusive, end, endInclusive, keysToRemove);
+    }
+    return rangeIterator(r, start, startInclusive, end, endInclusive, keysToRemove, false);
+  }
+
+  @Override
+  public CloseableIterator<IndexStoreEntry> iterator(Object start, boolean startInclusive,
+      Collection keysToRemove) {
+    Run r = this.run;
+    if (this.inflated) {
+      return super.iterator(start, startInclusive, keysToRemove);
+    }
+    return rangeIterator(r, start, startInclusive, null, true, keysToRemove, false);
+  }
+
+  @Override
+  public CloseableIterator<IndexStoreEntry> iterator(Collection keysToRemove) {
+    Run r = this.run;
+    if (this.inflated) {
+      return super.iterator(keysToRemove);
+    }
+    return rangeIterator(r, null, true, null, true, keysToRemove, false);
+  }
+
+  @Override
+  public CloseableIterator<IndexStoreEntry> descendingIterator(Object start, boolean startInclusive,
+      Object end, boolean endInclusive, Collection keysToRemove) {
+    Run r = this.run;
+    if (this.inflated) {
+      return super.descendingIterator(start, startInclusive, end, endInclusive, keysToRemove);
+    }
+    return rangeIterator(r, start, startInclusive, end, endInclusive, keysToRemove, true);
+  }
+
+  @Override
+  public CloseableIterator<IndexStoreEntry> descendingIterator(Object start, boolean startInclusive,
+      Collection keysToRemove) {
+    Run r = this.run;
+    if (this.inflated) {
+      return super.descendingIterator(start, startInclusive, keysToRemove);
+    }
+    return rangeIterator(r, start, startInclusive, null, true, keysToRemove, true);
+  }
+
+  @Override
+  public CloseableIterator<IndexStoreEntry> descendingIterator(Collection keysToRemove) {
+    Run r = this.run;
+    if (this.inflated) {
+      return super.descendingIterator(keysToRemove);
+    }
+    return rangeIterator(r, null, true, null, true, keysToRemove, true);
+  }
+
+  private CloseableIterator<IndexStoreEntry> rangeIterator(Run r, Object start,
+      boolean startInclusive, Object end, boolean endInclusive, Collection keysToRemove,
+      boolean descending) {
+    long[] range = keyRange(start, startInclusive, end, endInclusive);
+    if (range == null) {
+      return new TokenIterator(null, Collections.<RegionEntry>emptySet());
+    }
+    return new RunIterator(r, range[0], range[1], keysToRemove, descending);
+  }
+
+  /**
+   * Returns the smallest and largest stored key between the given bounds, or null if there is
+   * none. A null bound is open. As in the skip list, NULL and UNDEFINED sort below every other key
+   * and any other non numeric bound throws ClassCastException once the store holds keys.
+   */
+  private long[] keyRange(Object start, boolean startInclusive, Object end,
+      boolean endInclusive) {
+    int kind = this.keyKind.get();
+    long low = kind == KIND_INT ? Integer.MIN_VALUE : Long.MIN_VALUE;
+    long high = kind == KIND_INT ? Integer.MAX_VALUE : Long.MAX_VALUE;
+    if (start != null && tokenEntries(start) == null) {
+      if (!(start instanceof Number)) {
+        return nonNumericBound(kind, start);
+      }
+      Number bound = (Number) start;
+      if (!isAboveLowerBound(high, bound, startInclusive, kind)) {
+        return null;
+      }
+      long max = high;
+      while (low < max) {
+        long mid = low + ((max - low) >>> 1);
+        if (isAboveLowerBound(mid, bound, startInclusive, kind)) {
+          max = mid;
+        } else {
+          low = mid + 1;
+        }
+      }
+    }
+    if (end != null) {
+      if (tokenEntries(end) != null) {
+        return null;
+      }
+      if (!(end instanceof Number)) {
+        return nonNumericBound(kind, end);
+      }
+      Number bound = (Number) end;
+      if (!isBelowUpperBound(low, bound, endInclusive, kind)) {
+        return null;
+      }
+      long min = low;
+      while (min < high) {
+        long mid = high - ((high - min) >>> 1);
+        if (isBelowUpperBound(mid, bound, endInclusive, kind)) {
+          min = mid;
+        } else {
+          high = mid - 1;
+        }
+      }
+    }
+    return low <= high ? new long[] {low, high} : null;
+  }
+
+  private static long[] nonNumericBound(int kind, Object bound) {
+    if (kind == KIND_UNKNOWN) {
+      return null;
+    }
+    throw new ClassCastException(
+        bound.getClass().getName() + " cannot be compared with the keys of a numeric index");
+  }
+
+  private static boolean isAboveLowerBound(long key, Number bound, boolean inclusive, int kind) {
+    int result = compareToBound(key, bound, kind);
+    return inclusive ? result >= 0 : result > 0;
+  }
+
+  private static boolean isBelowUpperBound(long key, Number bound, boolean inclusive, int kind) {
+    int result = compareToBound(key, bound, kind);
+    return inclusive ? result <= 0 : result < 0;
+  }
+
+  /**
+   * Compares a stored key with a bound the way the extended numeric comparator of the skip list
+   * would compare the boxed key with it.
+   */
+  private static int compareToBound(long key, Number bound, int kind) {
+    if (bound instanceof Double) {
+      return Double.compare((double) key, bound.doubleValue());
+    } else if (bound instanceof Float) {
+      return Float.compare((float) (double) key, bound.floatValue());
+    } else if (kind != KIND_INT || bound instanceof Long) {
+      return Long.compare(key, bound.longValue());
+    }
+    return Integer.compare((int) key, bound.intValue());
+  }
+
+  @Override
+  public boolean clear() {
+    if (this.inflated) {
+      return super.clear();
+    }
+    this.lock.writeLock().lock();
+    try {
+      this.run = new Run(new long[0], new RegionEntry[0]);
+      this.nullEntries.clear();
+      this.undefinedEntries.clear();
+      this.numIndexKeys.set(0);
+      this.keyKind.set(KIND_UNKNOWN);
+    } finally {
+      this.lock.writeLock().unlock();
+    }
+    return true;
+  }
+
+  @Override
+  public int size(Object key) {
+    Set<RegionEntry> tokenEntries = tokenEntries(key);
+    Run r = this.run;
+    if (this.inflated) {
+      return super.size(key);
+    }
+    if (tokenEntries != null) {
+      return tokenEntries.size();
+    }
+    long[] range = keyRange(key, true, key, true);
+    if (range == null) {
+      return 0;
+    }
+    int size = 0;
+    for (int slot = r.lowerIndex(range[0]), end = r.upperIndex(range[1]); slot < end; slot++) {
+      if (r.isLive(slot)) {
+        size++;
+      }
+    }
+    for (Set<RegionEntry> added : r.delta.subMap(range[0], true, range[1], true).values()) {
+      size += added.size();
+    }
+    return size;
+  }
+
+  @Override
+  public int size() {
+    int size = this.numIndexKeys.get();
+    if (this.inflated) {
+      return super.size();
+    }
+    return size;
+  }
+
+  @Override
+  void visitMappings(MappingVisitor visitor) throws IOException {
+    Set<RegionEntry> nulls = this.nullEntries;
+    Set<RegionEntry> undefineds = this.undefinedEntries;
+    Run r = this.run;
+    if (this.inflated) {
+      super.visitMappings(visitor);
+      return;
+    }
+    for (RegionEntry re : nulls) {
+      visitor.visit(IndexManager.NULL, re);
+    }
+    for (RegionEntry re : undefineds) {
+      visitor.visit(QueryService.UNDEFINED, re);
+    }
+    for (int slot = 0; slot < r.keys.length; slot++) {
+      if (r.isLive(slot)) {
+        visitor.visit(box(r.keys[slot]), r.entries[slot]);
+      }
+    }
+    for (Map.Entry<Long, Set<RegionEntry>> added : r.delta.entrySet()) {
+      Object indexKey = box(added.getKey());
+      for (RegionEntry re : added.getValue()) {
+        visitor.visit(indexKey, re);
+      }
+    }
+  }
+
+  @Override
+  public String printAll() {
+    if (this.inflated) {
+      return super.printAll();
+    }
+    StringBuilder sb = new StringBuilder();
+    CloseableIterator<IndexStoreEntry> iterator = iterator(null);
+    while (iterator.hasNext()) {
+      IndexStoreEntry entry = iterator.next();
+      sb.append("Key: ").append(entry.getDeserializedKey()).append(" Value:")
+          .append(entry.getDeserializedValue()).append("\n");
+    }
+    return sb.toString();
+  }
+
+  /**
+   * A sorted run of mappings together with the additions made since it was created.
+   */
+  private static class Run {
+    final long[] keys;
+    // sorted by key and then by identity hash code, so a mapping can be found by binary search
+    final RegionEntry[] entries;
+    final AtomicLongArray removed;
+    final ConcurrentSkipListMap<Long, Set<RegionEntry>> delta = new ConcurrentSkipListMap<>();
+    // additions to the delta and removals from the run since the run was created
+    final AtomicInteger pendingChanges = new AtomicInteger();
+
+    Run(long[] keys, RegionEntry[] entries) {
+      this.keys = keys;
+      this.entries = entries;
+      this.removed = new AtomicLongArray((keys.length + 63) >>> 6);
+    }
+
+    boolean isLive(int slot) {
+      return (this.removed.get(slot >>> 6) & (1L << slot)) == 0;
+    }
+
+    boolean markRemoved(int slot) {
+      int word = slot >>> 6;
+      long bit = 1L << slot;
+      while (true) {
+        long bits = this.removed.get(word);
+        if ((bits & bit) != 0) {
+          return false;
+        }
+        if (this.removed.compareAndSet(word, bits, bits | bit)) {
+          return true;
+        }
+      }
+    }
+
+    int liveCount() {
+      int count = this.keys.length;
+      for (int word = 0; word < this.removed.length(); word++) {
+        count -= Long.bitCount(this.removed.get(word));
+      }
+      return count;
+    }
+
+    /** Returns the first slot whose key is not less than key */
+    int lowerIndex(long key) {
+      int low = 0;
+      int high = this.keys.length;
+      while (low < high) {
+        int mid = (low + high) >>> 1;
+        if (this.keys[mid] < key) {
+          low = mid + 1;
+        } else {
+          high = mid;
+        }
+      }
+      return low;
+    }
+
+    /** Returns the first slot whose key is greater than key */
+    int upperIndex(long key) {
+      int low = 0;
+      int high = this.keys.length;
+      while (low < high) {
+        int mid = (low + high) >>> 1;
+        if (this.keys[mid] <= key) {
+          low = mid + 1;
+        } else {
+          high = mid;
+        }
+      }
+      return low;
+    }
+
+    /** Returns the live slot mapping key to re, or -1 */
+    int find(long key, RegionEntry re) {
+      int hash = System.identityHashCode(re);
+      int low = lowerIndex(key);
+      int end = upperIndex(key);
+      int high = end;
+      while (low < high) {
+        int mid = (low + high) >>> 1;
+        if (System.identityHashCode(this.entries[mid]) < hash) {
+          low = mid + 1;
+        } else {
+          high = mid;
+        }
+      }
+      for (int slot = low; slot < end
+          && System.identityHashCode(this.entries[slot]) == hash; slot++) {
+        if (this.entries[slot] == re && isLive(slot)) {
+          return slot;
+        }
+      }
+      return -1;
+    }
+
+    boolean containsKey(long key) {
+      Set<RegionEntry> added = this.delta.get(key);
+      if (added != null && !added.isEmpty()) {
+        return true;
+      }
+      for (int slot = lowerIndex(key), end = upperIndex(key); slot < end; slot++) {
+        if (isLive(slot)) {
+          return true;
+        }
+      }
+      return false;
+    }
+  }
+
+  /**
+   * Iterates over the live slots of a run between two keys merged with the additions in its delta.
+   */
+  private class RunIterator implements CloseableIterator<IndexStoreEntry> {
+    final Run run;
+    final boolean descending;
+    final int runEnd;
+    int runSlot;
+    final Iterator<Map.Entry<Long, Set<RegionEntry>>> deltaIterator;
+    long deltaKey;
+    Iterator<RegionEntry> deltaValues;
+    final Collection keysToRemove;
+    boolean hasCurrKey;
+    long currKey;
+    Object currIndexKey;
+    boolean skipCurrKey;
+    RegionEntry nextEntry;
+    final MemoryIndexStoreEntry currentEntry;
+
+    RunIterator(Run run, long low, long high, Collection keysToRemove, boolean descending) {
+      this.run = run;
+      this.descending = descending;
+      NavigableMap<Long, Set<RegionEntry>> added = run.delta.subMap(low, true, high, true);
+      if (descending) {
+        this.runSlot = run.upperIndex(high) - 1;
+        this.runEnd = run.lowerIndex(low) - 1;
+        this.deltaIterator = added.descendingMap().entrySet().iterator();
+      } else {
+        this.runSlot = run.lowerIndex(low);
+        this.runEnd = run.upperIndex(high);
+        this.deltaIterator = added.entrySet().iterator();
+      }
+      this.keysToRemove = keysToRemove == null ? null : new HashSet(keysToRemove);
+      this.currentEntry =
+          new MemoryIndexStoreEntry(GemFireCacheImpl.getInstance().cacheTimeMillis());
+    }
+
+    public boolean hasNext() {
+      while (this.nextEntry == null) {
+        while (this.deltaValues == null || !this.deltaValues.hasNext()) {
+          if (!this.deltaIterator.hasNext()) {
+            this.deltaValues = null;
+            break;
+          }
+          Map.Entry<Long, Set<RegionEntry>> added = this.deltaIterator.next();
+          this.deltaKey = added.getKey();
+          this.deltaValues = added.getValue().iterator();
+        }
+        int step = this.descending ? -1 : 1;
+        while (this.runSlot != this.runEnd && !this.run.isLive(this.runSlot)) {
+          this.runSlot += step;
+        }
+        boolean runAvailable = this.runSlot != this.runEnd;
+        if (!runAvailable && this.deltaValues == null) {
+          return false;
+        }
+        long key;
+        RegionEntry re;
+        if (runAvailable && (this.deltaValues == null
+            || (this.descending ? this.run.keys[this.runSlot] >= this.deltaKey
+                : this.run.keys[this.runSlot] <= this.deltaKey))) {
+          key = this.run.keys[this.runSlot];
+          re = this.run.entries[this.runSlot];
+          this.runSlot += step;
+        } else {
+          key = this.deltaKey;
+          re = this.deltaValues.next();
+        }
+        if (!this.hasCurrKey || key != this.currKey) {
+          this.hasCurrKey = true;
+          this.currKey = key;
+          this.currIndexKey = box(key);
+          this.skipCurrKey = this.keysToRemove != null
+              && removeFromKeysToRemove(this.keysToRemove, this.currIndexKey);
+        }
+        if (!this.skipCurrKey) {
+          this.nextEntry = re;
+        }
+      }
+      return true;
+    }
+
+    public MemoryIndexStoreEntry next() {
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      }
+      this.currentEntry.setMemoryIndexStoreEntry(this.currIndexKey, this.nextEntry);
+      this.nextEntry = null;
+      return this.currentEntry;
+    }
+
+    public void remove() {
+      throw new UnsupportedOperationException();
+    }
+
+    public void close() {
+      // do nothing
+    }
+  }
+
+  /**
+   * Iterates over the entries of the NULL or UNDEFINED key.
+   */
+  private class TokenIterator implements CloseableIterator<IndexStoreEntry> {
+    final Object indexKey;
+    final Iterator<RegionEntry> entries;
+    final MemoryIndexStoreEntry currentEntry;
+
+    TokenIterator(Object indexKey, Set<RegionEntry> entries) {
+      this.indexKey = indexKey;
+      this.entries = entries.iterator();
+      this.currentEntry =
+          new MemoryIndexStoreEntry(GemFireCacheImpl.getInstance().cacheTimeMillis());
+    }
+
+    public boolean hasNext() {
+      return this.entries.hasNext();
+    }
+
+    public MemoryIndexStoreEntry next() {
+      this.currentEntry.setMemoryIndexStoreEntry(this.indexKey, this.entries.next());
+      return this.currentEntry;
+    }
+
+    public void remove() {
+      throw new UnsupportedOperationException();
+    }
+
+    public void close() {
+      // do nothing
+    }
+  }
+}
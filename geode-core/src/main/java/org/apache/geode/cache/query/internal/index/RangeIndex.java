@@ -274,6 +274,7 @@ public class RangeIndex extends AbstractIndex {
                   // Calculate the difference in size.
                   int diff = calculateSizeDiff(oldValues, newValues);
                   this.internalIndexStats.incNumValues(diff);
+                  updateHistogram(newKey, diff);
                 }
               }
             }
@@ -322,6 +323,7 @@ public class RangeIndex extends AbstractIndex {
                     // Calculate the difference in size.
                     int diff = calculateSizeDiff(oldValues, newValues);
                     this.internalIndexStats.incNumValues(diff);
+                    updateHistogram(newKey, diff);
                   }
                 }
               }
@@ -351,7 +353,9 @@ public class RangeIndex extends AbstractIndex {
               LocalizedStrings.AbstractIndex_WRONG_COMPARETO_IMPLEMENTATION_IN_INDEXED_OBJECT_0
                   .toLocalizedString(oldkeys.getClass().getName()));
         }
-        this.internalIndexStats.incNumValues(-rvMap.getNumValues(entry));
+        int numValues = rvMap.getNumValues(entry);
+        this.internalIndexStats.incNumValues(-numValues);
+        updateHistogram(key, -numValues);
         rvMap.remove(entry);
         if (rvMap.getNumEntries() == 0) {
           synchronized (rvMap) {
@@ -378,7 +382,9 @@ public class RangeIndex extends AbstractIndex {
             LocalizedStrings.AbstractIndex_WRONG_COMPARETO_IMPLEMENTATION_IN_INDEXED_OBJECT_0
                 .toLocalizedString(oldkeys.getClass().getName()));
       }
-      this.internalIndexStats.incNumValues(-rvMap.getNumValues(entry));
+      int numValues = rvMap.getNumValues(entry);
+      this.internalIndexStats.incNumValues(-numValues);
+      updateHistogram(oldkeys, -numValues);
       rvMap.remove(entry);
       if (rvMap.getNumEntries() == 0) {
         synchronized (rvMap) {
@@ -480,6 +486,7 @@ public class RangeIndex extends AbstractIndex {
         // Update reverserMap (entry => values)
         this.entryToValuesMap.add(entry, newKey);
         this.internalIndexStats.incNumValues(1);
+        updateHistogram(newKey, 1);
       } catch (TypeMismatchException ex) {
         throw new IMQException(LocalizedStrings.RangeIndex_COULD_NOT_ADD_OBJECT_OF_TYPE_0
             .toLocalizedString(key.getClass().getName()), ex);
@@ -513,7 +520,9 @@ public class RangeIndex extends AbstractIndex {
       while (valuesIter.hasNext()) {
         Object key = valuesIter.next();
         RegionEntryToValuesMap rvMap = (RegionEntryToValuesMap) this.valueToEntriesMap.get(key);
-        this.internalIndexStats.incNumValues(-rvMap.getNumValues(entry));
+        int numValues = rvMap.getNumValues(entry);
+        this.internalIndexStats.incNumValues(-numValues);
+        updateHistogram(key, -numValues);
         rvMap.remove(entry);
         if (rvMap.getNumEntries() == 0) {
           synchronized (rvMap) {
@@ -540,7 +549,9 @@ public class RangeIndex extends AbstractIndex {
             LocalizedStrings.AbstractIndex_WRONG_COMPARETO_IMPLEMENTATION_IN_INDEXED_OBJECT_0
                 .toLocalizedString(values.getClass().getName()));
       }
-      this.internalIndexStats.incNumValues(-rvMap.getNumValues(entry));
+      int numValues = rvMap.getNumValues(entry);
+      this.internalIndexStats.incNumValues(-numValues);
+      updateHistogram(values, -numValues);
       rvMap.remove(entry);
       if (rvMap.getNumEntries() == 0) {
         synchronized (rvMap) {
@@ -636,6 +647,17 @@ public class RangeIndex extends AbstractIndex {
     }
   }
 
+  @Override
+  IndexHistogram buildHistogram() {
+    IndexHistogram.Builder builder = new IndexHistogram.Builder(
+        TypeUtils.getExtendedNumericComparator(), this.internalIndexStats.getNumberOfValues());
+    for (Object entry : this.valueToEntriesMap.entrySet()) {
+      Map.Entry mapEntry = (Map.Entry) entry;
+      builder.add(mapEntry.getKey(), ((RegionEntryToValuesMap) mapEntry.getValue()).getNumValues());
+    }
+    return builder.build();
+  }
+
   public int getSizeEstimate(Object key, int operator, int matchLevel)
       throws TypeMismatchException {
     // Get approx size;
@@ -676,6 +698,10 @@ public class RangeIndex extends AbstractIndex {
           break;
         case OQLLexerTokenTypes.TOK_LE:
         case OQLLexerTokenTypes.TOK_LT:
+          size = getHistogramSizeEstimate(key, operator, matchLevel);
+          if (size >= 0) {
+            break;
+          }
           if (matchLevel <= 0 && key instanceof Number) {
             int totalSize = valueToEntriesMapSize;// this.valueToEntriesMap.size();
             if (RangeIndex.testHook != null) {
@@ -715,6 +741,10 @@ public class RangeIndex extends AbstractIndex {
 
         case OQLLexerTokenTypes.TOK_GE:
         case OQLLexerTokenTypes.TOK_GT:
+          size = getHistogramSizeEstimate(key, operator, matchLevel);
+          if (size >= 0) {
+            break;
+          }
           if (matchLevel <= 0 && key instanceof Number) {
             int totalSize = valueToEntriesMapSize;// this.valueToEntriesMap.size();
             if (testHook != null) {
@@ -1158,6 +1188,7 @@ public class RangeIndex extends AbstractIndex {
     this.entryToValuesMap.clear();
     this.nullMappedEntries.clear();
     this.undefinedMappedEntries.clear();
+    clearHistogram();
     int numKeys = (int) this.internalIndexStats.getNumberOfKeys();
     if (numKeys > 0) {
       this.internalIndexStats.incNumKeys(-numKeys);
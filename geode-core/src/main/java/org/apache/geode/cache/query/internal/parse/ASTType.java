@@ -55,11 +55,14 @@ public class ASTType extends GemFireAST {
     super.compile(compiler);
 
     Assert.assertTrue(this.javaType != null ^ this.typeName != null);
+    // the type name is resolved on every compilation rather than stored, so that the parsed query
+    // can be compiled again with other imports
+    ObjectType type = this.javaType;
     if (this.typeName != null) {
-      this.javaType = compiler.resolveType(this.typeName);
+      type = compiler.resolveType(this.typeName);
     }
 
-    compiler.push(this.javaType);
+    compiler.push(type);
   }
 
 
@@ -41,6 +41,7 @@ import org.apache.geode.internal.NanoTimer;
 import org.apache.geode.internal.OSProcess;
 import org.apache.geode.internal.SetUtils;
 import org.apache.geode.internal.Version;
+import org.apache.geode.internal.VirtualThreads;
 import org.apache.geode.internal.admin.remote.AdminConsoleDisconnectMessage;
 import org.apache.geode.internal.admin.remote.RemoteGfManagerAgent;
 import org.apache.geode.internal.admin.remote.RemoteTransportConfig;
@@ -158,6 +159,38 @@ public class DistributionManager implements DM {
       Math.max(Runtime.getRuntime().availableProcessors() * 4, 16)).intValue();
   // Integer.getInteger("DistributionManager.MAX_THREADS",
   // max(Runtime.getRuntime().availableProcessors()*2, 2)).intValue();
+  /**
+   * Whether function execution threads are virtual threads when the JVM supports them, so that
+   * functions blocked on locks or replies hold no platform thread
+   */
+  public static final boolean VIRTUAL_FE_THREADS =
+      Boolean.getBoolean("DistributionManager.VIRTUAL_FE_THREADS");
+
+  /**
+   * Whether waiting pool threads are virtual threads when the JVM supports them, so that messages
+   * blocked waiting for replies hold no platform thread
+   */
+  public static final boolean VIRTUAL_WAITING_THREADS =
+      Boolean.getBoolean("DistributionManager.VIRTUAL_WAITING_THREADS");
+
+  /**
+   * Whether standard, high priority and partitioned region messages are run on the shared threads
+   * of a {@link MessageScheduler} instead of a thread pool per processor type
+   */
+  public static final boolean USE_MESSAGE_SCHEDULER =
+      Boolean.getBoolean("DistributionManager.USE_MESSAGE_SCHEDULER");
+  /**
+   * The number of messages the message scheduler runs at once. Defaults to the threads of the
+   * standard and partitioned region pools it replaces.
+   */
+  public static final int MAX_SCHEDULER_THREADS = Integer
+      .getInteger("DistributionManager.MAX_SCHEDULER_THREADS", MAX_THREADS + MAX_PR_THREADS)
+      .intValue();
+  /**
+   * The number of the {@link #MAX_SCHEDULER_THREADS} that only high priority messages may use
+   */
+  public static final int SCHEDULER_RESERVED_THREADS =
+      Integer.getInteger("DistributionManager.SCHEDULER_RESERVED_THREADS", 4).intValue();
 
   public static final int INCOMING_QUEUE_LIMIT =
       Integer.getInteger("DistributionManager.INCOMING_QUEUE_LIMIT", 80000).intValue();
@@ -445,6 +478,15 @@ public class DistributionManager implements DM {
   private ThreadPoolExecutor functionExecutionThread;
   private ThreadPoolExecutor functionExecutionPool;
 
+  /**
+   * Runs standard, high priority and partitioned region messages if
+   * {@link #USE_MESSAGE_SCHEDULER} is set, null otherwise
+   */
+  private MessageScheduler messageScheduler;
+  private Executor standardLane;
+  private Executor highPriorityLane;
+  private Executor partitionedRegionLane;
+
   /** Message processing executor for serial, ordered, messages. */
   private ThreadPoolExecutor serialThread;
 
@@ -996,9 +1038,10 @@ public class DistributionManager implements DM {
                 }
               }
             };
-            Thread thread = new Thread(group, r,
-                LocalizedStrings.DistributionManager_POOLED_WAITING_MESSAGE_PROCESSOR
-                    .toLocalizedString() + (next++));
+            String name = LocalizedStrings.DistributionManager_POOLED_WAITING_MESSAGE_PROCESSOR
+                .toLocalizedString() + (next++);
+            Thread thread = VIRTUAL_WAITING_THREADS ? VirtualThreads.newThread(group, r, name)
+                : new Thread(group, r, name);
             thread.setDaemon(true);
             return thread;
           }
@@ -1115,7 +1158,9 @@ public class DistributionManager implements DM {
                 }
               }
             };
-            Thread thread = new Thread(group, r, "Function Execution Processor" + (next++));
+            String name = "Function Execution Processor" + (next++);
+            Thread thread = VIRTUAL_FE_THREADS ? VirtualThreads.newThread(group, r, name)
+                : new Thread(group, r, name);
             thread.setDaemon(true);
             return thread;
           }
@@ -1133,6 +1178,49 @@ public class DistributionManager implements DM {
 
       }
 
+      if (USE_MESSAGE_SCHEDULER) {
+        ThreadFactory tf = new ThreadFactory() {
+          private int next = 0;
+
+          public Thread newThread(final Runnable command) {
+            DistributionManager.this.stats.incProcessingThreadStarts();
+            final Runnable r = new Runnable() {
+              public void run() {
+                DistributionManager.this.stats.incNumProcessingThreads(1);
+                try {
+                  ConnectionTable.threadWantsSharedResources();
+                  Connection.makeReaderThread();
+                  runUntilShutdown(command);
+                } finally {
+                  ConnectionTable.releaseThreadsSockets();
+                  DistributionManager.this.stats.incNumProcessingThreads(-1);
+                }
+              }
+            };
+            Thread thread = new Thread(group, r, "Scheduled Message Processor" + (next++));
+            thread.setDaemon(true);
+            return thread;
+          }
+        };
+        int idleTimeout = Integer
+            .getInteger(DistributionConfig.GEMFIRE_PREFIX + "IDLE_THREAD_TIMEOUT", 30000 * 60)
+            .intValue();
+        // each lane is limited to the threads of the pool it replaces
+        this.messageScheduler = new MessageScheduler(MAX_SCHEDULER_THREADS,
+            SCHEDULER_RESERVED_THREADS, tf, idleTimeout);
+        this.highPriorityLane = this.messageScheduler.addLane("high priority", 2, MAX_THREADS,
+            INCOMING_QUEUE_LIMIT, this.stats.getHighPriorityPoolHelper(),
+            this.stats.getHighPriorityQueueHelper());
+        this.standardLane = this.messageScheduler.addLane("standard", 1, MAX_THREADS,
+            INCOMING_QUEUE_LIMIT, this.stats.getNormalPoolHelper(),
+            this.stats.getOverflowQueueHelper());
+        if (MAX_PR_THREADS > 1) {
+          this.partitionedRegionLane = this.messageScheduler.addLane("partitioned region", 1,
+              MAX_PR_THREADS, INCOMING_QUEUE_LIMIT, this.stats.getPartitionedRegionPoolHelper(),
+              this.stats.getPartitionedRegionQueueHelper());
+        }
+      }
+
       if (!SYNC_EVENTS) {
         this.memberEventThread =
             new Thread(group, new MemberEventInvoker(), "DM-MemberEventInvoker");
@@ -2023,6 +2111,9 @@ public class DistributionManager implements DM {
     if (es != null) {
       es.shutdown();
     }
+    if (this.messageScheduler != null) {
+      this.messageScheduler.shutdown();
+    }
 
     Thread th = this.memberEventThread;
     if (th != null)
@@ -2046,6 +2137,13 @@ public class DistributionManager implements DM {
         return;
       }
     }
+    if (this.messageScheduler != null) {
+      this.messageScheduler.awaitTermination(remaining, TimeUnit.MILLISECONDS);
+      remaining = timeInMillis - (System.currentTimeMillis() - start);
+      if (remaining <= 0) {
+        return;
+      }
+    }
 
 
     this.serialQueuedExecutorPool.awaitTermination(remaining, TimeUnit.MILLISECONDS);
@@ -2177,6 +2275,11 @@ public class DistributionManager implements DM {
         stillAlive = true;
         culprits = culprits + " thread pool;";
       }
+      if (this.messageScheduler != null
+          && executorAlive(this.messageScheduler.getThreadPool(), "message scheduler")) {
+        stillAlive = true;
+        culprits = culprits + " message scheduler;";
+      }
 
       if (!stillAlive)
         return;
@@ -2232,6 +2335,9 @@ public class DistributionManager implements DM {
     if (this.threadPool != null) {
       this.threadPool.shutdownNow();
     }
+    if (this.messageScheduler != null) {
+      this.messageScheduler.shutdownNow();
+    }
 
     Thread th = this.memberEventThread;
     if (th != null) {
@@ -3399,12 +3505,18 @@ public class DistributionManager implements DM {
   public Executor getExecutor(int processorType, InternalDistributedMember sender) {
     switch (processorType) {
       case STANDARD_EXECUTOR:
+        if (this.standardLane != null) {
+          return this.standardLane;
+        }
         return getThreadPool();
       case SERIAL_EXECUTOR:
         return getSerialExecutor(sender);
       case VIEW_EXECUTOR:
         return this.viewThread;
       case HIGH_PRIORITY_EXECUTOR:
+        if (this.highPriorityLane != null) {
+          return this.highPriorityLane;
+        }
         return getHighPriorityThreadPool();
       case WAITING_POOL_EXECUTOR:
         return getWaitingThreadPool();
@@ -3847,7 +3959,9 @@ public class DistributionManager implements DM {
    * Return the waiting message-processing executor
    */
   public Executor getPartitionedRegionExcecutor() {
-    if (this.partitionedRegionThread != null) {
+    if (this.partitionedRegionLane != null) {
+      return this.partitionedRegionLane;
+    } else if (this.partitionedRegionThread != null) {
       return this.partitionedRegionThread;
     } else {
       return this.partitionedRegionPool;
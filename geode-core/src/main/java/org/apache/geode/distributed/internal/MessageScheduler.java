@@ -0,0 +1,334 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.distributed.internal;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.geode.internal.i18n.LocalizedStrings;
+
+/**
+ * Runs the messages of several processor types on one shared set of threads instead of a thread
+ * pool per type. Each processor type gets a {@link Lane} with its own queue, priority and limit on
+ * the number of its messages that run at once, so one busy type of message cannot take the threads
+ * another type is allowed to use.
+ * <p>
+ * At most {@code maxThreads} messages of all lanes run at once. The last {@code reservedThreads} of
+ * those are kept for the lanes of the highest priority, so that high priority traffic such as
+ * membership messages does not wait behind the other lanes once they have taken the shared threads.
+ * <p>
+ * When a thread is free the next message is taken from the lane with the highest priority, and
+ * among lanes of the same priority from the lane that has the fewest messages running.
+ * <p>
+ * Threads are created when a message can run and no thread is free, and exit after being idle for
+ * the given timeout, so idle lanes hold no threads.
+ */
+public class MessageScheduler {
+
+  private final int maxThreads;
+
+  private final int reservedThreads;
+
+  private final List<Lane> lanes = new ArrayList<>();
+
+  /** the priority of the lanes that may use the reserved threads */
+  private int highestPriority = Integer.MIN_VALUE;
+
+  /** the number of messages of all lanes currently running */
+  private int running;
+
+  /** runs the dispatchers that take messages from the lanes */
+  private final ThreadPoolExecutor threadPool;
+
+  /** the number of dispatchers that have been started but have not yet taken a message */
+  private int starting;
+
+  private boolean shutdown;
+
+  /**
+   * @param maxThreads the maximum number of messages of all lanes that run at once
+   * @param reservedThreads the number of the {@code maxThreads} that only the lanes of the highest
+   *        priority may use
+   */
+  public MessageScheduler(int maxThreads, int reservedThreads, ThreadFactory threadFactory,
+      int idleTimeoutMs) {
+    this.maxThreads = maxThreads;
+    this.reservedThreads = reservedThreads;
+    this.threadPool = new ThreadPoolExecutor(0, Integer.MAX_VALUE, idleTimeoutMs,
+        TimeUnit.MILLISECONDS, new SynchronousQueue<>(), threadFactory);
+  }
+
+  /**
+   * Adds a lane for a type of message
+   *
+   * @param priority lanes with a higher priority run their messages first
+   * @param maxThreads the maximum number of messages of the lane that run at once
+   * @param queueLimit the number of queued messages at which senders of more messages wait, or 0
+   *        for no limit
+   * @param poolStats notified when a message of the lane starts and finishes, may be null
+   * @param queueStats notified when a message is added to or removed from the lane, may be null
+   */
+  public synchronized Lane addLane(String name, int priority, int maxThreads, int queueLimit,
+      PoolStatHelper poolStats, QueueStatHelper queueStats) {
+    Lane lane = new Lane(name, priority, maxThreads, queueLimit, poolStats, queueStats);
+    this.lanes.add(lane);
+    this.highestPriority = Math.max(this.highestPriority, priority);
+    return lane;
+  }
+
+  private void execute(Lane lane, Runnable command) {
+    boolean interrupted = false;
+    try {
+      synchronized (this) {
+        while (true) {
+          if (this.shutdown) {
+            throw new RejectedExecutionException(
+                LocalizedStrings.PooledExecutorWithDMStats_EXECUTOR_HAS_BEEN_SHUTDOWN
+                    .toLocalizedString());
+          }
+          if (lane.queueLimit == 0 || lane.queue.size() < lane.queueLimit) {
+            break;
+          }
+          try {
+            wait();
+          } catch (InterruptedException e) {
+            interrupted = true;
+          }
+        }
+        lane.queue.add(command);
+        if (lane.queueStats != null) {
+          lane.queueStats.add();
+        }
+        if (this.starting == 0 && canRun(lane)) {
+          startDispatcher();
+        }
+      }
+    } finally {
+      if (interrupted) {
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+
+  private boolean canRun(Lane lane) {
+    if (lane.running >= lane.maxThreads) {
+      return false;
+    }
+    if (lane.priority < this.highestPriority) {
+      return this.running < this.maxThreads - this.reservedThreads;
+    }
+    return this.running < this.maxThreads;
+  }
+
+  /**
+   * Returns the lane whose message should run next, or null if no queued message can run
+   */
+  private Lane nextLane() {
+    Lane next = null;
+    for (Lane lane : this.lanes) {
+      if (lane.queue.isEmpty() || !canRun(lane)) {
+        continue;
+      }
+      if (next == null || lane.priority > next.priority
+          || (lane.priority == next.priority && lane.running < next.running)) {
+        next = lane;
+      }
+    }
+    return next;
+  }
+
+  private void startDispatcher() {
+    this.starting++;
+    try {
+      this.threadPool.execute(new Dispatcher());
+    } catch (RejectedExecutionException e) {
+      // the scheduler is shutting down
+      this.starting--;
+    }
+  }
+
+  /**
+   * Takes and runs messages until none of the queued messages can run
+   */
+  private class Dispatcher implements Runnable {
+    public void run() {
+      boolean started = false;
+      while (true) {
+        Lane lane;
+        Runnable command;
+        synchronized (MessageScheduler.this) {
+          if (!started) {
+            starting--;
+            started = true;
+          }
+          lane = nextLane();
+          if (lane == null) {
+            return;
+          }
+          if (lane.queueLimit > 0 && lane.queue.size() == lane.queueLimit) {
+            // let senders waiting for room queue their messages
+            MessageScheduler.this.notifyAll();
+          }
+          command = lane.queue.poll();
+          if (lane.queueStats != null) {
+            lane.queueStats.remove();
+          }
+          lane.running++;
+          running++;
+          if (starting == 0 && nextLane() != null) {
+            // more messages can run at once than there are dispatchers
+            startDispatcher();
+          }
+        }
+        if (lane.poolStats != null) {
+          lane.poolStats.startJob();
+        }
+        boolean finished = false;
+        try {
+          command.run();
+          finished = true;
+        } finally {
+          if (lane.poolStats != null) {
+            lane.poolStats.endJob();
+          }
+          synchronized (MessageScheduler.this) {
+            lane.running--;
+            lane.completed++;
+            running--;
+            if (!finished && starting == 0 && nextLane() != null) {
+              // this dispatcher is leaving with an exception; let another one take over
+              startDispatcher();
+            }
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * Returns the pool whose threads run the messages
+   */
+  public ThreadPoolExecutor getThreadPool() {
+    return this.threadPool;
+  }
+
+  /**
+   * Rejects further messages. Queued messages are still run.
+   */
+  public void shutdown() {
+    synchronized (this) {
+      this.shutdown = true;
+      notifyAll();
+    }
+    this.threadPool.shutdown();
+  }
+
+  /**
+   * Rejects further messages, discards queued messages and interrupts the running ones.
+   */
+  public void shutdownNow() {
+    synchronized (this) {
+      this.shutdown = true;
+      for (Lane lane : this.lanes) {
+        if (lane.queueStats != null && !lane.queue.isEmpty()) {
+          lane.queueStats.remove(lane.queue.size());
+        }
+        lane.queue.clear();
+      }
+      notifyAll();
+    }
+    this.threadPool.shutdownNow();
+  }
+
+  public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+    return this.threadPool.awaitTermination(timeout, unit);
+  }
+
+  /**
+   * The queue and threads of one type of message. Messages given to a lane run in no particular
+   * order.
+   */
+  public class Lane implements Executor {
+    private final String name;
+    private final int priority;
+    private final int maxThreads;
+    private final int queueLimit;
+    private final PoolStatHelper poolStats;
+    private final QueueStatHelper queueStats;
+    private final ArrayDeque<Runnable> queue = new ArrayDeque<>();
+    private int running;
+    private long completed;
+
+    private Lane(String name, int priority, int maxThreads, int queueLimit,
+        PoolStatHelper poolStats, QueueStatHelper queueStats) {
+      this.name = name;
+      this.priority = priority;
+      this.maxThreads = maxThreads;
+      this.queueLimit = queueLimit;
+      this.poolStats = poolStats;
+      this.queueStats = queueStats;
+    }
+
+    public void execute(Runnable command) {
+      MessageScheduler.this.execute(this, command);
+    }
+
+    public String getName() {
+      return this.name;
+    }
+
+    /**
+     * Returns the number of messages waiting to run
+     */
+    public int getQueueSize() {
+      synchronized (MessageScheduler.this) {
+        return this.queue.size();
+      }
+    }
+
+    /**
+     * Returns the number of messages running
+     */
+    public int getRunning() {
+      synchronized (MessageScheduler.this) {
+        return this.running;
+      }
+    }
+
+    /**
+     * Returns the number of messages that have run
+     */
+    public long getCompleted() {
+      synchronized (MessageScheduler.this) {
+        return this.completed;
+      }
+    }
+
+    @Override
+    public String toString() {
+      synchronized (MessageScheduler.this) {
+        return this.name + "[queued=" + this.queue.size() + "; running=" + this.running
+            + "; completed=" + this.completed + "]";
+      }
+    }
+  }
+}
@@ -62,6 +62,7 @@ import java.util.concurrent.CancellationException;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * Implements the distributed locking service with distributed lock grantors.
@@ -2417,7 +2418,8 @@ public class DLockService extends DistributedLockService {
     // maybeHasActiveLocks determines if we need to tell grantor of destroy
     boolean maybeHasActiveLocks = false;
 
-    synchronized (creationLock) {
+    creationLock.lock();
+    try {
       try {
         synchronized (services) {
           try {
@@ -2452,7 +2454,9 @@ public class DLockService extends DistributedLockService {
         }
         postDestroyAction();
       }
-    } // creationLock sync
+    } finally {
+      creationLock.unlock();
+    }
   }
 
   /**
@@ -2788,7 +2792,12 @@ public class DLockService extends DistributedLockService {
   /** Map of all locking services. Key:ServiceName, Value:DLockService */
   protected static final Map<String, DLockService> services = new HashMap<String, DLockService>();
 
-  protected static final Object creationLock = new Object();
+  /**
+   * Serializes the creation and destruction of lock services. This is a lock rather than a monitor
+   * because destroying a service waits for the grantor to reply while holding it, which would pin
+   * the carrier of a virtual thread.
+   */
+  protected static final ReentrantLock creationLock = new ReentrantLock();
 
   /** All DLock threads belong to this group */
   static ThreadGroup threadGroup;
@@ -2889,7 +2898,8 @@ public class DLockService extends DistributedLockService {
       boolean distributed, boolean destroyOnDisconnect, boolean automateFreeResources)
       throws IllegalArgumentException, IllegalStateException {
     // basicCreate will construct DLockService and it calls getOrCreateStats...
-    synchronized (creationLock) {
+    creationLock.lock();
+    try {
       synchronized (services) { // disconnectListener syncs on this
         ds.getCancelCriterion().checkCancelInProgress(null);
 
@@ -2904,6 +2914,8 @@ public class DLockService extends DistributedLockService {
         return DLockService.basicCreate(serviceName, ds, distributed, destroyOnDisconnect,
             automateFreeResources);
       }
+    } finally {
+      creationLock.unlock();
     }
   }
 
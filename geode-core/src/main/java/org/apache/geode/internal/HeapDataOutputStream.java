@@ -19,6 +19,7 @@ import org.apache.geode.distributed.internal.DistributionConfig;
 import org.apache.geode.internal.cache.BytesAndBitsForCompactor;
 import org.apache.geode.internal.i18n.LocalizedStrings;
 import org.apache.geode.internal.logging.LogService;
+import org.apache.geode.internal.net.BufferPool;
 import org.apache.geode.internal.tcp.ByteBufferInputStream.ByteSource;
 import org.apache.logging.log4j.Logger;
 
@@ -30,8 +31,10 @@ import java.io.UTFDataFormatException;
 import java.nio.BufferOverflowException;
 import java.nio.ByteBuffer;
 import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.LinkedList;
+import java.util.List;
 
 /**
  * HeapDataOutputStream is an OutputStream that also implements DataOutput and stores all data
@@ -69,6 +72,14 @@ public class HeapDataOutputStream extends OutputStream
   private int memoPosition;
   private Version version;
   private boolean doNotCopy;
+  /** the pool the buffers of this stream come from; null if they are not pooled */
+  private final BufferPool bufferPool;
+  /** the buffers acquired from the pool, to be released on close */
+  private List<ByteBuffer> pooledBuffers;
+  /**
+   * True if the pooled buffers were handed out, in which case they are not released on close
+   */
+  private boolean pooledBuffersExposed = false;
 
   private static final int INITIAL_CAPACITY = 1024;
 
@@ -88,6 +99,7 @@ public class HeapDataOutputStream extends OutputStream
       maxStrBytes = s.length() * 3;
     }
     this.MIN_CHUNK_SIZE = INITIAL_CAPACITY;
+    this.bufferPool = null;
     this.buffer = ByteBuffer.allocate(maxStrBytes);
     this.doNotCopy = false;
     writeUTFNoLength(s);
@@ -102,12 +114,27 @@ public class HeapDataOutputStream extends OutputStream
    *        instead referenced.
    */
   public HeapDataOutputStream(int allocSize, Version version, boolean doNotCopy) {
+    this(allocSize, version, doNotCopy, null);
+  }
+
+  /**
+   * Creates a stream whose buffers come from the given pool, if not null. The buffers are released
+   * to the pool when the stream is closed, unless they were handed out by
+   * {@link #toByteBuffer()}, {@link #toByteArray()}, {@link #fillByteBufferArray} or
+   * {@link #finishWritingAndReturnUnusedBuffer()}, so the stream must not be used once closed.
+   *
+   * @param doNotCopy if true then byte arrays/buffers/sources will not be copied to this hdos but
+   *        instead referenced.
+   */
+  public HeapDataOutputStream(int allocSize, Version version, boolean doNotCopy,
+      BufferPool bufferPool) {
     if (allocSize < 32) {
       this.MIN_CHUNK_SIZE = 32;
     } else {
       this.MIN_CHUNK_SIZE = allocSize;
     }
-    this.buffer = ByteBuffer.allocate(allocSize);
+    this.bufferPool = bufferPool;
+    this.buffer = allocateBuffer(allocSize);
     this.version = version;
     this.doNotCopy = doNotCopy;
   }
@@ -126,6 +153,7 @@ public class HeapDataOutputStream extends OutputStream
     } else {
       this.MIN_CHUNK_SIZE = allocSize;
     }
+    this.bufferPool = null;
     this.buffer = initialBuffer;
     this.version = version;
     this.doNotCopy = doNotCopy;
@@ -147,6 +175,7 @@ public class HeapDataOutputStream extends OutputStream
     } else {
       this.MIN_CHUNK_SIZE = 32;
     }
+    this.bufferPool = null;
     this.buffer = ByteBuffer.wrap(bytes);
     this.doNotCopy = false;
   }
@@ -218,7 +247,37 @@ public class HeapDataOutputStream extends OutputStream
     if (amount < MIN_CHUNK_SIZE) {
       amount = MIN_CHUNK_SIZE;
     }
-    this.buffer = ByteBuffer.allocate(amount);
+    this.buffer = allocateBuffer(amount);
+  }
+
+  /** allocates a buffer of at least the given capacity, from the pool if this stream has one */
+  private ByteBuffer allocateBuffer(int capacity) {
+    if (this.bufferPool == null) {
+      return ByteBuffer.allocate(capacity);
+    }
+    ByteBuffer bb = this.bufferPool.acquire(capacity);
+    bb.limit(bb.capacity());
+    if (this.pooledBuffers == null) {
+      this.pooledBuffers = new ArrayList<ByteBuffer>();
+    }
+    this.pooledBuffers.add(bb);
+    return bb;
+  }
+
+  /** releases the pooled buffers of this stream unless they were handed out */
+  private void releasePooledBuffers() {
+    if (this.pooledBuffers == null) {
+      return;
+    }
+    if (!this.pooledBuffersExposed) {
+      for (ByteBuffer bb : this.pooledBuffers) {
+        this.bufferPool.release(bb);
+      }
+      // the current buffer was released so allocate a new one if written again
+      this.buffer = ByteBuffer.allocate(0);
+    }
+    this.pooledBuffers = null;
+    this.pooledBuffersExposed = false;
   }
 
   private void checkIfWritable() {
@@ -281,6 +340,7 @@ public class HeapDataOutputStream extends OutputStream
   }
 
   public void fillByteBufferArray(ByteBuffer[] bbArray, int offset) {
+    this.pooledBuffersExposed = true;
     if (this.chunks != null) {
       for (ByteBuffer bb : this.chunks) {
         bbArray[offset++] = bb;
@@ -307,7 +367,7 @@ public class HeapDataOutputStream extends OutputStream
     this.chunks.add(bufToAdd);
     int newPos = oldBuffer.limit();
     if ((oldBuffer.capacity() - newPos) <= 0) {
-      this.buffer = ByteBuffer.allocate(MIN_CHUNK_SIZE);
+      this.buffer = allocateBuffer(MIN_CHUNK_SIZE);
     } else {
       oldBuffer.limit(oldBuffer.capacity());
       oldBuffer.position(newPos);
@@ -403,6 +463,7 @@ public class HeapDataOutputStream extends OutputStream
    * Returns a ByteBuffer of the unused buffer; returns null if the buffer was completely used.
    */
   public ByteBuffer finishWritingAndReturnUnusedBuffer() {
+    this.pooledBuffersExposed = true;
     finishWriting();
     ByteBuffer result = this.buffer.duplicate();
     if (result.remaining() == 0) {
@@ -423,6 +484,7 @@ public class HeapDataOutputStream extends OutputStream
   @Override
   public void close() {
     reset();
+    releasePooledBuffers();
   }
 
   /**
@@ -430,6 +492,7 @@ public class HeapDataOutputStream extends OutputStream
    * written to past this point until it has been reset.
    */
   public ByteBuffer toByteBuffer() {
+    this.pooledBuffersExposed = true;
     finishWriting();
     consolidateChunks();
     return this.buffer;
@@ -1284,6 +1347,8 @@ public class HeapDataOutputStream extends OutputStream
       other.finishWriting();
       InternalDataSerializer.writeArrayLength(other.size(), this);
       if (this.doNotCopy) {
+        // this stream now references the buffers of the other one
+        other.pooledBuffersExposed = true;
         if (other.chunks != null) {
           for (ByteBuffer bb : other.chunks) {
             write(bb);
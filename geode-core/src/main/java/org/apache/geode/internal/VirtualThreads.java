@@ -0,0 +1,91 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.internal;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+
+import org.apache.logging.log4j.Logger;
+
+import org.apache.geode.internal.logging.LogService;
+
+/**
+ * Creates virtual threads on JVMs that support them and platform threads on the others. Since the
+ * product is built for Java 8 the virtual thread API is looked up reflectively.
+ */
+public class VirtualThreads {
+  private static final Logger logger = LogService.getLogger();
+
+  /** Thread.ofVirtual(), or null if virtual threads are not supported */
+  private static final Method OF_VIRTUAL;
+  /** Thread.Builder.name(String) */
+  private static final Method NAME;
+  /** Thread.Builder.unstarted(Runnable) */
+  private static final Method UNSTARTED;
+
+  static {
+    Method ofVirtual = null;
+    Method name = null;
+    Method unstarted = null;
+    try {
+      ofVirtual = Thread.class.getMethod("ofVirtual");
+      Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+      name = builderClass.getMethod("name", String.class);
+      unstarted = builderClass.getMethod("unstarted", Runnable.class);
+      // on JVMs where virtual threads are a preview feature this fails unless it is enabled
+      unstarted.invoke(ofVirtual.invoke(null), (Runnable) () -> {
+      });
+    } catch (ReflectiveOperationException | RuntimeException e) {
+      ofVirtual = null;
+      logger.info("Virtual threads are not supported by this JVM; platform threads will be used");
+    }
+    OF_VIRTUAL = ofVirtual;
+    NAME = name;
+    UNSTARTED = unstarted;
+  }
+
+  private VirtualThreads() {
+    // static methods only
+  }
+
+  /**
+   * Returns true if the JVM supports virtual threads
+   */
+  public static boolean isSupported() {
+    return OF_VIRTUAL != null;
+  }
+
+  /**
+   * Returns a new unstarted virtual thread with the given name that runs the given task, or a new
+   * platform thread in the given group if the JVM does not support virtual threads. Virtual threads
+   * are always daemon threads and do not belong to the given group, but the group, such as a
+   * LoggingThreadGroup, still handles the exceptions they do not catch.
+   */
+  public static Thread newThread(ThreadGroup group, Runnable task, String name) {
+    if (OF_VIRTUAL != null) {
+      try {
+        Object builder = NAME.invoke(OF_VIRTUAL.invoke(null), name);
+        Thread thread = (Thread) UNSTARTED.invoke(builder, task);
+        if (group != null) {
+          thread.setUncaughtExceptionHandler(group);
+        }
+        return thread;
+      } catch (IllegalAccessException | InvocationTargetException e) {
+        logger.debug("Unable to create virtual thread {}; using a platform thread", name, e);
+      }
+    }
+    return new Thread(group, task, name);
+  }
+}
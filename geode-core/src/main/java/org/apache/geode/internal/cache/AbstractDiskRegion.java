@@ -31,7 +31,7 @@ import org.apache.geode.internal.cache.versions.VersionTag;
 import org.apache.geode.internal.i18n.LocalizedStrings;
 import org.apache.geode.internal.logging.LogService;
 import org.apache.geode.internal.logging.log4j.LogMarker;
-import org.apache.geode.internal.util.concurrent.CustomEntryConcurrentHashMap;
+import org.apache.geode.internal.util.concurrent.ConcurrentMapWithReusableEntries;
 import org.apache.logging.log4j.Logger;
 
 import java.io.PrintStream;
@@ -572,7 +572,7 @@ public abstract class AbstractDiskRegion implements DiskRegionView {
       ds.updateDiskRegion(this);
       this.entriesMapIncompatible = false;
       if (this.entries != null) {
-        CustomEntryConcurrentHashMap<Object, Object> other =
+        ConcurrentMapWithReusableEntries<Object, Object> other =
             ((AbstractRegionMap) this.entries)._getMap();
         Iterator<Map.Entry<Object, Object>> it = other.entrySetWithReusableEntries().iterator();
         while (it.hasNext()) {
@@ -76,6 +76,7 @@ import org.apache.geode.internal.offheap.annotations.Released;
 import org.apache.geode.internal.offheap.annotations.Retained;
 import org.apache.geode.internal.offheap.annotations.Unretained;
 import org.apache.geode.internal.sequencelog.EntryLogger;
+import org.apache.geode.internal.util.concurrent.ConcurrentMapWithReusableEntries;
 import org.apache.geode.internal.util.concurrent.CustomEntryConcurrentHashMap;
 
 /**
@@ -87,7 +88,7 @@ public abstract class AbstractRegionMap implements RegionMap {
   private static final Logger logger = LogService.getLogger();
 
   /** The underlying map for this region. */
-  protected CustomEntryConcurrentHashMap<Object, Object> map;
+  protected ConcurrentMapWithReusableEntries<Object, Object> map;
 
   /**
    * This test hook is used to force the conditions for defect 48182. This hook is used by
@@ -110,8 +111,13 @@ public abstract class AbstractRegionMap implements RegionMap {
       InternalRegionArguments internalRegionArgs, boolean isLRU) {
     _setAttributes(attr);
     setOwner(owner);
-    _setMap(createConcurrentMap(attr.initialCapacity, attr.loadFactor, attr.concurrencyLevel, false,
-        new AbstractRegionEntry.HashRegionEntryCreator()));
+    if (attr.primitiveKeyClass != null) {
+      _setMap(new PrimitiveKeyRegionEntryMap(attr.primitiveKeyClass, attr.initialCapacity,
+          attr.loadFactor, attr.concurrencyLevel));
+    } else {
+      _setMap(createConcurrentMap(attr.initialCapacity, attr.loadFactor, attr.concurrencyLevel,
+          false, new AbstractRegionEntry.HashRegionEntryCreator()));
+    }
 
     boolean isDisk;
     boolean withVersioning;
@@ -130,8 +136,15 @@ public abstract class AbstractRegionMap implements RegionMap {
       throw new IllegalStateException("expected LocalRegion or PlaceHolderDiskRegion");
     }
 
-    setEntryFactory(new RegionEntryFactoryBuilder().getRegionEntryFactoryOrNull(
-        attr.statisticsEnabled, isLRU, isDisk, withVersioning, offHeap));
+    RegionEntryFactory factory = new RegionEntryFactoryBuilder().getRegionEntryFactoryOrNull(
+        attr.statisticsEnabled, isLRU, isDisk, withVersioning, offHeap);
+    if (attr.primitiveKeyClass != null) {
+      factory = factory.makeUnlinked();
+    }
+    if (offHeap && Boolean.getBoolean(OffHeapRegionEntryHelper.OFF_HEAP_KEYS_PROPERTY)) {
+      factory = factory.makeSerializedKeys();
+    }
+    setEntryFactory(factory);
   }
 
   private CustomEntryConcurrentHashMap<Object, Object> createConcurrentMap(int initialCapacity,
@@ -186,11 +199,11 @@ public abstract class AbstractRegionMap implements RegionMap {
     this.owner = r;
   }
 
-  protected CustomEntryConcurrentHashMap<Object, Object> _getMap() {
+  protected ConcurrentMapWithReusableEntries<Object, Object> _getMap() {
     return this.map;
   }
 
-  protected void _setMap(CustomEntryConcurrentHashMap<Object, Object> m) {
+  protected void _setMap(ConcurrentMapWithReusableEntries<Object, Object> m) {
     this.map = m;
   }
 
@@ -266,6 +279,16 @@ public abstract class AbstractRegionMap implements RegionMap {
     return oldRe;
   }
 
+  /**
+   * Frees the off-heap key of an entry created by an operation if the entry did not end up in the
+   * map, either because it lost the race to be added or because the operation removed it again.
+   */
+  private void releaseKeyIfNotInMap(Object key, RegionEntry re) {
+    if (re instanceof OffHeapKeyRegionEntry && _getMap().get(key) != re) {
+      OffHeapRegionEntryHelper.releaseRemovedKey((OffHeapKeyRegionEntry) re);
+    }
+  }
+
   @Override
   public RegionEntry getOperationalEntryInVM(Object key) {
     RegionEntry re = (RegionEntry) _getMap().get(key);
@@ -550,7 +573,8 @@ public abstract class AbstractRegionMap implements RegionMap {
     // so that they will be in the correct order.
     OrderedTombstoneMap<RegionEntry> tombstones = new OrderedTombstoneMap<RegionEntry>();
     if (rm != null) {
-      CustomEntryConcurrentHashMap<Object, Object> other = ((AbstractRegionMap) rm)._getMap();
+      ConcurrentMapWithReusableEntries<Object, Object> other =
+          ((AbstractRegionMap) rm)._getMap();
       Iterator<Map.Entry<Object, Object>> it = other.entrySetWithReusableEntries().iterator();
       while (it.hasNext()) {
         Map.Entry<Object, Object> me = it.next();
@@ -1003,6 +1027,7 @@ public abstract class AbstractRegionMap implements RegionMap {
           }
         } // synchronized
       } finally {
+        releaseKeyIfNotInMap(key, newRe);
         if (event != null)
           event.release();
         OffHeapHelper.release(oldValue);
@@ -1235,6 +1260,7 @@ public abstract class AbstractRegionMap implements RegionMap {
                   } // !opCompleted
                 } // synchronized newRe
               } finally {
+                releaseKeyIfNotInMap(event.getKey(), newRe);
                 if (oqlIndexManager != null) {
                   oqlIndexManager.countDownIndexUpdaters();
                 }
@@ -1257,6 +1283,9 @@ public abstract class AbstractRegionMap implements RegionMap {
                   }
                   re = (RegionEntry) _getMap().putIfAbsent(event.getKey(), newRe);
                   if (re != null && re != tombstone) {
+                    if (!haveTombstone) {
+                      releaseKeyIfNotInMap(event.getKey(), newRe);
+                    }
                     // concurrent change - try again
                     retry = true;
                     // retryEntry = tombstone; // leave this in place for debugging
@@ -1823,6 +1852,7 @@ public abstract class AbstractRegionMap implements RegionMap {
         } catch (RegionClearedException e) {
           // TODO
         } finally {
+          releaseKeyIfNotInMap(key, newRe);
           if (oqlIndexManager != null) {
             oqlIndexManager.countDownIndexUpdaters();
           }
@@ -2076,6 +2106,7 @@ public abstract class AbstractRegionMap implements RegionMap {
                 if (!opCompleted) {
                   removeEntry(event.getKey(), newRe, false);
                 }
+                releaseKeyIfNotInMap(event.getKey(), newRe);
               }
             } // synchronized newRe
           } // forceNewEntry
@@ -2110,6 +2141,9 @@ public abstract class AbstractRegionMap implements RegionMap {
                       continue;
                     }
                     re = putEntryIfAbsent(event.getKey(), newRe);
+                    if (re != null && !haveTombstone) {
+                      releaseKeyIfNotInMap(event.getKey(), newRe);
+                    }
                     if (re == tombstone) {
                       re = null; // pretend we don't have an entry
                     }
@@ -2518,6 +2552,7 @@ public abstract class AbstractRegionMap implements RegionMap {
             if (!opCompleted) {
               removeEntry(key, newRe, false);
             }
+            releaseKeyIfNotInMap(key, newRe);
           }
         }
       } else { /* !forceNewEntry */
@@ -3403,6 +3438,7 @@ public abstract class AbstractRegionMap implements RegionMap {
             if (!opCompleted) {
               removeEntry(key, newRe, false);
             }
+            releaseKeyIfNotInMap(key, newRe);
           }
         }
         if (owner.concurrencyChecksEnabled && txEntryState != null && cbEvent != null) {
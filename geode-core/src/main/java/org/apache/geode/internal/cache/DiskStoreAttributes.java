@@ -52,6 +52,8 @@ public class DiskStoreAttributes implements Serializable, DiskStore {
   private volatile float diskUsageWarningPct;
   private volatile float diskUsageCriticalPct;
 
+  private int recoveryParallelism;
+
   public DiskStoreAttributes() {
     // set all to defaults
     this.autoCompact = DiskStoreFactory.DEFAULT_AUTO_COMPACT;
@@ -65,6 +67,7 @@ public class DiskStoreAttributes implements Serializable, DiskStore {
     this.diskDirSizes = DiskStoreFactory.DEFAULT_DISK_DIR_SIZES;
     this.diskUsageWarningPct = DiskStoreFactory.DEFAULT_DISK_USAGE_WARNING_PERCENTAGE;
     this.diskUsageCriticalPct = DiskStoreFactory.DEFAULT_DISK_USAGE_CRITICAL_PERCENTAGE;
+    this.recoveryParallelism = DiskStoreFactory.DEFAULT_RECOVERY_PARALLELISM;
   }
 
   public UUID getDiskStoreUUID() {
@@ -200,6 +203,15 @@ public class DiskStoreAttributes implements Serializable, DiskStore {
     return diskUsageCriticalPct;
   }
 
+  @Override
+  public int getRecoveryParallelism() {
+    return recoveryParallelism;
+  }
+
+  protected void setRecoveryParallelism(int recoveryParallelism) {
+    this.recoveryParallelism = recoveryParallelism;
+  }
+
   @Override
   public void setDiskUsageWarningPercentage(float warningPercent) {
     DiskStoreMonitor.checkWarning(warningPercent);
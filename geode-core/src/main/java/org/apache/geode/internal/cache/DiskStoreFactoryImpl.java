@@ -55,6 +55,7 @@ public class DiskStoreFactoryImpl implements DiskStoreFactory {
     setDiskDirsAndSizes(cloneArray(attrs.getDiskDirs()), cloneArray(attrs.getDiskDirSizes()));
     setDiskUsageWarningPercentage(attrs.getDiskUsageWarningPercentage());
     setDiskUsageCriticalPercentage(attrs.getDiskUsageCriticalPercentage());
+    this.attrs.setRecoveryParallelism(attrs.getRecoveryParallelism());
     this.cache = cache;
   }
 
@@ -314,4 +315,15 @@ public class DiskStoreFactoryImpl implements DiskStoreFactory {
     this.attrs.setDiskUsageCriticalPercentage(criticalPercent);
     return this;
   }
+
+  @Override
+  public DiskStoreFactory setRecoveryParallelism(int recoveryParallelism) {
+    if (recoveryParallelism < 1) {
+      throw new IllegalArgumentException(
+          LocalizedStrings.DiskWriteAttributesImpl_0_HAS_TO_BE_POSITIVE_NUMBER_AND_THE_VALUE_GIVEN_1_IS_NOT_ACCEPTABLE
+              .toLocalizedString(new Object[] {"Recovery parallelism", recoveryParallelism}));
+    }
+    this.attrs.setRecoveryParallelism(recoveryParallelism);
+    return this;
+  }
 }
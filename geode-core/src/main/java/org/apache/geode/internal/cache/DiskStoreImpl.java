@@ -43,6 +43,9 @@ import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.RejectedExecutionException;
@@ -65,6 +68,7 @@ import org.apache.logging.log4j.Logger;
 
 import org.apache.geode.CancelCriterion;
 import org.apache.geode.CancelException;
+import org.apache.geode.InternalGemFireException;
 import org.apache.geode.StatisticsFactory;
 import org.apache.geode.SystemFailure;
 import org.apache.geode.cache.Cache;
@@ -343,6 +347,13 @@ public class DiskStoreImpl implements DiskStore {
 
   private final Object asyncValueRecoveryLock = new Object();
 
+  /**
+   * Held for read while a value is recovered into a region entry and for write while a recovered
+   * region's entry map is copied into its real region. This lets values be recovered from several
+   * oplogs at once without holding the {@link #currentAsyncValueRecoveryMap} monitor.
+   */
+  private final ReentrantReadWriteLock valueRecoveryLock = new ReentrantReadWriteLock();
+
   /**
    * The unique id for this disk store.
    * 
@@ -413,6 +424,7 @@ public class DiskStoreImpl implements DiskStore {
     this.diskDirSizes = props.getDiskDirSizes();
     this.warningPercent = props.getDiskUsageWarningPercentage();
     this.criticalPercent = props.getDiskUsageCriticalPercentage();
+    this.recoveryParallelism = Math.max(1, props.getRecoveryParallelism());
 
     this.cache = cache;
     StatisticsFactory factory = cache.getDistributedSystem();
@@ -602,36 +614,41 @@ public class DiskStoreImpl implements DiskStore {
 
     // prevent async recovery from recovering a value
     // while we are copying the entry map.
-    synchronized (currentAsyncValueRecoveryMap) {
-      DiskRegionView drv = lr.getDiskRegionView();
-      if (drv.getRecoveredEntryMap() != null) {
-        PersistentOplogSet oplogSet = getPersistentOplogSet(drv);
-
-        // acquire CompactorWriteLock only if the region attributes for the
-        // real region are different from the place holder region's
-        boolean releaseCompactorWriteLock = false;
-        if (drv.isEntriesMapIncompatible()) {
-          acquireCompactorWriteLock(); // fix bug #51097 to prevent concurrent compaction
-          releaseCompactorWriteLock = true;
-        }
-        try {
-          drv.copyExistingRegionMap(lr);
-          getStats().incUncreatedRecoveredRegions(-1);
-          for (Oplog oplog : oplogSet.getAllOplogs()) {
-            if (oplog != null) {
-              oplog.updateDiskRegion(lr.getDiskRegionView());
+    valueRecoveryLock.writeLock().lock();
+    try {
+      synchronized (currentAsyncValueRecoveryMap) {
+        DiskRegionView drv = lr.getDiskRegionView();
+        if (drv.getRecoveredEntryMap() != null) {
+          PersistentOplogSet oplogSet = getPersistentOplogSet(drv);
+
+          // acquire CompactorWriteLock only if the region attributes for the
+          // real region are different from the place holder region's
+          boolean releaseCompactorWriteLock = false;
+          if (drv.isEntriesMapIncompatible()) {
+            acquireCompactorWriteLock(); // fix bug #51097 to prevent concurrent compaction
+            releaseCompactorWriteLock = true;
+          }
+          try {
+            drv.copyExistingRegionMap(lr);
+            getStats().incUncreatedRecoveredRegions(-1);
+            for (Oplog oplog : oplogSet.getAllOplogs()) {
+              if (oplog != null) {
+                oplog.updateDiskRegion(lr.getDiskRegionView());
+              }
+            }
+          } finally {
+            if (releaseCompactorWriteLock) {
+              releaseCompactorWriteLock();
             }
           }
-        } finally {
-          if (releaseCompactorWriteLock) {
-            releaseCompactorWriteLock();
+          if (currentAsyncValueRecoveryMap.containsKey(drv.getId())) {
+            currentAsyncValueRecoveryMap.put(drv.getId(), lr);
           }
+          return;
         }
-        if (currentAsyncValueRecoveryMap.containsKey(drv.getId())) {
-          currentAsyncValueRecoveryMap.put(drv.getId(), lr);
-        }
-        return;
       }
+    } finally {
+      valueRecoveryLock.writeLock().unlock();
     }
 
     scheduleForRecovery(lr);
@@ -728,10 +745,22 @@ public class DiskStoreImpl implements DiskStore {
           // extra data, hence if it is overflow only mode then use
           // modify and not create
           OplogSet oplogSet = getOplogSet(dr);
-          if (doingCreate) {
-            oplogSet.create(region, entry, value, async);
-          } else {
-            oplogSet.modify(region, entry, value, async);
+          if (!async) {
+            Oplog.beginGroupCommit();
+          }
+          try {
+            if (doingCreate) {
+              oplogSet.create(region, entry, value, async);
+            } else {
+              oplogSet.modify(region, entry, value, async);
+            }
+            if (!async) {
+              Oplog.commitPendingWrites();
+            }
+          } finally {
+            if (!async) {
+              Oplog.endGroupCommit();
+            }
           }
         } else {
           throw new RegionClearedException(
@@ -779,7 +808,19 @@ public class DiskStoreImpl implements DiskStore {
 
       PersistentOplogSet oplogSet = getPersistentOplogSet(dr);
 
-      oplogSet.getChild().saveConflictVersionTag(region, tag, async);
+      if (!async) {
+        Oplog.beginGroupCommit();
+      }
+      try {
+        oplogSet.getChild().saveConflictVersionTag(region, tag, async);
+        if (!async) {
+          Oplog.commitPendingWrites();
+        }
+      } finally {
+        if (!async) {
+          Oplog.endGroupCommit();
+        }
+      }
     } finally {
       if (!async) {
         releaseReadLock(dr);
@@ -2213,6 +2254,14 @@ public class DiskStoreImpl implements DiskStore {
     compactorReadLock.lock();
   }
 
+  void acquireValueRecoveryReadLock() {
+    valueRecoveryLock.readLock().lock();
+  }
+
+  void releaseValueRecoveryReadLock() {
+    valueRecoveryLock.readLock().unlock();
+  }
+
   private volatile boolean closing = false;
   private volatile boolean closed = false;
 
@@ -3392,6 +3441,7 @@ public class DiskStoreImpl implements DiskStore {
   private final int[] diskDirSizes;
   private volatile float warningPercent;
   private volatile float criticalPercent;
+  private final int recoveryParallelism;
 
   // DiskStore interface methods
   public String getName() {
@@ -3444,6 +3494,11 @@ public class DiskStoreImpl implements DiskStore {
     return criticalPercent;
   }
 
+  @Override
+  public int getRecoveryParallelism() {
+    return recoveryParallelism;
+  }
+
   @Override
   public void setDiskUsageWarningPercentage(float warningPercent) {
     DiskStoreMonitor.checkWarning(warningPercent);
@@ -4464,8 +4519,12 @@ public class DiskStoreImpl implements DiskStore {
       synchronized (asyncValueRecoveryLock) {
         DiskStoreObserver.startAsyncValueRecovery(DiskStoreImpl.this);
         try {
-          for (Oplog oplog : oplogSet) {
-            oplog.recoverValuesIfNeeded(currentAsyncValueRecoveryMap);
+          if (getRecoveryParallelism() > 1 && oplogSet.size() > 1) {
+            recoverValuesInParallel();
+          } else {
+            for (Oplog oplog : oplogSet) {
+              oplog.recoverValuesIfNeeded(currentAsyncValueRecoveryMap);
+            }
           }
         } catch (CancelException ignore) {
           // do nothing
@@ -4479,6 +4538,48 @@ public class DiskStoreImpl implements DiskStore {
         }
       }
     }
+
+    /**
+     * Recovers the values of up to {@link #getRecoveryParallelism()} oplogs at once. Each live
+     * entry belongs to exactly one oplog so the oplogs can be recovered in any order.
+     */
+    private void recoverValuesInParallel() {
+      int threads = Math.min(getRecoveryParallelism(), oplogSet.size());
+      final ThreadGroup recoveryThreadGroup =
+          LoggingThreadGroup.createThreadGroup("Oplog Value Recovery Thread Group", logger);
+      final ThreadFactory recoveryThreadFactory =
+          GemfireCacheHelper.CreateThreadFactory(recoveryThreadGroup, "Oplog Value Recovery");
+      ExecutorService executor = Executors.newFixedThreadPool(threads, recoveryThreadFactory);
+      try {
+        List<Future<?>> results = new ArrayList<Future<?>>(oplogSet.size());
+        for (final Oplog oplog : oplogSet) {
+          results.add(executor.submit(new Runnable() {
+            public void run() {
+              markBackgroundTaskThread();
+              oplog.recoverValuesIfNeeded(currentAsyncValueRecoveryMap);
+            }
+          }));
+        }
+        for (Future<?> result : results) {
+          try {
+            result.get();
+          } catch (InterruptedException ignore) {
+            Thread.currentThread().interrupt();
+            return;
+          } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+              throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+              throw (Error) cause;
+            }
+            throw new InternalGemFireException(cause);
+          }
+        }
+      } finally {
+        executor.shutdownNow();
+      }
+    }
   }
 
   public void waitForAsyncRecovery(DiskRegion diskRegion) {
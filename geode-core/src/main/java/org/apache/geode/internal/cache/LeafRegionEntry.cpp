@@ -25,9 +25,17 @@ package org.apache.geode.internal.cache;
 #define KEY_TYPE UUID
 #elif defined(KEY_STRING1) || defined(KEY_STRING2)
 #define KEY_TYPE String
+#elif defined(KEY_SERIALIZED)
+#define KEY_TYPE long
 #else
 #error the KEY_TYPE macro must be defined    
 #endif
+#if defined(UNLINKED) && (defined(KEY_OBJECT) || defined(KEY_UUID))
+#error UNLINKED is only supported with the int, long and string keys
+#endif
+#if defined(KEY_SERIALIZED) && (!defined(OFFHEAP) || defined(UNLINKED))
+#error KEY_SERIALIZED is only supported with OFFHEAP
+#endif
 
 #ifdef KEY_UUID
 import java.util.UUID;
@@ -72,6 +80,7 @@ import org.apache.geode.internal.util.concurrent.CustomEntryConcurrentHashMap.Ha
 // stats: STATS
 // versioned: VERSIONED
 // offheap: OFFHEAP
+// unlinked: UNLINKED
 // One of the following key macros must be defined:
 // key object: KEY_OBJECT
 // key int: KEY_INT
@@ -79,12 +88,19 @@ import org.apache.geode.internal.util.concurrent.CustomEntryConcurrentHashMap.Ha
 // key uuid: KEY_UUID
 // key string1: KEY_STRING1
 // key string2: KEY_STRING2
+// key serialized: KEY_SERIALIZED
 
 /**
  * Do not modify this class. It was generated. Instead modify LeafRegionEntry.cpp and then run
  * ./dev-tools/generateRegionEntryClasses.sh (it must be run from the top level directory).
  */
+#if defined(KEY_SERIALIZED)
+public class LEAF_CLASS extends PARENT_CLASS implements OffHeapKeyRegionEntry {
+#elif defined(UNLINKED)
+public class LEAF_CLASS extends PARENT_CLASS implements UnlinkedRegionEntry {
+#else
 public class LEAF_CLASS extends PARENT_CLASS {
+#endif
   public LEAF_CLASS  (RegionEntryContext context, KEY_TYPE key, 
 #ifdef OFFHEAP
       @Retained
@@ -162,14 +178,19 @@ public class LEAF_CLASS extends PARENT_CLASS {
     tmpBits1 |= key.length();
     this.bits1 = tmpBits1;
     this.bits2 = tmpBits2;
+#elif defined(KEY_SERIALIZED)
+    // the caller serialized the key with OffHeapRegionEntryHelper.serializeKey
+    this.keyAddress = key;
 #endif
   }
 
   // DO NOT modify this class. It was generated from LeafRegionEntry.cpp
   
   // common code
+#ifndef UNLINKED
   protected int hash;
   private HashEntry<Object, Object> next;
+#endif
   @SuppressWarnings("unused")
   private volatile long lastModified;
   private static final AtomicLongFieldUpdater<LEAF_CLASS> lastModifiedUpdater
@@ -260,6 +281,30 @@ public class LEAF_CLASS extends PARENT_CLASS {
   protected boolean compareAndSetLastModifiedField(long expectedValue, long newValue) {
     return lastModifiedUpdater.compareAndSet(this, expectedValue, newValue);
   }
+#ifdef UNLINKED
+  /**
+   * Returns the hash code of the key.
+   * @see HashEntry#getEntryHash()
+   */
+  public int getEntryHash() {
+    return getKeyHashCode();
+  }
+  protected void setEntryHash(int v) {
+    throw new UnsupportedOperationException("an unlinked entry can not be put in a chained map");
+  }
+  /**
+   * @see HashEntry#getNextEntry()
+   */
+  public HashEntry<Object, Object> getNextEntry() {
+    return null;
+  }
+  /**
+   * @see HashEntry#setNextEntry
+   */
+  public void setNextEntry(final HashEntry<Object, Object> n) {
+    throw new UnsupportedOperationException("an unlinked entry can not be put in a chained map");
+  }
+#else
   /**
    * @see HashEntry#getEntryHash()
    */
@@ -281,6 +326,7 @@ public class LEAF_CLASS extends PARENT_CLASS {
   public void setNextEntry(final HashEntry<Object, Object> n) {
     this.next = n;
   }
+#endif
 #ifdef DISK
 
   // DO NOT modify this class. It was generated from LeafRegionEntry.cpp
@@ -463,6 +509,9 @@ public class LEAF_CLASS extends PARENT_CLASS {
 #ifdef KEY_OBJECT
     // default implementation.
     return getKey();
+#elif defined(KEY_SERIALIZED)
+    // the key is stored off heap so it does not add to the heap size of the entry
+    return null;
 #else
     // inline keys always report null for sizing since the size comes from the entry size
     return null;
@@ -664,6 +713,11 @@ public class LEAF_CLASS extends PARENT_CLASS {
     }
     return false;
   }
+#ifdef UNLINKED
+  private int getKeyHashCode() {
+    return this.key;
+  }
+#endif
   
 #elif defined(KEY_LONG)
   private final long key;
@@ -678,6 +732,11 @@ public class LEAF_CLASS extends PARENT_CLASS {
     }
     return false;
   }
+#ifdef UNLINKED
+  private int getKeyHashCode() {
+    return (int) (this.key ^ (this.key >>> 32));
+  }
+#endif
   
 #elif defined(KEY_UUID)
   private final long keyMostSigBits;
@@ -756,6 +815,28 @@ public class LEAF_CLASS extends PARENT_CLASS {
     }
     return false;
   }
+#ifdef UNLINKED
+  /**
+   * Returns the same value as String.hashCode of the key.
+   */
+  private int getKeyHashCode() {
+    int h = 0;
+    int keylen = getKeyLength();
+    long tmpBits1 = this.bits1;
+    if (getEncoding() == 1) {
+      for (int i=0; i < keylen; i++) {
+        tmpBits1 >>= 8;
+        h = 31 * h + (char) (tmpBits1 & 0x00ff);
+      }
+    } else {
+      for (int i=0; i < keylen; i++) {
+        tmpBits1 >>= 16;
+        h = 31 * h + (char) (tmpBits1 & 0x00FFff);
+      }
+    }
+    return h;
+  }
+#endif
   
 #elif defined(KEY_STRING2)
   // strlen is encoded in lowest 6 bits (max strlen is 63)
@@ -846,6 +927,66 @@ public class LEAF_CLASS extends PARENT_CLASS {
     }
     return false;
   }
+#ifdef UNLINKED
+  /**
+   * Returns the same value as String.hashCode of the key.
+   */
+  private int getKeyHashCode() {
+    int h = 0;
+    int keylen = getKeyLength();
+    long tmpBits1 = this.bits1;
+    long tmpBits2 = this.bits2;
+    if (getEncoding() == 1) {
+      for (int i=0; i < keylen; i++) {
+        char c;
+        if (i < 7) {
+          tmpBits1 >>= 8;
+          c = (char) (tmpBits1 & 0x00ff);
+        } else {
+          c = (char) (tmpBits2 & 0x00ff);
+          tmpBits2 >>= 8;
+        }
+        h = 31 * h + c;
+      }
+    } else {
+      for (int i=0; i < keylen; i++) {
+        char c;
+        if (i < 3) {
+          tmpBits1 >>= 16;
+          c = (char) (tmpBits1 & 0x00FFff);
+        } else {
+          c = (char) (tmpBits2 & 0x00FFff);
+          tmpBits2 >>= 16;
+        }
+        h = 31 * h + c;
+      }
+    }
+    return h;
+  }
+#endif
+#elif defined(KEY_SERIALIZED)
+  /**
+   * All access done using keyAddrUpdater so it is used even though the compiler can not tell it is.
+   */
+  @SuppressWarnings("unused")
+  @Retained @Released private volatile long keyAddress;
+  private final static AtomicLongFieldUpdater<LEAF_CLASS> keyAddrUpdater = AtomicLongFieldUpdater.newUpdater(LEAF_CLASS.class, "keyAddress");
+  @Override
+  public Object getKey() {
+    return OffHeapRegionEntryHelper.getKey(this);
+  }
+  @Override
+  public long getKeyAddress() {
+    return keyAddrUpdater.get(this);
+  }
+  @Override
+  public boolean setKeyAddress(long expectedAddr, long newAddr) {
+    return keyAddrUpdater.compareAndSet(this, expectedAddr, newAddr);
+  }
+  @Override
+  public boolean isKeyEqual(Object k) {
+    return OffHeapRegionEntryHelper.isKeyEqual(this, k);
+  }
 #endif
   // DO NOT modify this class. It was generated from LeafRegionEntry.cpp
 }
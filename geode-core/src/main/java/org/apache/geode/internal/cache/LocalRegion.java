@@ -2632,11 +2632,17 @@ public class LocalRegion extends AbstractRegion implements LoaderHelperFactory,
             if (this instanceof BucketRegion) {
               this.indexManager.removeBucketIndexes(getPartitionedRegion());
             }
+            if (regionEvent.getOperation().isClose() && getDataPolicy().withPersistence()) {
+              this.indexManager.writeIndexCheckpoints();
+            }
             this.indexManager.destroy();
           } catch (QueryException e) {
             throw new IndexMaintenanceException(e);
           }
         }
+        if (!regionEvent.getOperation().isClose() && getDataPolicy().withPersistence()) {
+          IndexManager.deleteIndexCheckpoints(this);
+        }
       } catch (CancelException e) {
         // I don't think this should ever happens: bulletproofing for bug 39454
         if (!this.cache.forcedDisconnect()) {
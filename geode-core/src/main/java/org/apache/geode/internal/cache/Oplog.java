@@ -26,10 +26,14 @@ import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.InterruptedIOException;
+import java.io.RandomAccessFile;
 import java.io.SyncFailedException;
 import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
 import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
@@ -43,10 +47,12 @@ import java.util.Map.Entry;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.LockSupport;
 import java.util.concurrent.locks.ReentrantLock;
 
 import it.unimi.dsi.fastutil.ints.Int2ObjectMap;
@@ -111,6 +117,7 @@ import org.apache.geode.internal.offheap.annotations.Released;
 import org.apache.geode.internal.offheap.annotations.Retained;
 import org.apache.geode.internal.sequencelog.EntryLogger;
 import org.apache.geode.internal.shared.NativeCalls;
+import org.apache.geode.internal.tcp.ByteBufferInputStream;
 import org.apache.geode.internal.util.BlobHelper;
 import org.apache.geode.internal.util.IOUtils;
 import org.apache.geode.internal.util.TransformUtils;
@@ -178,11 +185,46 @@ public class Oplog implements CompactableOplog, Flushable {
 
   /**
    * This system property instructs that writes be synchronously written to disk and not to file
-   * system. (Use rwd instead of rw - RandomAccessFile property)
+   * system. (Use rwd instead of rw - RandomAccessFile property). Not final so tests can set it.
    */
-  private static final boolean SYNC_WRITES =
+  static boolean SYNC_WRITES =
       Boolean.getBoolean(DistributionConfig.GEMFIRE_PREFIX + "syncWrites");
 
+  /**
+   * This system property instructs that crf files that are no longer appended to be read through a
+   * read only memory mapping instead of a seek and read on their RandomAccessFile, both when
+   * faulting in values and during recovery. Only crf files smaller than 2GB are mapped.
+   */
+  static final boolean MAP_READ_ONLY_CRF =
+      Boolean.getBoolean(DistributionConfig.GEMFIRE_PREFIX + "Oplog.MAP_READ_ONLY_CRF");
+
+  /** For test purpose only */
+  static boolean TEST_MAP_READ_ONLY_CRF = false;
+
+  /**
+   * This system property instructs that synchronous creates and modifies only append their record
+   * to the crf write buffer while holding the oplog lock. The writer then waits, after releasing
+   * the lock, until a single flush (and sync if syncWrites is set) done by one of the waiting
+   * writers covers its record. See {@link #commitPendingWrites()}. Not final so tests can set it.
+   */
+  static boolean GROUP_COMMIT =
+      Boolean.getBoolean(DistributionConfig.GEMFIRE_PREFIX + "Oplog.GROUP_COMMIT");
+
+  /**
+   * The number of microseconds the writer leading a group commit waits for other writers to join
+   * it before flushing. Zero, the default, flushes right away; writers that arrive during a flush
+   * are still batched into the next one.
+   */
+  static final long GROUP_COMMIT_MAX_DELAY_MICROS =
+      Long.getLong(DistributionConfig.GEMFIRE_PREFIX + "Oplog.GROUP_COMMIT_MAX_DELAY_MICROS", 0);
+
+  /**
+   * Set while this thread is inside {@link #beginGroupCommit()} and {@link #endGroupCommit()};
+   * holds the last record it appended that still needs to be group committed.
+   */
+  private static final ThreadLocal<PendingGroupCommit> pendingGroupCommit =
+      new ThreadLocal<PendingGroupCommit>();
+
   /**
    * The HighWaterMark of recentValues.
    */
@@ -553,6 +595,19 @@ public class Oplog implements CompactableOplog, Flushable {
    */
   private boolean doneAppending = false;
 
+  /**
+   * Sequence number of the last record appended for group commit. Guarded by {@link #lock}.
+   */
+  private long appendedWriteSeq = 0;
+
+  /**
+   * Sequence number of the last record known to be flushed by a group commit, and whether a writer
+   * is currently flushing for the group. Both are guarded by {@link #groupCommitLock}.
+   */
+  private long committedWriteSeq = 0;
+  private boolean groupCommitInProgress = false;
+  private final Object groupCommitLock = new Object();
+
   /**
    * Creates new {@code Oplog} for the given region.
    * 
@@ -1891,9 +1946,16 @@ public class Oplog implements CompactableOplog, Flushable {
       boolean foundDiskStoreRecord = false;
       FileInputStream fis = null;
       try {
-        fis = new FileInputStream(this.crf.f);
-        dis = new CountingDataInputStream(new BufferedInputStream(fis, 1024 * 1024),
-            this.crf.f.length());
+        InputStream crfStream;
+        MappedByteBuffer mappedCrf =
+            isMapReadOnlyCrf() ? mapReadOnly(this.crf.f, this.crf.f.length()) : null;
+        if (mappedCrf != null) {
+          crfStream = new ByteBufferInputStream(mappedCrf);
+        } else {
+          fis = new FileInputStream(this.crf.f);
+          crfStream = new BufferedInputStream(fis, 1024 * 1024);
+        }
+        dis = new CountingDataInputStream(crfStream, this.crf.f.length());
         boolean endOfLog = false;
         while (!endOfLog) {
           // long startPosition = byteCount;
@@ -3316,6 +3378,8 @@ public class Oplog implements CompactableOplog, Flushable {
         this.crf.RAFClosed = true;
         this.stats.decOpenOplogs();
       }
+      // the mapping is unmapped once it is garbage collected
+      this.crf.mappedBuffer = null;
       this.closed = true;
     }
     // No need to get the backup lock prior to synchronizing (correct lock order) since the
@@ -3630,7 +3694,7 @@ public class Oplog implements CompactableOplog, Flushable {
           id.setOplogId(getOplogId());
           // do the io while holding lock so that switch can set doneAppending
           // Write the data to the opLog for the synch mode
-          startPosForSynchOp = writeOpLogBytes(this.crf, async, true);
+          startPosForSynchOp = writeCrfOpLogBytes(async);
           // if (this.crf.currSize != startPosForSynchOp) {
           // assert false;
           // }
@@ -4624,7 +4688,7 @@ public class Oplog implements CompactableOplog, Flushable {
             long oldOplogId;
             // do the io while holding lock so that switch can set doneAppending
             // Write the data to the opLog for the synch mode
-            startPosForSynchOp = writeOpLogBytes(this.crf, async, true);
+            startPosForSynchOp = writeCrfOpLogBytes(async);
             this.crf.currSize = temp;
             startPosForSynchOp += getOpStateValueOffset();
             if (logger.isTraceEnabled(LogMarker.PERSIST_WRITES)) {
@@ -4748,7 +4812,7 @@ public class Oplog implements CompactableOplog, Flushable {
               throw cce;
             }
             this.firstRecord = false;
-            writeOpLogBytes(this.crf, async, true);
+            writeCrfOpLogBytes(async);
             this.crf.currSize = temp;
             if (logger.isTraceEnabled(LogMarker.PERSIST_WRITES)) {
               logger.trace(LogMarker.PERSIST_WRITES,
@@ -5343,6 +5407,168 @@ public class Oplog implements CompactableOplog, Flushable {
     return startPos;
   }
 
+  /**
+   * Writes the current op state to the crf. A synchronous write is flushed before returning unless
+   * this thread called {@link #beginGroupCommit()}, in which case the flush is left to
+   * {@link #commitPendingWrites()}. Deletes are never group committed since the drf must be flushed
+   * before any later crf record.
+   */
+  private long writeCrfOpLogBytes(boolean async) throws IOException {
+    PendingGroupCommit pending = async ? null : pendingGroupCommit.get();
+    if (pending == null) {
+      return writeOpLogBytes(this.crf, async, true);
+    }
+    synchronized (this.lock/* crf */) {
+      long startPos = writeOpLogBytes(this.crf, false, false);
+      this.appendedWriteSeq++;
+      pending.oplog = this;
+      pending.writeSeq = this.appendedWriteSeq;
+      return startPos;
+    }
+  }
+
+  /**
+   * Makes the synchronous crf writes this thread does until {@link #endGroupCommit()} only append
+   * to the write buffer. Callers must call {@link #commitPendingWrites()} once they have released
+   * the oplog locks and {@link #endGroupCommit()} in a finally block. Writes done by threads that
+   * never called this method, such as the compactor, are flushed right away.
+   */
+  static void beginGroupCommit() {
+    if (GROUP_COMMIT) {
+      pendingGroupCommit.set(new PendingGroupCommit());
+    }
+  }
+
+  /**
+   * Waits until the last record this thread appended since {@link #beginGroupCommit()} has been
+   * flushed. Must be called without holding any oplog lock. Does nothing if this thread has nothing
+   * pending.
+   */
+  static void commitPendingWrites() {
+    PendingGroupCommit pending = pendingGroupCommit.get();
+    if (pending != null) {
+      pendingGroupCommit.remove();
+      if (pending.oplog != null) {
+        pending.oplog.groupCommit(pending.writeSeq);
+      }
+    }
+  }
+
+  /**
+   * Forgets any record this thread appended without committing it, for example because the write
+   * failed after it was appended.
+   */
+  static void endGroupCommit() {
+    pendingGroupCommit.remove();
+  }
+
+  /**
+   * test hook
+   */
+  static boolean hasPendingGroupCommit() {
+    return pendingGroupCommit.get() != null;
+  }
+
+  /**
+   * test hook
+   */
+  long getAppendedWriteSeq() {
+    synchronized (this.lock) {
+      return this.appendedWriteSeq;
+    }
+  }
+
+  private void groupCommit(long writeSeq) {
+    synchronized (this.groupCommitLock) {
+      boolean interrupted = false;
+      try {
+        while (this.groupCommitInProgress && this.committedWriteSeq < writeSeq) {
+          try {
+            this.groupCommitLock.wait();
+          } catch (InterruptedException ignore) {
+            interrupted = true;
+          }
+        }
+      } finally {
+        if (interrupted) {
+          Thread.currentThread().interrupt();
+        }
+      }
+      if (this.committedWriteSeq >= writeSeq) {
+        return;
+      }
+      // this writer leads the next group
+      this.groupCommitInProgress = true;
+    }
+    long flushedWriteSeq = -1;
+    try {
+      if (GROUP_COMMIT_MAX_DELAY_MICROS > 0) {
+        LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(GROUP_COMMIT_MAX_DELAY_MICROS));
+      }
+      long appended;
+      UninterruptibleFileChannel drfChannel = null;
+      UninterruptibleFileChannel crfChannel = null;
+      // Only the write to the channels is done under the lock so that writers can keep appending
+      // the next group while this one is synced.
+      // No need to get the backup lock prior to synchronizing (correct lock order) since the
+      // synchronized block does not attempt to get the backup lock (incorrect lock order)
+      synchronized (this.lock/* crf */) {
+        appended = this.appendedWriteSeq;
+        flushAll(false, false);
+        if (SYNC_WRITES) {
+          if (!this.drf.RAFClosed) {
+            drfChannel = this.drf.channel;
+          }
+          if (!this.crf.RAFClosed) {
+            crfChannel = this.crf.channel;
+          }
+        }
+      }
+      forceUnlessClosed(drfChannel);
+      forceUnlessClosed(crfChannel);
+      flushedWriteSeq = appended;
+    } finally {
+      synchronized (this.groupCommitLock) {
+        if (flushedWriteSeq > this.committedWriteSeq) {
+          this.committedWriteSeq = flushedWriteSeq;
+        }
+        // if the flush failed one of the waiting writers leads a retry
+        this.groupCommitInProgress = false;
+        this.groupCommitLock.notifyAll();
+      }
+    }
+  }
+
+  /**
+   * Syncs a channel written by a group commit. A channel closed since the write needs no sync
+   * because the switch or close that closed it synced the file first.
+   */
+  private void forceUnlessClosed(UninterruptibleFileChannel channel) {
+    if (channel == null) {
+      return;
+    }
+    try {
+      channel.force(true);
+    } catch (IOException ex) {
+      if (!channel.isOpen()) {
+        return;
+      }
+      getParent().getCancelCriterion().checkCancelInProgress(ex);
+      throw new DiskAccessException(
+          LocalizedStrings.Oplog_FAILED_WRITING_KEY_TO_0.toLocalizedString(this.diskFile.getPath()),
+          ex, getParent());
+    }
+  }
+
+  /**
+   * The oplog and write sequence of the last record a thread appended since it called
+   * {@link #beginGroupCommit()}. The oplog is null until the thread appends a record.
+   */
+  private static class PendingGroupCommit {
+    Oplog oplog;
+    long writeSeq;
+  }
+
   boolean isRAFOpen() {
     return !this.crf.RAFClosed; // volatile read
   }
@@ -5400,6 +5626,18 @@ public class Oplog implements CompactableOplog, Flushable {
 
   private BytesAndBits attemptGet(DiskRegionView dr, long offsetInOplog, boolean bitOnly,
       int valueLength, byte userBits) throws IOException {
+    MappedByteBuffer mappedCrf = getMappedCrf();
+    if (mappedCrf != null) {
+      checkReadBounds(dr, offsetInOplog, valueLength, mappedCrf.capacity());
+      BytesAndBits bb =
+          new BytesAndBits(readMapped(mappedCrf, offsetInOplog, valueLength), userBits);
+      this.stats.incOplogReads();
+      final Version version = getProductVersionIfOld();
+      if (version != null) {
+        bb.setVersion(version);
+      }
+      return bb;
+    }
     boolean didReopen = false;
     boolean accessedInactive = false;
     try {
@@ -5495,6 +5733,86 @@ public class Oplog implements CompactableOplog, Flushable {
     }
   }
 
+  static boolean isMapReadOnlyCrf() {
+    return MAP_READ_ONLY_CRF || TEST_MAP_READ_ONLY_CRF;
+  }
+
+  /**
+   * Returns the read only mapping of this oplog's crf, creating it if {@link #MAP_READ_ONLY_CRF} is
+   * set and the crf is no longer appended to. Returns null if reads must use the RandomAccessFile.
+   */
+  private MappedByteBuffer getMappedCrf() {
+    if (!isMapReadOnlyCrf()) {
+      return null;
+    }
+    MappedByteBuffer result = this.crf.mappedBuffer;
+    // an unsynchronized read of doneAppending is ok; a stale value only delays the mapping
+    if (result != null || this.crf.mappingFailed || !this.doneAppending) {
+      return result;
+    }
+    // No need to get the backup lock prior to synchronizing (correct lock order) since the
+    // synchronized block does not attempt to get the backup lock (incorrect lock order)
+    synchronized (this.lock/* crf */) {
+      result = this.crf.mappedBuffer;
+      if (result == null && !this.crf.mappingFailed && !this.closed && this.crf.f != null) {
+        result = mapReadOnly(this.crf.f, this.crf.bytesFlushed);
+        if (result == null) {
+          this.crf.mappingFailed = true;
+        } else {
+          this.crf.mappedBuffer = result;
+        }
+      }
+      return result;
+    }
+  }
+
+  /**
+   * Maps the first size bytes of the given file read only. Returns null if the file is too large to
+   * map or could not be mapped, in which case the caller should read it with a stream or
+   * RandomAccessFile instead.
+   */
+  static MappedByteBuffer mapReadOnly(File f, long size) {
+    if (size <= 0 || size > Integer.MAX_VALUE) {
+      return null;
+    }
+    // the mapping stays valid after the file is closed, so the file descriptor is not kept open
+    try (RandomAccessFile raf = new RandomAccessFile(f, "r")) {
+      return raf.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, size);
+    } catch (IOException e) {
+      if (logger.isDebugEnabled()) {
+        logger.debug("Could not map {}; reading it with a RandomAccessFile instead", f, e);
+      }
+      return null;
+    }
+  }
+
+  /**
+   * Copies length bytes at offset out of a read only mapping. Safe to call concurrently since each
+   * call reads through its own view of the mapping.
+   */
+  static byte[] readMapped(MappedByteBuffer mapped, long offset, int length) {
+    ByteBuffer view = mapped.duplicate();
+    view.position((int) offset);
+    byte[] bytes = new byte[length];
+    view.get(bytes);
+    return bytes;
+  }
+
+  private void checkReadBounds(DiskRegionView dr, long offsetInOplog, int valueLength,
+      long writePosition) {
+    if ((offsetInOplog + valueLength) > writePosition) {
+      throw new DiskAccessException(
+          LocalizedStrings.Oplog_TRIED_TO_SEEK_TO_0_BUT_THE_FILE_LENGTH_IS_1_OPLOG_FILE_OBJECT_USED_FOR_READING_2
+              .toLocalizedString(offsetInOplog + valueLength, writePosition, this.crf.f),
+          dr.getName());
+    } else if (offsetInOplog < 0) {
+      throw new DiskAccessException(
+          LocalizedStrings.Oplog_CANNOT_FIND_RECORD_0_WHEN_READING_FROM_1
+              .toLocalizedString(offsetInOplog, this.diskFile.getPath()),
+          dr.getName());
+    }
+  }
+
   /**
    * Extracts the Value byte array & UserBit from the OpLog
    * 
@@ -5791,6 +6109,10 @@ public class Oplog implements CompactableOplog, Flushable {
         } catch (IOException ignore) {
         }
       }
+      // do not map a file that is being deleted; an existing mapping is unmapped once it is
+      // garbage collected
+      olf.mappedBuffer = null;
+      olf.mappingFailed = true;
 
       // Delete the file asynchronously. Based on perf testing, deletes
       // can block at the filesystem level. See #50254
@@ -6251,31 +6573,38 @@ public class Oplog implements CompactableOplog, Flushable {
       // from
       // disk is still valid. That is going to be something like
 
-      synchronized (diskRecoveryStores) {
-        DiskRecoveryStore diskRecoveryStore = diskRecoveryStores.get(diskRegionId);
-        if (diskRecoveryStore == null) {
-          continue;
-        }
-
-        // Reset the disk region view because it may have changed
-        // due to the region being created.
-        diskRegionView = diskRecoveryStore.getDiskRegionView();
+      DiskRecoveryStore diskRecoveryStore;
+      // other oplogs may be recovering values concurrently, so the store map is only locked while
+      // it is read; the read lock keeps the region's entry map from being copied underneath us
+      getParent().acquireValueRecoveryReadLock();
+      try {
+        synchronized (diskRecoveryStores) {
+          diskRecoveryStore = diskRecoveryStores.get(diskRegionId);
+          if (diskRecoveryStore == null) {
+            continue;
+          }
 
-        if (diskRegionView == null) {
-          continue;
-        }
-        if (diskRecoveryStore.lruLimitExceeded()) {
-          diskRecoveryStores.remove(diskRegionId);
-          continue;
-        }
+          // Reset the disk region view because it may have changed
+          // due to the region being created.
+          diskRegionView = diskRecoveryStore.getDiskRegionView();
 
-        if (diskRegionView.isEntriesMapIncompatible()) {
-          // Refetch the disk entry because it may have changed due to copying
-          // an incompatible region map
-          diskEntry = (DiskEntry) diskRecoveryStore.getRegionMap().getEntryInVM(diskEntry.getKey());
-          if (diskEntry == null) {
+          if (diskRegionView == null) {
             continue;
           }
+          if (diskRecoveryStore.lruLimitExceeded()) {
+            diskRecoveryStores.remove(diskRegionId);
+            continue;
+          }
+
+          if (diskRegionView.isEntriesMapIncompatible()) {
+            // Refetch the disk entry because it may have changed due to copying
+            // an incompatible region map
+            diskEntry =
+                (DiskEntry) diskRecoveryStore.getRegionMap().getEntryInVM(diskEntry.getKey());
+            if (diskEntry == null) {
+              continue;
+            }
+          }
         }
 
         synchronized (diskEntry) {
@@ -6302,10 +6631,14 @@ public class Oplog implements CompactableOplog, Flushable {
               DiskEntry.Helper.recoverValue(diskEntry, getOplogId(), diskRecoveryStore, in);
             } catch (RegionDestroyedException ignore) {
               // This region has been destroyed, stop recovering from it.
-              diskRecoveryStores.remove(diskRegionId);
+              synchronized (diskRecoveryStores) {
+                diskRecoveryStores.remove(diskRegionId);
+              }
             }
           }
         }
+      } finally {
+        getParent().releaseValueRecoveryReadLock();
       }
     }
   }
@@ -6398,6 +6731,13 @@ public class Oplog implements CompactableOplog, Flushable {
     return chPrev;
   }
 
+  /**
+   * test hook
+   */
+  boolean hasMappedCrf() {
+    return this.crf.mappedBuffer != null;
+  }
+
   private static class OplogFile {
     public File f;
     public UninterruptibleRandomAccessFile raf;
@@ -6407,6 +6747,8 @@ public class Oplog implements CompactableOplog, Flushable {
     public long currSize;
     public long bytesFlushed;
     public boolean unpreblown;
+    public volatile MappedByteBuffer mappedBuffer;
+    public boolean mappingFailed;
   }
 
   private static class KRFile {
@@ -20,6 +20,7 @@ import java.io.InterruptedIOException;
 import java.io.RandomAccessFile;
 import java.io.SyncFailedException;
 import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
 import java.nio.channels.ClosedChannelException;
 import java.nio.channels.FileChannel;
 import java.util.concurrent.atomic.AtomicBoolean;
@@ -380,6 +381,8 @@ class OverflowOplog implements CompactableOplog, Flushable {
         this.crf.RAFClosed = true;
         this.stats.decOpenOplogs();
       }
+      // the mapping is unmapped once it is garbage collected
+      this.crf.mappedBuffer = null;
       this.closed = true;
     }
 
@@ -798,6 +801,13 @@ class OverflowOplog implements CompactableOplog, Flushable {
 
   private BytesAndBits attemptGet(DiskRegionView dr, long offsetInOplog, int valueLength,
       byte userBits) throws IOException {
+    MappedByteBuffer mappedCrf = getMappedCrf();
+    if (mappedCrf != null && (offsetInOplog + valueLength) <= mappedCrf.capacity()) {
+      assert offsetInOplog >= 0;
+      byte[] valueBytes = Oplog.readMapped(mappedCrf, offsetInOplog, valueLength);
+      this.stats.incOplogReads();
+      return new BytesAndBits(valueBytes, userBits);
+    }
     synchronized (this.crf) {
       assert offsetInOplog >= 0;
       RandomAccessFile myRAF = this.crf.raf;
@@ -845,6 +855,33 @@ class OverflowOplog implements CompactableOplog, Flushable {
     } // sync
   }
 
+  /**
+   * Returns the read only mapping of this oplog's crf, creating it if
+   * {@link Oplog#MAP_READ_ONLY_CRF} is set and the crf is no longer appended to. Returns null if
+   * reads must use the RandomAccessFile.
+   */
+  private MappedByteBuffer getMappedCrf() {
+    if (!Oplog.isMapReadOnlyCrf()) {
+      return null;
+    }
+    MappedByteBuffer result = this.crf.mappedBuffer;
+    if (result != null || this.crf.mappingFailed || !this.doneAppending) {
+      return result;
+    }
+    synchronized (this.crf) {
+      result = this.crf.mappedBuffer;
+      if (result == null && !this.crf.mappingFailed && !this.closed && this.crf.f != null) {
+        result = Oplog.mapReadOnly(this.crf.f, this.crf.bytesFlushed);
+        if (result == null) {
+          this.crf.mappingFailed = true;
+        } else {
+          this.crf.mappedBuffer = result;
+        }
+      }
+      return result;
+    }
+  }
+
   private BytesAndBits attemptWriteBufferGet(long writePosition, long readPosition, int valueLength,
       byte userBits) {
     BytesAndBits bb = null;
@@ -1120,6 +1157,8 @@ class OverflowOplog implements CompactableOplog, Flushable {
     public ByteBuffer writeBuf;
     public long currSize; // HWM
     public long bytesFlushed;
+    public volatile MappedByteBuffer mappedBuffer;
+    public boolean mappingFailed;
   }
 
   /**
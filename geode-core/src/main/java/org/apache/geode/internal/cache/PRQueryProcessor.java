@@ -28,10 +28,15 @@ import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ForkJoinWorkerThread;
 import java.util.concurrent.Future;
+import java.util.concurrent.RecursiveAction;
 import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
 
 import org.apache.logging.log4j.Logger;
 
@@ -41,12 +46,14 @@ import org.apache.geode.cache.RegionDestroyedException;
 import org.apache.geode.cache.query.QueryException;
 import org.apache.geode.cache.query.QueryInvocationTargetException;
 import org.apache.geode.cache.query.SelectResults;
+import org.apache.geode.cache.query.internal.CompiledGroupBySelect;
 import org.apache.geode.cache.query.internal.CompiledSelect;
 import org.apache.geode.cache.query.internal.DefaultQuery;
 import org.apache.geode.cache.query.internal.ExecutionContext;
 import org.apache.geode.cache.query.internal.IndexTrackingQueryObserver;
 import org.apache.geode.cache.query.internal.NWayMergeResults;
 import org.apache.geode.cache.query.internal.QueryExecutionContext;
+import org.apache.geode.cache.query.internal.QueryProfile;
 import org.apache.geode.cache.query.internal.QueryMonitor;
 import org.apache.geode.cache.query.internal.QueryObserver;
 import org.apache.geode.cache.query.internal.QueryObserverHolder;
@@ -67,21 +74,42 @@ import org.apache.geode.internal.logging.LogService;
  * 
  * The QueryTasks add results directly to a results queue. The BucketQueryResult is used not only to
  * indicate completion, and holds an exception if there one occurred while processing a query.
+ * 
+ * When fork join mode is enabled the buckets are instead split recursively across a work stealing
+ * {@code ForkJoinPool} sized to the number of cores, so that a scan of many local buckets uses all
+ * of them.
  */
 public class PRQueryProcessor {
   private static final Logger logger = LogService.getLogger();
 
   final static int BUCKET_QUERY_TIMEOUT = 60;
 
+  /** seconds to wait for the buckets scanned in parallel, as long as the thread pool waits */
+  final static int PARALLEL_QUERY_TIMEOUT = 300;
+
+  /* For Test purpose */
+  public static int TEST_PARALLEL_QUERY_TIMEOUT = 0;
+
   public final static int NUM_THREADS =
       getInteger(DistributionConfig.GEMFIRE_PREFIX + "PRQueryProcessor.numThreads", 1);
 
   /* For Test purpose */
   public static int TEST_NUM_THREADS = 0;
 
+  /**
+   * Query local buckets on a work stealing fork join pool instead of the fixed thread pool.
+   */
+  public final static boolean FORK_JOIN =
+      Boolean.getBoolean(DistributionConfig.GEMFIRE_PREFIX + "PRQueryProcessor.forkJoin");
+
+  /* For Test purpose */
+  public static boolean TEST_FORK_JOIN = false;
+
   private PartitionedRegionDataStore _prds;
   private PartitionedRegion pr;
   private final DefaultQuery query;
+  /** the profile of the execution this processor is part of, read on the thread that started it */
+  private final QueryProfile profile;
   private final Object[] parameters;
   private final List<Integer> _bucketsToQuery;
   private volatile int numBucketsProcessed = 0;
@@ -96,6 +124,7 @@ public class PRQueryProcessor {
     this._bucketsToQuery = buckets;
     prDS.partitionedRegion.getCache().getLocalQueryService();
     this.query = query;
+    this.profile = query.getExecutionProfile();
     this.parameters = parameters;
     PRQueryExecutor.initializeExecutorService();
   }
@@ -106,6 +135,7 @@ public class PRQueryProcessor {
     this.pr = pr;
     this._bucketsToQuery = buckets;
     this.query = query;
+    this.profile = query.getExecutionProfile();
     this.parameters = parameters;
     PRQueryExecutor.initializeExecutorService();
   }
@@ -132,7 +162,9 @@ public class PRQueryProcessor {
     // ((IndexTrackingQueryObserver)observer).setIndexInfo(resultCollector.getIndexInfoMap());
     // }
 
-    if (NUM_THREADS > 1 || TEST_NUM_THREADS > 1) {
+    if (FORK_JOIN || TEST_FORK_JOIN) {
+      executeWithForkJoin(resultCollector);
+    } else if (NUM_THREADS > 1 || TEST_NUM_THREADS > 1) {
       executeWithThreadPool(resultCollector);
     } else {
       executeSequentially(resultCollector, this._bucketsToQuery);
@@ -154,7 +186,8 @@ public class PRQueryProcessor {
     if (callableTasks != null && !callableTasks.isEmpty()) {
       List futures = null;
       try {
-        futures = execService.invokeAll(callableTasks, 300, TimeUnit.SECONDS);
+        futures =
+            execService.invokeAll(callableTasks, getParallelQueryTimeout(), TimeUnit.SECONDS);
       } catch (RejectedExecutionException rejectedExecutionEx) {
         throw rejectedExecutionEx;
       }
@@ -219,6 +252,65 @@ public class PRQueryProcessor {
 
   }
 
+  private void executeWithForkJoin(Collection<Collection> resultCollector)
+      throws QueryException, InterruptedException, ForceReattemptException {
+    if (Thread.interrupted())
+      throw new InterruptedException();
+
+    CompiledSelect cs = this.query.getSimpleSelect();
+    // like the thread pool, ordered and grouped queries run per bucket and are merged afterwards
+    boolean mergeResults = cs != null && (cs.isOrderBy() || cs.isGroupBy());
+    ForkJoinPool forkJoinPool = PRQueryExecutor.getForkJoinPool();
+    int bucketsPerTask = 1;
+    if (!mergeResults) {
+      // leave enough tasks for idle workers to steal from busy ones
+      bucketsPerTask =
+          Math.max(1, this._bucketsToQuery.size() / (forkJoinPool.getParallelism() * 4));
+    }
+
+    AtomicReference<Exception> failure = new AtomicReference<>();
+    ForkJoinTask<Void> task = forkJoinPool.submit(new BucketScanTask(resultCollector,
+        this._bucketsToQuery, bucketsPerTask, DefaultQuery.getPdxReadSerialized(), failure));
+    try {
+      task.get(getParallelQueryTimeout(), TimeUnit.SECONDS);
+    } catch (TimeoutException e) {
+      // keeps the tasks from scanning any more buckets
+      InternalGemFireException timeout = new InternalGemFireException(
+          LocalizedStrings.PRQueryProcessor_TIMED_OUT_WHILE_EXECUTING_QUERY_TIME_EXCEEDED_0
+              .toLocalizedString(getParallelQueryTimeout()),
+          e);
+      failure.compareAndSet(null, timeout);
+      task.cancel(false);
+      throw timeout;
+    } catch (ExecutionException e) {
+      throw new InternalGemFireException(
+          LocalizedStrings.PRQueryProcessor_GOT_UNEXPECTED_EXCEPTION_WHILE_EXECUTING_QUERY_ON_PARTITIONED_REGION_BUCKET
+              .toLocalizedString(),
+          e.getCause());
+    }
+
+    Exception ex = failure.get();
+    if (ex instanceof ForceReattemptException) {
+      throw (ForceReattemptException) ex;
+    } else if (ex instanceof QueryException) {
+      throw (QueryException) ex;
+    } else if (ex != null) {
+      throw (RuntimeException) ex;
+    }
+
+    if (mergeResults) {
+      ExecutionContext context = new QueryExecutionContext(this.parameters, pr.getCache());
+      int limit = this.query.getLimit(parameters);
+      Collection mergedResults = coalesceOrderedResults(resultCollector, context, cs, limit);
+      resultCollector.clear();
+      resultCollector.add(mergedResults);
+    }
+  }
+
+  private static int getParallelQueryTimeout() {
+    return TEST_PARALLEL_QUERY_TIMEOUT > 0 ? TEST_PARALLEL_QUERY_TIMEOUT : PARALLEL_QUERY_TIMEOUT;
+  }
+
   /**
    * @throws ForceReattemptException if bucket was moved so caller should try query again
    */
@@ -328,7 +420,7 @@ public class PRQueryProcessor {
      */
 
     ExecutionContext context =
-        new QueryExecutionContext(this.parameters, this.pr.getCache(), this.query);
+        new QueryExecutionContext(this.parameters, this.pr.getCache(), this.query, this.profile);
 
     CompiledSelect cs = this.query.getSimpleSelect();
     int limit = this.query.getLimit(parameters);
@@ -349,7 +441,7 @@ public class PRQueryProcessor {
   }
 
   private Collection coalesceOrderedResults(Collection<Collection> results,
-      ExecutionContext context, CompiledSelect cs, int limit) {
+      ExecutionContext context, CompiledSelect cs, int limit) throws QueryException {
     List<Collection> sortedResults = new ArrayList<Collection>(results.size());
     // TODO :Asif : Deal with UNDEFINED
     for (Object o : results) {
@@ -358,9 +450,17 @@ public class PRQueryProcessor {
       }
     }
 
-    return new NWayMergeResults(sortedResults, cs.isDistinct(), limit, cs.getOrderByAttrs(),
-        context, cs.getElementTypeForOrderByQueries());
-
+    NWayMergeResults mergedResults = new NWayMergeResults(sortedResults, cs.isDistinct(), limit,
+        cs.getOrderByAttrs(), context, cs.getElementTypeForOrderByQueries());
+    if (cs.isGroupBy()) {
+      // The buckets are grouped and aggregated separately, combine their partial aggregates so that
+      // a single row per group is sent to the query node. The merged results are sorted on the
+      // group by keys, like the results the query node merges from the members.
+      context.setBucketList(this._bucketsToQuery);
+      context.setIsBucketNodeCombiner(true);
+      return ((CompiledGroupBySelect) cs).applyAggregateAndGroupBy(mergedResults, context);
+    }
+    return mergedResults;
   }
 
   private void executeQueryOnBuckets(Collection<Collection> resultCollector,
@@ -379,7 +479,19 @@ public class PRQueryProcessor {
         queryMonitor.monitorQueryThread(Thread.currentThread(), query);
       }
 
-      Object results = query.executeUsingContext(context);
+      // buckets queried on their own are profiled separately
+      Object bucketId = context.getBucketList().size() == 1 ? context.getBucketList().get(0) : null;
+      Object results = null;
+      if (bucketId != null) {
+        context.startOperator(bucketId);
+      }
+      try {
+        results = query.executeUsingContext(context);
+      } finally {
+        if (bucketId != null) {
+          context.endOperator(results);
+        }
+      }
 
       synchronized (resultCollector) {
         // TODO: In what situation would the results object itself be undefined?
@@ -443,6 +555,8 @@ public class PRQueryProcessor {
 
     private static ExecutorService execService = null;
 
+    private static ForkJoinPool forkJoinPool = null;
+
     /**
      * Closes the executor service. This is called from
      * {@link PartitionedRegion#afterRegionsClosedByCacheClose(InternalCache)}
@@ -451,11 +565,34 @@ public class PRQueryProcessor {
       if (execService != null) {
         execService.shutdown();
       }
+      if (forkJoinPool != null) {
+        forkJoinPool.shutdown();
+      }
     }
 
     static synchronized void shutdownNow() {
       if (execService != null)
         execService.shutdownNow();
+      if (forkJoinPool != null)
+        forkJoinPool.shutdownNow();
+    }
+
+    /**
+     * Returns the fork join pool, creating it if needed. Its parallelism is the numThreads setting
+     * when one is given and the number of cores otherwise.
+     */
+    static synchronized ForkJoinPool getForkJoinPool() {
+      if (forkJoinPool == null || forkJoinPool.isShutdown()) {
+        int parallelism = TEST_NUM_THREADS > 1 ? TEST_NUM_THREADS
+            : NUM_THREADS > 1 ? NUM_THREADS : Runtime.getRuntime().availableProcessors();
+        forkJoinPool = new ForkJoinPool(parallelism, pool -> {
+          ForkJoinWorkerThread thread =
+              ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+          thread.setName("PRQueryProcessor Thread " + thread.getPoolIndex());
+          return thread;
+        }, null, false);
+      }
+      return forkJoinPool;
     }
 
     static synchronized ExecutorService getExecutorService() {
@@ -519,6 +656,64 @@ public class PRQueryProcessor {
     }
   }
 
+  /**
+   * Fork join task that splits its buckets in half until there are few enough to query them
+   * directly, one after the other. The first failure, or the caller timing out, is recorded in
+   * {@code failure}, which every task checks before each bucket it queries.
+   */
+  @SuppressWarnings("synthetic-access")
+  private class BucketScanTask extends RecursiveAction {
+    private final Collection<Collection> resultColl;
+    private final List<Integer> buckets;
+    private final int bucketsPerTask;
+    private final boolean pdxReadSerialized;
+    private final AtomicReference<Exception> failure;
+
+    BucketScanTask(Collection<Collection> rColl, List<Integer> buckets, int bucketsPerTask,
+        boolean pdxReadSerialized, AtomicReference<Exception> failure) {
+      this.resultColl = rColl;
+      this.buckets = buckets;
+      this.bucketsPerTask = bucketsPerTask;
+      this.pdxReadSerialized = pdxReadSerialized;
+      this.failure = failure;
+    }
+
+    @Override
+    protected void compute() {
+      if (this.failure.get() != null) {
+        return;
+      }
+      int size = this.buckets.size();
+      if (size > this.bucketsPerTask) {
+        int mid = size / 2;
+        invokeAll(
+            new BucketScanTask(this.resultColl, this.buckets.subList(0, mid), this.bucketsPerTask,
+                this.pdxReadSerialized, this.failure),
+            new BucketScanTask(this.resultColl, this.buckets.subList(mid, size),
+                this.bucketsPerTask, this.pdxReadSerialized, this.failure));
+        return;
+      }
+      // the worker has to see pdx values the same way the thread that started the query does
+      boolean oldPdxReadSerialized = DefaultQuery.getPdxReadSerialized();
+      DefaultQuery.setPdxReadSerialized(this.pdxReadSerialized);
+      try {
+        for (Integer bucketId : this.buckets) {
+          if (this.failure.get() != null) {
+            return;
+          }
+          ExecutionContext context =
+              new QueryExecutionContext(parameters, pr.getCache(), query, profile);
+          context.setBucketList(Collections.singletonList(bucketId));
+          executeQueryOnBuckets(this.resultColl, context);
+        }
+      } catch (ForceReattemptException | QueryException | RuntimeException e) {
+        this.failure.compareAndSet(null, e);
+      } finally {
+        DefaultQuery.setPdxReadSerialized(oldPdxReadSerialized);
+      }
+    }
+  }
+
   /**
    * Implementation of call-able task to execute query on a bucket region. This task will be
    * generated by the PRQueryProcessor.
@@ -553,7 +748,7 @@ public class PRQueryProcessor {
 
         List<Integer> bucketList = Collections.singletonList(this._bucketId);
         ExecutionContext context =
-            new QueryExecutionContext(this.parameters, pr.getCache(), this.query);
+            new QueryExecutionContext(this.parameters, pr.getCache(), this.query, profile);
         context.setBucketList(bucketList);
         executeQueryOnBuckets(this.resultColl, context);
         // executeSequentially(this.resultColl, bucketList);
@@ -0,0 +1,635 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.internal.cache;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.apache.geode.internal.util.concurrent.ConcurrentMapWithReusableEntries;
+import org.apache.geode.internal.util.concurrent.CustomEntryConcurrentHashMap;
+import org.apache.geode.internal.util.concurrent.CustomEntryConcurrentHashMap.HashEntry;
+
+/**
+ * An open addressed map from region keys to the RegionEntries that hold them, used instead of
+ * {@link CustomEntryConcurrentHashMap} by regions whose keys are constrained to Integer, Long or
+ * String.
+ * <p>
+ * Each segment is a single array of entries probed linearly, so the map allocates no node object
+ * per entry. The region map creates the {@link UnlinkedRegionEntry} variants of the generated
+ * IntKey, LongKey and StringKey entries for this map; they keep no hash or next field since nothing
+ * chains them. A probe confirms the match with {@link HashEntry#isKeyEqual(Object)}, which those
+ * entries implement against their inlined key without creating a key object, and a resize takes the
+ * hash of each entry from {@link HashEntry#getEntryHash()}, which they compute from the inlined
+ * key.
+ * <p>
+ * Reads are lock free. Writers lock the segment, and removed slots are marked rather than shifted
+ * so that a concurrent reader never misses an entry that stays in the map. Keys of any other class
+ * are kept in a {@link CustomEntryConcurrentHashMap}.
+ *
+ * @see RegionMapFactory
+ */
+class PrimitiveKeyRegionEntryMap extends AbstractMap<Object, Object>
+    implements ConcurrentMapWithReusableEntries<Object, Object> {
+
+  /** Marks a slot whose entry was removed; probing must continue past it. */
+  private static final Object DELETED = new Object();
+
+  private static final int MAXIMUM_SEGMENT_CAPACITY = 1 << 30;
+
+  private static final int MAX_SEGMENTS = 1 << 16;
+
+  private static final int MINIMUM_SEGMENT_CAPACITY = 4;
+
+  /** Keeps at least one empty slot in every table so that unsuccessful probes terminate. */
+  private static final float MAXIMUM_LOAD_FACTOR = 0.9f;
+
+  private final Class<?> keyClass;
+
+  private final float loadFactor;
+
+  private final int initialSegmentCapacity;
+
+  private final Segment[] segments;
+
+  private final int segmentShift;
+
+  private final int segmentMask;
+
+  private final CustomEntryConcurrentHashMap<Object, Object> otherKeys;
+
+  private Set<Map.Entry<Object, Object>> entrySet;
+
+  private Set<Map.Entry<Object, Object>> reusableEntrySet;
+
+  /**
+   * Returns true if regions whose keys are constrained to the given class can use this map.
+   */
+  static boolean isSupportedKeyClass(Class<?> keyClass) {
+    return keyClass == Integer.class || keyClass == Long.class || keyClass == String.class;
+  }
+
+  PrimitiveKeyRegionEntryMap(Class<?> keyClass, int initialCapacity, float loadFactor,
+      int concurrencyLevel) {
+    if (!isSupportedKeyClass(keyClass)) {
+      throw new IllegalArgumentException("Unsupported key class " + keyClass);
+    }
+    if (!(loadFactor > 0) || initialCapacity < 0 || concurrencyLevel <= 0) {
+      throw new IllegalArgumentException();
+    }
+    this.keyClass = keyClass;
+    this.loadFactor = Math.min(loadFactor, MAXIMUM_LOAD_FACTOR);
+
+    int segmentCount = 1;
+    int shift = 0;
+    while (segmentCount < Math.min(concurrencyLevel, MAX_SEGMENTS)) {
+      segmentCount <<= 1;
+      ++shift;
+    }
+    this.segmentShift = 32 - shift;
+    this.segmentMask = segmentCount - 1;
+
+    int perSegment = (int) Math.min(MAXIMUM_SEGMENT_CAPACITY,
+        (long) Math.ceil((double) initialCapacity / segmentCount / this.loadFactor) + 1);
+    int capacity = MINIMUM_SEGMENT_CAPACITY;
+    while (capacity < perSegment) {
+      capacity <<= 1;
+    }
+    this.initialSegmentCapacity = capacity;
+
+    this.segments = new Segment[segmentCount];
+    for (int i = 0; i < segmentCount; i++) {
+      this.segments[i] = new Segment(capacity, this.loadFactor);
+    }
+    this.otherKeys = new CustomEntryConcurrentHashMap<>(16, 0.75f, 1, false,
+        new AbstractRegionEntry.HashRegionEntryCreator());
+  }
+
+  private boolean isPrimitiveKey(Object key) {
+    return key.getClass() == this.keyClass;
+  }
+
+  /**
+   * Spreads the bits of a key's hash code so that sequential keys do not cluster in one run of
+   * slots.
+   */
+  private static int hash(int keyHash) {
+    int h = keyHash * 0x9E3779B9;
+    return h ^ (h >>> 16);
+  }
+
+  /**
+   * Returns the hash code of the key of an entry held by a segment without creating the key object
+   * if the entry inlines it.
+   */
+  private static int keyHash(Object entry) {
+    if (entry instanceof UnlinkedRegionEntry) {
+      return ((HashEntry<?, ?>) entry).getEntryHash();
+    }
+    return ((HashEntry<?, ?>) entry).getKey().hashCode();
+  }
+
+  private Segment segmentFor(int hash) {
+    return this.segments[(hash >>> this.segmentShift) & this.segmentMask];
+  }
+
+  private static boolean isKeyEqual(Object entry, Object key) {
+    return ((HashEntry<?, ?>) entry).isKeyEqual(key);
+  }
+
+  @Override
+  public Object get(Object key) {
+    if (key == null) {
+      throw new NullPointerException();
+    }
+    if (!isPrimitiveKey(key)) {
+      return this.otherKeys.get(key);
+    }
+    int hash = hash(key.hashCode());
+    return segmentFor(hash).get(key, hash);
+  }
+
+  @Override
+  public boolean containsKey(Object key) {
+    return get(key) != null;
+  }
+
+  @Override
+  public Object put(Object key, Object value) {
+    if (key == null || value == null) {
+      throw new NullPointerException();
+    }
+    if (!isPrimitiveKey(key)) {
+      return this.otherKeys.put(key, value);
+    }
+    int hash = hash(key.hashCode());
+    return segmentFor(hash).put(key, hash, value, false);
+  }
+
+  @Override
+  public Object putIfAbsent(Object key, Object value) {
+    if (key == null || value == null) {
+      throw new NullPointerException();
+    }
+    if (!isPrimitiveKey(key)) {
+      return this.otherKeys.putIfAbsent(key, value);
+    }
+    int hash = hash(key.hashCode());
+    return segmentFor(hash).put(key, hash, value, true);
+  }
+
+  @Override
+  public Object remove(Object key) {
+    if (key == null) {
+      throw new NullPointerException();
+    }
+    if (!isPrimitiveKey(key)) {
+      return this.otherKeys.remove(key);
+    }
+    int hash = hash(key.hashCode());
+    return segmentFor(hash).replace(key, hash, null, DELETED);
+  }
+
+  @Override
+  public boolean remove(Object key, Object value) {
+    if (key == null) {
+      throw new NullPointerException();
+    }
+    if (value == null) {
+      return false;
+    }
+    if (!isPrimitiveKey(key)) {
+      return this.otherKeys.remove(key, value);
+    }
+    int hash = hash(key.hashCode());
+    return segmentFor(hash).replace(key, hash, value, DELETED) != null;
+  }
+
+  @Override
+  public boolean replace(Object key, Object oldValue, Object newValue) {
+    if (key == null || oldValue == null || newValue == null) {
+      throw new NullPointerException();
+    }
+    if (!isPrimitiveKey(key)) {
+      return this.otherKeys.replace(key, oldValue, newValue);
+    }
+    int hash = hash(key.hashCode());
+    return segmentFor(hash).replace(key, hash, oldValue, newValue) != null;
+  }
+
+  @Override
+  public Object replace(Object key, Object value) {
+    if (key == null || value == null) {
+      throw new NullPointerException();
+    }
+    if (!isPrimitiveKey(key)) {
+      return this.otherKeys.replace(key, value);
+    }
+    int hash = hash(key.hashCode());
+    return segmentFor(hash).replace(key, hash, null, value);
+  }
+
+  @Override
+  public int size() {
+    long size = this.otherKeys.size();
+    for (Segment segment : this.segments) {
+      size += segment.count;
+    }
+    return size > Integer.MAX_VALUE ? Integer.MAX_VALUE : (int) size;
+  }
+
+  @Override
+  public boolean isEmpty() {
+    for (Segment segment : this.segments) {
+      if (segment.count != 0) {
+        return false;
+      }
+    }
+    return this.otherKeys.isEmpty();
+  }
+
+  @Override
+  public void clear() {
+    for (Segment segment : this.segments) {
+      segment.clear(this.initialSegmentCapacity);
+    }
+    this.otherKeys.clear();
+  }
+
+  @Override
+  public Set<Map.Entry<Object, Object>> entrySet() {
+    Set<Map.Entry<Object, Object>> es = this.entrySet;
+    return es != null ? es : (this.entrySet = new EntrySet(false));
+  }
+
+  @Override
+  public Set<Map.Entry<Object, Object>> entrySetWithReusableEntries() {
+    Set<Map.Entry<Object, Object>> es = this.reusableEntrySet;
+    return es != null ? es : (this.reusableEntrySet = new EntrySet(true));
+  }
+
+  /**
+   * The slots of a segment. A table is never resized in place; a bigger one is published instead,
+   * so a reader holding an older table still sees a consistent set of slots.
+   */
+  private static class Table {
+    /**
+     * Entry, {@link PrimitiveKeyRegionEntryMap#DELETED} or null for a never used slot.
+     */
+    final AtomicReferenceArray<Object> entries;
+
+    final int mask;
+
+    Table(int capacity) {
+      this.entries = new AtomicReferenceArray<>(capacity);
+      this.mask = capacity - 1;
+    }
+
+    int capacity() {
+      return this.mask + 1;
+    }
+  }
+
+  private static class Segment {
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private final float loadFactor;
+
+    volatile Table table;
+
+    /** Number of live entries. */
+    volatile int count;
+
+    /** Number of live and deleted slots, guarded by the segment lock. */
+    private int used;
+
+    private int threshold;
+
+    Segment(int capacity, float loadFactor) {
+      this.loadFactor = loadFactor;
+      setTable(new Table(capacity));
+    }
+
+    private void setTable(Table newTable) {
+      this.threshold = Math.min((int) (newTable.capacity() * this.loadFactor), newTable.mask);
+      this.table = newTable;
+    }
+
+    Object get(Object key, int hash) {
+      final Table t = this.table;
+      int i = hash & t.mask;
+      for (int probes = 0; probes <= t.mask; probes++) {
+        Object entry = t.entries.get(i);
+        if (entry == null) {
+          return null;
+        }
+        if (entry != DELETED && isKeyEqual(entry, key)) {
+          return entry;
+        }
+        i = (i + 1) & t.mask;
+      }
+      return null;
+    }
+
+    /** Returns the slot holding key or -1. Must be called with the lock held. */
+    private int indexOf(Table t, Object key, int hash) {
+      int i = hash & t.mask;
+      for (int probes = 0; probes <= t.mask; probes++) {
+        Object entry = t.entries.get(i);
+        if (entry == null) {
+          return -1;
+        }
+        if (entry != DELETED && isKeyEqual(entry, key)) {
+          return i;
+        }
+        i = (i + 1) & t.mask;
+      }
+      return -1;
+    }
+
+    Object put(Object key, int hash, Object value, boolean onlyIfAbsent) {
+      this.lock.lock();
+      try {
+        final Table t = this.table;
+        int free = -1;
+        int i = hash & t.mask;
+        for (int probes = 0; probes <= t.mask; probes++) {
+          Object entry = t.entries.get(i);
+          if (entry == null) {
+            if (free == -1) {
+              free = i;
+            }
+            break;
+          }
+          if (entry == DELETED) {
+            if (free == -1) {
+              free = i;
+            }
+          } else if (isKeyEqual(entry, key)) {
+            if (!onlyIfAbsent) {
+              t.entries.set(i, value);
+            }
+            return entry;
+          }
+          i = (i + 1) & t.mask;
+        }
+        boolean reusingDeletedSlot = t.entries.get(free) == DELETED;
+        t.entries.set(free, value);
+        this.count = this.count + 1;
+        if (!reusingDeletedSlot && ++this.used > this.threshold) {
+          rehash();
+        }
+        return null;
+      } finally {
+        this.lock.unlock();
+      }
+    }
+
+    /**
+     * Replaces the entry for key with newValue, or marks its slot deleted if newValue is
+     * {@link PrimitiveKeyRegionEntryMap#DELETED}. If expected is not null the entry must equal it.
+     * Returns the replaced entry or null if nothing was replaced.
+     */
+    Object replace(Object key, int hash, Object expected, Object newValue) {
+      this.lock.lock();
+      try {
+        final Table t = this.table;
+        int i = indexOf(t, key, hash);
+        if (i == -1) {
+          return null;
+        }
+        Object entry = t.entries.get(i);
+        if (expected != null && !expected.equals(entry)) {
+          return null;
+        }
+        t.entries.set(i, newValue);
+        if (newValue == DELETED) {
+          this.count = this.count - 1;
+        }
+        return entry;
+      } finally {
+        this.lock.unlock();
+      }
+    }
+
+    /**
+     * Copies the live entries into a new table, doubling it unless most of the used slots were
+     * deleted ones. Must be called with the lock held.
+     */
+    private void rehash() {
+      final Table oldTable = this.table;
+      int capacity = oldTable.capacity();
+      if (this.count >= this.used / 2 && capacity < MAXIMUM_SEGMENT_CAPACITY) {
+        capacity <<= 1;
+      }
+      Table newTable = new Table(capacity);
+      for (int i = 0; i <= oldTable.mask; i++) {
+        Object entry = oldTable.entries.get(i);
+        if (entry != null && entry != DELETED) {
+          int j = hash(keyHash(entry)) & newTable.mask;
+          while (newTable.entries.get(j) != null) {
+            j = (j + 1) & newTable.mask;
+          }
+          newTable.entries.set(j, entry);
+        }
+      }
+      this.used = this.count;
+      setTable(newTable);
+    }
+
+    void clear(int capacity) {
+      this.lock.lock();
+      try {
+        setTable(new Table(capacity));
+        this.used = 0;
+        this.count = 0;
+      } finally {
+        this.lock.unlock();
+      }
+    }
+  }
+
+  private static class Entry implements Map.Entry<Object, Object> {
+    private final PrimitiveKeyRegionEntryMap map;
+
+    Object key;
+
+    Object value;
+
+    Entry(PrimitiveKeyRegionEntryMap map) {
+      this.map = map;
+    }
+
+    @Override
+    public Object getKey() {
+      return this.key;
+    }
+
+    @Override
+    public Object getValue() {
+      return this.value;
+    }
+
+    @Override
+    public Object setValue(Object newValue) {
+      Object oldValue = this.value;
+      this.value = newValue;
+      this.map.put(this.key, newValue);
+      return oldValue;
+    }
+
+    @Override
+    public String toString() {
+      return this.key + "=" + this.value;
+    }
+  }
+
+  /**
+   * Weakly consistent iterator over the segments' tables followed by the keys of other classes.
+   */
+  private class EntryIterator implements Iterator<Map.Entry<Object, Object>> {
+    private final boolean reuseEntries;
+
+    private final Entry reusableEntry = new Entry(PrimitiveKeyRegionEntryMap.this);
+
+    private int segmentIndex = 0;
+
+    private Table table = segments[0].table;
+
+    private int slot = -1;
+
+    private Object nextEntry;
+
+    private Object lastKey;
+
+    private Object lastValue;
+
+    private Iterator<Map.Entry<Object, Object>> otherKeysIterator;
+
+    private boolean lastFromOtherKeys;
+
+    EntryIterator(boolean reuseEntries) {
+      this.reuseEntries = reuseEntries;
+      advance();
+    }
+
+    private void advance() {
+      this.nextEntry = null;
+      while (this.table != null) {
+        while (++this.slot <= this.table.mask) {
+          Object entry = this.table.entries.get(this.slot);
+          if (entry != null && entry != DELETED) {
+            this.nextEntry = entry;
+            return;
+          }
+        }
+        this.slot = -1;
+        this.segmentIndex++;
+        this.table = this.segmentIndex < segments.length ? segments[this.segmentIndex].table : null;
+      }
+      if (this.otherKeysIterator == null) {
+        this.otherKeysIterator = otherKeys.entrySet().iterator();
+      }
+    }
+
+    @Override
+    public boolean hasNext() {
+      return this.nextEntry != null || this.otherKeysIterator.hasNext();
+    }
+
+    @Override
+    public Map.Entry<Object, Object> next() {
+      if (this.nextEntry != null) {
+        this.lastFromOtherKeys = false;
+        this.lastValue = this.nextEntry;
+        this.lastKey = ((HashEntry<?, ?>) this.nextEntry).getKey();
+        advance();
+      } else if (this.otherKeysIterator.hasNext()) {
+        Map.Entry<Object, Object> other = this.otherKeysIterator.next();
+        this.lastFromOtherKeys = true;
+        this.lastKey = other.getKey();
+        this.lastValue = other.getValue();
+      } else {
+        throw new NoSuchElementException();
+      }
+      Entry result =
+          this.reuseEntries ? this.reusableEntry : new Entry(PrimitiveKeyRegionEntryMap.this);
+      result.key = this.lastKey;
+      result.value = this.lastValue;
+      return result;
+    }
+
+    @Override
+    public void remove() {
+      if (this.lastKey == null) {
+        throw new IllegalStateException();
+      }
+      if (this.lastFromOtherKeys) {
+        this.otherKeysIterator.remove();
+      } else {
+        PrimitiveKeyRegionEntryMap.this.remove(this.lastKey, this.lastValue);
+      }
+      this.lastKey = null;
+      this.lastValue = null;
+    }
+  }
+
+  private class EntrySet extends AbstractSet<Map.Entry<Object, Object>> {
+    private final boolean reuseEntries;
+
+    EntrySet(boolean reuseEntries) {
+      this.reuseEntries = reuseEntries;
+    }
+
+    @Override
+    public Iterator<Map.Entry<Object, Object>> iterator() {
+      return new EntryIterator(this.reuseEntries);
+    }
+
+    @Override
+    public boolean contains(Object o) {
+      if (!(o instanceof Map.Entry)) {
+        return false;
+      }
+      Map.Entry<?, ?> e = (Map.Entry<?, ?>) o;
+      Object v = PrimitiveKeyRegionEntryMap.this.get(e.getKey());
+      return v != null && v.equals(e.getValue());
+    }
+
+    @Override
+    public boolean remove(Object o) {
+      if (!(o instanceof Map.Entry)) {
+        return false;
+      }
+      Map.Entry<?, ?> e = (Map.Entry<?, ?>) o;
+      return PrimitiveKeyRegionEntryMap.this.remove(e.getKey(), e.getValue());
+    }
+
+    @Override
+    public int size() {
+      return PrimitiveKeyRegionEntryMap.this.size();
+    }
+
+    @Override
+    public void clear() {
+      PrimitiveKeyRegionEntryMap.this.clear();
+    }
+  }
+}
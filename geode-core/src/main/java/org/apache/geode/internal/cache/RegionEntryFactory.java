@@ -46,4 +46,20 @@ public interface RegionEntryFactory {
    * temporary region entries that shouldn't be stored off heap.
    */
   public RegionEntryFactory makeOnHeap();
+
+  /**
+   * Return the equivalent of this entry factory whose entries are stored in a
+   * {@link PrimitiveKeyRegionEntryMap}. Entries with inlined Integer, Long and String keys are
+   * created as {@link UnlinkedRegionEntry} instances that keep no fields for linking them into a
+   * CustomEntryConcurrentHashMap.
+   */
+  public RegionEntryFactory makeUnlinked();
+
+  /**
+   * Return the equivalent of this entry factory whose off-heap entries store keys that can not be
+   * inlined serialized in off-heap memory instead of referencing them from the heap. Keys that can
+   * not be serialized are still referenced from the heap. Factories of heap entries return
+   * themselves.
+   */
+  public RegionEntryFactory makeSerializedKeys();
 }
@@ -69,6 +69,12 @@ public interface RegionMap extends LRUMapCallbacks {
 
     /** whether LRU stats are required */
     // boolean lru = false;
+
+    /**
+     * the Integer, Long or String key class to use a {@link PrimitiveKeyRegionEntryMap} for, or
+     * null to use the default map
+     */
+    Class<?> primitiveKeyClass = null;
   }
 
   public RegionEntryFactory getEntryFactory();
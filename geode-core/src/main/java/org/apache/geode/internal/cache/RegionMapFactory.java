@@ -15,7 +15,7 @@
 
 package org.apache.geode.internal.cache;
 
-
+import org.apache.geode.distributed.internal.DistributionConfig;
 
 /**
  * Used to produce instances of RegionMap
@@ -25,6 +25,13 @@ package org.apache.geode.internal.cache;
  *
  */
 class RegionMapFactory {
+  /**
+   * If true, regions whose key constraint is Integer, Long or String keep their entries in a
+   * {@link PrimitiveKeyRegionEntryMap}.
+   */
+  static final boolean USE_PRIMITIVE_KEY_MAP =
+      Boolean.getBoolean(DistributionConfig.GEMFIRE_PREFIX + "RegionMap.USE_PRIMITIVE_KEY_MAP");
+
   /**
    * Creates a RegionMap that is stored in the VM.
    * 
@@ -38,7 +45,12 @@ class RegionMapFactory {
     if (owner.isProxy() /* || owner instanceof PartitionedRegion */) { // TODO enabling this causes
                                                                        // eviction tests to fail
       return new ProxyRegionMap(owner, attrs, internalRegionArgs);
-    } else if (owner.getEvictionController() != null) {
+    }
+    if (USE_PRIMITIVE_KEY_MAP
+        && PrimitiveKeyRegionEntryMap.isSupportedKeyClass(owner.getKeyConstraint())) {
+      attrs.primitiveKeyClass = owner.getKeyConstraint();
+    }
+    if (owner.getEvictionController() != null) {
       return new VMLRURegionMap(owner, attrs, internalRegionArgs);
     } else {
       return new VMRegionMap(owner, attrs, internalRegionArgs);
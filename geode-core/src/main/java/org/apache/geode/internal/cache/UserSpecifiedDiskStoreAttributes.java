@@ -40,7 +40,8 @@ public class UserSpecifiedDiskStoreAttributes extends DiskStoreAttributes {
   private boolean hasDiskDirSizes = false;
   private boolean hasDiskUsageWarningPercentage = false;
   private boolean hasDiskUsageCriticalPercentage = false;
-  private static final int HAS_COUNT = 11;
+  private boolean hasRecoveryParallelism = false;
+  private static final int HAS_COUNT = 12;
 
   public boolean hasAutoCompact() {
     return hasAutoCompact;
@@ -86,6 +87,10 @@ public class UserSpecifiedDiskStoreAttributes extends DiskStoreAttributes {
     return hasDiskUsageCriticalPercentage;
   }
 
+  public boolean hasRecoveryParallelism() {
+    return hasRecoveryParallelism;
+  }
+
   public void setHasAutoCompact(boolean hasAutoCompact) {
     this.hasAutoCompact = hasAutoCompact;
   }
@@ -130,6 +135,10 @@ public class UserSpecifiedDiskStoreAttributes extends DiskStoreAttributes {
     this.hasDiskUsageCriticalPercentage = true;
   }
 
+  public void setHasRecoveryParallelism(boolean hasRecoveryParallelism) {
+    this.hasRecoveryParallelism = hasRecoveryParallelism;
+  }
+
   public void setAllHasFields(boolean b) {
     int hasCounter = 0;
     Field thisFields[] = UserSpecifiedDiskStoreAttributes.class.getDeclaredFields();
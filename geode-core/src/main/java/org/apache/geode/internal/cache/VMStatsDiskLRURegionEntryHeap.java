@@ -23,19 +23,38 @@ public abstract class VMStatsDiskLRURegionEntryHeap extends VMStatsDiskLRURegion
   }
 
   private static final VMStatsDiskLRURegionEntryHeapFactory factory =
-      new VMStatsDiskLRURegionEntryHeapFactory();
+      new VMStatsDiskLRURegionEntryHeapFactory(false);
+
+  private static final VMStatsDiskLRURegionEntryHeapFactory unlinkedFactory =
+      new VMStatsDiskLRURegionEntryHeapFactory(true);
 
   public static RegionEntryFactory getEntryFactory() {
     return factory;
   }
 
   private static class VMStatsDiskLRURegionEntryHeapFactory implements RegionEntryFactory {
+    /**
+     * If true, entries with inlined Integer, Long and String keys are created without the fields
+     * that link them into a CustomEntryConcurrentHashMap.
+     */
+    private final boolean unlinked;
+
+    VMStatsDiskLRURegionEntryHeapFactory(boolean unlinked) {
+      this.unlinked = unlinked;
+    }
+
     public RegionEntry createEntry(RegionEntryContext context, Object key, Object value) {
       if (InlineKeyHelper.INLINE_REGION_KEYS) {
         Class<?> keyClass = key.getClass();
         if (keyClass == Integer.class) {
+          if (this.unlinked) {
+            return new VMStatsDiskLRURegionEntryHeapIntKeyUnlinked(context, (Integer) key, value);
+          }
           return new VMStatsDiskLRURegionEntryHeapIntKey(context, (Integer) key, value);
         } else if (keyClass == Long.class) {
+          if (this.unlinked) {
+            return new VMStatsDiskLRURegionEntryHeapLongKeyUnlinked(context, (Long) key, value);
+          }
           return new VMStatsDiskLRURegionEntryHeapLongKey(context, (Long) key, value);
         } else if (keyClass == String.class) {
           final String skey = (String) key;
@@ -43,8 +62,16 @@ public abstract class VMStatsDiskLRURegionEntryHeap extends VMStatsDiskLRURegion
           if (info != null) {
             final boolean byteEncoded = info;
             if (skey.length() <= InlineKeyHelper.getMaxInlineStringKey(1, byteEncoded)) {
+              if (this.unlinked) {
+                return new VMStatsDiskLRURegionEntryHeapStringKey1Unlinked(context, skey, value,
+                    byteEncoded);
+              }
               return new VMStatsDiskLRURegionEntryHeapStringKey1(context, skey, value, byteEncoded);
             } else {
+              if (this.unlinked) {
+                return new VMStatsDiskLRURegionEntryHeapStringKey2Unlinked(context, skey, value,
+                    byteEncoded);
+              }
               return new VMStatsDiskLRURegionEntryHeapStringKey2(context, skey, value, byteEncoded);
             }
           }
@@ -62,12 +89,23 @@ public abstract class VMStatsDiskLRURegionEntryHeap extends VMStatsDiskLRURegion
     }
 
     public RegionEntryFactory makeVersioned() {
-      return VersionedStatsDiskLRURegionEntryHeap.getEntryFactory();
+      RegionEntryFactory versioned = VersionedStatsDiskLRURegionEntryHeap.getEntryFactory();
+      return this.unlinked ? versioned.makeUnlinked() : versioned;
     }
 
     @Override
     public RegionEntryFactory makeOnHeap() {
       return this;
     }
+
+    @Override
+    public RegionEntryFactory makeUnlinked() {
+      return unlinkedFactory;
+    }
+
+    @Override
+    public RegionEntryFactory makeSerializedKeys() {
+      return this;
+    }
   }
 }
@@ -39,6 +39,7 @@ import org.apache.geode.internal.util.concurrent.CustomEntryConcurrentHashMap.Ha
 // stats: 1
 // versioned: VERSIONED
 // offheap: OFFHEAP
+// unlinked: UNLINKED
 // One of the following key macros must be defined:
 // key object: KEY_OBJECT
 // key int: KEY_INT
@@ -46,6 +47,7 @@ import org.apache.geode.internal.util.concurrent.CustomEntryConcurrentHashMap.Ha
 // key uuid: KEY_UUID
 // key string1: KEY_STRING1
 // key string2: KEY_STRING2
+// key serialized: KEY_SERIALIZED
 
 /**
  * Do not modify this class. It was generated. Instead modify LeafRegionEntry.cpp and then run
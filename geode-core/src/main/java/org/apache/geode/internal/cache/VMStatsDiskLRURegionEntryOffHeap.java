@@ -16,6 +16,8 @@ package org.apache.geode.internal.cache;
 
 import java.util.UUID;
 
+import org.apache.geode.internal.offheap.OffHeapRegionEntryHelper;
+
 public abstract class VMStatsDiskLRURegionEntryOffHeap extends VMStatsDiskLRURegionEntry
     implements OffHeapRegionEntry {
 
@@ -24,19 +26,48 @@ public abstract class VMStatsDiskLRURegionEntryOffHeap extends VMStatsDiskLRUReg
   }
 
   private static final VMStatsDiskLRURegionEntryOffHeapFactory factory =
-      new VMStatsDiskLRURegionEntryOffHeapFactory();
+      new VMStatsDiskLRURegionEntryOffHeapFactory(false, false);
+
+  private static final VMStatsDiskLRURegionEntryOffHeapFactory unlinkedFactory =
+      new VMStatsDiskLRURegionEntryOffHeapFactory(true, false);
+
+  private static final VMStatsDiskLRURegionEntryOffHeapFactory serializedKeyFactory =
+      new VMStatsDiskLRURegionEntryOffHeapFactory(false, true);
 
   public static RegionEntryFactory getEntryFactory() {
     return factory;
   }
 
   private static class VMStatsDiskLRURegionEntryOffHeapFactory implements RegionEntryFactory {
+    /**
+     * If true, entries with inlined Integer, Long and String keys are created without the fields
+     * that link them into a CustomEntryConcurrentHashMap.
+     */
+    private final boolean unlinked;
+
+    /**
+     * If true, entries whose keys can not be inlined store their key serialized off heap.
+     */
+    private final boolean serializedKeys;
+
+    VMStatsDiskLRURegionEntryOffHeapFactory(boolean unlinked, boolean serializedKeys) {
+      this.unlinked = unlinked;
+      this.serializedKeys = serializedKeys;
+    }
+
     public RegionEntry createEntry(RegionEntryContext context, Object key, Object value) {
       if (InlineKeyHelper.INLINE_REGION_KEYS) {
         Class<?> keyClass = key.getClass();
         if (keyClass == Integer.class) {
+          if (this.unlinked) {
+            return new VMStatsDiskLRURegionEntryOffHeapIntKeyUnlinked(context, (Integer) key,
+                value);
+          }
           return new VMStatsDiskLRURegionEntryOffHeapIntKey(context, (Integer) key, value);
         } else if (keyClass == Long.class) {
+          if (this.unlinked) {
+            return new VMStatsDiskLRURegionEntryOffHeapLongKeyUnlinked(context, (Long) key, value);
+          }
           return new VMStatsDiskLRURegionEntryOffHeapLongKey(context, (Long) key, value);
         } else if (keyClass == String.class) {
           final String skey = (String) key;
@@ -44,9 +75,17 @@ public abstract class VMStatsDiskLRURegionEntryOffHeap extends VMStatsDiskLRUReg
           if (info != null) {
             final boolean byteEncoded = info;
             if (skey.length() <= InlineKeyHelper.getMaxInlineStringKey(1, byteEncoded)) {
+              if (this.unlinked) {
+                return new VMStatsDiskLRURegionEntryOffHeapStringKey1Unlinked(context, skey, value,
+                    byteEncoded);
+              }
               return new VMStatsDiskLRURegionEntryOffHeapStringKey1(context, skey, value,
                   byteEncoded);
             } else {
+              if (this.unlinked) {
+                return new VMStatsDiskLRURegionEntryOffHeapStringKey2Unlinked(context, skey, value,
+                    byteEncoded);
+              }
               return new VMStatsDiskLRURegionEntryOffHeapStringKey2(context, skey, value,
                   byteEncoded);
             }
@@ -55,6 +94,12 @@ public abstract class VMStatsDiskLRURegionEntryOffHeap extends VMStatsDiskLRUReg
           return new VMStatsDiskLRURegionEntryOffHeapUUIDKey(context, (UUID) key, value);
         }
       }
+      if (this.serializedKeys) {
+        long keyAddress = OffHeapRegionEntryHelper.serializeKey(key);
+        if (keyAddress != 0L) {
+          return new VMStatsDiskLRURegionEntryOffHeapSerializedKey(context, keyAddress, value);
+        }
+      }
       return new VMStatsDiskLRURegionEntryOffHeapObjectKey(context, key, value);
     }
 
@@ -65,12 +110,28 @@ public abstract class VMStatsDiskLRURegionEntryOffHeap extends VMStatsDiskLRUReg
     }
 
     public RegionEntryFactory makeVersioned() {
-      return VersionedStatsDiskLRURegionEntryOffHeap.getEntryFactory();
+      RegionEntryFactory versioned = VersionedStatsDiskLRURegionEntryOffHeap.getEntryFactory();
+      if (this.serializedKeys) {
+        return versioned.makeSerializedKeys();
+      }
+      return this.unlinked ? versioned.makeUnlinked() : versioned;
     }
 
     @Override
     public RegionEntryFactory makeOnHeap() {
-      return VMStatsDiskLRURegionEntryHeap.getEntryFactory();
+      RegionEntryFactory onHeap = VMStatsDiskLRURegionEntryHeap.getEntryFactory();
+      return this.unlinked ? onHeap.makeUnlinked() : onHeap;
+    }
+
+    @Override
+    public RegionEntryFactory makeUnlinked() {
+      return unlinkedFactory;
+    }
+
+    @Override
+    public RegionEntryFactory makeSerializedKeys() {
+      // a map of primitive keys has no keys to serialize
+      return this.unlinked ? this : serializedKeyFactory;
     }
   }
 }
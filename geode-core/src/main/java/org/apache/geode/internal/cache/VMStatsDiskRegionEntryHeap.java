@@ -23,19 +23,38 @@ public abstract class VMStatsDiskRegionEntryHeap extends VMStatsDiskRegionEntry
   }
 
   private static final VMStatsDiskRegionEntryHeapFactory factory =
-      new VMStatsDiskRegionEntryHeapFactory();
+      new VMStatsDiskRegionEntryHeapFactory(false);
+
+  private static final VMStatsDiskRegionEntryHeapFactory unlinkedFactory =
+      new VMStatsDiskRegionEntryHeapFactory(true);
 
   public static RegionEntryFactory getEntryFactory() {
     return factory;
   }
 
   private static class VMStatsDiskRegionEntryHeapFactory implements RegionEntryFactory {
+    /**
+     * If true, entries with inlined Integer, Long and String keys are created without the fields
+     * that link them into a CustomEntryConcurrentHashMap.
+     */
+    private final boolean unlinked;
+
+    VMStatsDiskRegionEntryHeapFactory(boolean unlinked) {
+      this.unlinked = unlinked;
+    }
+
     public RegionEntry createEntry(RegionEntryContext context, Object key, Object value) {
       if (InlineKeyHelper.INLINE_REGION_KEYS) {
         Class<?> keyClass = key.getClass();
         if (keyClass == Integer.class) {
+          if (this.unlinked) {
+            return new VMStatsDiskRegionEntryHeapIntKeyUnlinked(context, (Integer) key, value);
+          }
           return new VMStatsDiskRegionEntryHeapIntKey(context, (Integer) key, value);
         } else if (keyClass == Long.class) {
+          if (this.unlinked) {
+            return new VMStatsDiskRegionEntryHeapLongKeyUnlinked(context, (Long) key, value);
+          }
           return new VMStatsDiskRegionEntryHeapLongKey(context, (Long) key, value);
         } else if (keyClass == String.class) {
           final String skey = (String) key;
@@ -43,8 +62,16 @@ public abstract class VMStatsDiskRegionEntryHeap extends VMStatsDiskRegionEntry
           if (info != null) {
             final boolean byteEncoded = info;
             if (skey.length() <= InlineKeyHelper.getMaxInlineStringKey(1, byteEncoded)) {
+              if (this.unlinked) {
+                return new VMStatsDiskRegionEntryHeapStringKey1Unlinked(context, skey, value,
+                    byteEncoded);
+              }
               return new VMStatsDiskRegionEntryHeapStringKey1(context, skey, value, byteEncoded);
             } else {
+              if (this.unlinked) {
+                return new VMStatsDiskRegionEntryHeapStringKey2Unlinked(context, skey, value,
+                    byteEncoded);
+              }
               return new VMStatsDiskRegionEntryHeapStringKey2(context, skey, value, byteEncoded);
             }
           }
@@ -62,12 +89,23 @@ public abstract class VMStatsDiskRegionEntryHeap extends VMStatsDiskRegionEntry
     }
 
     public RegionEntryFactory makeVersioned() {
-      return VersionedStatsDiskRegionEntryHeap.getEntryFactory();
+      RegionEntryFactory versioned = VersionedStatsDiskRegionEntryHeap.getEntryFactory();
+      return this.unlinked ? versioned.makeUnlinked() : versioned;
     }
 
     @Override
     public RegionEntryFactory makeOnHeap() {
       return this;
     }
+
+    @Override
+    public RegionEntryFactory makeUnlinked() {
+      return unlinkedFactory;
+    }
+
+    @Override
+    public RegionEntryFactory makeSerializedKeys() {
+      return this;
+    }
   }
 }
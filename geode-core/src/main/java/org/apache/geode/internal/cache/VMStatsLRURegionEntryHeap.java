@@ -23,19 +23,38 @@ public abstract class VMStatsLRURegionEntryHeap extends VMStatsLRURegionEntry {
   }
 
   private static final VMStatsLRURegionEntryHeapFactory factory =
-      new VMStatsLRURegionEntryHeapFactory();
+      new VMStatsLRURegionEntryHeapFactory(false);
+
+  private static final VMStatsLRURegionEntryHeapFactory unlinkedFactory =
+      new VMStatsLRURegionEntryHeapFactory(true);
 
   public static RegionEntryFactory getEntryFactory() {
     return factory;
   }
 
   private static class VMStatsLRURegionEntryHeapFactory implements RegionEntryFactory {
+    /**
+     * If true, entries with inlined Integer, Long and String keys are created without the fields
+     * that link them into a CustomEntryConcurrentHashMap.
+     */
+    private final boolean unlinked;
+
+    VMStatsLRURegionEntryHeapFactory(boolean unlinked) {
+      this.unlinked = unlinked;
+    }
+
     public RegionEntry createEntry(RegionEntryContext context, Object key, Object value) {
       if (InlineKeyHelper.INLINE_REGION_KEYS) {
         Class<?> keyClass = key.getClass();
         if (keyClass == Integer.class) {
+          if (this.unlinked) {
+            return new VMStatsLRURegionEntryHeapIntKeyUnlinked(context, (Integer) key, value);
+          }
           return new VMStatsLRURegionEntryHeapIntKey(context, (Integer) key, value);
         } else if (keyClass == Long.class) {
+          if (this.unlinked) {
+            return new VMStatsLRURegionEntryHeapLongKeyUnlinked(context, (Long) key, value);
+          }
           return new VMStatsLRURegionEntryHeapLongKey(context, (Long) key, value);
         } else if (keyClass == String.class) {
           final String skey = (String) key;
@@ -43,8 +62,16 @@ public abstract class VMStatsLRURegionEntryHeap extends VMStatsLRURegionEntry {
           if (info != null) {
             final boolean byteEncoded = info;
             if (skey.length() <= InlineKeyHelper.getMaxInlineStringKey(1, byteEncoded)) {
+              if (this.unlinked) {
+                return new VMStatsLRURegionEntryHeapStringKey1Unlinked(context, skey, value,
+                    byteEncoded);
+              }
               return new VMStatsLRURegionEntryHeapStringKey1(context, skey, value, byteEncoded);
             } else {
+              if (this.unlinked) {
+                return new VMStatsLRURegionEntryHeapStringKey2Unlinked(context, skey, value,
+                    byteEncoded);
+              }
               return new VMStatsLRURegionEntryHeapStringKey2(context, skey, value, byteEncoded);
             }
           }
@@ -62,12 +89,23 @@ public abstract class VMStatsLRURegionEntryHeap extends VMStatsLRURegionEntry {
     }
 
     public RegionEntryFactory makeVersioned() {
-      return VersionedStatsLRURegionEntryHeap.getEntryFactory();
+      RegionEntryFactory versioned = VersionedStatsLRURegionEntryHeap.getEntryFactory();
+      return this.unlinked ? versioned.makeUnlinked() : versioned;
     }
 
     @Override
     public RegionEntryFactory makeOnHeap() {
       return this;
     }
+
+    @Override
+    public RegionEntryFactory makeUnlinked() {
+      return unlinkedFactory;
+    }
+
+    @Override
+    public RegionEntryFactory makeSerializedKeys() {
+      return this;
+    }
   }
 }
@@ -22,19 +22,39 @@ public abstract class VMStatsRegionEntryHeap extends VMStatsRegionEntry {
     super(context, value);
   }
 
-  private static final VMStatsRegionEntryHeapFactory factory = new VMStatsRegionEntryHeapFactory();
+  private static final VMStatsRegionEntryHeapFactory factory =
+      new VMStatsRegionEntryHeapFactory(false);
+
+  private static final VMStatsRegionEntryHeapFactory unlinkedFactory =
+      new VMStatsRegionEntryHeapFactory(true);
 
   public static RegionEntryFactory getEntryFactory() {
     return factory;
   }
 
   private static class VMStatsRegionEntryHeapFactory implements RegionEntryFactory {
+    /**
+     * If true, entries with inlined Integer, Long and String keys are created without the fields
+     * that link them into a CustomEntryConcurrentHashMap.
+     */
+    private final boolean unlinked;
+
+    VMStatsRegionEntryHeapFactory(boolean unlinked) {
+      this.unlinked = unlinked;
+    }
+
     public RegionEntry createEntry(RegionEntryContext context, Object key, Object value) {
       if (InlineKeyHelper.INLINE_REGION_KEYS) {
         Class<?> keyClass = key.getClass();
         if (keyClass == Integer.class) {
+          if (this.unlinked) {
+            return new VMStatsRegionEntryHeapIntKeyUnlinked(context, (Integer) key, value);
+          }
           return new VMStatsRegionEntryHeapIntKey(context, (Integer) key, value);
         } else if (keyClass == Long.class) {
+          if (this.unlinked) {
+            return new VMStatsRegionEntryHeapLongKeyUnlinked(context, (Long) key, value);
+          }
           return new VMStatsRegionEntryHeapLongKey(context, (Long) key, value);
         } else if (keyClass == String.class) {
           final String skey = (String) key;
@@ -42,8 +62,16 @@ public abstract class VMStatsRegionEntryHeap extends VMStatsRegionEntry {
           if (info != null) {
             final boolean byteEncoded = info;
             if (skey.length() <= InlineKeyHelper.getMaxInlineStringKey(1, byteEncoded)) {
+              if (this.unlinked) {
+                return new VMStatsRegionEntryHeapStringKey1Unlinked(context, skey, value,
+                    byteEncoded);
+              }
               return new VMStatsRegionEntryHeapStringKey1(context, skey, value, byteEncoded);
             } else {
+              if (this.unlinked) {
+                return new VMStatsRegionEntryHeapStringKey2Unlinked(context, skey, value,
+                    byteEncoded);
+              }
               return new VMStatsRegionEntryHeapStringKey2(context, skey, value, byteEncoded);
             }
           }
@@ -61,12 +89,23 @@ public abstract class VMStatsRegionEntryHeap extends VMStatsRegionEntry {
     }
 
     public RegionEntryFactory makeVersioned() {
-      return VersionedStatsRegionEntryHeap.getEntryFactory();
+      RegionEntryFactory versioned = VersionedStatsRegionEntryHeap.getEntryFactory();
+      return this.unlinked ? versioned.makeUnlinked() : versioned;
     }
 
     @Override
     public RegionEntryFactory makeOnHeap() {
       return this;
     }
+
+    @Override
+    public RegionEntryFactory makeUnlinked() {
+      return unlinkedFactory;
+    }
+
+    @Override
+    public RegionEntryFactory makeSerializedKeys() {
+      return this;
+    }
   }
 }
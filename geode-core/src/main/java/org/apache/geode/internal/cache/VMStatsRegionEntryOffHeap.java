@@ -16,6 +16,8 @@ package org.apache.geode.internal.cache;
 
 import java.util.UUID;
 
+import org.apache.geode.internal.offheap.OffHeapRegionEntryHelper;
+
 public abstract class VMStatsRegionEntryOffHeap extends VMStatsRegionEntry
     implements OffHeapRegionEntry {
 
@@ -24,19 +26,47 @@ public abstract class VMStatsRegionEntryOffHeap extends VMStatsRegionEntry
   }
 
   private static final VMStatsRegionEntryOffHeapFactory factory =
-      new VMStatsRegionEntryOffHeapFactory();
+      new VMStatsRegionEntryOffHeapFactory(false, false);
+
+  private static final VMStatsRegionEntryOffHeapFactory unlinkedFactory =
+      new VMStatsRegionEntryOffHeapFactory(true, false);
+
+  private static final VMStatsRegionEntryOffHeapFactory serializedKeyFactory =
+      new VMStatsRegionEntryOffHeapFactory(false, true);
 
   public static RegionEntryFactory getEntryFactory() {
     return factory;
   }
 
   private static class VMStatsRegionEntryOffHeapFactory implements RegionEntryFactory {
+    /**
+     * If true, entries with inlined Integer, Long and String keys are created without the fields
+     * that link them into a CustomEntryConcurrentHashMap.
+     */
+    private final boolean unlinked;
+
+    /**
+     * If true, entries whose keys can not be inlined store their key serialized off heap.
+     */
+    private final boolean serializedKeys;
+
+    VMStatsRegionEntryOffHeapFactory(boolean unlinked, boolean serializedKeys) {
+      this.unlinked = unlinked;
+      this.serializedKeys = serializedKeys;
+    }
+
     public RegionEntry createEntry(RegionEntryContext context, Object key, Object value) {
       if (InlineKeyHelper.INLINE_REGION_KEYS) {
         Class<?> keyClass = key.getClass();
         if (keyClass == Integer.class) {
+          if (this.unlinked) {
+            return new VMStatsRegionEntryOffHeapIntKeyUnlinked(context, (Integer) key, value);
+          }
           return new VMStatsRegionEntryOffHeapIntKey(context, (Integer) key, value);
         } else if (keyClass == Long.class) {
+          if (this.unlinked) {
+            return new VMStatsRegionEntryOffHeapLongKeyUnlinked(context, (Long) key, value);
+          }
           return new VMStatsRegionEntryOffHeapLongKey(context, (Long) key, value);
         } else if (keyClass == String.class) {
           final String skey = (String) key;
@@ -44,8 +74,16 @@ public abstract class VMStatsRegionEntryOffHeap extends VMStatsRegionEntry
           if (info != null) {
             final boolean byteEncoded = info;
             if (skey.length() <= InlineKeyHelper.getMaxInlineStringKey(1, byteEncoded)) {
+              if (this.unlinked) {
+                return new VMStatsRegionEntryOffHeapStringKey1Unlinked(context, skey, value,
+                    byteEncoded);
+              }
               return new VMStatsRegionEntryOffHeapStringKey1(context, skey, value, byteEncoded);
             } else {
+              if (this.unlinked) {
+                return new VMStatsRegionEntryOffHeapStringKey2Unlinked(context, skey, value,
+                    byteEncoded);
+              }
               return new VMStatsRegionEntryOffHeapStringKey2(context, skey, value, byteEncoded);
             }
           }
@@ -53,6 +91,12 @@ public abstract class VMStatsRegionEntryOffHeap extends VMStatsRegionEntry
           return new VMStatsRegionEntryOffHeapUUIDKey(context, (UUID) key, value);
         }
       }
+      if (this.serializedKeys) {
+        long keyAddress = OffHeapRegionEntryHelper.serializeKey(key);
+        if (keyAddress != 0L) {
+          return new VMStatsRegionEntryOffHeapSerializedKey(context, keyAddress, value);
+        }
+      }
       return new VMStatsRegionEntryOffHeapObjectKey(context, key, value);
     }
 
@@ -63,12 +107,28 @@ public abstract class VMStatsRegionEntryOffHeap extends VMStatsRegionEntry
     }
 
     public RegionEntryFactory makeVersioned() {
-      return VersionedStatsRegionEntryOffHeap.getEntryFactory();
+      RegionEntryFactory versioned = VersionedStatsRegionEntryOffHeap.getEntryFactory();
+      if (this.serializedKeys) {
+        return versioned.makeSerializedKeys();
+      }
+      return this.unlinked ? versioned.makeUnlinked() : versioned;
     }
 
     @Override
     public RegionEntryFactory makeOnHeap() {
-      return VMStatsRegionEntryHeap.getEntryFactory();
+      RegionEntryFactory onHeap = VMStatsRegionEntryHeap.getEntryFactory();
+      return this.unlinked ? onHeap.makeUnlinked() : onHeap;
+    }
+
+    @Override
+    public RegionEntryFactory makeUnlinked() {
+      return unlinkedFactory;
+    }
+
+    @Override
+    public RegionEntryFactory makeSerializedKeys() {
+      // a map of primitive keys has no keys to serialize
+      return this.unlinked ? this : serializedKeyFactory;
     }
   }
 }
@@ -23,19 +23,38 @@ public abstract class VMThinDiskLRURegionEntryHeap extends VMThinDiskLRURegionEn
   }
 
   private static final VMThinDiskLRURegionEntryHeapFactory factory =
-      new VMThinDiskLRURegionEntryHeapFactory();
+      new VMThinDiskLRURegionEntryHeapFactory(false);
+
+  private static final VMThinDiskLRURegionEntryHeapFactory unlinkedFactory =
+      new VMThinDiskLRURegionEntryHeapFactory(true);
 
   public static RegionEntryFactory getEntryFactory() {
     return factory;
   }
 
   private static class VMThinDiskLRURegionEntryHeapFactory implements RegionEntryFactory {
+    /**
+     * If true, entries with inlined Integer, Long and String keys are created without the fields
+     * that link them into a CustomEntryConcurrentHashMap.
+     */
+    private final boolean unlinked;
+
+    VMThinDiskLRURegionEntryHeapFactory(boolean unlinked) {
+      this.unlinked = unlinked;
+    }
+
     public RegionEntry createEntry(RegionEntryContext context, Object key, Object value) {
       if (InlineKeyHelper.INLINE_REGION_KEYS) {
         Class<?> keyClass = key.getClass();
         if (keyClass == Integer.class) {
+          if (this.unlinked) {
+            return new VMThinDiskLRURegionEntryHeapIntKeyUnlinked(context, (Integer) key, value);
+          }
           return new VMThinDiskLRURegionEntryHeapIntKey(context, (Integer) key, value);
         } else if (keyClass == Long.class) {
+          if (this.unlinked) {
+            return new VMThinDiskLRURegionEntryHeapLongKeyUnlinked(context, (Long) key, value);
+          }
           return new VMThinDiskLRURegionEntryHeapLongKey(context, (Long) key, value);
         } else if (keyClass == String.class) {
           final String skey = (String) key;
@@ -43,8 +62,16 @@ public abstract class VMThinDiskLRURegionEntryHeap extends VMThinDiskLRURegionEn
           if (info != null) {
             final boolean byteEncoded = info;
             if (skey.length() <= InlineKeyHelper.getMaxInlineStringKey(1, byteEncoded)) {
+              if (this.unlinked) {
+                return new VMThinDiskLRURegionEntryHeapStringKey1Unlinked(context, skey, value,
+                    byteEncoded);
+              }
               return new VMThinDiskLRURegionEntryHeapStringKey1(context, skey, value, byteEncoded);
             } else {
+              if (this.unlinked) {
+                return new VMThinDiskLRURegionEntryHeapStringKey2Unlinked(context, skey, value,
+                    byteEncoded);
+              }
               return new VMThinDiskLRURegionEntryHeapStringKey2(context, skey, value, byteEncoded);
             }
           }
@@ -62,12 +89,23 @@ public abstract class VMThinDiskLRURegionEntryHeap extends VMThinDiskLRURegionEn
     }
 
     public RegionEntryFactory makeVersioned() {
-      return VersionedThinDiskLRURegionEntryHeap.getEntryFactory();
+      RegionEntryFactory versioned = VersionedThinDiskLRURegionEntryHeap.getEntryFactory();
+      return this.unlinked ? versioned.makeUnlinked() : versioned;
     }
 
     @Override
     public RegionEntryFactory makeOnHeap() {
       return this;
     }
+
+    @Override
+    public RegionEntryFactory makeUnlinked() {
+      return unlinkedFactory;
+    }
+
+    @Override
+    public RegionEntryFactory makeSerializedKeys() {
+      return this;
+    }
   }
 }
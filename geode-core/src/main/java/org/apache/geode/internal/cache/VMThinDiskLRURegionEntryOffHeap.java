@@ -16,6 +16,8 @@ package org.apache.geode.internal.cache;
 
 import java.util.UUID;
 
+import org.apache.geode.internal.offheap.OffHeapRegionEntryHelper;
+
 public abstract class VMThinDiskLRURegionEntryOffHeap extends VMThinDiskLRURegionEntry
     implements OffHeapRegionEntry {
 
@@ -24,19 +26,47 @@ public abstract class VMThinDiskLRURegionEntryOffHeap extends VMThinDiskLRURegio
   }
 
   private static final VMThinDiskLRURegionEntryOffHeapFactory factory =
-      new VMThinDiskLRURegionEntryOffHeapFactory();
+      new VMThinDiskLRURegionEntryOffHeapFactory(false, false);
+
+  private static final VMThinDiskLRURegionEntryOffHeapFactory unlinkedFactory =
+      new VMThinDiskLRURegionEntryOffHeapFactory(true, false);
+
+  private static final VMThinDiskLRURegionEntryOffHeapFactory serializedKeyFactory =
+      new VMThinDiskLRURegionEntryOffHeapFactory(false, true);
 
   public static RegionEntryFactory getEntryFactory() {
     return factory;
   }
 
   private static class VMThinDiskLRURegionEntryOffHeapFactory implements RegionEntryFactory {
+    /**
+     * If true, entries with inlined Integer, Long and String keys are created without the fields
+     * that link them into a CustomEntryConcurrentHashMap.
+     */
+    private final boolean unlinked;
+
+    /**
+     * If true, entries whose keys can not be inlined store their key serialized off heap.
+     */
+    private final boolean serializedKeys;
+
+    VMThinDiskLRURegionEntryOffHeapFactory(boolean unlinked, boolean serializedKeys) {
+      this.unlinked = unlinked;
+      this.serializedKeys = serializedKeys;
+    }
+
     public RegionEntry createEntry(RegionEntryContext context, Object key, Object value) {
       if (InlineKeyHelper.INLINE_REGION_KEYS) {
         Class<?> keyClass = key.getClass();
         if (keyClass == Integer.class) {
+          if (this.unlinked) {
+            return new VMThinDiskLRURegionEntryOffHeapIntKeyUnlinked(context, (Integer) key, value);
+          }
           return new VMThinDiskLRURegionEntryOffHeapIntKey(context, (Integer) key, value);
         } else if (keyClass == Long.class) {
+          if (this.unlinked) {
+            return new VMThinDiskLRURegionEntryOffHeapLongKeyUnlinked(context, (Long) key, value);
+          }
           return new VMThinDiskLRURegionEntryOffHeapLongKey(context, (Long) key, value);
         } else if (keyClass == String.class) {
           final String skey = (String) key;
@@ -44,9 +74,17 @@ public abstract class VMThinDiskLRURegionEntryOffHeap extends VMThinDiskLRURegio
           if (info != null) {
             final boolean byteEncoded = info;
             if (skey.length() <= InlineKeyHelper.getMaxInlineStringKey(1, byteEncoded)) {
+              if (this.unlinked) {
+                return new VMThinDiskLRURegionEntryOffHeapStringKey1Unlinked(context, skey, value,
+                    byteEncoded);
+              }
               return new VMThinDiskLRURegionEntryOffHeapStringKey1(context, skey, value,
                   byteEncoded);
             } else {
+              if (this.unlinked) {
+                return new VMThinDiskLRURegionEntryOffHeapStringKey2Unlinked(context, skey, value,
+                    byteEncoded);
+              }
               return new VMThinDiskLRURegionEntryOffHeapStringKey2(context, skey, value,
                   byteEncoded);
             }
@@ -55,6 +93,12 @@ public abstract class VMThinDiskLRURegionEntryOffHeap extends VMThinDiskLRURegio
           return new VMThinDiskLRURegionEntryOffHeapUUIDKey(context, (UUID) key, value);
         }
       }
+      if (this.serializedKeys) {
+        long keyAddress = OffHeapRegionEntryHelper.serializeKey(key);
+        if (keyAddress != 0L) {
+          return new VMThinDiskLRURegionEntryOffHeapSerializedKey(context, keyAddress, value);
+        }
+      }
       return new VMThinDiskLRURegionEntryOffHeapObjectKey(context, key, value);
     }
 
@@ -65,12 +109,28 @@ public abstract class VMThinDiskLRURegionEntryOffHeap extends VMThinDiskLRURegio
     }
 
     public RegionEntryFactory makeVersioned() {
-      return VersionedThinDiskLRURegionEntryOffHeap.getEntryFactory();
+      RegionEntryFactory versioned = VersionedThinDiskLRURegionEntryOffHeap.getEntryFactory();
+      if (this.serializedKeys) {
+        return versioned.makeSerializedKeys();
+      }
+      return this.unlinked ? versioned.makeUnlinked() : versioned;
     }
 
     @Override
     public RegionEntryFactory makeOnHeap() {
-      return VMThinDiskLRURegionEntryHeap.getEntryFactory();
+      RegionEntryFactory onHeap = VMThinDiskLRURegionEntryHeap.getEntryFactory();
+      return this.unlinked ? onHeap.makeUnlinked() : onHeap;
+    }
+
+    @Override
+    public RegionEntryFactory makeUnlinked() {
+      return unlinkedFactory;
+    }
+
+    @Override
+    public RegionEntryFactory makeSerializedKeys() {
+      // a map of primitive keys has no keys to serialize
+      return this.unlinked ? this : serializedKeyFactory;
     }
   }
 }
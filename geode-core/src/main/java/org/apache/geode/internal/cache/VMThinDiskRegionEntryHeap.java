@@ -23,19 +23,38 @@ public abstract class VMThinDiskRegionEntryHeap extends VMThinDiskRegionEntry {
   }
 
   private static final VMThinDiskRegionEntryHeapFactory factory =
-      new VMThinDiskRegionEntryHeapFactory();
+      new VMThinDiskRegionEntryHeapFactory(false);
+
+  private static final VMThinDiskRegionEntryHeapFactory unlinkedFactory =
+      new VMThinDiskRegionEntryHeapFactory(true);
 
   public static RegionEntryFactory getEntryFactory() {
     return factory;
   }
 
   private static class VMThinDiskRegionEntryHeapFactory implements RegionEntryFactory {
+    /**
+     * If true, entries with inlined Integer, Long and String keys are created without the fields
+     * that link them into a CustomEntryConcurrentHashMap.
+     */
+    private final boolean unlinked;
+
+    VMThinDiskRegionEntryHeapFactory(boolean unlinked) {
+      this.unlinked = unlinked;
+    }
+
     public RegionEntry createEntry(RegionEntryContext context, Object key, Object value) {
       if (InlineKeyHelper.INLINE_REGION_KEYS) {
         Class<?> keyClass = key.getClass();
         if (keyClass == Integer.class) {
+          if (this.unlinked) {
+            return new VMThinDiskRegionEntryHeapIntKeyUnlinked(context, (Integer) key, value);
+          }
           return new VMThinDiskRegionEntryHeapIntKey(context, (Integer) key, value);
         } else if (keyClass == Long.class) {
+          if (this.unlinked) {
+            return new VMThinDiskRegionEntryHeapLongKeyUnlinked(context, (Long) key, value);
+          }
           return new VMThinDiskRegionEntryHeapLongKey(context, (Long) key, value);
         } else if (keyClass == String.class) {
           final String skey = (String) key;
@@ -43,8 +62,16 @@ public abstract class VMThinDiskRegionEntryHeap extends VMThinDiskRegionEntry {
           if (info != null) {
             final boolean byteEncoded = info;
             if (skey.length() <= InlineKeyHelper.getMaxInlineStringKey(1, byteEncoded)) {
+              if (this.unlinked) {
+                return new VMThinDiskRegionEntryHeapStringKey1Unlinked(context, skey, value,
+                    byteEncoded);
+              }
               return new VMThinDiskRegionEntryHeapStringKey1(context, skey, value, byteEncoded);
             } else {
+              if (this.unlinked) {
+                return new VMThinDiskRegionEntryHeapStringKey2Unlinked(context, skey, value,
+                    byteEncoded);
+              }
               return new VMThinDiskRegionEntryHeapStringKey2(context, skey, value, byteEncoded);
             }
           }
@@ -62,12 +89,23 @@ public abstract class VMThinDiskRegionEntryHeap extends VMThinDiskRegionEntry {
     }
 
     public RegionEntryFactory makeVersioned() {
-      return VersionedThinDiskRegionEntryHeap.getEntryFactory();
+      RegionEntryFactory versioned = VersionedThinDiskRegionEntryHeap.getEntryFactory();
+      return this.unlinked ? versioned.makeUnlinked() : versioned;
     }
 
     @Override
     public RegionEntryFactory makeOnHeap() {
       return this;
     }
+
+    @Override
+    public RegionEntryFactory makeUnlinked() {
+      return unlinkedFactory;
+    }
+
+    @Override
+    public RegionEntryFactory makeSerializedKeys() {
+      return this;
+    }
   }
 }
@@ -23,19 +23,38 @@ public abstract class VMThinLRURegionEntryHeap extends VMThinLRURegionEntry {
   }
 
   private static final VMThinLRURegionEntryHeapFactory factory =
-      new VMThinLRURegionEntryHeapFactory();
+      new VMThinLRURegionEntryHeapFactory(false);
+
+  private static final VMThinLRURegionEntryHeapFactory unlinkedFactory =
+      new VMThinLRURegionEntryHeapFactory(true);
 
   public static RegionEntryFactory getEntryFactory() {
     return factory;
   }
 
   private static class VMThinLRURegionEntryHeapFactory implements RegionEntryFactory {
+    /**
+     * If true, entries with inlined Integer, Long and String keys are created without the fields
+     * that link them into a CustomEntryConcurrentHashMap.
+     */
+    private final boolean unlinked;
+
+    VMThinLRURegionEntryHeapFactory(boolean unlinked) {
+      this.unlinked = unlinked;
+    }
+
     public RegionEntry createEntry(RegionEntryContext context, Object key, Object value) {
       if (InlineKeyHelper.INLINE_REGION_KEYS) {
         Class<?> keyClass = key.getClass();
         if (keyClass == Integer.class) {
+          if (this.unlinked) {
+            return new VMThinLRURegionEntryHeapIntKeyUnlinked(context, (Integer) key, value);
+          }
           return new VMThinLRURegionEntryHeapIntKey(context, (Integer) key, value);
         } else if (keyClass == Long.class) {
+          if (this.unlinked) {
+            return new VMThinLRURegionEntryHeapLongKeyUnlinked(context, (Long) key, value);
+          }
           return new VMThinLRURegionEntryHeapLongKey(context, (Long) key, value);
         } else if (keyClass == String.class) {
           final String skey = (String) key;
@@ -43,8 +62,16 @@ public abstract class VMThinLRURegionEntryHeap extends VMThinLRURegionEntry {
           if (info != null) {
             final boolean byteEncoded = info;
             if (skey.length() <= InlineKeyHelper.getMaxInlineStringKey(1, byteEncoded)) {
+              if (this.unlinked) {
+                return new VMThinLRURegionEntryHeapStringKey1Unlinked(context, skey, value,
+                    byteEncoded);
+              }
               return new VMThinLRURegionEntryHeapStringKey1(context, skey, value, byteEncoded);
             } else {
+              if (this.unlinked) {
+                return new VMThinLRURegionEntryHeapStringKey2Unlinked(context, skey, value,
+                    byteEncoded);
+              }
               return new VMThinLRURegionEntryHeapStringKey2(context, skey, value, byteEncoded);
             }
           }
@@ -62,12 +89,23 @@ public abstract class VMThinLRURegionEntryHeap extends VMThinLRURegionEntry {
     }
 
     public RegionEntryFactory makeVersioned() {
-      return VersionedThinLRURegionEntryHeap.getEntryFactory();
+      RegionEntryFactory versioned = VersionedThinLRURegionEntryHeap.getEntryFactory();
+      return this.unlinked ? versioned.makeUnlinked() : versioned;
     }
 
     @Override
     public RegionEntryFactory makeOnHeap() {
       return this;
     }
+
+    @Override
+    public RegionEntryFactory makeUnlinked() {
+      return unlinkedFactory;
+    }
+
+    @Override
+    public RegionEntryFactory makeSerializedKeys() {
+      return this;
+    }
   }
 }
@@ -16,6 +16,8 @@ package org.apache.geode.internal.cache;
 
 import java.util.UUID;
 
+import org.apache.geode.internal.offheap.OffHeapRegionEntryHelper;
+
 public abstract class VMThinLRURegionEntryOffHeap extends VMThinLRURegionEntry
     implements OffHeapRegionEntry {
 
@@ -24,19 +26,47 @@ public abstract class VMThinLRURegionEntryOffHeap extends VMThinLRURegionEntry
   }
 
   private static final VMThinLRURegionEntryOffHeapFactory factory =
-      new VMThinLRURegionEntryOffHeapFactory();
+      new VMThinLRURegionEntryOffHeapFactory(false, false);
+
+  private static final VMThinLRURegionEntryOffHeapFactory unlinkedFactory =
+      new VMThinLRURegionEntryOffHeapFactory(true, false);
+
+  private static final VMThinLRURegionEntryOffHeapFactory serializedKeyFactory =
+      new VMThinLRURegionEntryOffHeapFactory(false, true);
 
   public static RegionEntryFactory getEntryFactory() {
     return factory;
   }
 
   private static class VMThinLRURegionEntryOffHeapFactory implements RegionEntryFactory {
+    /**
+     * If true, entries with inlined Integer, Long and String keys are created without the fields
+     * that link them into a CustomEntryConcurrentHashMap.
+     */
+    private final boolean unlinked;
+
+    /**
+     * If true, entries whose keys can not be inlined store their key serialized off heap.
+     */
+    private final boolean serializedKeys;
+
+    VMThinLRURegionEntryOffHeapFactory(boolean unlinked, boolean serializedKeys) {
+      this.unlinked = unlinked;
+      this.serializedKeys = serializedKeys;
+    }
+
     public RegionEntry createEntry(RegionEntryContext context, Object key, Object value) {
       if (InlineKeyHelper.INLINE_REGION_KEYS) {
         Class<?> keyClass = key.getClass();
         if (keyClass == Integer.class) {
+          if (this.unlinked) {
+            return new VMThinLRURegionEntryOffHeapIntKeyUnlinked(context, (Integer) key, value);
+          }
           return new VMThinLRURegionEntryOffHeapIntKey(context, (Integer) key, value);
         } else if (keyClass == Long.class) {
+          if (this.unlinked) {
+            return new VMThinLRURegionEntryOffHeapLongKeyUnlinked(context, (Long) key, value);
+          }
           return new VMThinLRURegionEntryOffHeapLongKey(context, (Long) key, value);
         } else if (keyClass == String.class) {
           final String skey = (String) key;
@@ -44,8 +74,16 @@ public abstract class VMThinLRURegionEntryOffHeap extends VMThinLRURegionEntry
           if (info != null) {
             final boolean byteEncoded = info;
             if (skey.length() <= InlineKeyHelper.getMaxInlineStringKey(1, byteEncoded)) {
+              if (this.unlinked) {
+                return new VMThinLRURegionEntryOffHeapStringKey1Unlinked(context, skey, value,
+                    byteEncoded);
+              }
               return new VMThinLRURegionEntryOffHeapStringKey1(context, skey, value, byteEncoded);
             } else {
+              if (this.unlinked) {
+                return new VMThinLRURegionEntryOffHeapStringKey2Unlinked(context, skey, value,
+                    byteEncoded);
+              }
               return new VMThinLRURegionEntryOffHeapStringKey2(context, skey, value, byteEncoded);
             }
           }
@@ -53,6 +91,12 @@ public abstract class VMThinLRURegionEntryOffHeap extends VMThinLRURegionEntry
           return new VMThinLRURegionEntryOffHeapUUIDKey(context, (UUID) key, value);
         }
       }
+      if (this.serializedKeys) {
+        long keyAddress = OffHeapRegionEntryHelper.serializeKey(key);
+        if (keyAddress != 0L) {
+          return new VMThinLRURegionEntryOffHeapSerializedKey(context, keyAddress, value);
+        }
+      }
       return new VMThinLRURegionEntryOffHeapObjectKey(context, key, value);
     }
 
@@ -63,12 +107,28 @@ public abstract class VMThinLRURegionEntryOffHeap extends VMThinLRURegionEntry
     }
 
     public RegionEntryFactory makeVersioned() {
-      return VersionedThinLRURegionEntryOffHeap.getEntryFactory();
+      RegionEntryFactory versioned = VersionedThinLRURegionEntryOffHeap.getEntryFactory();
+      if (this.serializedKeys) {
+        return versioned.makeSerializedKeys();
+      }
+      return this.unlinked ? versioned.makeUnlinked() : versioned;
     }
 
     @Override
     public RegionEntryFactory makeOnHeap() {
-      return VMThinLRURegionEntryHeap.getEntryFactory();
+      RegionEntryFactory onHeap = VMThinLRURegionEntryHeap.getEntryFactory();
+      return this.unlinked ? onHeap.makeUnlinked() : onHeap;
+    }
+
+    @Override
+    public RegionEntryFactory makeUnlinked() {
+      return unlinkedFactory;
+    }
+
+    @Override
+    public RegionEntryFactory makeSerializedKeys() {
+      // a map of primitive keys has no keys to serialize
+      return this.unlinked ? this : serializedKeyFactory;
     }
   }
 }
@@ -22,19 +22,39 @@ public abstract class VMThinRegionEntryHeap extends VMThinRegionEntry {
     super(context, value);
   }
 
-  private static final VMThinRegionEntryHeapFactory factory = new VMThinRegionEntryHeapFactory();
+  private static final VMThinRegionEntryHeapFactory factory =
+      new VMThinRegionEntryHeapFactory(false);
+
+  private static final VMThinRegionEntryHeapFactory unlinkedFactory =
+      new VMThinRegionEntryHeapFactory(true);
 
   public static RegionEntryFactory getEntryFactory() {
     return factory;
   }
 
   private static class VMThinRegionEntryHeapFactory implements RegionEntryFactory {
+    /**
+     * If true, entries with inlined Integer, Long and String keys are created without the fields
+     * that link them into a CustomEntryConcurrentHashMap.
+     */
+    private final boolean unlinked;
+
+    VMThinRegionEntryHeapFactory(boolean unlinked) {
+      this.unlinked = unlinked;
+    }
+
     public RegionEntry createEntry(RegionEntryContext context, Object key, Object value) {
       if (InlineKeyHelper.INLINE_REGION_KEYS) {
         Class<?> keyClass = key.getClass();
         if (keyClass == Integer.class) {
+          if (this.unlinked) {
+            return new VMThinRegionEntryHeapIntKeyUnlinked(context, (Integer) key, value);
+          }
           return new VMThinRegionEntryHeapIntKey(context, (Integer) key, value);
         } else if (keyClass == Long.class) {
+          if (this.unlinked) {
+            return new VMThinRegionEntryHeapLongKeyUnlinked(context, (Long) key, value);
+          }
           return new VMThinRegionEntryHeapLongKey(context, (Long) key, value);
         } else if (keyClass == String.class) {
           final String skey = (String) key;
@@ -42,8 +62,16 @@ public abstract class VMThinRegionEntryHeap extends VMThinRegionEntry {
           if (info != null) {
             final boolean byteEncoded = info;
             if (skey.length() <= InlineKeyHelper.getMaxInlineStringKey(1, byteEncoded)) {
+              if (this.unlinked) {
+                return new VMThinRegionEntryHeapStringKey1Unlinked(context, skey, value,
+                    byteEncoded);
+              }
               return new VMThinRegionEntryHeapStringKey1(context, skey, value, byteEncoded);
             } else {
+              if (this.unlinked) {
+                return new VMThinRegionEntryHeapStringKey2Unlinked(context, skey, value,
+                    byteEncoded);
+              }
               return new VMThinRegionEntryHeapStringKey2(context, skey, value, byteEncoded);
             }
           }
@@ -61,12 +89,23 @@ public abstract class VMThinRegionEntryHeap extends VMThinRegionEntry {
     }
 
     public RegionEntryFactory makeVersioned() {
-      return VersionedThinRegionEntryHeap.getEntryFactory();
+      RegionEntryFactory versioned = VersionedThinRegionEntryHeap.getEntryFactory();
+      return this.unlinked ? versioned.makeUnlinked() : versioned;
     }
 
     @Override
     public RegionEntryFactory makeOnHeap() {
       return this;
     }
+
+    @Override
+    public RegionEntryFactory makeUnlinked() {
+      return unlinkedFactory;
+    }
+
+    @Override
+    public RegionEntryFactory makeSerializedKeys() {
+      return this;
+    }
   }
 }
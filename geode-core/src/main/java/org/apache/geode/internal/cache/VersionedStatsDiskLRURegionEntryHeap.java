@@ -24,19 +24,40 @@ public abstract class VersionedStatsDiskLRURegionEntryHeap
   }
 
   private static final VersionedStatsDiskLRURegionEntryHeapFactory factory =
-      new VersionedStatsDiskLRURegionEntryHeapFactory();
+      new VersionedStatsDiskLRURegionEntryHeapFactory(false);
+
+  private static final VersionedStatsDiskLRURegionEntryHeapFactory unlinkedFactory =
+      new VersionedStatsDiskLRURegionEntryHeapFactory(true);
 
   public static RegionEntryFactory getEntryFactory() {
     return factory;
   }
 
   private static class VersionedStatsDiskLRURegionEntryHeapFactory implements RegionEntryFactory {
+    /**
+     * If true, entries with inlined Integer, Long and String keys are created without the fields
+     * that link them into a CustomEntryConcurrentHashMap.
+     */
+    private final boolean unlinked;
+
+    VersionedStatsDiskLRURegionEntryHeapFactory(boolean unlinked) {
+      this.unlinked = unlinked;
+    }
+
     public RegionEntry createEntry(RegionEntryContext context, Object key, Object value) {
       if (InlineKeyHelper.INLINE_REGION_KEYS) {
         Class<?> keyClass = key.getClass();
         if (keyClass == Integer.class) {
+          if (this.unlinked) {
+            return new VersionedStatsDiskLRURegionEntryHeapIntKeyUnlinked(context, (Integer) key,
+                value);
+          }
           return new VersionedStatsDiskLRURegionEntryHeapIntKey(context, (Integer) key, value);
         } else if (keyClass == Long.class) {
+          if (this.unlinked) {
+            return new VersionedStatsDiskLRURegionEntryHeapLongKeyUnlinked(context, (Long) key,
+                value);
+          }
           return new VersionedStatsDiskLRURegionEntryHeapLongKey(context, (Long) key, value);
         } else if (keyClass == String.class) {
           final String skey = (String) key;
@@ -44,9 +65,17 @@ public abstract class VersionedStatsDiskLRURegionEntryHeap
           if (info != null) {
             final boolean byteEncoded = info;
             if (skey.length() <= InlineKeyHelper.getMaxInlineStringKey(1, byteEncoded)) {
+              if (this.unlinked) {
+                return new VersionedStatsDiskLRURegionEntryHeapStringKey1Unlinked(context, skey,
+                    value, byteEncoded);
+              }
               return new VersionedStatsDiskLRURegionEntryHeapStringKey1(context, skey, value,
                   byteEncoded);
             } else {
+              if (this.unlinked) {
+                return new VersionedStatsDiskLRURegionEntryHeapStringKey2Unlinked(context, skey,
+                    value, byteEncoded);
+              }
               return new VersionedStatsDiskLRURegionEntryHeapStringKey2(context, skey, value,
                   byteEncoded);
             }
@@ -72,5 +101,15 @@ public abstract class VersionedStatsDiskLRURegionEntryHeap
     public RegionEntryFactory makeOnHeap() {
       return this;
     }
+
+    @Override
+    public RegionEntryFactory makeUnlinked() {
+      return unlinkedFactory;
+    }
+
+    @Override
+    public RegionEntryFactory makeSerializedKeys() {
+      return this;
+    }
   }
 }
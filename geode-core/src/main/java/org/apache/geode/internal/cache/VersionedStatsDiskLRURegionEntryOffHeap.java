@@ -16,6 +16,8 @@ package org.apache.geode.internal.cache;
 
 import java.util.UUID;
 
+import org.apache.geode.internal.offheap.OffHeapRegionEntryHelper;
+
 public abstract class VersionedStatsDiskLRURegionEntryOffHeap
     extends VersionedStatsDiskLRURegionEntry implements OffHeapRegionEntry {
 
@@ -24,7 +26,13 @@ public abstract class VersionedStatsDiskLRURegionEntryOffHeap
   }
 
   private static final VersionedStatsDiskLRURegionEntryOffHeapFactory factory =
-      new VersionedStatsDiskLRURegionEntryOffHeapFactory();
+      new VersionedStatsDiskLRURegionEntryOffHeapFactory(false, false);
+
+  private static final VersionedStatsDiskLRURegionEntryOffHeapFactory unlinkedFactory =
+      new VersionedStatsDiskLRURegionEntryOffHeapFactory(true, false);
+
+  private static final VersionedStatsDiskLRURegionEntryOffHeapFactory serializedKeyFactory =
+      new VersionedStatsDiskLRURegionEntryOffHeapFactory(false, true);
 
   public static RegionEntryFactory getEntryFactory() {
     return factory;
@@ -32,12 +40,36 @@ public abstract class VersionedStatsDiskLRURegionEntryOffHeap
 
   private static class VersionedStatsDiskLRURegionEntryOffHeapFactory
       implements RegionEntryFactory {
+    /**
+     * If true, entries with inlined Integer, Long and String keys are created without the fields
+     * that link them into a CustomEntryConcurrentHashMap.
+     */
+    private final boolean unlinked;
+
+    /**
+     * If true, entries whose keys can not be inlined store their key serialized off heap.
+     */
+    private final boolean serializedKeys;
+
+    VersionedStatsDiskLRURegionEntryOffHeapFactory(boolean unlinked, boolean serializedKeys) {
+      this.unlinked = unlinked;
+      this.serializedKeys = serializedKeys;
+    }
+
     public RegionEntry createEntry(RegionEntryContext context, Object key, Object value) {
       if (InlineKeyHelper.INLINE_REGION_KEYS) {
         Class<?> keyClass = key.getClass();
         if (keyClass == Integer.class) {
+          if (this.unlinked) {
+            return new VersionedStatsDiskLRURegionEntryOffHeapIntKeyUnlinked(context, (Integer) key,
+                value);
+          }
           return new VersionedStatsDiskLRURegionEntryOffHeapIntKey(context, (Integer) key, value);
         } else if (keyClass == Long.class) {
+          if (this.unlinked) {
+            return new VersionedStatsDiskLRURegionEntryOffHeapLongKeyUnlinked(context, (Long) key,
+                value);
+          }
           return new VersionedStatsDiskLRURegionEntryOffHeapLongKey(context, (Long) key, value);
         } else if (keyClass == String.class) {
           final String skey = (String) key;
@@ -45,9 +77,17 @@ public abstract class VersionedStatsDiskLRURegionEntryOffHeap
           if (info != null) {
             final boolean byteEncoded = info;
             if (skey.length() <= InlineKeyHelper.getMaxInlineStringKey(1, byteEncoded)) {
+              if (this.unlinked) {
+                return new VersionedStatsDiskLRURegionEntryOffHeapStringKey1Unlinked(context, skey,
+                    value, byteEncoded);
+              }
               return new VersionedStatsDiskLRURegionEntryOffHeapStringKey1(context, skey, value,
                   byteEncoded);
             } else {
+              if (this.unlinked) {
+                return new VersionedStatsDiskLRURegionEntryOffHeapStringKey2Unlinked(context, skey,
+                    value, byteEncoded);
+              }
               return new VersionedStatsDiskLRURegionEntryOffHeapStringKey2(context, skey, value,
                   byteEncoded);
             }
@@ -56,6 +96,13 @@ public abstract class VersionedStatsDiskLRURegionEntryOffHeap
           return new VersionedStatsDiskLRURegionEntryOffHeapUUIDKey(context, (UUID) key, value);
         }
       }
+      if (this.serializedKeys) {
+        long keyAddress = OffHeapRegionEntryHelper.serializeKey(key);
+        if (keyAddress != 0L) {
+          return new VersionedStatsDiskLRURegionEntryOffHeapSerializedKey(context, keyAddress,
+              value);
+        }
+      }
       return new VersionedStatsDiskLRURegionEntryOffHeapObjectKey(context, key, value);
     }
 
@@ -71,7 +118,19 @@ public abstract class VersionedStatsDiskLRURegionEntryOffHeap
 
     @Override
     public RegionEntryFactory makeOnHeap() {
-      return VersionedStatsDiskLRURegionEntryHeap.getEntryFactory();
+      RegionEntryFactory onHeap = VersionedStatsDiskLRURegionEntryHeap.getEntryFactory();
+      return this.unlinked ? onHeap.makeUnlinked() : onHeap;
+    }
+
+    @Override
+    public RegionEntryFactory makeUnlinked() {
+      return unlinkedFactory;
+    }
+
+    @Override
+    public RegionEntryFactory makeSerializedKeys() {
+      // a map of primitive keys has no keys to serialize
+      return this.unlinked ? this : serializedKeyFactory;
     }
   }
 }
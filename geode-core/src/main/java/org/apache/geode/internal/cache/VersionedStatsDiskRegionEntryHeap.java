@@ -23,19 +23,39 @@ public abstract class VersionedStatsDiskRegionEntryHeap extends VersionedStatsDi
   }
 
   private static final VersionedStatsDiskRegionEntryHeapFactory factory =
-      new VersionedStatsDiskRegionEntryHeapFactory();
+      new VersionedStatsDiskRegionEntryHeapFactory(false);
+
+  private static final VersionedStatsDiskRegionEntryHeapFactory unlinkedFactory =
+      new VersionedStatsDiskRegionEntryHeapFactory(true);
 
   public static RegionEntryFactory getEntryFactory() {
     return factory;
   }
 
   private static class VersionedStatsDiskRegionEntryHeapFactory implements RegionEntryFactory {
+    /**
+     * If true, entries with inlined Integer, Long and String keys are created without the fields
+     * that link them into a CustomEntryConcurrentHashMap.
+     */
+    private final boolean unlinked;
+
+    VersionedStatsDiskRegionEntryHeapFactory(boolean unlinked) {
+      this.unlinked = unlinked;
+    }
+
     public RegionEntry createEntry(RegionEntryContext context, Object key, Object value) {
       if (InlineKeyHelper.INLINE_REGION_KEYS) {
         Class<?> keyClass = key.getClass();
         if (keyClass == Integer.class) {
+          if (this.unlinked) {
+            return new VersionedStatsDiskRegionEntryHeapIntKeyUnlinked(context, (Integer) key,
+                value);
+          }
           return new VersionedStatsDiskRegionEntryHeapIntKey(context, (Integer) key, value);
         } else if (keyClass == Long.class) {
+          if (this.unlinked) {
+            return new VersionedStatsDiskRegionEntryHeapLongKeyUnlinked(context, (Long) key, value);
+          }
           return new VersionedStatsDiskRegionEntryHeapLongKey(context, (Long) key, value);
         } else if (keyClass == String.class) {
           final String skey = (String) key;
@@ -43,9 +63,17 @@ public abstract class VersionedStatsDiskRegionEntryHeap extends VersionedStatsDi
           if (info != null) {
             final boolean byteEncoded = info;
             if (skey.length() <= InlineKeyHelper.getMaxInlineStringKey(1, byteEncoded)) {
+              if (this.unlinked) {
+                return new VersionedStatsDiskRegionEntryHeapStringKey1Unlinked(context, skey, value,
+                    byteEncoded);
+              }
               return new VersionedStatsDiskRegionEntryHeapStringKey1(context, skey, value,
                   byteEncoded);
             } else {
+              if (this.unlinked) {
+                return new VersionedStatsDiskRegionEntryHeapStringKey2Unlinked(context, skey, value,
+                    byteEncoded);
+              }
               return new VersionedStatsDiskRegionEntryHeapStringKey2(context, skey, value,
                   byteEncoded);
             }
@@ -71,5 +99,15 @@ public abstract class VersionedStatsDiskRegionEntryHeap extends VersionedStatsDi
     public RegionEntryFactory makeOnHeap() {
       return this;
     }
+
+    @Override
+    public RegionEntryFactory makeUnlinked() {
+      return unlinkedFactory;
+    }
+
+    @Override
+    public RegionEntryFactory makeSerializedKeys() {
+      return this;
+    }
   }
 }
@@ -16,6 +16,8 @@ package org.apache.geode.internal.cache;
 
 import java.util.UUID;
 
+import org.apache.geode.internal.offheap.OffHeapRegionEntryHelper;
+
 public abstract class VersionedStatsDiskRegionEntryOffHeap extends VersionedStatsDiskRegionEntry
     implements OffHeapRegionEntry {
 
@@ -24,19 +26,49 @@ public abstract class VersionedStatsDiskRegionEntryOffHeap extends VersionedStat
   }
 
   private static final VersionedStatsDiskRegionEntryOffHeapFactory factory =
-      new VersionedStatsDiskRegionEntryOffHeapFactory();
+      new VersionedStatsDiskRegionEntryOffHeapFactory(false, false);
+
+  private static final VersionedStatsDiskRegionEntryOffHeapFactory unlinkedFactory =
+      new VersionedStatsDiskRegionEntryOffHeapFactory(true, false);
+
+  private static final VersionedStatsDiskRegionEntryOffHeapFactory serializedKeyFactory =
+      new VersionedStatsDiskRegionEntryOffHeapFactory(false, true);
 
   public static RegionEntryFactory getEntryFactory() {
     return factory;
   }
 
   private static class VersionedStatsDiskRegionEntryOffHeapFactory implements RegionEntryFactory {
+    /**
+     * If true, entries with inlined Integer, Long and String keys are created without the fields
+     * that link them into a CustomEntryConcurrentHashMap.
+     */
+    private final boolean unlinked;
+
+    /**
+     * If true, entries whose keys can not be inlined store their key serialized off heap.
+     */
+    private final boolean serializedKeys;
+
+    VersionedStatsDiskRegionEntryOffHeapFactory(boolean unlinked, boolean serializedKeys) {
+      this.unlinked = unlinked;
+      this.serializedKeys = serializedKeys;
+    }
+
     public RegionEntry createEntry(RegionEntryContext context, Object key, Object value) {
       if (InlineKeyHelper.INLINE_REGION_KEYS) {
         Class<?> keyClass = key.getClass();
         if (keyClass == Integer.class) {
+          if (this.unlinked) {
+            return new VersionedStatsDiskRegionEntryOffHeapIntKeyUnlinked(context, (Integer) key,
+                value);
+          }
           return new VersionedStatsDiskRegionEntryOffHeapIntKey(context, (Integer) key, value);
         } else if (keyClass == Long.class) {
+          if (this.unlinked) {
+            return new VersionedStatsDiskRegionEntryOffHeapLongKeyUnlinked(context, (Long) key,
+                value);
+          }
           return new VersionedStatsDiskRegionEntryOffHeapLongKey(context, (Long) key, value);
         } else if (keyClass == String.class) {
           final String skey = (String) key;
@@ -44,9 +76,17 @@ public abstract class VersionedStatsDiskRegionEntryOffHeap extends VersionedStat
           if (info != null) {
             final boolean byteEncoded = info;
             if (skey.length() <= InlineKeyHelper.getMaxInlineStringKey(1, byteEncoded)) {
+              if (this.unlinked) {
+                return new VersionedStatsDiskRegionEntryOffHeapStringKey1Unlinked(context, skey,
+                    value, byteEncoded);
+              }
               return new VersionedStatsDiskRegionEntryOffHeapStringKey1(context, skey, value,
                   byteEncoded);
             } else {
+              if (this.unlinked) {
+                return new VersionedStatsDiskRegionEntryOffHeapStringKey2Unlinked(context, skey,
+                    value, byteEncoded);
+              }
               return new VersionedStatsDiskRegionEntryOffHeapStringKey2(context, skey, value,
                   byteEncoded);
             }
@@ -55,6 +95,12 @@ public abstract class VersionedStatsDiskRegionEntryOffHeap extends VersionedStat
           return new VersionedStatsDiskRegionEntryOffHeapUUIDKey(context, (UUID) key, value);
         }
       }
+      if (this.serializedKeys) {
+        long keyAddress = OffHeapRegionEntryHelper.serializeKey(key);
+        if (keyAddress != 0L) {
+          return new VersionedStatsDiskRegionEntryOffHeapSerializedKey(context, keyAddress, value);
+        }
+      }
       return new VersionedStatsDiskRegionEntryOffHeapObjectKey(context, key, value);
     }
 
@@ -70,7 +116,19 @@ public abstract class VersionedStatsDiskRegionEntryOffHeap extends VersionedStat
 
     @Override
     public RegionEntryFactory makeOnHeap() {
-      return VersionedStatsDiskRegionEntryHeap.getEntryFactory();
+      RegionEntryFactory onHeap = VersionedStatsDiskRegionEntryHeap.getEntryFactory();
+      return this.unlinked ? onHeap.makeUnlinked() : onHeap;
+    }
+
+    @Override
+    public RegionEntryFactory makeUnlinked() {
+      return unlinkedFactory;
+    }
+
+    @Override
+    public RegionEntryFactory makeSerializedKeys() {
+      // a map of primitive keys has no keys to serialize
+      return this.unlinked ? this : serializedKeyFactory;
     }
   }
 }
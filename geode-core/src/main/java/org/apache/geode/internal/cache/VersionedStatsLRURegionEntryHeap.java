@@ -23,19 +23,39 @@ public abstract class VersionedStatsLRURegionEntryHeap extends VersionedStatsLRU
   }
 
   private static final VersionedStatsLRURegionEntryHeapFactory factory =
-      new VersionedStatsLRURegionEntryHeapFactory();
+      new VersionedStatsLRURegionEntryHeapFactory(false);
+
+  private static final VersionedStatsLRURegionEntryHeapFactory unlinkedFactory =
+      new VersionedStatsLRURegionEntryHeapFactory(true);
 
   public static RegionEntryFactory getEntryFactory() {
     return factory;
   }
 
   private static class VersionedStatsLRURegionEntryHeapFactory implements RegionEntryFactory {
+    /**
+     * If true, entries with inlined Integer, Long and String keys are created without the fields
+     * that link them into a CustomEntryConcurrentHashMap.
+     */
+    private final boolean unlinked;
+
+    VersionedStatsLRURegionEntryHeapFactory(boolean unlinked) {
+      this.unlinked = unlinked;
+    }
+
     public RegionEntry createEntry(RegionEntryContext context, Object key, Object value) {
       if (InlineKeyHelper.INLINE_REGION_KEYS) {
         Class<?> keyClass = key.getClass();
         if (keyClass == Integer.class) {
+          if (this.unlinked) {
+            return new VersionedStatsLRURegionEntryHeapIntKeyUnlinked(context, (Integer) key,
+                value);
+          }
           return new VersionedStatsLRURegionEntryHeapIntKey(context, (Integer) key, value);
         } else if (keyClass == Long.class) {
+          if (this.unlinked) {
+            return new VersionedStatsLRURegionEntryHeapLongKeyUnlinked(context, (Long) key, value);
+          }
           return new VersionedStatsLRURegionEntryHeapLongKey(context, (Long) key, value);
         } else if (keyClass == String.class) {
           final String skey = (String) key;
@@ -43,9 +63,17 @@ public abstract class VersionedStatsLRURegionEntryHeap extends VersionedStatsLRU
           if (info != null) {
             final boolean byteEncoded = info;
             if (skey.length() <= InlineKeyHelper.getMaxInlineStringKey(1, byteEncoded)) {
+              if (this.unlinked) {
+                return new VersionedStatsLRURegionEntryHeapStringKey1Unlinked(context, skey, value,
+                    byteEncoded);
+              }
               return new VersionedStatsLRURegionEntryHeapStringKey1(context, skey, value,
                   byteEncoded);
             } else {
+              if (this.unlinked) {
+                return new VersionedStatsLRURegionEntryHeapStringKey2Unlinked(context, skey, value,
+                    byteEncoded);
+              }
               return new VersionedStatsLRURegionEntryHeapStringKey2(context, skey, value,
                   byteEncoded);
             }
@@ -71,5 +99,15 @@ public abstract class VersionedStatsLRURegionEntryHeap extends VersionedStatsLRU
     public RegionEntryFactory makeOnHeap() {
       return this;
     }
+
+    @Override
+    public RegionEntryFactory makeUnlinked() {
+      return unlinkedFactory;
+    }
+
+    @Override
+    public RegionEntryFactory makeSerializedKeys() {
+      return this;
+    }
   }
 }
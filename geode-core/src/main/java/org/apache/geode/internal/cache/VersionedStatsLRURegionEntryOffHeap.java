@@ -16,6 +16,8 @@ package org.apache.geode.internal.cache;
 
 import java.util.UUID;
 
+import org.apache.geode.internal.offheap.OffHeapRegionEntryHelper;
+
 public abstract class VersionedStatsLRURegionEntryOffHeap extends VersionedStatsLRURegionEntry
     implements OffHeapRegionEntry {
 
@@ -24,19 +26,49 @@ public abstract class VersionedStatsLRURegionEntryOffHeap extends VersionedStats
   }
 
   private static final VersionedStatsLRURegionEntryOffHeapFactory factory =
-      new VersionedStatsLRURegionEntryOffHeapFactory();
+      new VersionedStatsLRURegionEntryOffHeapFactory(false, false);
+
+  private static final VersionedStatsLRURegionEntryOffHeapFactory unlinkedFactory =
+      new VersionedStatsLRURegionEntryOffHeapFactory(true, false);
+
+  private static final VersionedStatsLRURegionEntryOffHeapFactory serializedKeyFactory =
+      new VersionedStatsLRURegionEntryOffHeapFactory(false, true);
 
   public static RegionEntryFactory getEntryFactory() {
     return factory;
   }
 
   private static class VersionedStatsLRURegionEntryOffHeapFactory implements RegionEntryFactory {
+    /**
+     * If true, entries with inlined Integer, Long and String keys are created without the fields
+     * that link them into a CustomEntryConcurrentHashMap.
+     */
+    private final boolean unlinked;
+
+    /**
+     * If true, entries whose keys can not be inlined store their key serialized off heap.
+     */
+    private final boolean serializedKeys;
+
+    VersionedStatsLRURegionEntryOffHeapFactory(boolean unlinked, boolean serializedKeys) {
+      this.unlinked = unlinked;
+      this.serializedKeys = serializedKeys;
+    }
+
     public RegionEntry createEntry(RegionEntryContext context, Object key, Object value) {
       if (InlineKeyHelper.INLINE_REGION_KEYS) {
         Class<?> keyClass = key.getClass();
         if (keyClass == Integer.class) {
+          if (this.unlinked) {
+            return new VersionedStatsLRURegionEntryOffHeapIntKeyUnlinked(context, (Integer) key,
+                value);
+          }
           return new VersionedStatsLRURegionEntryOffHeapIntKey(context, (Integer) key, value);
         } else if (keyClass == Long.class) {
+          if (this.unlinked) {
+            return new VersionedStatsLRURegionEntryOffHeapLongKeyUnlinked(context, (Long) key,
+                value);
+          }
           return new VersionedStatsLRURegionEntryOffHeapLongKey(context, (Long) key, value);
         } else if (keyClass == String.class) {
           final String skey = (String) key;
@@ -44,9 +76,17 @@ public abstract class VersionedStatsLRURegionEntryOffHeap extends VersionedStats
           if (info != null) {
             final boolean byteEncoded = info;
             if (skey.length() <= InlineKeyHelper.getMaxInlineStringKey(1, byteEncoded)) {
+              if (this.unlinked) {
+                return new VersionedStatsLRURegionEntryOffHeapStringKey1Unlinked(context, skey,
+                    value, byteEncoded);
+              }
               return new VersionedStatsLRURegionEntryOffHeapStringKey1(context, skey, value,
                   byteEncoded);
             } else {
+              if (this.unlinked) {
+                return new VersionedStatsLRURegionEntryOffHeapStringKey2Unlinked(context, skey,
+                    value, byteEncoded);
+              }
               return new VersionedStatsLRURegionEntryOffHeapStringKey2(context, skey, value,
                   byteEncoded);
             }
@@ -55,6 +95,12 @@ public abstract class VersionedStatsLRURegionEntryOffHeap extends VersionedStats
           return new VersionedStatsLRURegionEntryOffHeapUUIDKey(context, (UUID) key, value);
         }
       }
+      if (this.serializedKeys) {
+        long keyAddress = OffHeapRegionEntryHelper.serializeKey(key);
+        if (keyAddress != 0L) {
+          return new VersionedStatsLRURegionEntryOffHeapSerializedKey(context, keyAddress, value);
+        }
+      }
       return new VersionedStatsLRURegionEntryOffHeapObjectKey(context, key, value);
     }
 
@@ -70,7 +116,19 @@ public abstract class VersionedStatsLRURegionEntryOffHeap extends VersionedStats
 
     @Override
     public RegionEntryFactory makeOnHeap() {
-      return VersionedStatsLRURegionEntryHeap.getEntryFactory();
+      RegionEntryFactory onHeap = VersionedStatsLRURegionEntryHeap.getEntryFactory();
+      return this.unlinked ? onHeap.makeUnlinked() : onHeap;
+    }
+
+    @Override
+    public RegionEntryFactory makeUnlinked() {
+      return unlinkedFactory;
+    }
+
+    @Override
+    public RegionEntryFactory makeSerializedKeys() {
+      // a map of primitive keys has no keys to serialize
+      return this.unlinked ? this : serializedKeyFactory;
     }
   }
 }
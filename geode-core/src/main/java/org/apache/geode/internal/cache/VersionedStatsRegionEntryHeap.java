@@ -23,19 +23,38 @@ public abstract class VersionedStatsRegionEntryHeap extends VersionedStatsRegion
   }
 
   private static final VersionedStatsRegionEntryHeapFactory factory =
-      new VersionedStatsRegionEntryHeapFactory();
+      new VersionedStatsRegionEntryHeapFactory(false);
+
+  private static final VersionedStatsRegionEntryHeapFactory unlinkedFactory =
+      new VersionedStatsRegionEntryHeapFactory(true);
 
   public static RegionEntryFactory getEntryFactory() {
     return factory;
   }
 
   private static class VersionedStatsRegionEntryHeapFactory implements RegionEntryFactory {
+    /**
+     * If true, entries with inlined Integer, Long and String keys are created without the fields
+     * that link them into a CustomEntryConcurrentHashMap.
+     */
+    private final boolean unlinked;
+
+    VersionedStatsRegionEntryHeapFactory(boolean unlinked) {
+      this.unlinked = unlinked;
+    }
+
     public RegionEntry createEntry(RegionEntryContext context, Object key, Object value) {
       if (InlineKeyHelper.INLINE_REGION_KEYS) {
         Class<?> keyClass = key.getClass();
         if (keyClass == Integer.class) {
+          if (this.unlinked) {
+            return new VersionedStatsRegionEntryHeapIntKeyUnlinked(context, (Integer) key, value);
+          }
           return new VersionedStatsRegionEntryHeapIntKey(context, (Integer) key, value);
         } else if (keyClass == Long.class) {
+          if (this.unlinked) {
+            return new VersionedStatsRegionEntryHeapLongKeyUnlinked(context, (Long) key, value);
+          }
           return new VersionedStatsRegionEntryHeapLongKey(context, (Long) key, value);
         } else if (keyClass == String.class) {
           final String skey = (String) key;
@@ -43,8 +62,16 @@ public abstract class VersionedStatsRegionEntryHeap extends VersionedStatsRegion
           if (info != null) {
             final boolean byteEncoded = info;
             if (skey.length() <= InlineKeyHelper.getMaxInlineStringKey(1, byteEncoded)) {
+              if (this.unlinked) {
+                return new VersionedStatsRegionEntryHeapStringKey1Unlinked(context, skey, value,
+                    byteEncoded);
+              }
               return new VersionedStatsRegionEntryHeapStringKey1(context, skey, value, byteEncoded);
             } else {
+              if (this.unlinked) {
+                return new VersionedStatsRegionEntryHeapStringKey2Unlinked(context, skey, value,
+                    byteEncoded);
+              }
               return new VersionedStatsRegionEntryHeapStringKey2(context, skey, value, byteEncoded);
             }
           }
@@ -69,5 +96,15 @@ public abstract class VersionedStatsRegionEntryHeap extends VersionedStatsRegion
     public RegionEntryFactory makeOnHeap() {
       return this;
     }
+
+    @Override
+    public RegionEntryFactory makeUnlinked() {
+      return unlinkedFactory;
+    }
+
+    @Override
+    public RegionEntryFactory makeSerializedKeys() {
+      return this;
+    }
   }
 }
@@ -16,6 +16,8 @@ package org.apache.geode.internal.cache;
 
 import java.util.UUID;
 
+import org.apache.geode.internal.offheap.OffHeapRegionEntryHelper;
+
 public abstract class VersionedStatsRegionEntryOffHeap extends VersionedStatsRegionEntry
     implements OffHeapRegionEntry {
 
@@ -24,19 +26,48 @@ public abstract class VersionedStatsRegionEntryOffHeap extends VersionedStatsReg
   }
 
   private static final VersionedStatsRegionEntryOffHeapFactory factory =
-      new VersionedStatsRegionEntryOffHeapFactory();
+      new VersionedStatsRegionEntryOffHeapFactory(false, false);
+
+  private static final VersionedStatsRegionEntryOffHeapFactory unlinkedFactory =
+      new VersionedStatsRegionEntryOffHeapFactory(true, false);
+
+  private static final VersionedStatsRegionEntryOffHeapFactory serializedKeyFactory =
+      new VersionedStatsRegionEntryOffHeapFactory(false, true);
 
   public static RegionEntryFactory getEntryFactory() {
     return factory;
   }
 
   private static class VersionedStatsRegionEntryOffHeapFactory implements RegionEntryFactory {
+    /**
+     * If true, entries with inlined Integer, Long and String keys are created without the fields
+     * that link them into a CustomEntryConcurrentHashMap.
+     */
+    private final boolean unlinked;
+
+    /**
+     * If true, entries whose keys can not be inlined store their key serialized off heap.
+     */
+    private final boolean serializedKeys;
+
+    VersionedStatsRegionEntryOffHeapFactory(boolean unlinked, boolean serializedKeys) {
+      this.unlinked = unlinked;
+      this.serializedKeys = serializedKeys;
+    }
+
     public RegionEntry createEntry(RegionEntryContext context, Object key, Object value) {
       if (InlineKeyHelper.INLINE_REGION_KEYS) {
         Class<?> keyClass = key.getClass();
         if (keyClass == Integer.class) {
+          if (this.unlinked) {
+            return new VersionedStatsRegionEntryOffHeapIntKeyUnlinked(context, (Integer) key,
+                value);
+          }
           return new VersionedStatsRegionEntryOffHeapIntKey(context, (Integer) key, value);
         } else if (keyClass == Long.class) {
+          if (this.unlinked) {
+            return new VersionedStatsRegionEntryOffHeapLongKeyUnlinked(context, (Long) key, value);
+          }
           return new VersionedStatsRegionEntryOffHeapLongKey(context, (Long) key, value);
         } else if (keyClass == String.class) {
           final String skey = (String) key;
@@ -44,9 +75,17 @@ public abstract class VersionedStatsRegionEntryOffHeap extends VersionedStatsReg
           if (info != null) {
             final boolean byteEncoded = info;
             if (skey.length() <= InlineKeyHelper.getMaxInlineStringKey(1, byteEncoded)) {
+              if (this.unlinked) {
+                return new VersionedStatsRegionEntryOffHeapStringKey1Unlinked(context, skey, value,
+                    byteEncoded);
+              }
               return new VersionedStatsRegionEntryOffHeapStringKey1(context, skey, value,
                   byteEncoded);
             } else {
+              if (this.unlinked) {
+                return new VersionedStatsRegionEntryOffHeapStringKey2Unlinked(context, skey, value,
+                    byteEncoded);
+              }
               return new VersionedStatsRegionEntryOffHeapStringKey2(context, skey, value,
                   byteEncoded);
             }
@@ -55,6 +94,12 @@ public abstract class VersionedStatsRegionEntryOffHeap extends VersionedStatsReg
           return new VersionedStatsRegionEntryOffHeapUUIDKey(context, (UUID) key, value);
         }
       }
+      if (this.serializedKeys) {
+        long keyAddress = OffHeapRegionEntryHelper.serializeKey(key);
+        if (keyAddress != 0L) {
+          return new VersionedStatsRegionEntryOffHeapSerializedKey(context, keyAddress, value);
+        }
+      }
       return new VersionedStatsRegionEntryOffHeapObjectKey(context, key, value);
     }
 
@@ -70,7 +115,19 @@ public abstract class VersionedStatsRegionEntryOffHeap extends VersionedStatsReg
 
     @Override
     public RegionEntryFactory makeOnHeap() {
-      return VersionedStatsRegionEntryHeap.getEntryFactory();
+      RegionEntryFactory onHeap = VersionedStatsRegionEntryHeap.getEntryFactory();
+      return this.unlinked ? onHeap.makeUnlinked() : onHeap;
+    }
+
+    @Override
+    public RegionEntryFactory makeUnlinked() {
+      return unlinkedFactory;
+    }
+
+    @Override
+    public RegionEntryFactory makeSerializedKeys() {
+      // a map of primitive keys has no keys to serialize
+      return this.unlinked ? this : serializedKeyFactory;
     }
   }
 }
@@ -23,19 +23,40 @@ public abstract class VersionedThinDiskLRURegionEntryHeap extends VersionedThinD
   }
 
   private static final VersionedThinDiskLRURegionEntryHeapFactory factory =
-      new VersionedThinDiskLRURegionEntryHeapFactory();
+      new VersionedThinDiskLRURegionEntryHeapFactory(false);
+
+  private static final VersionedThinDiskLRURegionEntryHeapFactory unlinkedFactory =
+      new VersionedThinDiskLRURegionEntryHeapFactory(true);
 
   public static RegionEntryFactory getEntryFactory() {
     return factory;
   }
 
   private static class VersionedThinDiskLRURegionEntryHeapFactory implements RegionEntryFactory {
+    /**
+     * If true, entries with inlined Integer, Long and String keys are created without the fields
+     * that link them into a CustomEntryConcurrentHashMap.
+     */
+    private final boolean unlinked;
+
+    VersionedThinDiskLRURegionEntryHeapFactory(boolean unlinked) {
+      this.unlinked = unlinked;
+    }
+
     public RegionEntry createEntry(RegionEntryContext context, Object key, Object value) {
       if (InlineKeyHelper.INLINE_REGION_KEYS) {
         Class<?> keyClass = key.getClass();
         if (keyClass == Integer.class) {
+          if (this.unlinked) {
+            return new VersionedThinDiskLRURegionEntryHeapIntKeyUnlinked(context, (Integer) key,
+                value);
+          }
           return new VersionedThinDiskLRURegionEntryHeapIntKey(context, (Integer) key, value);
         } else if (keyClass == Long.class) {
+          if (this.unlinked) {
+            return new VersionedThinDiskLRURegionEntryHeapLongKeyUnlinked(context, (Long) key,
+                value);
+          }
           return new VersionedThinDiskLRURegionEntryHeapLongKey(context, (Long) key, value);
         } else if (keyClass == String.class) {
           final String skey = (String) key;
@@ -43,9 +64,17 @@ public abstract class VersionedThinDiskLRURegionEntryHeap extends VersionedThinD
           if (info != null) {
             final boolean byteEncoded = info;
             if (skey.length() <= InlineKeyHelper.getMaxInlineStringKey(1, byteEncoded)) {
+              if (this.unlinked) {
+                return new VersionedThinDiskLRURegionEntryHeapStringKey1Unlinked(context, skey,
+                    value, byteEncoded);
+              }
               return new VersionedThinDiskLRURegionEntryHeapStringKey1(context, skey, value,
                   byteEncoded);
             } else {
+              if (this.unlinked) {
+                return new VersionedThinDiskLRURegionEntryHeapStringKey2Unlinked(context, skey,
+                    value, byteEncoded);
+              }
               return new VersionedThinDiskLRURegionEntryHeapStringKey2(context, skey, value,
                   byteEncoded);
             }
@@ -71,5 +100,15 @@ public abstract class VersionedThinDiskLRURegionEntryHeap extends VersionedThinD
     public RegionEntryFactory makeOnHeap() {
       return this;
     }
+
+    @Override
+    public RegionEntryFactory makeUnlinked() {
+      return unlinkedFactory;
+    }
+
+    @Override
+    public RegionEntryFactory makeSerializedKeys() {
+      return this;
+    }
   }
 }
@@ -16,6 +16,8 @@ package org.apache.geode.internal.cache;
 
 import java.util.UUID;
 
+import org.apache.geode.internal.offheap.OffHeapRegionEntryHelper;
+
 public abstract class VersionedThinDiskLRURegionEntryOffHeap extends VersionedThinDiskLRURegionEntry
     implements OffHeapRegionEntry {
 
@@ -24,19 +26,49 @@ public abstract class VersionedThinDiskLRURegionEntryOffHeap extends VersionedTh
   }
 
   private static final VersionedThinDiskLRURegionEntryOffHeapFactory factory =
-      new VersionedThinDiskLRURegionEntryOffHeapFactory();
+      new VersionedThinDiskLRURegionEntryOffHeapFactory(false, false);
+
+  private static final VersionedThinDiskLRURegionEntryOffHeapFactory unlinkedFactory =
+      new VersionedThinDiskLRURegionEntryOffHeapFactory(true, false);
+
+  private static final VersionedThinDiskLRURegionEntryOffHeapFactory serializedKeyFactory =
+      new VersionedThinDiskLRURegionEntryOffHeapFactory(false, true);
 
   public static RegionEntryFactory getEntryFactory() {
     return factory;
   }
 
   private static class VersionedThinDiskLRURegionEntryOffHeapFactory implements RegionEntryFactory {
+    /**
+     * If true, entries with inlined Integer, Long and String keys are created without the fields
+     * that link them into a CustomEntryConcurrentHashMap.
+     */
+    private final boolean unlinked;
+
+    /**
+     * If true, entries whose keys can not be inlined store their key serialized off heap.
+     */
+    private final boolean serializedKeys;
+
+    VersionedThinDiskLRURegionEntryOffHeapFactory(boolean unlinked, boolean serializedKeys) {
+      this.unlinked = unlinked;
+      this.serializedKeys = serializedKeys;
+    }
+
     public RegionEntry createEntry(RegionEntryContext context, Object key, Object value) {
       if (InlineKeyHelper.INLINE_REGION_KEYS) {
         Class<?> keyClass = key.getClass();
         if (keyClass == Integer.class) {
+          if (this.unlinked) {
+            return new VersionedThinDiskLRURegionEntryOffHeapIntKeyUnlinked(context, (Integer) key,
+                value);
+          }
           return new VersionedThinDiskLRURegionEntryOffHeapIntKey(context, (Integer) key, value);
         } else if (keyClass == Long.class) {
+          if (this.unlinked) {
+            return new VersionedThinDiskLRURegionEntryOffHeapLongKeyUnlinked(context, (Long) key,
+                value);
+          }
           return new VersionedThinDiskLRURegionEntryOffHeapLongKey(context, (Long) key, value);
         } else if (keyClass == String.class) {
           final String skey = (String) key;
@@ -44,9 +76,17 @@ public abstract class VersionedThinDiskLRURegionEntryOffHeap extends VersionedTh
           if (info != null) {
             final boolean byteEncoded = info;
             if (skey.length() <= InlineKeyHelper.getMaxInlineStringKey(1, byteEncoded)) {
+              if (this.unlinked) {
+                return new VersionedThinDiskLRURegionEntryOffHeapStringKey1Unlinked(context, skey,
+                    value, byteEncoded);
+              }
               return new VersionedThinDiskLRURegionEntryOffHeapStringKey1(context, skey, value,
                   byteEncoded);
             } else {
+              if (this.unlinked) {
+                return new VersionedThinDiskLRURegionEntryOffHeapStringKey2Unlinked(context, skey,
+                    value, byteEncoded);
+              }
               return new VersionedThinDiskLRURegionEntryOffHeapStringKey2(context, skey, value,
                   byteEncoded);
             }
@@ -55,6 +95,13 @@ public abstract class VersionedThinDiskLRURegionEntryOffHeap extends VersionedTh
           return new VersionedThinDiskLRURegionEntryOffHeapUUIDKey(context, (UUID) key, value);
         }
       }
+      if (this.serializedKeys) {
+        long keyAddress = OffHeapRegionEntryHelper.serializeKey(key);
+        if (keyAddress != 0L) {
+          return new VersionedThinDiskLRURegionEntryOffHeapSerializedKey(context, keyAddress,
+              value);
+        }
+      }
       return new VersionedThinDiskLRURegionEntryOffHeapObjectKey(context, key, value);
     }
 
@@ -70,7 +117,19 @@ public abstract class VersionedThinDiskLRURegionEntryOffHeap extends VersionedTh
 
     @Override
     public RegionEntryFactory makeOnHeap() {
-      return VersionedThinDiskLRURegionEntryHeap.getEntryFactory();
+      RegionEntryFactory onHeap = VersionedThinDiskLRURegionEntryHeap.getEntryFactory();
+      return this.unlinked ? onHeap.makeUnlinked() : onHeap;
+    }
+
+    @Override
+    public RegionEntryFactory makeUnlinked() {
+      return unlinkedFactory;
+    }
+
+    @Override
+    public RegionEntryFactory makeSerializedKeys() {
+      // a map of primitive keys has no keys to serialize
+      return this.unlinked ? this : serializedKeyFactory;
     }
   }
 }
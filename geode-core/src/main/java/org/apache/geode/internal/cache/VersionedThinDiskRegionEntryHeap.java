@@ -23,19 +23,39 @@ public abstract class VersionedThinDiskRegionEntryHeap extends VersionedThinDisk
   }
 
   private static final VersionedThinDiskRegionEntryHeapFactory factory =
-      new VersionedThinDiskRegionEntryHeapFactory();
+      new VersionedThinDiskRegionEntryHeapFactory(false);
+
+  private static final VersionedThinDiskRegionEntryHeapFactory unlinkedFactory =
+      new VersionedThinDiskRegionEntryHeapFactory(true);
 
   public static RegionEntryFactory getEntryFactory() {
     return factory;
   }
 
   private static class VersionedThinDiskRegionEntryHeapFactory implements RegionEntryFactory {
+    /**
+     * If true, entries with inlined Integer, Long and String keys are created without the fields
+     * that link them into a CustomEntryConcurrentHashMap.
+     */
+    private final boolean unlinked;
+
+    VersionedThinDiskRegionEntryHeapFactory(boolean unlinked) {
+      this.unlinked = unlinked;
+    }
+
     public RegionEntry createEntry(RegionEntryContext context, Object key, Object value) {
       if (InlineKeyHelper.INLINE_REGION_KEYS) {
         Class<?> keyClass = key.getClass();
         if (keyClass == Integer.class) {
+          if (this.unlinked) {
+            return new VersionedThinDiskRegionEntryHeapIntKeyUnlinked(context, (Integer) key,
+                value);
+          }
           return new VersionedThinDiskRegionEntryHeapIntKey(context, (Integer) key, value);
         } else if (keyClass == Long.class) {
+          if (this.unlinked) {
+            return new VersionedThinDiskRegionEntryHeapLongKeyUnlinked(context, (Long) key, value);
+          }
           return new VersionedThinDiskRegionEntryHeapLongKey(context, (Long) key, value);
         } else if (keyClass == String.class) {
           final String skey = (String) key;
@@ -43,9 +63,17 @@ public abstract class VersionedThinDiskRegionEntryHeap extends VersionedThinDisk
           if (info != null) {
             final boolean byteEncoded = info;
             if (skey.length() <= InlineKeyHelper.getMaxInlineStringKey(1, byteEncoded)) {
+              if (this.unlinked) {
+                return new VersionedThinDiskRegionEntryHeapStringKey1Unlinked(context, skey, value,
+                    byteEncoded);
+              }
               return new VersionedThinDiskRegionEntryHeapStringKey1(context, skey, value,
                   byteEncoded);
             } else {
+              if (this.unlinked) {
+                return new VersionedThinDiskRegionEntryHeapStringKey2Unlinked(context, skey, value,
+                    byteEncoded);
+              }
               return new VersionedThinDiskRegionEntryHeapStringKey2(context, skey, value,
                   byteEncoded);
             }
@@ -71,5 +99,15 @@ public abstract class VersionedThinDiskRegionEntryHeap extends VersionedThinDisk
     public RegionEntryFactory makeOnHeap() {
       return this;
     }
+
+    @Override
+    public RegionEntryFactory makeUnlinked() {
+      return unlinkedFactory;
+    }
+
+    @Override
+    public RegionEntryFactory makeSerializedKeys() {
+      return this;
+    }
   }
 }
@@ -23,19 +23,38 @@ public abstract class VersionedThinLRURegionEntryHeap extends VersionedThinLRURe
   }
 
   private static final VersionedThinLRURegionEntryHeapFactory factory =
-      new VersionedThinLRURegionEntryHeapFactory();
+      new VersionedThinLRURegionEntryHeapFactory(false);
+
+  private static final VersionedThinLRURegionEntryHeapFactory unlinkedFactory =
+      new VersionedThinLRURegionEntryHeapFactory(true);
 
   public static RegionEntryFactory getEntryFactory() {
     return factory;
   }
 
   private static class VersionedThinLRURegionEntryHeapFactory implements RegionEntryFactory {
+    /**
+     * If true, entries with inlined Integer, Long and String keys are created without the fields
+     * that link them into a CustomEntryConcurrentHashMap.
+     */
+    private final boolean unlinked;
+
+    VersionedThinLRURegionEntryHeapFactory(boolean unlinked) {
+      this.unlinked = unlinked;
+    }
+
     public RegionEntry createEntry(RegionEntryContext context, Object key, Object value) {
       if (InlineKeyHelper.INLINE_REGION_KEYS) {
         Class<?> keyClass = key.getClass();
         if (keyClass == Integer.class) {
+          if (this.unlinked) {
+            return new VersionedThinLRURegionEntryHeapIntKeyUnlinked(context, (Integer) key, value);
+          }
           return new VersionedThinLRURegionEntryHeapIntKey(context, (Integer) key, value);
         } else if (keyClass == Long.class) {
+          if (this.unlinked) {
+            return new VersionedThinLRURegionEntryHeapLongKeyUnlinked(context, (Long) key, value);
+          }
           return new VersionedThinLRURegionEntryHeapLongKey(context, (Long) key, value);
         } else if (keyClass == String.class) {
           final String skey = (String) key;
@@ -43,9 +62,17 @@ public abstract class VersionedThinLRURegionEntryHeap extends VersionedThinLRURe
           if (info != null) {
             final boolean byteEncoded = info;
             if (skey.length() <= InlineKeyHelper.getMaxInlineStringKey(1, byteEncoded)) {
+              if (this.unlinked) {
+                return new VersionedThinLRURegionEntryHeapStringKey1Unlinked(context, skey, value,
+                    byteEncoded);
+              }
               return new VersionedThinLRURegionEntryHeapStringKey1(context, skey, value,
                   byteEncoded);
             } else {
+              if (this.unlinked) {
+                return new VersionedThinLRURegionEntryHeapStringKey2Unlinked(context, skey, value,
+                    byteEncoded);
+              }
               return new VersionedThinLRURegionEntryHeapStringKey2(context, skey, value,
                   byteEncoded);
             }
@@ -71,5 +98,15 @@ public abstract class VersionedThinLRURegionEntryHeap extends VersionedThinLRURe
     public RegionEntryFactory makeOnHeap() {
       return this;
     }
+
+    @Override
+    public RegionEntryFactory makeUnlinked() {
+      return unlinkedFactory;
+    }
+
+    @Override
+    public RegionEntryFactory makeSerializedKeys() {
+      return this;
+    }
   }
 }
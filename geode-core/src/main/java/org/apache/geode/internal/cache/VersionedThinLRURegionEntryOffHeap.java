@@ -16,6 +16,8 @@ package org.apache.geode.internal.cache;
 
 import java.util.UUID;
 
+import org.apache.geode.internal.offheap.OffHeapRegionEntryHelper;
+
 public abstract class VersionedThinLRURegionEntryOffHeap extends VersionedThinLRURegionEntry
     implements OffHeapRegionEntry {
 
@@ -24,19 +26,49 @@ public abstract class VersionedThinLRURegionEntryOffHeap extends VersionedThinLR
   }
 
   private static final VersionedThinLRURegionEntryOffHeapFactory factory =
-      new VersionedThinLRURegionEntryOffHeapFactory();
+      new VersionedThinLRURegionEntryOffHeapFactory(false, false);
+
+  private static final VersionedThinLRURegionEntryOffHeapFactory unlinkedFactory =
+      new VersionedThinLRURegionEntryOffHeapFactory(true, false);
+
+  private static final VersionedThinLRURegionEntryOffHeapFactory serializedKeyFactory =
+      new VersionedThinLRURegionEntryOffHeapFactory(false, true);
 
   public static RegionEntryFactory getEntryFactory() {
     return factory;
   }
 
   private static class VersionedThinLRURegionEntryOffHeapFactory implements RegionEntryFactory {
+    /**
+     * If true, entries with inlined Integer, Long and String keys are created without the fields
+     * that link them into a CustomEntryConcurrentHashMap.
+     */
+    private final boolean unlinked;
+
+    /**
+     * If true, entries whose keys can not be inlined store their key serialized off heap.
+     */
+    private final boolean serializedKeys;
+
+    VersionedThinLRURegionEntryOffHeapFactory(boolean unlinked, boolean serializedKeys) {
+      this.unlinked = unlinked;
+      this.serializedKeys = serializedKeys;
+    }
+
     public RegionEntry createEntry(RegionEntryContext context, Object key, Object value) {
       if (InlineKeyHelper.INLINE_REGION_KEYS) {
         Class<?> keyClass = key.getClass();
         if (keyClass == Integer.class) {
+          if (this.unlinked) {
+            return new VersionedThinLRURegionEntryOffHeapIntKeyUnlinked(context, (Integer) key,
+                value);
+          }
           return new VersionedThinLRURegionEntryOffHeapIntKey(context, (Integer) key, value);
         } else if (keyClass == Long.class) {
+          if (this.unlinked) {
+            return new VersionedThinLRURegionEntryOffHeapLongKeyUnlinked(context, (Long) key,
+                value);
+          }
           return new VersionedThinLRURegionEntryOffHeapLongKey(context, (Long) key, value);
         } else if (keyClass == String.class) {
           final String skey = (String) key;
@@ -44,9 +76,17 @@ public abstract class VersionedThinLRURegionEntryOffHeap extends VersionedThinLR
           if (info != null) {
             final boolean byteEncoded = info;
             if (skey.length() <= InlineKeyHelper.getMaxInlineStringKey(1, byteEncoded)) {
+              if (this.unlinked) {
+                return new VersionedThinLRURegionEntryOffHeapStringKey1Unlinked(context, skey,
+                    value, byteEncoded);
+              }
               return new VersionedThinLRURegionEntryOffHeapStringKey1(context, skey, value,
                   byteEncoded);
             } else {
+              if (this.unlinked) {
+                return new VersionedThinLRURegionEntryOffHeapStringKey2Unlinked(context, skey,
+                    value, byteEncoded);
+              }
               return new VersionedThinLRURegionEntryOffHeapStringKey2(context, skey, value,
                   byteEncoded);
             }
@@ -55,6 +95,12 @@ public abstract class VersionedThinLRURegionEntryOffHeap extends VersionedThinLR
           return new VersionedThinLRURegionEntryOffHeapUUIDKey(context, (UUID) key, value);
         }
       }
+      if (this.serializedKeys) {
+        long keyAddress = OffHeapRegionEntryHelper.serializeKey(key);
+        if (keyAddress != 0L) {
+          return new VersionedThinLRURegionEntryOffHeapSerializedKey(context, keyAddress, value);
+        }
+      }
       return new VersionedThinLRURegionEntryOffHeapObjectKey(context, key, value);
     }
 
@@ -70,7 +116,19 @@ public abstract class VersionedThinLRURegionEntryOffHeap extends VersionedThinLR
 
     @Override
     public RegionEntryFactory makeOnHeap() {
-      return VersionedThinLRURegionEntryHeap.getEntryFactory();
+      RegionEntryFactory onHeap = VersionedThinLRURegionEntryHeap.getEntryFactory();
+      return this.unlinked ? onHeap.makeUnlinked() : onHeap;
+    }
+
+    @Override
+    public RegionEntryFactory makeUnlinked() {
+      return unlinkedFactory;
+    }
+
+    @Override
+    public RegionEntryFactory makeSerializedKeys() {
+      // a map of primitive keys has no keys to serialize
+      return this.unlinked ? this : serializedKeyFactory;
     }
   }
 }
@@ -23,19 +23,38 @@ public abstract class VersionedThinRegionEntryHeap extends VersionedThinRegionEn
   }
 
   private static final VersionedThinRegionEntryHeapFactory factory =
-      new VersionedThinRegionEntryHeapFactory();
+      new VersionedThinRegionEntryHeapFactory(false);
+
+  private static final VersionedThinRegionEntryHeapFactory unlinkedFactory =
+      new VersionedThinRegionEntryHeapFactory(true);
 
   public static RegionEntryFactory getEntryFactory() {
     return factory;
   }
 
   private static class VersionedThinRegionEntryHeapFactory implements RegionEntryFactory {
+    /**
+     * If true, entries with inlined Integer, Long and String keys are created without the fields
+     * that link them into a CustomEntryConcurrentHashMap.
+     */
+    private final boolean unlinked;
+
+    VersionedThinRegionEntryHeapFactory(boolean unlinked) {
+      this.unlinked = unlinked;
+    }
+
     public RegionEntry createEntry(RegionEntryContext context, Object key, Object value) {
       if (InlineKeyHelper.INLINE_REGION_KEYS) {
         Class<?> keyClass = key.getClass();
         if (keyClass == Integer.class) {
+          if (this.unlinked) {
+            return new VersionedThinRegionEntryHeapIntKeyUnlinked(context, (Integer) key, value);
+          }
           return new VersionedThinRegionEntryHeapIntKey(context, (Integer) key, value);
         } else if (keyClass == Long.class) {
+          if (this.unlinked) {
+            return new VersionedThinRegionEntryHeapLongKeyUnlinked(context, (Long) key, value);
+          }
           return new VersionedThinRegionEntryHeapLongKey(context, (Long) key, value);
         } else if (keyClass == String.class) {
           final String skey = (String) key;
@@ -43,8 +62,16 @@ public abstract class VersionedThinRegionEntryHeap extends VersionedThinRegionEn
           if (info != null) {
             final boolean byteEncoded = info;
             if (skey.length() <= InlineKeyHelper.getMaxInlineStringKey(1, byteEncoded)) {
+              if (this.unlinked) {
+                return new VersionedThinRegionEntryHeapStringKey1Unlinked(context, skey, value,
+                    byteEncoded);
+              }
               return new VersionedThinRegionEntryHeapStringKey1(context, skey, value, byteEncoded);
             } else {
+              if (this.unlinked) {
+                return new VersionedThinRegionEntryHeapStringKey2Unlinked(context, skey, value,
+                    byteEncoded);
+              }
               return new VersionedThinRegionEntryHeapStringKey2(context, skey, value, byteEncoded);
             }
           }
@@ -69,5 +96,15 @@ public abstract class VersionedThinRegionEntryHeap extends VersionedThinRegionEn
     public RegionEntryFactory makeOnHeap() {
       return this;
     }
+
+    @Override
+    public RegionEntryFactory makeUnlinked() {
+      return unlinkedFactory;
+    }
+
+    @Override
+    public RegionEntryFactory makeSerializedKeys() {
+      return this;
+    }
   }
 }
@@ -16,6 +16,8 @@ package org.apache.geode.internal.cache;
 
 import java.util.UUID;
 
+import org.apache.geode.internal.offheap.OffHeapRegionEntryHelper;
+
 public abstract class VersionedThinRegionEntryOffHeap extends VersionedThinRegionEntry
     implements OffHeapRegionEntry {
 
@@ -24,19 +26,47 @@ public abstract class VersionedThinRegionEntryOffHeap extends VersionedThinRegio
   }
 
   private static final VersionedThinRegionEntryOffHeapFactory factory =
-      new VersionedThinRegionEntryOffHeapFactory();
+      new VersionedThinRegionEntryOffHeapFactory(false, false);
+
+  private static final VersionedThinRegionEntryOffHeapFactory unlinkedFactory =
+      new VersionedThinRegionEntryOffHeapFactory(true, false);
+
+  private static final VersionedThinRegionEntryOffHeapFactory serializedKeyFactory =
+      new VersionedThinRegionEntryOffHeapFactory(false, true);
 
   public static RegionEntryFactory getEntryFactory() {
     return factory;
   }
 
   private static class VersionedThinRegionEntryOffHeapFactory implements RegionEntryFactory {
+    /**
+     * If true, entries with inlined Integer, Long and String keys are created without the fields
+     * that link them into a CustomEntryConcurrentHashMap.
+     */
+    private final boolean unlinked;
+
+    /**
+     * If true, entries whose keys can not be inlined store their key serialized off heap.
+     */
+    private final boolean serializedKeys;
+
+    VersionedThinRegionEntryOffHeapFactory(boolean unlinked, boolean serializedKeys) {
+      this.unlinked = unlinked;
+      this.serializedKeys = serializedKeys;
+    }
+
     public RegionEntry createEntry(RegionEntryContext context, Object key, Object value) {
       if (InlineKeyHelper.INLINE_REGION_KEYS) {
         Class<?> keyClass = key.getClass();
         if (keyClass == Integer.class) {
+          if (this.unlinked) {
+            return new VersionedThinRegionEntryOffHeapIntKeyUnlinked(context, (Integer) key, value);
+          }
           return new VersionedThinRegionEntryOffHeapIntKey(context, (Integer) key, value);
         } else if (keyClass == Long.class) {
+          if (this.unlinked) {
+            return new VersionedThinRegionEntryOffHeapLongKeyUnlinked(context, (Long) key, value);
+          }
           return new VersionedThinRegionEntryOffHeapLongKey(context, (Long) key, value);
         } else if (keyClass == String.class) {
           final String skey = (String) key;
@@ -44,9 +74,17 @@ public abstract class VersionedThinRegionEntryOffHeap extends VersionedThinRegio
           if (info != null) {
             final boolean byteEncoded = info;
             if (skey.length() <= InlineKeyHelper.getMaxInlineStringKey(1, byteEncoded)) {
+              if (this.unlinked) {
+                return new VersionedThinRegionEntryOffHeapStringKey1Unlinked(context, skey, value,
+                    byteEncoded);
+              }
               return new VersionedThinRegionEntryOffHeapStringKey1(context, skey, value,
                   byteEncoded);
             } else {
+              if (this.unlinked) {
+                return new VersionedThinRegionEntryOffHeapStringKey2Unlinked(context, skey, value,
+                    byteEncoded);
+              }
               return new VersionedThinRegionEntryOffHeapStringKey2(context, skey, value,
                   byteEncoded);
             }
@@ -55,6 +93,12 @@ public abstract class VersionedThinRegionEntryOffHeap extends VersionedThinRegio
           return new VersionedThinRegionEntryOffHeapUUIDKey(context, (UUID) key, value);
         }
       }
+      if (this.serializedKeys) {
+        long keyAddress = OffHeapRegionEntryHelper.serializeKey(key);
+        if (keyAddress != 0L) {
+          return new VersionedThinRegionEntryOffHeapSerializedKey(context, keyAddress, value);
+        }
+      }
       return new VersionedThinRegionEntryOffHeapObjectKey(context, key, value);
     }
 
@@ -70,7 +114,19 @@ public abstract class VersionedThinRegionEntryOffHeap extends VersionedThinRegio
 
     @Override
     public RegionEntryFactory makeOnHeap() {
-      return VersionedThinRegionEntryHeap.getEntryFactory();
+      RegionEntryFactory onHeap = VersionedThinRegionEntryHeap.getEntryFactory();
+      return this.unlinked ? onHeap.makeUnlinked() : onHeap;
+    }
+
+    @Override
+    public RegionEntryFactory makeUnlinked() {
+      return unlinkedFactory;
+    }
+
+    @Override
+    public RegionEntryFactory makeSerializedKeys() {
+      // a map of primitive keys has no keys to serialize
+      return this.unlinked ? this : serializedKeyFactory;
     }
   }
 }
@@ -32,6 +32,7 @@ import org.apache.geode.distributed.internal.LonerDistributionManager;
 import org.apache.geode.distributed.internal.PooledExecutorWithDMStats;
 import org.apache.geode.distributed.internal.ReplyProcessor21;
 import org.apache.geode.internal.SystemTimer;
+import org.apache.geode.internal.VirtualThreads;
 import org.apache.geode.internal.cache.BucketAdvisor;
 import org.apache.geode.internal.cache.BucketAdvisor.BucketProfile;
 import org.apache.geode.internal.cache.InternalCache;
@@ -72,6 +73,7 @@ import java.nio.channels.SelectionKey;
 import java.nio.channels.Selector;
 import java.nio.channels.ServerSocketChannel;
 import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
@@ -143,10 +145,6 @@ public class AcceptorImpl extends Acceptor implements Runnable, CommBufferPool {
    */
   private final Selector selector;
   // private final Selector tmpSel;
-  /**
-   * Used for managing direct byte buffer for client comms; null if no selector.
-   */
-  private final LinkedBlockingQueue commBufferQueue;
   /**
    * Used to timeout accepted sockets that we are waiting for the handshake packet
    */
@@ -159,6 +157,30 @@ public class AcceptorImpl extends Acceptor implements Runnable, CommBufferPool {
    * All the objects currently registered with selector.
    */
   private final HashSet selectorRegistrations;
+  /**
+   * The pool's queue of client requests waiting for a thread; null if no selector.
+   */
+  private final BlockingQueue<Runnable> workerQueue;
+  /**
+   * Connections with a complete request header that could not be queued because
+   * {@link #workerQueue} was full. Only accessed by the selector thread.
+   */
+  private final ArrayDeque<ServerConnection> deferredRequests = new ArrayDeque<>();
+  /**
+   * The most requests that may wait in {@link #deferredRequests}. Once it is reached the selector
+   * stops selecting reads until the pool takes a request from its queue.
+   */
+  private final int maxDeferredRequests;
+  /**
+   * Whether the registered connections are selected without read interest because
+   * {@link #maxDeferredRequests} requests are deferred. Only accessed by the selector thread.
+   */
+  private boolean readsPaused;
+  /**
+   * Whether {@link #deferredRequests} has requests, so that the selector thread is woken up when
+   * the pool takes a request from its queue.
+   */
+  private volatile boolean hasDeferredRequests;
   /**
    * tcpNoDelay setting for outgoing sockets
    */
@@ -378,21 +400,18 @@ public class AcceptorImpl extends Acceptor implements Runnable, CommBufferPool {
       Selector tmp_s = null;
       // Selector tmp2_s = null;
       LinkedBlockingQueue tmp_q = null;
-      LinkedBlockingQueue tmp_commQ = null;
       HashSet tmp_hs = null;
       SystemTimer tmp_timer = null;
       if (isSelector()) {
         tmp_s = Selector.open(); // no longer catch ex to fix bug 36907
         // tmp2_s = Selector.open(); // workaround for bug 39624
         tmp_q = new LinkedBlockingQueue();
-        tmp_commQ = new LinkedBlockingQueue();
         tmp_hs = new HashSet(512);
         tmp_timer = new SystemTimer(internalCache.getDistributedSystem(), true);
       }
       this.selector = tmp_s;
       // this.tmpSel = tmp2_s;
       this.selectorQueue = tmp_q;
-      this.commBufferQueue = tmp_commQ;
       this.selectorRegistrations = tmp_hs;
       this.hsTimer = tmp_timer;
       this.tcpNoDelay = tcpNoDelay;
@@ -531,6 +550,8 @@ public class AcceptorImpl extends Acceptor implements Runnable, CommBufferPool {
 
     {
       ThreadPoolExecutor tmp_pool = null;
+      BlockingQueue<Runnable> tmp_workerQueue = null;
+      int tmp_maxDeferredRequests = Integer.MAX_VALUE;
       String gName = "ServerConnection "
           // + serverSock.getInetAddress()
           + "on port " + this.localPort;
@@ -557,12 +578,22 @@ public class AcceptorImpl extends Acceptor implements Runnable, CommBufferPool {
               }
             }
           };
+          if (VIRTUAL_THREADS) {
+            return VirtualThreads.newThread(socketThreadGroup, r, tName);
+          }
           return new Thread(socketThreadGroup, r, tName);
         }
       };
       try {
         if (isSelector()) {
-          tmp_pool = new PooledExecutorWithDMStats(new LinkedBlockingQueue(), this.maxThreads,
+          int queueSize = SELECTOR_QUEUE_SIZE < 0 ? this.maxThreads : SELECTOR_QUEUE_SIZE;
+          if (queueSize == 0) {
+            tmp_workerQueue = new LinkedBlockingQueue<Runnable>();
+          } else {
+            tmp_workerQueue = new WorkerQueue(queueSize);
+            tmp_maxDeferredRequests = queueSize;
+          }
+          tmp_pool = new PooledExecutorWithDMStats(tmp_workerQueue, this.maxThreads,
               getStats().getCnxPoolHelper(), socketThreadFactory, Integer.MAX_VALUE);
         } else {
           tmp_pool = new ThreadPoolExecutor(MINIMUM_MAX_CONNECTIONS, this.maxConnections, 0L,
@@ -574,6 +605,8 @@ public class AcceptorImpl extends Acceptor implements Runnable, CommBufferPool {
         throw poolInitException;
       }
       this.pool = tmp_pool;
+      this.workerQueue = tmp_workerQueue;
+      this.maxDeferredRequests = tmp_maxDeferredRequests;
     }
     {
       ThreadPoolExecutor tmp_hsPool = null;
@@ -661,8 +694,21 @@ public class AcceptorImpl extends Acceptor implements Runnable, CommBufferPool {
   @Deprecated
   private final static int DEPRECATED_SELECTOR_POOL_SIZE =
       Integer.getInteger("BridgeServer.SELECTOR_POOL_SIZE", 16).intValue();
+  /**
+   * The number of client requests that may wait for a thread when using a selector. Once it is
+   * reached the selector stops reading from ready connections, which pushes back on their clients
+   * through TCP flow control. Defaults to max-threads; zero means no limit.
+   */
+  private final static int SELECTOR_QUEUE_SIZE =
+      Integer.getInteger("BridgeServer.SELECTOR_QUEUE_SIZE", -1).intValue();
   private final static int HANDSHAKE_POOL_SIZE =
       Integer.getInteger("BridgeServer.HANDSHAKE_POOL_SIZE", 4).intValue();
+  /**
+   * Whether client connections are served on virtual threads when the JVM supports them. A virtual
+   * thread blocked on its socket holds no platform thread, so max-threads can be raised to the
+   * number of clients that should be served at once.
+   */
+  private final static boolean VIRTUAL_THREADS = Boolean.getBoolean("BridgeServer.VIRTUAL_THREADS");
 
   @Override
   public void start() throws IOException {
@@ -771,6 +817,17 @@ public class AcceptorImpl extends Acceptor implements Runnable, CommBufferPool {
       }
       sc = (ServerConnection) this.selectorQueue.poll();
     }
+    sc = this.deferredRequests.poll();
+    while (sc != null) {
+      try {
+        finishCon(sc);
+      } catch (CancelException e) {
+        if (cce == null) {
+          cce = e;
+        }
+      }
+      sc = this.deferredRequests.poll();
+    }
     Iterator it = selectorRegistrations.iterator();
     while (it.hasNext()) {
       try {
@@ -925,17 +982,8 @@ public class AcceptorImpl extends Acceptor implements Runnable, CommBufferPool {
                 }
                 continue;
               }
-              try {
-                AcceptorImpl.this.stats.incThreadQueueSize();
-                AcceptorImpl.this.pool.execute(sc);
-              } catch (RejectedExecutionException rejected) {
-                finishCon(sc);
-                AcceptorImpl.this.stats.decThreadQueueSize();
-                if (!isRunning()) {
-                  break;
-                }
-                logger.warn(LocalizedMessage
-                    .create(LocalizedStrings.AcceptorImpl_UNEXPECTED_EXCEPTION, rejected));
+              if (!dispatchOrDeferRequest(sc)) {
+                break;
               }
             } else if (tmpsk.isValid() && tmpsk.isWritable()) {
               // this is expected
@@ -983,6 +1031,135 @@ public class AcceptorImpl extends Acceptor implements Runnable, CommBufferPool {
 
   private int registeredKeys = 0;
 
+  /**
+   * Returns true if the pool cannot queue another request without blocking the selector thread.
+   */
+  private boolean isWorkerQueueFull() {
+    return this.workerQueue.remainingCapacity() == 0;
+  }
+
+  /**
+   * Hands a connection whose request header has been read to the thread pool.
+   *
+   * @return false if the acceptor is no longer running
+   */
+  private boolean dispatchRequest(ServerConnection sc) {
+    try {
+      this.stats.incThreadQueueSize();
+      this.pool.execute(sc);
+    } catch (RejectedExecutionException rejected) {
+      finishCon(sc);
+      this.stats.decThreadQueueSize();
+      if (!isRunning()) {
+        return false;
+      }
+      logger.warn(LocalizedMessage.create(LocalizedStrings.AcceptorImpl_UNEXPECTED, rejected));
+    }
+    return true;
+  }
+
+  /**
+   * Hands a connection whose request header has been read to the thread pool, or defers it if
+   * the pool's queue is full or other requests are already waiting for it.
+   *
+   * @return false if the acceptor is no longer running
+   */
+  private boolean dispatchOrDeferRequest(ServerConnection sc) {
+    if (this.deferredRequests.isEmpty() && !isWorkerQueueFull()) {
+      return dispatchRequest(sc);
+    }
+    // keep requests in arrival order and stop reading from this
+    // client until the pool can accept more work
+    this.deferredRequests.add(sc);
+    // set before the queue is checked again so that a take in between wakes us up
+    this.hasDeferredRequests = true;
+    return true;
+  }
+
+  /**
+   * Moves as many deferred requests to the thread pool as its queue has room for.
+   *
+   * @return false if the acceptor is no longer running
+   */
+  private boolean dispatchDeferredRequests() {
+    while (!this.deferredRequests.isEmpty() && !isWorkerQueueFull()) {
+      ServerConnection sc = this.deferredRequests.poll();
+      if (sc.isTerminated()) {
+        continue;
+      }
+      if (!dispatchRequest(sc)) {
+        return false;
+      }
+    }
+    if (this.deferredRequests.isEmpty()) {
+      this.hasDeferredRequests = false;
+    }
+    return true;
+  }
+
+  /**
+   * Stops selecting reads from the registered connections while {@link #maxDeferredRequests}
+   * requests are deferred, and selects them again once the pool has taken some. The selector thread
+   * keeps waiting in select() meanwhile, and the clients whose sockets are not read are held back
+   * by TCP flow control.
+   *
+   * @param registered whether connections were registered for reads since the last call
+   */
+  private void updateReadInterest(boolean registered) {
+    boolean pause = this.deferredRequests.size() >= this.maxDeferredRequests;
+    if (pause == this.readsPaused && !(pause && registered)) {
+      return;
+    }
+    this.readsPaused = pause;
+    int ops = pause ? 0 : SelectionKey.OP_READ;
+    for (SelectionKey key : this.selector.keys()) {
+      try {
+        if (key.isValid()) {
+          key.interestOps(ops);
+        }
+      } catch (CancelledKeyException ignore) {
+        // the connection was closed
+      }
+    }
+  }
+
+  /**
+   * Called by the pool after it took a request from its queue.
+   */
+  private void workerQueueSpaceAvailable() {
+    if (this.hasDeferredRequests) {
+      wakeupSelector();
+    }
+  }
+
+  /**
+   * The pool's queue of client requests when it is bounded. Wakes up the selector thread when a
+   * request is taken while others are deferred, so that they are dispatched right away.
+   */
+  private class WorkerQueue extends LinkedBlockingQueue<Runnable> {
+    private static final long serialVersionUID = 2618604993407478383L;
+
+    WorkerQueue(int capacity) {
+      super(capacity);
+    }
+
+    @Override
+    public Runnable take() throws InterruptedException {
+      Runnable job = super.take();
+      workerQueueSpaceAvailable();
+      return job;
+    }
+
+    @Override
+    public Runnable poll(long timeout, TimeUnit unit) throws InterruptedException {
+      Runnable job = super.poll(timeout, unit);
+      if (job != null) {
+        workerQueueSpaceAvailable();
+      }
+      return job;
+    }
+  }
+
   public void runSelectorLoop() {
     // int zeroEventsCount = 0;
     try {
@@ -998,13 +1175,18 @@ public class AcceptorImpl extends Acceptor implements Runnable, CommBufferPool {
             break;
           }
           ServerConnection sc;
+          boolean registered = false;
           registeredKeys = checkRegisteredKeys(registeredKeys);
-          if (registeredKeys == 0) {
+          if (!dispatchDeferredRequests()) {
+            break;
+          }
+          if (registeredKeys == 0 && this.deferredRequests.isEmpty()) {
             // do blocking wait on queue until we get some guys registered
             // with the selector
             sc = (ServerConnection) this.selectorQueue.take();
           } else {
-            // we already have some guys registered so just do a poll on queue
+            // we already have some guys registered, or deferred requests to wait
+            // for the pool in select, so just do a poll on queue
             sc = (ServerConnection) this.selectorQueue.poll();
           }
           while (sc != null) {
@@ -1023,12 +1205,15 @@ public class AcceptorImpl extends Acceptor implements Runnable, CommBufferPool {
               finishCon(sc);
               logger.warn(LocalizedMessage.create(LocalizedStrings.AcceptorImpl_IGNORING, ex));
             }
+            registered = true;
             sc = (ServerConnection) this.selectorQueue.poll();
           }
+          updateReadInterest(registered);
         }
-        if (registeredKeys == 0) {
+        if (registeredKeys == 0 && this.deferredRequests.isEmpty()) {
           continue;
         }
+        // woken up by registrations and by the pool taking a request when some are deferred
         int events = this.selector.select();
         // select() could have returned due to wakeup() during close of cache
         if (this.cache.getCancelCriterion().isCancelInProgress()) {
@@ -1039,6 +1224,8 @@ public class AcceptorImpl extends Acceptor implements Runnable, CommBufferPool {
           // if (zeroEventsCount > 0) {
           // zeroEventsCount = 0;
           checkForStuckKeys();
+          // it registers the connections for reads again
+          updateReadInterest(true);
 
           // try {
           // this.selector.close(); // this selector is sick!
@@ -1086,10 +1273,18 @@ public class AcceptorImpl extends Acceptor implements Runnable, CommBufferPool {
             // Remove the key from the selector's selectedKeys
             keysIterator.remove();
             final ServerConnection sc = (ServerConnection) key.attachment();
+            if (this.readsPaused) {
+              // read once the pool has taken some of the deferred requests
+              continue;
+            }
             try {
               if (key.isValid() && key.isReadable()) {
                 // this is the only event we currently register for
                 try {
+                  if (!sc.readHeaderNonBlocking()) {
+                    // leave it registered until the rest of the header arrives
+                    continue;
+                  }
                   key.cancel();
                   this.selectorRegistrations.remove(sc);
                   registeredKeys--;
@@ -1105,6 +1300,10 @@ public class AcceptorImpl extends Acceptor implements Runnable, CommBufferPool {
                 } catch (ClosedChannelException ignore) {
                   finishCon(sc);
                   continue;
+                } catch (EOFException ignore) {
+                  // the client closed its connection
+                  finishCon(sc);
+                  continue;
                 } catch (IOException ex) {
                   finishCon(sc);
                   if (isRunning()) {
@@ -1113,18 +1312,10 @@ public class AcceptorImpl extends Acceptor implements Runnable, CommBufferPool {
                   }
                   continue;
                 }
-                try {
-                  AcceptorImpl.this.stats.incThreadQueueSize();
-                  AcceptorImpl.this.pool.execute(sc);
-                } catch (RejectedExecutionException rejected) {
-                  finishCon(sc);
-                  AcceptorImpl.this.stats.decThreadQueueSize();
-                  if (!isRunning()) {
-                    break;
-                  }
-                  logger.warn(
-                      LocalizedMessage.create(LocalizedStrings.AcceptorImpl_UNEXPECTED, rejected));
+                if (!dispatchOrDeferRequest(sc)) {
+                  break;
                 }
+                updateReadInterest(false);
                 // } else if (key.isValid() && key.isConnectable()) {
                 // logger.info("DEBUG isConnectable and isValid key=" + key);
                 // finishCon(sc);
@@ -1361,20 +1552,14 @@ public class AcceptorImpl extends Acceptor implements Runnable, CommBufferPool {
   }
 
   private ByteBuffer takeCommBuffer() {
-    ByteBuffer result = (ByteBuffer) this.commBufferQueue.poll();
-    if (result == null) {
-      result = ByteBuffer.allocateDirect(this.socketBufferSize);
-    }
-    return result;
+    return ServerConnection.commBufferPool.acquire(this.socketBufferSize);
   }
 
   private void releaseCommBuffer(ByteBuffer bb) {
     if (bb == null) { // fix for bug 37107
       return;
     }
-    if (isRunning()) {
-      this.commBufferQueue.offer(bb);
-    }
+    ServerConnection.commBufferPool.release(bb);
   }
 
   public void incClientServerCnxCount() {
@@ -1604,7 +1789,6 @@ public class AcceptorImpl extends Acceptor implements Runnable, CommBufferPool {
       if (this.selectorThread != null) {
         this.selectorThread.interrupt();
       }
-      this.commBufferQueue.clear();
     }
   }
 
@@ -23,11 +23,13 @@ import org.apache.geode.cache.query.SelectResults;
 import org.apache.geode.cache.query.Struct;
 import org.apache.geode.cache.query.internal.CqEntry;
 import org.apache.geode.cache.query.internal.DefaultQuery;
+import org.apache.geode.cache.query.internal.StreamingResultsHandler;
 import org.apache.geode.cache.query.internal.cq.ServerCQ;
 import org.apache.geode.cache.query.internal.types.CollectionTypeImpl;
 import org.apache.geode.cache.query.internal.types.StructTypeImpl;
 import org.apache.geode.cache.query.types.CollectionType;
 import org.apache.geode.distributed.DistributedSystemDisconnectedException;
+import org.apache.geode.distributed.internal.DistributionConfig;
 import org.apache.geode.distributed.internal.DistributionStats;
 import org.apache.geode.internal.Version;
 import org.apache.geode.internal.cache.CachedDeserializable;
@@ -39,6 +41,7 @@ import org.apache.geode.internal.security.AuthorizeRequestPP;
 import org.apache.geode.internal.security.SecurityService;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.Collection;
 import java.util.Iterator;
 import java.util.List;
@@ -46,6 +49,16 @@ import java.util.Set;
 
 public abstract class BaseCommandQuery extends BaseCommand {
 
+  /**
+   * Whether to send the results of queries that need no further processing once collected to the
+   * client in chunks while the query is evaluated, rather than after all results were collected.
+   * Writing a chunk blocks the query until the client has read the previous ones, so a slow client
+   * holds up the query instead of the server accumulating its results. Not final so tests can set
+   * it.
+   */
+  static boolean STREAM_QUERY_RESULTS =
+      Boolean.getBoolean(DistributionConfig.GEMFIRE_PREFIX + "query.STREAM_RESULTS");
+
   /**
    * Process the give query and sends the resulset back to the client.
    *
@@ -99,10 +112,23 @@ public abstract class BaseCommandQuery extends BaseCommand {
       // in the future if we support arbitrary queries
       Object result = null;
 
-      if (params != null) {
-        result = query.execute(params);
-      } else {
-        result = query.execute();
+      // stream the results only if they are sent as they are
+      boolean streamResults = STREAM_QUERY_RESULTS && sendResults && cqQuery == null
+          && servConn.getPostAuthzRequest() == null;
+      if (streamResults) {
+        DefaultQuery.setStreamingResultsHandler(new QueryResultsStreamer(msg, query, queryString,
+            regionNames, servConn, securityService));
+      }
+      try {
+        if (params != null) {
+          result = query.execute(params);
+        } else {
+          result = query.execute();
+        }
+      } finally {
+        if (streamResults) {
+          DefaultQuery.setStreamingResultsHandler(null);
+        }
       }
 
       // Asif : Before conditioning the results check if any
@@ -188,7 +214,8 @@ public abstract class BaseCommandQuery extends BaseCommand {
         start = DistributionStats.getStatTime();
         stats.incProcessQueryTime(start - oldStart);
 
-        if (sendResults) {
+        // the header has already been sent if some of the results were streamed
+        if (sendResults && !queryResponseMsg.headerHasBeenSent()) {
           queryResponseMsg.setMessageType(MessageType.RESPONSE);
           queryResponseMsg.setTransactionId(msg.getTransactionId());
           queryResponseMsg.sendHeader();
@@ -210,11 +237,11 @@ public abstract class BaseCommandQuery extends BaseCommand {
           // send it as a part of ObjectPartList
           if (hasSerializedObjects) {
             sendResultsAsObjectPartList(numberOfChunks, servConn, selectResults.asList(), isStructs,
-                collectionType, queryString, cqQuery, sendCqResultsWithKey, sendResults,
+                collectionType, queryString, cqQuery, sendCqResultsWithKey, sendResults, true,
                 securityService);
           } else {
             sendResultsAsObjectArray(selectResults, numberOfChunks, servConn, isStructs,
-                collectionType, queryString, cqQuery, sendCqResultsWithKey, sendResults);
+                collectionType, queryString, cqQuery, sendCqResultsWithKey, sendResults, true);
           }
         }
 
@@ -235,6 +262,9 @@ public abstract class BaseCommandQuery extends BaseCommand {
             .toLocalizedString(result.getClass()));
       }
       msg.clearParts();
+    } catch (UncheckedIOException e) {
+      // writing a streamed chunk of the results failed
+      throw e.getCause();
     } catch (QueryInvalidException e) {
       // Handle this exception differently since it can contain
       // non-serializable objects.
@@ -349,8 +379,8 @@ public abstract class BaseCommandQuery extends BaseCommand {
 
   private void sendResultsAsObjectArray(SelectResults selectResults, int numberOfChunks,
       ServerConnection servConn, boolean isStructs, CollectionType collectionType,
-      String queryString, ServerCQ cqQuery, boolean sendCqResultsWithKey, boolean sendResults)
-      throws IOException {
+      String queryString, ServerCQ cqQuery, boolean sendCqResultsWithKey, boolean sendResults,
+      boolean lastResults) throws IOException {
     int resultIndex = 0;
     // For CQ only as we dont want CQEntries which have null values.
     int cqResultIndex = 0;
@@ -423,8 +453,8 @@ public abstract class BaseCommandQuery extends BaseCommand {
       }
 
       if (sendResults) {
-        writeQueryResponseChunk(results, collectionType, (resultIndex == selectResults.size()),
-            servConn);
+        writeQueryResponseChunk(results, collectionType,
+            lastResults && (resultIndex == selectResults.size()), servConn);
 
         if (logger.isDebugEnabled()) {
           logger.debug("{}: Sent chunk ({} of {}) of query response for query: {}",
@@ -441,8 +471,8 @@ public abstract class BaseCommandQuery extends BaseCommand {
 
   private void sendResultsAsObjectPartList(int numberOfChunks, ServerConnection servConn, List objs,
       boolean isStructs, CollectionType collectionType, String queryString, ServerCQ cqQuery,
-      boolean sendCqResultsWithKey, boolean sendResults, final SecurityService securityService)
-      throws IOException {
+      boolean sendCqResultsWithKey, boolean sendResults, boolean lastResults,
+      final SecurityService securityService) throws IOException {
     int resultIndex = 0;
     Object result = null;
     for (int j = 0; j < numberOfChunks; j++) {
@@ -492,8 +522,8 @@ public abstract class BaseCommandQuery extends BaseCommand {
       }
 
       if (sendResults) {
-        writeQueryResponseChunk(serializedObjs, collectionType, ((j + 1) == numberOfChunks),
-            servConn);
+        writeQueryResponseChunk(serializedObjs, collectionType,
+            lastResults && ((j + 1) == numberOfChunks), servConn);
 
         if (logger.isDebugEnabled()) {
           logger.debug("{}: Sent chunk ({} of {}) of query response for query: {}",
@@ -547,4 +577,63 @@ public abstract class BaseCommandQuery extends BaseCommand {
         null);
   }
 
+  /**
+   * Sends the chunks of results of a streamed query to the client as they are produced.
+   */
+  private class QueryResultsStreamer implements StreamingResultsHandler {
+    private final Message msg;
+    private final Query query;
+    private final String queryString;
+    private final Set regionNames;
+    private final ServerConnection servConn;
+    private final SecurityService securityService;
+
+    QueryResultsStreamer(Message msg, Query query, String queryString, Set regionNames,
+        ServerConnection servConn, SecurityService securityService) {
+      this.msg = msg;
+      this.query = query;
+      this.queryString = queryString;
+      this.regionNames = regionNames;
+      this.servConn = servConn;
+      this.securityService = securityService;
+    }
+
+    @Override
+    public int getChunkSize() {
+      return MAXIMUM_CHUNK_SIZE;
+    }
+
+    @Override
+    public void handleChunk(SelectResults chunk) {
+      CachedRegionHelper crHelper = this.servConn.getCachedRegionHelper();
+      for (Object regionName : this.regionNames) {
+        if (crHelper.getRegion((String) regionName) == null) {
+          throw new RegionDestroyedException(
+              LocalizedStrings.BaseCommand_REGION_DESTROYED_DURING_THE_EXECUTION_OF_THE_QUERY
+                  .toLocalizedString(),
+              (String) regionName);
+        }
+      }
+      CollectionType collectionType = getCollectionType(chunk);
+      boolean isStructs = collectionType.getElementType().isStructType();
+      int numberOfChunks = (int) Math.ceil(chunk.size() * 1.0 / MAXIMUM_CHUNK_SIZE);
+      try {
+        ChunkedMessage queryResponseMsg = this.servConn.getQueryResponseMessage();
+        if (!queryResponseMsg.headerHasBeenSent()) {
+          queryResponseMsg.setMessageType(MessageType.RESPONSE);
+          queryResponseMsg.setTransactionId(this.msg.getTransactionId());
+          queryResponseMsg.sendHeader();
+        }
+        if (((DefaultQuery) this.query).isKeepSerialized()) {
+          sendResultsAsObjectPartList(numberOfChunks, this.servConn, chunk.asList(), isStructs,
+              collectionType, this.queryString, null, false, true, false, this.securityService);
+        } else {
+          sendResultsAsObjectArray(chunk, numberOfChunks, this.servConn, isStructs,
+              collectionType, this.queryString, null, false, true, false);
+        }
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    }
+  }
 }
@@ -23,6 +23,7 @@ import org.apache.geode.internal.logging.LogService;
 import java.io.EOFException;
 import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.util.concurrent.locks.Lock;
 
 import org.apache.logging.log4j.Logger;
 
@@ -194,7 +195,9 @@ public class ChunkedMessage extends Message {
   public void readHeader() throws IOException {
     if (this.socket != null) {
       final ByteBuffer cb = getCommBuffer();
-      synchronized (cb) {
+      final Lock lock = getCommBufferLock();
+      lock.lock();
+      try {
         fetchHeader();
         final int type = cb.getInt();
         final int numParts = cb.getInt();
@@ -212,6 +215,8 @@ public class ChunkedMessage extends Message {
         this.messageType = type;
         this.numberOfParts = numParts; // Already set in setPayloadFields via setNumberOfParts
         this.transactionId = txid;
+      } finally {
+        lock.unlock();
       }
     } else {
       throw new IOException(LocalizedStrings.ChunkedMessage_DEAD_CONNECTION.toLocalizedString());
@@ -223,8 +228,12 @@ public class ChunkedMessage extends Message {
    */
   public void receiveChunk() throws IOException {
     if (this.socket != null) {
-      synchronized (getCommBuffer()) {
+      final Lock lock = getCommBufferLock();
+      lock.lock();
+      try {
         readChunk();
+      } finally {
+        lock.unlock();
       }
     } else {
       throw new IOException(LocalizedStrings.ChunkedMessage_DEAD_CONNECTION.toLocalizedString());
@@ -281,12 +290,16 @@ public class ChunkedMessage extends Message {
    */
   public void sendHeader() throws IOException {
     if (this.socket != null) {
-      synchronized (getCommBuffer()) {
+      final Lock lock = getCommBufferLock();
+      lock.lock();
+      try {
         getHeaderBytesForWrite();
         flushBuffer();
         // Darrel says: I see no need for the following os.flush() call
         // so I've deadcoded it for performance.
         // this.os.flush();
+      } finally {
+        lock.unlock();
       }
       this.currentPart = 0;
       this.headerSent = true;
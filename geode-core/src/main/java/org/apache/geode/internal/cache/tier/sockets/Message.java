@@ -24,6 +24,7 @@ import org.apache.geode.internal.cache.tier.MessageType;
 import org.apache.geode.internal.i18n.LocalizedStrings;
 import org.apache.geode.internal.logging.LogService;
 import org.apache.geode.internal.logging.log4j.LocalizedMessage;
+import org.apache.geode.internal.net.BufferPool;
 import org.apache.geode.internal.offheap.StoredObject;
 import org.apache.geode.internal.offheap.annotations.Unretained;
 import org.apache.geode.internal.util.BlobHelper;
@@ -40,6 +41,8 @@ import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * This class encapsulates the wire protocol. It provides accessors to encode and decode a message
@@ -105,6 +108,12 @@ public class Message {
 
   private static final int DEFAULT_CHUNK_SIZE = 1024;
 
+  /**
+   * The pool of the buffers that hold serialized parts. They are released when the parts are
+   * cleared, which is usually done by the thread that serialized them once the message was sent.
+   */
+  private static final BufferPool partBufferPool = BufferPool.createHeapPool();
+
   private static final byte[] TRUE = defineTrue();
   private static final byte[] FALSE = defineFalse();
 
@@ -138,6 +147,14 @@ public class Message {
   int currentPart = 0;
   private Part[] partsList = null;
   private ByteBuffer cachedCommBuffer;
+
+  /**
+   * Guards the comm buffer while this message reads or writes it. Messages that share a buffer,
+   * like those of a {@link ServerConnection}, are given a shared lock by setComms. A lock rather
+   * than a monitor so that a virtual thread blocked on the socket does not pin its carrier thread.
+   */
+  private final ReentrantLock ownCommBufferLock = new ReentrantLock();
+  private Lock commBufferLock = this.ownCommBufferLock;
   protected Socket socket = null;
   private SocketChannel socketChannel = null;
   private OutputStream outputStream = null;
@@ -367,8 +384,8 @@ public class Message {
     }
 
     // Create the HDOS with a flag telling it that it can keep any byte[] or ByteBuffers/ByteSources
-    // passed to it. Do NOT close the HeapDataOutputStream!
-    HeapDataOutputStream hdos = new HeapDataOutputStream(this.chunkSize, v, true);
+    // passed to it. Do NOT close the HeapDataOutputStream! The part closes it when cleared.
+    HeapDataOutputStream hdos = new HeapDataOutputStream(this.chunkSize, v, true, partBufferPool);
     try {
       BlobHelper.serializeTo(o, hdos);
     } catch (IOException ex) {
@@ -390,8 +407,8 @@ public class Message {
       v = null;
     }
 
-    // do NOT close the HeapDataOutputStream
-    HeapDataOutputStream hdos = new HeapDataOutputStream(this.chunkSize, v);
+    // do NOT close the HeapDataOutputStream; the part closes it when cleared
+    HeapDataOutputStream hdos = new HeapDataOutputStream(this.chunkSize, v, false, partBufferPool);
     try {
       BlobHelper.serializeTo(o, hdos);
     } catch (IOException ex) {
@@ -464,6 +481,10 @@ public class Message {
     return result;
   }
 
+  Lock getCommBufferLock() {
+    return this.commBufferLock;
+  }
+
   public ByteBuffer getCommBuffer() {
     if (this.cachedCommBuffer != null) {
       return this.cachedCommBuffer;
@@ -556,7 +577,9 @@ public class Message {
       if (commBuffer == null) {
         throw new IOException("No buffer");
       }
-      synchronized (commBuffer) {
+      final Lock lock = getCommBufferLock();
+      lock.lock();
+      try {
         long totalPartLen = 0;
         long headerLen = 0;
         int partsToTransmit = this.numberOfParts;
@@ -604,14 +627,17 @@ public class Message {
           if (partLen <= commBuffer.remaining()) {
             part.writeTo(commBuffer);
           } else {
-            flushBuffer();
+            int sentBytes = partLen;
             if (this.socketChannel != null) {
+              // the buffered headers are written along with the start of the part
+              sentBytes += commBuffer.position();
               part.writeTo(this.socketChannel, commBuffer);
             } else {
+              flushBuffer();
               part.writeTo(this.outputStream, commBuffer);
             }
             if (this.messageStats != null) {
-              this.messageStats.incSentBytes(partLen);
+              this.messageStats.incSentBytes(sentBytes);
             }
           }
         }
@@ -622,6 +648,8 @@ public class Message {
         if (this.socketChannel == null) {
           this.outputStream.flush();
         }
+      } finally {
+        lock.unlock();
       }
     } finally {
       if (clearMessage) {
@@ -666,7 +694,14 @@ public class Message {
     final int headerLength = getHeaderLength();
     if (this.socketChannel != null) {
       cb.limit(headerLength);
-      do {
+      if (this.serverConnection != null) {
+        // the acceptor's selector thread may have already read some or all of the header
+        int prefetched = this.serverConnection.takePrefetchedHeader(cb);
+        if (prefetched > 0 && this.messageStats != null) {
+          this.messageStats.incReceivedBytes(prefetched);
+        }
+      }
+      while (cb.remaining() > 0) {
         int bytesRead = this.socketChannel.read(cb);
         if (bytesRead == -1) {
           throw new EOFException(
@@ -676,7 +711,7 @@ public class Message {
         if (this.messageStats != null) {
           this.messageStats.incReceivedBytes(bytesRead);
         }
-      } while (cb.remaining() > 0);
+      }
       cb.flip();
 
     } else {
@@ -1047,6 +1082,16 @@ public class Message {
     setComms(socket, bb, msgStats);
   }
 
+  /**
+   * Like {@link #setComms(ServerConnection, Socket, ByteBuffer, MessageStats)} but guards the
+   * buffer with the given lock, which must be shared by every message that uses the buffer.
+   */
+  void setComms(ServerConnection sc, Socket socket, ByteBuffer bb, Lock bbLock,
+      MessageStats msgStats) throws IOException {
+    setComms(sc, socket, bb, msgStats);
+    this.commBufferLock = bbLock;
+  }
+
   void setComms(Socket socket, ByteBuffer bb, MessageStats msgStats) throws IOException {
     this.socketChannel = socket.getChannel();
     if (this.socketChannel == null) {
@@ -1064,6 +1109,7 @@ public class Message {
     this.inputStream = is;
     this.outputStream = os;
     this.cachedCommBuffer = bb;
+    this.commBufferLock = this.ownCommBufferLock;
     this.messageStats = msgStats;
   }
 
@@ -1078,6 +1124,7 @@ public class Message {
     this.inputStream = null;
     this.outputStream = null;
     this.cachedCommBuffer = null;
+    this.commBufferLock = this.ownCommBufferLock;
     this.messageStats = null;
   }
 
@@ -1106,8 +1153,12 @@ public class Message {
    */
   public void recv() throws IOException {
     if (this.socket != null) {
-      synchronized (getCommBuffer()) {
+      final Lock lock = getCommBufferLock();
+      lock.lock();
+      try {
         read();
+      } finally {
+        lock.unlock();
       }
     } else {
       throw new IOException(LocalizedStrings.Message_DEAD_CONNECTION.toLocalizedString());
@@ -353,67 +353,72 @@ public class Part {
   /**
    * Write the contents of this part to the specified socket channel using the specified byte
    * buffer. This is only called for parts that will not fit into the commBuffer so they need to be
-   * written directly to the socket. Precondition: buf contains nothing that needs to be sent
+   * written directly to the socket. Anything already in buf (such as the message and part headers)
+   * is sent ahead of this part's data in the same writes, and buf is left empty.
    */
   public void writeTo(SocketChannel sc, ByteBuffer buf) throws IOException {
     if (getLength() > 0) {
-      final int BUF_MAX = buf.capacity();
       if (this.part instanceof byte[]) {
+        // A heap array has to be copied to native memory to be written. Copy it straight into
+        // buf instead of letting the channel copy it into a temporary direct buffer of its own.
         final byte[] bytes = (byte[]) this.part;
         int off = 0;
         int len = bytes.length;
-        buf.clear();
         while (len > 0) {
-          int bytesThisTime = len;
-          if (bytesThisTime > BUF_MAX) {
-            bytesThisTime = BUF_MAX;
-          }
+          int bytesThisTime = Math.min(len, buf.remaining());
           buf.put(bytes, off, bytesThisTime);
           len -= bytesThisTime;
           off += bytesThisTime;
-          buf.flip();
-          while (buf.remaining() > 0) {
-            sc.write(buf);
-          }
-          buf.clear();
+          flushBuffer(sc, buf);
         }
       } else if (this.part instanceof StoredObject) {
         // instead of copying the StoredObject to buf try to create a direct ByteBuffer and
-        // just write it directly to the socket channel.
+        // gather write it to the socket channel along with whatever is already in buf.
         StoredObject c = (StoredObject) this.part;
         ByteBuffer bb = c.createDirectByteBuffer();
         if (bb != null) {
+          buf.flip();
+          ByteBuffer[] srcs = new ByteBuffer[] {buf, bb};
           while (bb.remaining() > 0) {
-            sc.write(bb);
+            sc.write(srcs);
           }
+          buf.clear();
         } else {
           int len = c.getDataSize();
           long addr = c.getAddressForReadingData(0, len);
-          buf.clear();
+          long bufAddr = AddressableMemoryManager.getDirectByteBufferAddress(buf);
           while (len > 0) {
-            int bytesThisTime = len;
-            if (bytesThisTime > BUF_MAX) {
-              bytesThisTime = BUF_MAX;
+            int bytesThisTime = Math.min(len, buf.remaining());
+            if (bufAddr != 0L) {
+              AddressableMemoryManager.copyMemory(addr, bufAddr + buf.position(), bytesThisTime);
+              buf.position(buf.position() + bytesThisTime);
+            } else {
+              for (int i = 0; i < bytesThisTime; i++) {
+                buf.put(AddressableMemoryManager.readByte(addr + i));
+              }
             }
+            addr += bytesThisTime;
             len -= bytesThisTime;
-            while (bytesThisTime > 0) {
-              buf.put(AddressableMemoryManager.readByte(addr));
-              addr++;
-              bytesThisTime--;
-            }
-            buf.flip();
-            while (buf.remaining() > 0) {
-              sc.write(buf);
-            }
-            buf.clear();
+            flushBuffer(sc, buf);
           }
         }
       } else {
+        flushBuffer(sc, buf);
         HeapDataOutputStream hdos = (HeapDataOutputStream) this.part;
         hdos.sendTo(sc, buf);
         hdos.rewind();
       }
+    } else {
+      flushBuffer(sc, buf);
+    }
+  }
+
+  private static void flushBuffer(SocketChannel sc, ByteBuffer buf) throws IOException {
+    buf.flip();
+    while (buf.remaining() > 0) {
+      sc.write(buf);
     }
+    buf.clear();
   }
 
   static private String typeCodeToString(byte c) {
@@ -18,6 +18,7 @@ import static org.apache.geode.distributed.ConfigurationProperties.*;
 
 import java.io.ByteArrayInputStream;
 import java.io.DataInputStream;
+import java.io.EOFException;
 import java.io.IOException;
 import java.net.InetAddress;
 import java.net.Socket;
@@ -25,12 +26,13 @@ import java.nio.ByteBuffer;
 import java.nio.channels.SelectableChannel;
 import java.nio.channels.SelectionKey;
 import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
 import java.security.Principal;
 import java.util.Map;
 import java.util.Properties;
 import java.util.Random;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.locks.ReentrantLock;
 
 import org.apache.logging.log4j.Logger;
 import org.apache.shiro.subject.Subject;
@@ -59,6 +61,7 @@ import org.apache.geode.internal.i18n.LocalizedStrings;
 import org.apache.geode.internal.logging.InternalLogWriter;
 import org.apache.geode.internal.logging.LogService;
 import org.apache.geode.internal.logging.log4j.LocalizedMessage;
+import org.apache.geode.internal.net.BufferPool;
 import org.apache.geode.internal.security.AuthorizeRequest;
 import org.apache.geode.internal.security.AuthorizeRequestPP;
 import org.apache.geode.internal.security.SecurityService;
@@ -93,55 +96,43 @@ public abstract class ServerConnection implements Runnable {
   // private static boolean useDataStream =
   // System.getProperty("hct.useDataStream", "false").equals("true");
 
-  // The key is the size of each ByteBuffer. The value is a queue of byte buffers all of that size.
-  private static final ConcurrentHashMap<Integer, LinkedBlockingQueue<ByteBuffer>> commBufferMap =
-      new ConcurrentHashMap<>(4, 0.75f, 1);
+  /**
+   * The pool of the direct comm buffers of client and server connections. The buffers are acquired
+   * by the acceptor thread and released by the connection threads, so they are not cached per
+   * thread.
+   */
+  static final BufferPool commBufferPool = new BufferPool(null, 0);
 
   public static ByteBuffer allocateCommBuffer(int size, Socket sock) {
-    // I expect that size will almost always be the same value
     if (sock.getChannel() == null) {
       // The socket this commBuffer will be used for is old IO (it has no channel).
       // So the commBuffer should be heap based.
       return ByteBuffer.allocate(size);
     }
-    LinkedBlockingQueue<ByteBuffer> q = commBufferMap.get(size);
-    ByteBuffer result = null;
-    if (q != null) {
-      result = q.poll();
-    }
-    if (result == null) {
-      result = ByteBuffer.allocateDirect(size);
-    } else {
-      result.position(0);
-      result.limit(result.capacity());
-    }
-    return result;
+    return commBufferPool.acquire(size);
   }
 
   public static void releaseCommBuffer(ByteBuffer bb) {
     if (bb != null && bb.isDirect()) {
-      LinkedBlockingQueue<ByteBuffer> q = commBufferMap.get(bb.capacity());
-      if (q == null) {
-        q = new LinkedBlockingQueue<>();
-        LinkedBlockingQueue<ByteBuffer> oldQ = commBufferMap.putIfAbsent(bb.capacity(), q);
-        if (oldQ != null) {
-          q = oldQ;
-        }
-      }
-      q.offer(bb);
+      commBufferPool.release(bb);
     }
   }
 
   public static void emptyCommBufferPool() {
-    for (LinkedBlockingQueue<ByteBuffer> q : commBufferMap.values()) {
-      q.clear();
-    }
+    commBufferPool.clear();
   }
 
   protected Socket theSocket;
   // private InputStream in = null;
   // private OutputStream out = null;
   private ByteBuffer commBuffer;
+
+  /**
+   * Guards the comm buffer shared by the messages of this connection. A lock rather than a monitor
+   * so that a virtual thread blocked on the socket does not pin its carrier thread.
+   */
+  private final ReentrantLock commBufferLock = new ReentrantLock();
+
   protected final CachedRegionHelper crHelper;
   protected String name = null;
 
@@ -1207,6 +1198,55 @@ public abstract class ServerConnection implements Runnable {
     c.configureBlocking(true);
   }
 
+  /**
+   * Holds the part of the next request header that the selector thread has already read off the
+   * non-blocking channel. Only the selector thread writes to it; the pool thread that reads the
+   * request takes it over once this connection has been handed off.
+   */
+  private ByteBuffer selectorHeaderBuffer;
+
+  /**
+   * Reads whatever is available of the next request header without blocking. Must only be called
+   * by the selector thread while the channel is in non-blocking mode.
+   *
+   * @return true if the complete header has now been read, or the handshake has not been, and the
+   *         request can be handed to a pool thread
+   */
+  boolean readHeaderNonBlocking() throws IOException {
+    if (this.handshake == null) {
+      // the pool thread reads the handshake in blocking mode
+      return true;
+    }
+    ByteBuffer hb = this.selectorHeaderBuffer;
+    if (hb == null) {
+      hb = ByteBuffer.allocate(this.requestMsg.getHeaderLength());
+      this.selectorHeaderBuffer = hb;
+    }
+    if (((SocketChannel) getSelectableChannel()).read(hb) == -1) {
+      throw new EOFException(
+          LocalizedStrings.Message_THE_CONNECTION_HAS_BEEN_RESET_WHILE_READING_THE_HEADER
+              .toLocalizedString());
+    }
+    return !hb.hasRemaining();
+  }
+
+  /**
+   * Moves any header bytes read by {@link #readHeaderNonBlocking} into the given buffer.
+   *
+   * @return the number of bytes moved
+   */
+  int takePrefetchedHeader(ByteBuffer cb) {
+    ByteBuffer hb = this.selectorHeaderBuffer;
+    if (hb == null || hb.position() == 0) {
+      return 0;
+    }
+    hb.flip();
+    int result = hb.remaining();
+    cb.put(hb);
+    hb.clear();
+    return result;
+  }
+
   private static boolean forceClientCrashEvent = false;
 
   public static void setForceClientCrashEvent(boolean value) {
@@ -1396,16 +1436,16 @@ public abstract class ServerConnection implements Runnable {
       } else {
         commBuffer = allocateCommBuffer(socketBufferSize, s);
       }
-      requestMsg.setComms(this, theSocket, commBuffer, msgStats);
-      replyMsg.setComms(this, theSocket, commBuffer, msgStats);
-      responseMsg.setComms(this, theSocket, commBuffer, msgStats);
-      errorMsg.setComms(this, theSocket, commBuffer, msgStats);
-
-      chunkedResponseMsg.setComms(this, theSocket, commBuffer, msgStats);
-      queryResponseMsg.setComms(this, theSocket, commBuffer, msgStats);
-      executeFunctionResponseMsg.setComms(this, theSocket, commBuffer, msgStats);
-      registerInterestResponseMsg.setComms(this, theSocket, commBuffer, msgStats);
-      keySetResponseMsg.setComms(this, theSocket, commBuffer, msgStats);
+      requestMsg.setComms(this, theSocket, commBuffer, commBufferLock, msgStats);
+      replyMsg.setComms(this, theSocket, commBuffer, commBufferLock, msgStats);
+      responseMsg.setComms(this, theSocket, commBuffer, commBufferLock, msgStats);
+      errorMsg.setComms(this, theSocket, commBuffer, commBufferLock, msgStats);
+
+      chunkedResponseMsg.setComms(this, theSocket, commBuffer, commBufferLock, msgStats);
+      queryResponseMsg.setComms(this, theSocket, commBuffer, commBufferLock, msgStats);
+      executeFunctionResponseMsg.setComms(this, theSocket, commBuffer, commBufferLock, msgStats);
+      registerInterestResponseMsg.setComms(this, theSocket, commBuffer, commBufferLock, msgStats);
+      keySetResponseMsg.setComms(this, theSocket, commBuffer, commBufferLock, msgStats);
     } catch (RuntimeException re) {
       throw re;
     } catch (Exception e) {
@@ -64,6 +64,7 @@ public class DiskStoreAttributesCreation extends UserSpecifiedDiskStoreAttribute
     this.queueSize = attrs.getQueueSize();
     this.diskDirs = attrs.getDiskDirs();
     this.diskDirSizes = attrs.getDiskDirSizes();
+    super.setRecoveryParallelism(attrs.getRecoveryParallelism());
 
     setDiskUsageWarningPercentage(attrs.getDiskUsageWarningPercentage());
     setDiskUsageCriticalPercentage(attrs.getDiskUsageCriticalPercentage());
@@ -236,6 +237,11 @@ public class DiskStoreAttributesCreation extends UserSpecifiedDiskStoreAttribute
           LocalizedStrings.DiskStoreAttributesCreation_DISK_USAGE_CRITICAL_ARE_NOT_THE_SAME
               .toLocalizedString(name));
     }
+    if (getRecoveryParallelism() != other.getRecoveryParallelism()) {
+      throw new RuntimeException(
+          LocalizedStrings.DiskStoreAttributesCreation_RECOVERY_PARALLELISM_ARE_NOT_THE_SAME
+              .toLocalizedString(name));
+    }
     return true;
   }
 
@@ -312,6 +318,12 @@ public class DiskStoreAttributesCreation extends UserSpecifiedDiskStoreAttribute
     this.setHasDiskUsageCriticalPercentage(true);
   }
 
+  @Override
+  public void setRecoveryParallelism(int recoveryParallelism) {
+    super.setRecoveryParallelism(recoveryParallelism);
+    this.setHasRecoveryParallelism(true);
+  }
+
   /**
    * Checks if directories exist
    * 
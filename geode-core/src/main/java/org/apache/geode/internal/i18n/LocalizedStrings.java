@@ -7697,6 +7697,9 @@ public class LocalizedStrings {
   public static final StringId LuceneServiceImpl_REGION_0_CANNOT_BE_DESTROYED = new StringId(6660,
       "Region {0} cannot be destroyed because it defines Lucene index(es) [{1}]. Destroy all Lucene indexes before destroying the region.");
 
+  public static final StringId DiskStoreAttributesCreation_RECOVERY_PARALLELISM_ARE_NOT_THE_SAME =
+      new StringId(6661, "Recovery parallelisms of disk store {0} are not the same");
+
   /** Testing strings, messageId 90000-99999 **/
 
   /**
@@ -0,0 +1,469 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.internal.net;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.SoftReference;
+import java.lang.ref.WeakReference;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import org.apache.logging.log4j.Logger;
+
+import org.apache.geode.distributed.internal.DistributionConfig;
+import org.apache.geode.internal.logging.LogService;
+
+/**
+ * A pool of direct byte buffers shared by the threads that send and receive messages.
+ * <p>
+ * Buffers are pooled in size classes, starting at 1KB, so that a request is served by the first
+ * buffer of its class instead of searching for one that is large enough. Each power of two is
+ * split into four classes, so a buffer is at most a quarter larger than the request it was
+ * allocated for. The last buffer of each small class that a thread released is kept for that
+ * thread, which serves the common case of a thread that repeatedly acquires and releases a buffer
+ * of the same size without touching the shared queues. The buffers held by a thread are returned
+ * to the shared queues once the thread has exited. Pooled buffers are only softly referenced and
+ * may be garbage collected.
+ * <p>
+ * A buffer must be released once, by the thread that last used it, after which it must no longer
+ * be used. When the "gemfire.BufferPool.detectLeaks" system property is set, buffers that are
+ * garbage collected without having been released, and buffers that are released twice, are logged
+ * with the stack trace of the thread that acquired them.
+ * <p>
+ * Buffers acquired by one thread and released by another should come from a pool without thread
+ * caches, see {@link #BufferPool(DropListener, int)}, otherwise they pile up in the cache of the
+ * releasing thread while the acquiring thread keeps allocating.
+ * <p>
+ * A pool created by {@link #createHeapPool()} pools heap buffers instead. It serves the chunks of
+ * the HeapDataOutputStreams that hold the serialized parts of a client/server Message and the
+ * overflow of a p2p MsgStreamer, which are released once the message has been sent. Other
+ * HeapDataOutputStreams and the oplog write buffers are not pooled: they are handed to the region,
+ * to callers and to other threads without a release point.
+ */
+public class BufferPool {
+  private static final Logger logger = LogService.getLogger();
+
+  /** Whether buffers that are not released, or released twice, are logged */
+  public static final boolean DETECT_LEAKS =
+      Boolean.getBoolean(DistributionConfig.GEMFIRE_PREFIX + "BufferPool.detectLeaks");
+
+  /** The largest buffers kept for the thread that released them */
+  static final int THREAD_CACHE_MAX_SIZE = Integer
+      .getInteger(DistributionConfig.GEMFIRE_PREFIX + "BufferPool.threadCacheMaxSize", 65536);
+
+  private static final int MIN_SHIFT = 10;
+  private static final int MAX_SHIFT = 30;
+  /** the size classes each power of two is split into, as a shift */
+  private static final int STEP_SHIFT = 2;
+  private static final int SIZE_CLASSES = ((MAX_SHIFT - MIN_SHIFT) << STEP_SHIFT) + 1;
+
+  /**
+   * Notified of pooled buffers that are dropped, either because they were garbage collected or
+   * because the pool was cleared
+   */
+  public interface DropListener {
+    void dropped(int capacity, Object tag);
+  }
+
+  private final ConcurrentLinkedQueue<PooledBuffer>[] queues;
+
+  /** the number of size classes, starting with the smallest, that are cached per thread */
+  private final int threadCachedClasses;
+
+  private final ThreadLocal<ThreadCache> threadCache;
+
+  /** the caches of live threads, kept so that those of exited threads are enqueued */
+  private final Set<ThreadCacheReference> threadCaches = ConcurrentHashMap.newKeySet();
+
+  private final ReferenceQueue<ThreadCache> exitedThreadCaches = new ReferenceQueue<>();
+
+  private final DropListener dropListener;
+
+  /** the buffers acquired but not yet released, by identity hash code; null unless tracking */
+  private final Map<Integer, List<LeakTracker>> acquired;
+
+  private final ReferenceQueue<ByteBuffer> leakedBuffers = new ReferenceQueue<>();
+
+  /** whether this pool allocates direct buffers rather than heap buffers */
+  private final boolean direct;
+
+  public BufferPool() {
+    this(null);
+  }
+
+  public BufferPool(DropListener dropListener) {
+    this(dropListener, THREAD_CACHE_MAX_SIZE);
+  }
+
+  /**
+   * Creates a pool that keeps the released buffers of up to the given size for the releasing
+   * thread. A size below 1KB disables the thread caches.
+   */
+  public BufferPool(DropListener dropListener, int threadCacheMaxSize) {
+    this(dropListener, threadCacheMaxSize, DETECT_LEAKS);
+  }
+
+  BufferPool(DropListener dropListener, int threadCacheMaxSize, boolean detectLeaks) {
+    this(dropListener, threadCacheMaxSize, detectLeaks, true);
+  }
+
+  @SuppressWarnings("unchecked")
+  BufferPool(DropListener dropListener, int threadCacheMaxSize, boolean detectLeaks,
+      boolean direct) {
+    this.dropListener = dropListener;
+    this.direct = direct;
+    this.queues = new ConcurrentLinkedQueue[SIZE_CLASSES];
+    for (int i = 0; i < SIZE_CLASSES; i++) {
+      this.queues[i] = new ConcurrentLinkedQueue<>();
+    }
+    this.threadCachedClasses =
+        threadCacheMaxSize < (1 << MIN_SHIFT) ? 0 : floorSizeClass(threadCacheMaxSize) + 1;
+    this.threadCache = ThreadLocal.withInitial(this::newThreadCache);
+    this.acquired = detectLeaks ? new HashMap<>() : null;
+  }
+
+  /**
+   * Creates a pool of heap buffers, with thread caches, for streams that are written and released
+   * by the same thread
+   */
+  public static BufferPool createHeapPool() {
+    return new BufferPool(null, THREAD_CACHE_MAX_SIZE, DETECT_LEAKS, false);
+  }
+
+  /**
+   * Returns the capacity of the buffers pooled for requests of the given size
+   */
+  public static int getPooledSize(int size) {
+    if (size > (1 << MAX_SHIFT)) {
+      return size;
+    }
+    return capacity(sizeClass(size));
+  }
+
+  /** the capacity of the buffers of the given size class */
+  private static int capacity(int sizeClass) {
+    if (sizeClass == 0) {
+      return 1 << MIN_SHIFT;
+    }
+    int shift = ((sizeClass - 1) >> STEP_SHIFT) + MIN_SHIFT;
+    int steps = ((sizeClass - 1) & ((1 << STEP_SHIFT) - 1)) + 1;
+    return (1 << shift) + (steps << (shift - STEP_SHIFT));
+  }
+
+  /** the smallest size class whose buffers hold the given size */
+  private static int sizeClass(int size) {
+    if (size <= (1 << MIN_SHIFT)) {
+      return 0;
+    }
+    // the power of two below the size, and the steps above it rounded up
+    int shift = 31 - Integer.numberOfLeadingZeros(size - 1);
+    int stepShift = shift - STEP_SHIFT;
+    int steps = (size - (1 << shift) + (1 << stepShift) - 1) >> stepShift;
+    return ((shift - MIN_SHIFT) << STEP_SHIFT) + steps;
+  }
+
+  /** the largest size class whose buffers fit in the given capacity */
+  private static int floorSizeClass(int capacity) {
+    int shift = 31 - Integer.numberOfLeadingZeros(capacity);
+    if (shift >= MAX_SHIFT) {
+      return SIZE_CLASSES - 1;
+    }
+    int steps = (capacity - (1 << shift)) >> (shift - STEP_SHIFT);
+    return ((shift - MIN_SHIFT) << STEP_SHIFT) + steps;
+  }
+
+  /**
+   * Returns a buffer whose position is zero and whose limit is the given size, allocating a new one
+   * if none is pooled.
+   */
+  public ByteBuffer acquire(int size) {
+    ByteBuffer bb = poll(size);
+    if (bb == null) {
+      bb = allocate(size);
+    }
+    return bb;
+  }
+
+  /**
+   * Allocates a buffer of the capacity pooled for the given size, whose limit is the given size, to
+   * be released to this pool.
+   */
+  public ByteBuffer allocate(int size) {
+    int capacity = getPooledSize(size);
+    ByteBuffer bb =
+        this.direct ? ByteBuffer.allocateDirect(capacity) : ByteBuffer.allocate(capacity);
+    bb.limit(size);
+    track(bb);
+    return bb;
+  }
+
+  /**
+   * Returns a pooled buffer whose position is zero and whose limit is the given size, or
+   * null if there is none.
+   */
+  public ByteBuffer poll(int size) {
+    if (size > (1 << MAX_SHIFT)) {
+      return null;
+    }
+    int sizeClass = sizeClass(size);
+    ByteBuffer bb = null;
+    if (sizeClass < this.threadCachedClasses) {
+      PooledBuffer[] cached = this.threadCache.get().buffers;
+      PooledBuffer ref = cached[sizeClass];
+      if (ref != null) {
+        cached[sizeClass] = null;
+        bb = take(ref);
+      }
+    }
+    if (bb == null) {
+      reclaimExitedThreadCaches();
+      ConcurrentLinkedQueue<PooledBuffer> queue = this.queues[sizeClass];
+      PooledBuffer ref;
+      while (bb == null && (ref = queue.poll()) != null) {
+        bb = take(ref);
+      }
+    }
+    if (bb == null) {
+      return null;
+    }
+    bb.clear();
+    bb.limit(size);
+    track(bb);
+    return bb;
+  }
+
+  private ByteBuffer take(PooledBuffer ref) {
+    ByteBuffer bb = ref.get();
+    if (bb == null) {
+      dropped(ref);
+    }
+    return bb;
+  }
+
+  /**
+   * Returns a buffer to the pool. Buffers smaller than the smallest size class, and heap buffers
+   * released to a pool of direct buffers or the reverse, are dropped.
+   */
+  public void release(ByteBuffer bb) {
+    release(bb, null);
+  }
+
+  /**
+   * Returns a buffer to the pool, passing the given tag to the drop listener if it is dropped while
+   * pooled.
+   */
+  public void release(ByteBuffer bb, Object tag) {
+    if (!untrack(bb)) {
+      return;
+    }
+    int capacity = bb.capacity();
+    if (bb.isDirect() != this.direct || capacity < (1 << MIN_SHIFT)) {
+      if (this.dropListener != null) {
+        this.dropListener.dropped(capacity, tag);
+      }
+      return;
+    }
+    int sizeClass = floorSizeClass(capacity);
+    PooledBuffer ref = new PooledBuffer(bb, tag);
+    if (sizeClass < this.threadCachedClasses) {
+      PooledBuffer[] cached = this.threadCache.get().buffers;
+      PooledBuffer previous = cached[sizeClass];
+      cached[sizeClass] = ref;
+      if (previous == null) {
+        return;
+      }
+      ref = previous;
+    }
+    this.queues[sizeClass].offer(ref);
+  }
+
+  /**
+   * Drops the buffers in the shared queues and those held for the calling thread. Buffers held for
+   * other threads are dropped once those threads have exited.
+   */
+  public void clear() {
+    PooledBuffer[] cached = this.threadCache.get().buffers;
+    for (int i = 0; i < cached.length; i++) {
+      if (cached[i] != null) {
+        dropped(cached[i]);
+        cached[i] = null;
+      }
+    }
+    for (ConcurrentLinkedQueue<PooledBuffer> queue : this.queues) {
+      PooledBuffer ref;
+      while ((ref = queue.poll()) != null) {
+        dropped(ref);
+      }
+    }
+  }
+
+  /**
+   * Passes the capacity and tag of each pooled buffer, both in the shared queues and held for
+   * threads, to the given listener without dropping them. The buffers held for other threads are
+   * read without synchronization, so a buffer those threads acquire or release meanwhile may be
+   * missed or passed twice.
+   */
+  public void forEachPooled(DropListener consumer) {
+    for (ConcurrentLinkedQueue<PooledBuffer> queue : this.queues) {
+      for (PooledBuffer ref : queue) {
+        forPooled(ref, consumer);
+      }
+    }
+    for (ThreadCacheReference cache : this.threadCaches) {
+      for (PooledBuffer ref : cache.buffers) {
+        forPooled(ref, consumer);
+      }
+    }
+  }
+
+  private static void forPooled(PooledBuffer ref, DropListener consumer) {
+    if (ref != null && ref.get() != null) {
+      consumer.dropped(ref.capacity, ref.tag);
+    }
+  }
+
+  private void dropped(PooledBuffer ref) {
+    if (this.dropListener != null) {
+      this.dropListener.dropped(ref.capacity, ref.tag);
+    }
+  }
+
+  private ThreadCache newThreadCache() {
+    ThreadCache cache = new ThreadCache(this.threadCachedClasses);
+    this.threadCaches.add(new ThreadCacheReference(cache, this.exitedThreadCaches));
+    return cache;
+  }
+
+  /** moves the buffers held for threads that have exited to the shared queues */
+  private void reclaimExitedThreadCaches() {
+    ThreadCacheReference exited;
+    while ((exited = (ThreadCacheReference) this.exitedThreadCaches.poll()) != null) {
+      this.threadCaches.remove(exited);
+      for (int i = 0; i < exited.buffers.length; i++) {
+        if (exited.buffers[i] != null) {
+          this.queues[i].offer(exited.buffers[i]);
+          exited.buffers[i] = null;
+        }
+      }
+    }
+  }
+
+  private void track(ByteBuffer bb) {
+    if (this.acquired == null) {
+      return;
+    }
+    reportLeaks();
+    LeakTracker tracker = new LeakTracker(bb, this.leakedBuffers);
+    synchronized (this.acquired) {
+      this.acquired.computeIfAbsent(tracker.hash, k -> new ArrayList<>(1)).add(tracker);
+    }
+  }
+
+  /** returns false if the buffer is tracked and was not acquired from this pool */
+  private boolean untrack(ByteBuffer bb) {
+    if (this.acquired == null) {
+      return true;
+    }
+    int hash = System.identityHashCode(bb);
+    synchronized (this.acquired) {
+      List<LeakTracker> trackers = this.acquired.get(hash);
+      if (trackers != null) {
+        for (Iterator<LeakTracker> it = trackers.iterator(); it.hasNext();) {
+          if (it.next().get() == bb) {
+            it.remove();
+            if (trackers.isEmpty()) {
+              this.acquired.remove(hash);
+            }
+            return true;
+          }
+        }
+      }
+    }
+    logger.warn("Ignoring a buffer of {} bytes that was released twice or not acquired from {}",
+        bb.capacity(), this, new Exception("released here"));
+    return false;
+  }
+
+  private void reportLeaks() {
+    LeakTracker leaked;
+    while ((leaked = (LeakTracker) this.leakedBuffers.poll()) != null) {
+      synchronized (this.acquired) {
+        List<LeakTracker> trackers = this.acquired.get(leaked.hash);
+        if (trackers == null || !trackers.remove(leaked)) {
+          continue;
+        }
+        if (trackers.isEmpty()) {
+          this.acquired.remove(leaked.hash);
+        }
+      }
+      logger.warn("A buffer of {} bytes was garbage collected without being released to {}",
+          leaked.capacity, this, leaked.acquisition);
+    }
+  }
+
+  @Override
+  public String toString() {
+    return "BufferPool@" + Integer.toHexString(System.identityHashCode(this));
+  }
+
+  private static class PooledBuffer extends SoftReference<ByteBuffer> {
+    private final int capacity;
+    private final Object tag;
+
+    PooledBuffer(ByteBuffer bb, Object tag) {
+      super(bb);
+      this.capacity = bb.capacity();
+      this.tag = tag;
+    }
+  }
+
+  private static class ThreadCache {
+    private final PooledBuffer[] buffers;
+
+    ThreadCache(int sizeClasses) {
+      this.buffers = new PooledBuffer[sizeClasses];
+    }
+  }
+
+  /** holds the buffers of a thread cache after the thread has exited */
+  private static class ThreadCacheReference extends WeakReference<ThreadCache> {
+    private final PooledBuffer[] buffers;
+
+    ThreadCacheReference(ThreadCache cache, ReferenceQueue<ThreadCache> queue) {
+      super(cache, queue);
+      this.buffers = cache.buffers;
+    }
+  }
+
+  private static class LeakTracker extends WeakReference<ByteBuffer> {
+    private final int hash;
+    private final int capacity;
+    private final Exception acquisition;
+
+    LeakTracker(ByteBuffer bb, ReferenceQueue<ByteBuffer> queue) {
+      super(bb, queue);
+      this.hash = System.identityHashCode(bb);
+      this.capacity = bb.capacity();
+      this.acquisition = new Exception("acquired here");
+    }
+  }
+}
@@ -14,11 +14,18 @@
  */
 package org.apache.geode.internal.offheap;
 
+import java.util.Collections;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+import org.apache.geode.SerializationException;
+import org.apache.geode.distributed.internal.DistributionConfig;
 import org.apache.geode.internal.DSCODE;
 import org.apache.geode.internal.cache.CachedDeserializableFactory;
 import org.apache.geode.internal.cache.DiskEntry;
 import org.apache.geode.internal.cache.DiskId;
 import org.apache.geode.internal.cache.EntryEventImpl;
+import org.apache.geode.internal.cache.OffHeapKeyRegionEntry;
 import org.apache.geode.internal.cache.OffHeapRegionEntry;
 import org.apache.geode.internal.cache.RegionEntryContext;
 import org.apache.geode.internal.cache.Token;
@@ -46,6 +53,14 @@ public class OffHeapRegionEntryHelper {
   protected static final long TOMBSTONE_ADDRESS = 8L << 1;
   public static final int MAX_LENGTH_FOR_DATA_AS_ADDRESS = 8;
 
+  /**
+   * The system property that makes off-heap regions created after it is set store the keys of their
+   * entries serialized in off-heap memory, unless the key can be inlined in the entry or can not be
+   * serialized.
+   */
+  public static final String OFF_HEAP_KEYS_PROPERTY =
+      DistributionConfig.GEMFIRE_PREFIX + "OffHeapRegionEntry.OFF_HEAP_KEYS";
+
   private static final Token[] addrToObj =
       new Token[] {null, Token.INVALID, Token.LOCAL_INVALID, Token.DESTROYED, Token.REMOVED_PHASE1,
           Token.REMOVED_PHASE2, Token.END_OF_STREAM, Token.NOT_AVAILABLE, Token.TOMBSTONE,};
@@ -171,6 +186,10 @@ public class OffHeapRegionEntryHelper {
    * The address in 're' will be @Released.
    */
   public static void releaseEntry(@Released OffHeapRegionEntry re) {
+    if (re instanceof OffHeapKeyRegionEntry) {
+      // the entry is being discarded so nothing will read its key again
+      releaseKey((OffHeapKeyRegionEntry) re);
+    }
     if (re instanceof DiskEntry) {
       DiskId did = ((DiskEntry) re).getDiskId();
       if (did != null && did.isPendingAsync()) {
@@ -193,6 +212,9 @@ public class OffHeapRegionEntryHelper {
     final long newAddress = objectToAddress(Token.REMOVED_PHASE2);
     if (re.setAddress(oldAddress, newAddress) || re.getAddress() != newAddress) {
       releaseAddress(oldAddress);
+    }
+    if (re instanceof OffHeapKeyRegionEntry && re.getAddress() == newAddress) {
+      releaseRemovedKey((OffHeapKeyRegionEntry) re);
     } /*
        * else { if (!calledSetValue || re.getAddress() != newAddress) { expectedValue.release(); } }
        */
@@ -341,6 +363,156 @@ public class OffHeapRegionEntryHelper {
     ReferenceCountHelper.setReferenceCountOwner(re);
     releaseAddress(oldAddress);
     ReferenceCountHelper.setReferenceCountOwner(null);
+    if (v == Token.REMOVED_PHASE2 && re instanceof OffHeapKeyRegionEntry) {
+      // the entry is being removed so its off-heap key can be freed too
+      releaseRemovedKey((OffHeapKeyRegionEntry) re);
+    }
+  }
+
+  /**
+   * Serializes the key of a new entry into off-heap memory. Returns {@link #NULL_ADDRESS} if the
+   * key can not be serialized, in which case the entry has to keep a reference to the key instead.
+   */
+  @Retained
+  public static long serializeKey(Object key) {
+    byte[] serializedKey = serializeLookupKey(key);
+    if (serializedKey == null) {
+      return NULL_ADDRESS;
+    }
+    return MemoryAllocatorImpl.getAllocator().allocateAndInitialize(serializedKey, true, false)
+        .getAddress();
+  }
+
+  /**
+   * The key each thread serialized last, so that an operation that looks up or creates an entry
+   * for a key more than once only serializes the key once.
+   */
+  private static final ThreadLocal<SerializedLookupKey> lastLookupKey = new ThreadLocal<>();
+
+  private static class SerializedLookupKey {
+    private final Object key;
+    /** null if the key can not be serialized */
+    private final byte[] serializedKey;
+
+    SerializedLookupKey(Object key, byte[] serializedKey) {
+      this.key = key;
+      this.serializedKey = serializedKey;
+    }
+  }
+
+  private static byte[] serializeLookupKey(Object key) {
+    SerializedLookupKey last = lastLookupKey.get();
+    if (last != null && last.key == key) {
+      return last.serializedKey;
+    }
+    byte[] serializedKey;
+    try {
+      serializedKey = EntryEventImpl.serialize(key);
+    } catch (SerializationException e) {
+      serializedKey = null;
+    }
+    lastLookupKey.set(new SerializedLookupKey(key, serializedKey));
+    return serializedKey;
+  }
+
+  private static final int REMOVED_KEYS_STRIPES = 16;
+
+  /**
+   * The keys of removed entries whose off-heap key has been freed, so that code that still holds
+   * such an entry can read its key. A key goes away once its entry is garbage collected.
+   */
+  @SuppressWarnings("unchecked")
+  private static final Map<OffHeapKeyRegionEntry, Object>[] removedKeys =
+      new Map[REMOVED_KEYS_STRIPES];
+  static {
+    for (int i = 0; i < REMOVED_KEYS_STRIPES; i++) {
+      removedKeys[i] = Collections.synchronizedMap(new WeakHashMap<>());
+    }
+  }
+
+  private static Map<OffHeapKeyRegionEntry, Object> getRemovedKeys(OffHeapKeyRegionEntry re) {
+    return removedKeys[System.identityHashCode(re) & (REMOVED_KEYS_STRIPES - 1)];
+  }
+
+  /**
+   * Returns the key of the entry, deserializing it from off-heap memory. Returns null if the entry
+   * was discarded without being removed.
+   */
+  public static Object getKey(@Unretained OffHeapKeyRegionEntry re) {
+    long addr = re.getKeyAddress();
+    if ((addr & ENCODED_BIT) != 0) {
+      return new TinyStoredObject(addr).getDeserializedForReading();
+    }
+    if (isOffHeap(addr) && OffHeapStoredObject.retain(addr)) {
+      try {
+        // if the address changed then the key was freed and the memory may have been reused
+        if (re.getKeyAddress() == addr) {
+          return new OffHeapStoredObject(addr).getDeserializedForReading();
+        }
+      } finally {
+        OffHeapStoredObject.release(addr);
+      }
+    }
+    return getRemovedKeys(re).get(re);
+  }
+
+  /**
+   * Returns true if k equals the key of the entry. The key is first compared in its serialized form
+   * so that a hit does not deserialize it; only if the bytes differ is the key deserialized, since
+   * equal keys do not always serialize to the same bytes. Map lookups only get here for entries
+   * with a matching hash so that fallback is rare.
+   */
+  public static boolean isKeyEqual(@Unretained OffHeapKeyRegionEntry re, Object k) {
+    long addr = re.getKeyAddress();
+    byte[] serializedKey = serializeLookupKey(k);
+    if (serializedKey != null) {
+      if ((addr & ENCODED_BIT) != 0) {
+        if (encodeDataAsAddress(serializedKey, true, false) == addr) {
+          return true;
+        }
+      } else if (isOffHeap(addr) && OffHeapStoredObject.retain(addr)) {
+        try {
+          if (re.getKeyAddress() == addr
+              && new OffHeapStoredObject(addr).checkDataEquals(serializedKey)) {
+            return true;
+          }
+        } finally {
+          OffHeapStoredObject.release(addr);
+        }
+      }
+    }
+    return k.equals(getKey(re));
+  }
+
+  /**
+   * Frees the off-heap key of an entry that is being discarded, such as one dropped by a region
+   * clear or close.
+   */
+  public static void releaseKey(@Unretained OffHeapKeyRegionEntry re) {
+    long addr = re.getKeyAddress();
+    if (isOffHeap(addr) && re.setKeyAddress(addr, NULL_ADDRESS)) {
+      releaseAddress(addr);
+    }
+  }
+
+  /**
+   * Frees the off-heap key of an entry that is being removed from its map, or that lost the race
+   * to be added to it. Such an entry may still be referenced, for example to remove it from its
+   * map, so its key is first kept on the heap until the entry is garbage collected.
+   */
+  public static void releaseRemovedKey(@Unretained OffHeapKeyRegionEntry re) {
+    long addr = re.getKeyAddress();
+    if (!isOffHeap(addr)) {
+      // an inlined key stays readable in the address itself
+      return;
+    }
+    Object key = getKey(re);
+    if (key != null) {
+      getRemovedKeys(re).put(re, key);
+    }
+    if (re.setKeyAddress(addr, NULL_ADDRESS)) {
+      releaseAddress(addr);
+    }
   }
 
   public static Token getValueAsToken(@Unretained OffHeapRegionEntry re) {
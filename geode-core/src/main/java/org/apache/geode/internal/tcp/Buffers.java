@@ -14,23 +14,24 @@
  */
 package org.apache.geode.internal.tcp;
 
-import java.lang.ref.SoftReference;
 import java.nio.ByteBuffer;
-import java.util.IdentityHashMap;
-import java.util.Iterator;
-import java.util.concurrent.ConcurrentLinkedQueue;
 
 import org.apache.geode.distributed.internal.DMStats;
-import org.apache.geode.internal.Assert;
+import org.apache.geode.internal.net.BufferPool;
 
 /**
- *
+ * The buffers used to send and receive peer-to-peer messages. Direct buffers come from a
+ * {@link BufferPool} and are returned to it once released; heap buffers are not pooled.
  */
 public class Buffers {
   /**
-   * A list of soft references to byte buffers.
+   * The pool of direct buffers. Each pooled buffer is tagged with whether it was last used for
+   * sending, so that the stats of that kind are reduced if it is garbage collected.
    */
-  private static final ConcurrentLinkedQueue bufferQueue = new ConcurrentLinkedQueue();
+  private static final BufferPool bufferPool = new BufferPool(Buffers::dropped);
+
+  /** the stats that account for the pooled buffers */
+  private static volatile DMStats poolStats;
 
   /**
    * Should only be called by threads that have currently acquired send permission.
@@ -48,49 +49,19 @@ public class Buffers {
   static ByteBuffer acquireBuffer(int size, DMStats stats, boolean send) {
     ByteBuffer result;
     if (TCPConduit.useDirectBuffers) {
-      IdentityHashMap<BBSoftReference, BBSoftReference> alreadySeen = null; // keys are used like a
-                                                                            // set
-      BBSoftReference ref = (BBSoftReference) bufferQueue.poll();
-      while (ref != null) {
-        ByteBuffer bb = ref.getBB();
-        if (bb == null) {
-          // it was garbage collected
-          int refSize = ref.consumeSize();
-          if (refSize > 0) {
-            if (ref.getSend()) { // fix bug 46773
-              stats.incSenderBufferSize(-refSize, true);
-            } else {
-              stats.incReceiverBufferSize(-refSize, true);
-            }
-          }
-        } else if (bb.capacity() >= size) {
-          bb.rewind();
-          bb.limit(size);
-          return bb;
-        } else {
-          // wasn't big enough so put it back in the queue
-          Assert.assertTrue(bufferQueue.offer(ref));
-          if (alreadySeen == null) {
-            alreadySeen = new IdentityHashMap<BBSoftReference, BBSoftReference>();
-          }
-          if (alreadySeen.put(ref, ref) != null) {
-            // if it returns non-null then we have already seen this item
-            // so we have worked all the way through the queue once.
-            // So it is time to give up and allocate a new buffer.
-            break;
-          }
-        }
-        ref = (BBSoftReference) bufferQueue.poll();
+      result = bufferPool.poll(size);
+      if (result != null) {
+        return result;
       }
-      result = ByteBuffer.allocateDirect(size);
+      result = bufferPool.allocate(size);
     } else {
       // if we are using heap buffers then don't bother with keeping them around
       result = ByteBuffer.allocate(size);
     }
     if (send) {
-      stats.incSenderBufferSize(size, TCPConduit.useDirectBuffers);
+      stats.incSenderBufferSize(result.capacity(), TCPConduit.useDirectBuffers);
     } else {
-      stats.incReceiverBufferSize(size, TCPConduit.useDirectBuffers);
+      stats.incReceiverBufferSize(result.capacity(), TCPConduit.useDirectBuffers);
     }
     return result;
   }
@@ -108,8 +79,10 @@ public class Buffers {
    */
   static void releaseBuffer(ByteBuffer bb, DMStats stats, boolean send) {
     if (TCPConduit.useDirectBuffers) {
-      BBSoftReference bbRef = new BBSoftReference(bb, send);
-      bufferQueue.offer(bbRef);
+      if (poolStats != stats) {
+        poolStats = stats;
+      }
+      bufferPool.release(bb, Boolean.valueOf(send));
     } else {
       if (send) {
         stats.incSenderBufferSize(-bb.capacity(), false);
@@ -119,55 +92,28 @@ public class Buffers {
     }
   }
 
-  public static void initBufferStats(DMStats stats) { // fixes 46773
-    if (TCPConduit.useDirectBuffers) {
-      @SuppressWarnings("unchecked")
-      Iterator<BBSoftReference> it = (Iterator<BBSoftReference>) bufferQueue.iterator();
-      while (it.hasNext()) {
-        BBSoftReference ref = it.next();
-        if (ref.getBB() != null) {
-          if (ref.getSend()) { // fix bug 46773
-            stats.incSenderBufferSize(ref.getSize(), true);
-          } else {
-            stats.incReceiverBufferSize(ref.getSize(), true);
-          }
-        }
-      }
+  private static void dropped(int capacity, Object send) {
+    DMStats stats = poolStats;
+    if (stats == null) {
+      return;
     }
-  }
-
-  /**
-   * A soft reference that remembers the size of the byte buffer it refers to. TODO Dan - I really
-   * think this should be a weak reference. The JVM doesn't seem to clear soft references if it is
-   * getting low on direct memory.
-   */
-  private static class BBSoftReference extends SoftReference<ByteBuffer> {
-    private int size;
-    private final boolean send;
-
-    public BBSoftReference(ByteBuffer bb, boolean send) {
-      super(bb);
-      this.size = bb.capacity();
-      this.send = send;
-    }
-
-    public int getSize() {
-      return this.size;
-    }
-
-    public synchronized int consumeSize() {
-      int result = this.size;
-      this.size = 0;
-      return result;
-    }
-
-    public boolean getSend() {
-      return this.send;
+    if ((Boolean) send) { // fix bug 46773
+      stats.incSenderBufferSize(-capacity, true);
+    } else {
+      stats.incReceiverBufferSize(-capacity, true);
     }
+  }
 
-    public ByteBuffer getBB() {
-      return (ByteBuffer) super.get();
+  public static void initBufferStats(DMStats stats) { // fixes 46773
+    if (TCPConduit.useDirectBuffers) {
+      poolStats = stats;
+      bufferPool.forEachPooled((capacity, send) -> {
+        if ((Boolean) send) {
+          stats.incSenderBufferSize(capacity, true);
+        } else {
+          stats.incReceiverBufferSize(capacity, true);
+        }
+      });
     }
   }
-
 }
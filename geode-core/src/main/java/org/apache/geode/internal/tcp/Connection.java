@@ -73,6 +73,7 @@ import java.nio.ByteBuffer;
 import java.nio.channels.CancelledKeyException;
 import java.nio.channels.ClosedChannelException;
 import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.ReadableByteChannel;
 import java.nio.channels.SocketChannel;
 import java.util.Collections;
 import java.util.HashMap;
@@ -83,6 +84,7 @@ import java.util.Map;
 import java.util.concurrent.Semaphore;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * Connection is a socket holder that sends and receives serialized message objects. A Connection
@@ -213,8 +215,11 @@ public class Connection implements Runnable {
   /** the non-NIO output stream */
   OutputStream output;
 
-  /** output stream/channel lock */
-  private final Object outLock = new Object();
+  /**
+   * output stream/channel lock. A lock rather than a monitor so that a virtual thread blocked
+   * writing to the socket does not pin its carrier thread.
+   */
+  private final ReentrantLock outLock = new ReentrantLock();
 
   /** the ID string of the conduit (for logging) */
   String conduitIdStr;
@@ -709,15 +714,31 @@ public class Connection implements Runnable {
     }
     if (useNIO()) {
       assert my_okHandshakeBuf != null;
+      SharedMemoryChannel accepted = null;
+      if (this.isReceiver && this.sharedMemoryNonce != null
+          && SharedMemoryChannel.USE_SHARED_MEMORY) {
+        accepted = SharedMemoryChannel.accept(getSocket().getChannel(), this.remoteAddr,
+            this.sharedMemoryNonce);
+      }
       synchronized (my_okHandshakeBuf) {
         my_okHandshakeBuf.position(0);
         nioWriteFully(getSocket().getChannel(), my_okHandshakeBuf, false, null);
       }
+      if (accepted != null) {
+        // the sender switches to shared memory once it has read this reply
+        this.sharedMemory = accepted;
+        if (logger.isDebugEnabled()) {
+          logger.debug("{} using {}", p2pReaderName(), accepted);
+        }
+      }
     } else {
-      synchronized (outLock) {
+      outLock.lock();
+      try {
         assert my_okHandshakeBytes != null;
         this.output.write(my_okHandshakeBytes, 0, my_okHandshakeBytes.length);
         this.output.flush();
+      } finally {
+        outLock.unlock();
       }
     }
   }
@@ -883,7 +904,7 @@ public class Connection implements Runnable {
     }
   }
 
-  private void handshakeNio() throws IOException {
+  private void handshakeNio(SharedMemoryChannel offered) throws IOException {
     waitForAddressCompletion();
 
     InternalDistributedMember myAddr = this.owner.getConduit().getMemberId();
@@ -903,6 +924,12 @@ public class Connection implements Runnable {
     // write the product version ordinal
     Version.CURRENT.writeOrdinal(connectHandshake, true);
     connectHandshake.writeInt(dominoCount.get() + 1);
+    // offer shared memory in an optional trailing field, which receivers that do not support it
+    // never read, so HANDSHAKE_VERSION is unchanged
+    if (offered != null) {
+      connectHandshake.writeBoolean(true);
+      connectHandshake.write(offered.getNonce());
+    }
     // this writes the sending member + thread name that is stored in senderName
     // on the receiver to show the cause of reader thread creation
     // if (dominoCount.get() > 0) {
@@ -947,10 +974,13 @@ public class Connection implements Runnable {
     lenbytes[MSG_HEADER_TYPE_OFFSET] = (byte) NORMAL_MSG_TYPE;
     lenbytes[MSG_HEADER_ID_OFFSET] = (byte) ((MsgIdGenerator.NO_MSG_ID >> 8) & 0xff);
     lenbytes[MSG_HEADER_ID_OFFSET + 1] = (byte) (MsgIdGenerator.NO_MSG_ID & 0xff);
-    synchronized (outLock) {
+    outLock.lock();
+    try {
       this.output.write(lenbytes, 0, lenbytes.length);
       this.output.write(msg, 0, msg.length);
       this.output.flush();
+    } finally {
+      outLock.unlock();
     }
   }
 
@@ -959,16 +989,30 @@ public class Connection implements Runnable {
    * @throws IOException if handshake fails
    */
   private void attemptHandshake(ConnectionTable connTable) throws IOException {
-    // send HANDSHAKE
-    // send this server's port. It's expected on the other side
-    if (useNIO()) {
-      handshakeNio();
-    } else {
-      handshakeStream();
+    SharedMemoryChannel offered = null;
+    if (useNIO() && SharedMemoryChannel.isSupported(this.owner.getConduit().getMemberId(),
+        this.remoteAddr)) {
+      offered = SharedMemoryChannel.create(getSocket().getChannel(),
+          this.owner.getConduit().getMemberId());
     }
+    this.offeredSharedMemory = offered;
+    try {
+      // send HANDSHAKE
+      // send this server's port. It's expected on the other side
+      if (useNIO()) {
+        handshakeNio(offered);
+      } else {
+        handshakeStream();
+      }
 
-    startReader(connTable); // this reader only reads the handshake and then exits
-    waitForHandshake(); // waiting for reply
+      startReader(connTable); // this reader only reads the handshake and then exits
+      waitForHandshake(); // waiting for reply
+    } finally {
+      this.offeredSharedMemory = null;
+      if (offered != null && this.sharedMemory != offered) {
+        offered.close();
+      }
+    }
   }
 
   /** time between connection attempts */
@@ -1175,6 +1219,9 @@ public class Connection implements Runnable {
     if (preserveOrder && BATCH_SENDS) {
       conn.createBatchSendBuffer();
     }
+    if (sharedResource && MsgCoalescer.COALESCE_SENDS && conn.useNIO()) {
+      conn.coalescer = new MsgCoalescer(conn);
+    }
     conn.finishedConnecting = true;
     return conn;
   }
@@ -1443,6 +1490,50 @@ public class Connection implements Runnable {
     }
   }
 
+  /**
+   * Coalesces small messages sent on this shared connection by different threads, or null if
+   * messages are always written on their own
+   */
+  private MsgCoalescer coalescer;
+
+  /**
+   * Writes a batch of messages gathered by this connection's {@link MsgCoalescer}
+   */
+  void writeCoalesced(ByteBuffer batch) throws IOException, ConnectionException {
+    nioWriteFully(getSocket().getChannel(), batch, false, null);
+  }
+
+  /**
+   * Carries the messages of this connection in both directions once the handshake is complete if
+   * the remote member is on the same host, or null if they go through the socket
+   */
+  private volatile SharedMemoryChannel sharedMemory;
+
+  /**
+   * The shared memory this sender offered in its handshake, until the reply has been read
+   */
+  private volatile SharedMemoryChannel offeredSharedMemory;
+
+  /**
+   * The nonce of the shared memory the sender offered in its handshake, or null if it did not
+   */
+  private byte[] sharedMemoryNonce;
+
+  /**
+   * Returns true if the messages of this connection are carried through shared memory
+   */
+  boolean isSharedMemory() {
+    return this.sharedMemory != null;
+  }
+
+  /**
+   * Returns the channel that messages from the remote member are read from
+   */
+  ReadableByteChannel getInputChannel() throws SocketException {
+    SharedMemoryChannel channel = this.sharedMemory;
+    return channel != null ? channel : getSocket().getChannel();
+  }
+
   private void closeBatchBuffer() {
     if (this.batchFlusher != null) {
       this.batchFlusher.close();
@@ -1568,6 +1659,9 @@ public class Connection implements Runnable {
         }
         // make sure our socket is closed
         asyncClose(false);
+        if (this.sharedMemory != null) {
+          this.sharedMemory.close();
+        }
         nioLengthSet = false;
       } // synchronized
 
@@ -1806,7 +1900,7 @@ public class Connection implements Runnable {
           synchronized (stateLock) {
             connectionState = STATE_READING;
           }
-          int amt = channel.read(buff);
+          int amt = this.sharedMemory != null ? this.sharedMemory.read(buff) : channel.read(buff);
           synchronized (stateLock) {
             connectionState = STATE_IDLE;
           }
@@ -2546,17 +2640,27 @@ public class Connection implements Runnable {
     this.socketInUse = true;
     try {
       if (useNIO()) {
-        SocketChannel channel = getSocket().getChannel();
-        nioWriteFully(channel, buffer, false, msg);
+        // messages that may need to be queued for a slow receiver are not coalesced so that
+        // they can still be conflated
+        if (this.coalescer != null && !this.asyncQueuingInProgress && useSyncWrites(false)
+            && this.coalescer.accepts(buffer)) {
+          this.coalescer.send(buffer);
+        } else {
+          SocketChannel channel = getSocket().getChannel();
+          nioWriteFully(channel, buffer, false, msg);
+        }
       } else {
         if (buffer.hasArray()) {
           this.output.write(buffer.array(), buffer.arrayOffset(),
               buffer.limit() - buffer.position());
         } else {
           byte[] bytesToWrite = getBytesToWrite(buffer);
-          synchronized (outLock) {
+          outLock.lock();
+          try {
             this.output.write(bytesToWrite);
             this.output.flush();
+          } finally {
+            outLock.unlock();
           }
         }
       }
@@ -3111,6 +3215,10 @@ public class Connection implements Runnable {
     if (this.isReceiver) {
       return true;
     }
+    // or we write to shared memory
+    if (this.sharedMemory != null) {
+      return true;
+    }
     // or we are an unordered connection
     if (!this.preserveOrder) {
       return true;
@@ -3139,7 +3247,8 @@ public class Connection implements Runnable {
     int retries = 0;
     int totalAmtWritten = 0;
     try {
-      synchronized (this.outLock) {
+      this.outLock.lock();
+      try {
         if (!forceAsync) {
           // check one more time while holding outLock in case a pusher was created
           if (this.asyncQueuingInProgress) {
@@ -3274,6 +3383,8 @@ public class Connection implements Runnable {
         } finally {
           channel.configureBlocking(true);
         }
+      } finally {
+        this.outLock.unlock();
       }
     } finally {
       if (socketWriteStarted) {
@@ -3305,7 +3416,8 @@ public class Connection implements Runnable {
         // fall through
       }
       long startLock = stats.startSocketLock();
-      synchronized (this.outLock) {
+      this.outLock.lock();
+      try {
         stats.endSocketLock(startLock);
         if (this.asyncQueuingInProgress) {
           if (addToQueue(buffer, msg, false)) {
@@ -3313,6 +3425,16 @@ public class Connection implements Runnable {
           }
           // fall through
         }
+        if (this.sharedMemory != null) {
+          int amtWritten = buffer.remaining();
+          long start = stats.startSocketWrite(true);
+          try {
+            this.sharedMemory.write(buffer);
+          } finally {
+            stats.endSocketWrite(true, start, amtWritten - buffer.remaining(), 0);
+          }
+          return;
+        }
         do {
           int amtWritten = 0;
           long start = stats.startSocketWrite(true);
@@ -3324,7 +3446,9 @@ public class Connection implements Runnable {
             // this.writerThread = null;
           }
         } while (buffer.remaining() > 0);
-      } // synchronized
+      } finally {
+        this.outLock.unlock();
+      }
     } else {
       writeAsync(channel, buffer, forceAsync, msg, stats);
     }
@@ -3786,6 +3910,15 @@ public class Connection implements Runnable {
                 requestClose(err.toLocalizedString(errArgs));
                 return;
               }
+              SharedMemoryChannel offered = this.offeredSharedMemory;
+              if (offered != null && offered.isAccepted()) {
+                // switch before this reader reads anything else, since the receiver may already
+                // be writing to the ring
+                this.sharedMemory = offered;
+                if (logger.isDebugEnabled()) {
+                  logger.debug("{} using {}", p2pReaderName(), offered);
+                }
+              }
               notifyHandshakeWaiter(true);
             } else {
               try {
@@ -3820,6 +3953,11 @@ public class Connection implements Runnable {
                   dominoCount.set(dominoNumber);
                   // this.senderName = dis.readUTF();
                 }
+                if (dis.available() > 0 && dis.readBoolean()) {
+                  byte[] nonce = new byte[SharedMemoryChannel.NONCE_LENGTH];
+                  dis.readFully(nonce);
+                  this.sharedMemoryNonce = nonce;
+                }
                 if (!this.sharedResource) {
                   if (tipDomino()) {
                     logger.info(LocalizedMessage.create(
@@ -1024,6 +1024,26 @@ public class ConnectionTable {
     lastInstance.set(null);
   }
 
+  /**
+   * Returns the number of receivers of the most recently created table whose messages are carried
+   * through shared memory
+   */
+  static int getNumberOfSharedMemoryReceiversForTest() {
+    ConnectionTable ct = (ConnectionTable) lastInstance.get();
+    if (ct == null) {
+      return 0;
+    }
+    int result = 0;
+    synchronized (ct.receivers) {
+      for (Iterator it = ct.receivers.iterator(); it.hasNext();) {
+        if (((Connection) it.next()).isSharedMemory()) {
+          result++;
+        }
+      }
+    }
+    return result;
+  }
+
   public void removeAndCloseThreadOwnedSockets() {
     Map m = (Map) this.threadOrderedConnMap.get();
     if (m != null) {
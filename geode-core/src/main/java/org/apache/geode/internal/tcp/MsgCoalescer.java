@@ -0,0 +1,227 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.internal.tcp;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.locks.LockSupport;
+
+import org.apache.geode.internal.i18n.LocalizedStrings;
+
+/**
+ * Coalesces small messages sent on a shared {@link Connection} by different threads into a single
+ * socket write. Each message keeps its own header so the receiver reads them back one at a time,
+ * exactly as if they had been written separately.
+ * <p>
+ * A sender copies its message into the batch being filled and then waits until that batch has
+ * been written. The first sender of a batch writes it, optionally lingering for a few
+ * microseconds so that other senders can add to it, while the messages sent during the write are
+ * gathered into the next batch. Since every sender waits for its own batch, a message is never
+ * held back after its sender has returned and write failures are reported to every sender of the
+ * batch.
+ */
+class MsgCoalescer {
+
+  /** Whether small messages on shared NIO connections are coalesced */
+  static final boolean COALESCE_SENDS = Boolean.getBoolean("p2p.coalesceSends");
+
+  /** The size of a batch; messages larger than an eighth of it are written on their own */
+  static final int COALESCE_BUFFER_SIZE = Integer.getInteger("p2p.coalesceBufferSize", 32768);
+
+  /** How long the writer of a batch waits for other messages before writing it */
+  static final long COALESCE_WINDOW_MICROS = Long.getLong("p2p.coalesceWindowMicros", 0);
+
+  private final Connection connection;
+
+  private final int maxMessageSize;
+
+  /** a batch is written without lingering any longer once it holds this many bytes */
+  private final int flushSize;
+
+  private final long windowNanos;
+
+  /** the batch messages are currently added to */
+  private ByteBuffer fillBuffer;
+
+  /** the buffer that becomes the fill buffer once the current batch has been taken */
+  private ByteBuffer spareBuffer;
+
+  /** the number of the batch in the fill buffer; batches are written in order */
+  private long fillBatch = 1;
+
+  /** the number of the last batch whose write has completed */
+  private long writtenBatch = 0;
+
+  /** the number of the first batch that could not be written */
+  private long failedBatch = Long.MAX_VALUE;
+
+  private Exception failure;
+
+  /** true while a sender is writing a batch */
+  private boolean writing;
+
+  /** the number of bytes in the fill buffer, read without synchronization while lingering */
+  private volatile int fillBytes;
+
+  MsgCoalescer(Connection connection) {
+    this(connection, COALESCE_BUFFER_SIZE, COALESCE_WINDOW_MICROS * 1000);
+  }
+
+  MsgCoalescer(Connection connection, int bufferSize, long windowNanos) {
+    this.connection = connection;
+    this.maxMessageSize = bufferSize / 8;
+    this.flushSize = bufferSize / 2;
+    this.windowNanos = windowNanos;
+    if (TCPConduit.useDirectBuffers) {
+      this.fillBuffer = ByteBuffer.allocateDirect(bufferSize);
+      this.spareBuffer = ByteBuffer.allocateDirect(bufferSize);
+    } else {
+      this.fillBuffer = ByteBuffer.allocate(bufferSize);
+      this.spareBuffer = ByteBuffer.allocate(bufferSize);
+    }
+  }
+
+  /**
+   * Returns true if the given message is small enough to be coalesced with others
+   */
+  boolean accepts(ByteBuffer message) {
+    return message.remaining() <= this.maxMessageSize;
+  }
+
+  /**
+   * Sends the remaining bytes of the given message, returning once they have been written to the
+   * connection's socket.
+   */
+  void send(ByteBuffer message) throws IOException, ConnectionException {
+    long batch;
+    synchronized (this) {
+      checkFailure(this.fillBatch);
+      boolean interrupted = false;
+      try {
+        while (this.fillBuffer.remaining() < message.remaining()) {
+          // the batch is full; wait for its writer to take it
+          try {
+            wait();
+          } catch (InterruptedException e) {
+            interrupted = true;
+          }
+          checkFailure(this.fillBatch);
+        }
+      } finally {
+        if (interrupted) {
+          Thread.currentThread().interrupt();
+        }
+      }
+      this.fillBuffer.put(message);
+      this.fillBytes = this.fillBuffer.position();
+      batch = this.fillBatch;
+    }
+    awaitWritten(batch);
+  }
+
+  /**
+   * Returns the number of bytes waiting in the batch being filled. For testing.
+   */
+  int getPendingBytes() {
+    return this.fillBytes;
+  }
+
+  private void awaitWritten(long batch) throws IOException, ConnectionException {
+    boolean interrupted = false;
+    try {
+      while (true) {
+        synchronized (this) {
+          while (this.writtenBatch < batch && this.writing) {
+            try {
+              wait();
+            } catch (InterruptedException e) {
+              interrupted = true;
+            }
+          }
+          if (this.writtenBatch >= batch) {
+            checkFailure(batch);
+            return;
+          }
+          this.writing = true;
+        }
+        writeBatch();
+      }
+    } finally {
+      if (interrupted) {
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+
+  /**
+   * Takes the batch being filled and writes it. Only called by the sender that set
+   * {@link #writing}.
+   */
+  private void writeBatch() {
+    if (this.windowNanos > 0) {
+      long deadline = System.nanoTime() + this.windowNanos;
+      long remaining = this.windowNanos;
+      while (remaining > 0 && this.fillBytes < this.flushSize) {
+        LockSupport.parkNanos(remaining);
+        remaining = deadline - System.nanoTime();
+      }
+    }
+    ByteBuffer batchBuffer;
+    long batch;
+    synchronized (this) {
+      batchBuffer = this.fillBuffer;
+      batch = this.fillBatch++;
+      this.fillBuffer = this.spareBuffer;
+      this.spareBuffer = null;
+      this.fillBytes = 0;
+      // let senders waiting for room fill the next batch
+      notifyAll();
+    }
+    Exception writeFailure = null;
+    try {
+      batchBuffer.flip();
+      this.connection.writeCoalesced(batchBuffer);
+    } catch (IOException | RuntimeException e) {
+      writeFailure = e;
+    } finally {
+      synchronized (this) {
+        batchBuffer.clear();
+        this.spareBuffer = batchBuffer;
+        this.writtenBatch = batch;
+        if (writeFailure != null && this.failure == null) {
+          this.failure = writeFailure;
+          this.failedBatch = batch;
+        }
+        this.writing = false;
+        notifyAll();
+      }
+    }
+  }
+
+  private void checkFailure(long batch) throws IOException, ConnectionException {
+    if (batch < this.failedBatch) {
+      return;
+    }
+    if (this.failure instanceof IOException) {
+      IOException ex = new IOException(this.failure.getMessage());
+      ex.initCause(this.failure);
+      throw ex;
+    }
+    throw new ConnectionException(
+        LocalizedStrings.Connection_NOT_CONNECTED_TO_0.toLocalizedString(
+            this.connection.getRemoteAddress()),
+        this.failure);
+  }
+}
@@ -21,6 +21,7 @@ import org.apache.geode.distributed.internal.DistributionMessage;
 import org.apache.geode.internal.*;
 import org.apache.geode.internal.i18n.LocalizedStrings;
 import org.apache.geode.internal.logging.LogService;
+import org.apache.geode.internal.net.BufferPool;
 import it.unimi.dsi.fastutil.objects.Object2ObjectMap;
 import it.unimi.dsi.fastutil.objects.Object2ObjectOpenHashMap;
 import it.unimi.dsi.fastutil.objects.ObjectIterator;
@@ -91,7 +92,10 @@ public class MsgStreamer extends OutputStream
   protected void release() {
     MsgIdGenerator.release(this.msgId);
     this.buffer.clear();
-    this.overflowBuf = null;
+    if (this.overflowBuf != null) {
+      this.overflowBuf.close();
+      this.overflowBuf = null;
+    }
     Buffers.releaseSenderBuffer(this.buffer, this.stats);
   }
 
@@ -274,6 +278,17 @@ public class MsgStreamer extends OutputStream
   private int overflowMode = 0;
   private HeapDataOutputStream overflowBuf = null;
 
+  /**
+   * The pool of the buffers of overflowBuf, which is closed by the thread that wrote it once it has
+   * been sent.
+   */
+  private static final BufferPool overflowBufferPool = BufferPool.createHeapPool();
+
+  private HeapDataOutputStream newOverflowBuf() {
+    return new HeapDataOutputStream(this.buffer.capacity() - Connection.MSG_HEADER_BYTES,
+        Version.CURRENT, false, overflowBufferPool);
+  }
+
   private boolean isOverflowMode() {
     return this.overflowMode > 0;
   }
@@ -292,8 +307,7 @@ public class MsgStreamer extends OutputStream
   public void realFlush(boolean lastFlushForMessage) {
     if (isOverflowMode()) {
       if (this.overflowBuf == null) {
-        this.overflowBuf = new HeapDataOutputStream(
-            this.buffer.capacity() - Connection.MSG_HEADER_BYTES, Version.CURRENT);
+        this.overflowBuf = newOverflowBuf();
       }
       return;
     }
@@ -906,8 +920,7 @@ public class MsgStreamer extends OutputStream
       if (remainingSpace < 5) {
         // we don't even have room to write the length field so just create
         // the overflowBuf
-        this.overflowBuf = new HeapDataOutputStream(
-            this.buffer.capacity() - Connection.MSG_HEADER_BYTES, Version.CURRENT);
+        this.overflowBuf = newOverflowBuf();
         this.overflowBuf.writeAsSerializedByteArray(v);
         return;
       }
@@ -942,12 +955,17 @@ public class MsgStreamer extends OutputStream
       finished = true;
       if (overBuf != null && !isOverflowMode()) {
         overBuf.sendTo((ByteBufferWriter) this);
+        overBuf.close();
       }
     } finally {
       if (!finished) {
         // reset buffer and act as if we did nothing
         this.buffer.position(lengthPos);
+        HeapDataOutputStream overBuf = this.overflowBuf;
         disableOverflowMode();
+        if (overBuf != null && !isOverflowMode()) {
+          overBuf.close();
+        }
       }
     }
   }
@@ -18,7 +18,7 @@ import java.io.EOFException;
 import java.io.IOException;
 import java.net.SocketException;
 import java.nio.ByteBuffer;
-import java.nio.channels.SocketChannel;
+import java.nio.channels.ReadableByteChannel;
 
 import org.apache.geode.internal.Version;
 
@@ -30,13 +30,13 @@ public class NIOMsgReader extends MsgReader {
 
   /** the buffer used for NIO message receipt */
   private ByteBuffer nioInputBuffer;
-  private final SocketChannel inputChannel;
+  private final ReadableByteChannel inputChannel;
   private int lastReadPosition;
   private int lastProcessedPosition;
 
   public NIOMsgReader(Connection conn, Version version) throws SocketException {
     super(conn, version);
-    this.inputChannel = conn.getSocket().getChannel();
+    this.inputChannel = conn.getInputChannel();
   }
 
 
@@ -0,0 +1,582 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.internal.tcp;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.nio.file.attribute.UserPrincipal;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import org.apache.logging.log4j.Logger;
+
+import org.apache.geode.distributed.internal.membership.InternalDistributedMember;
+import org.apache.geode.internal.logging.LogService;
+import org.apache.geode.internal.offheap.AddressableMemoryManager;
+
+/**
+ * Carries the byte stream of an NIO {@link Connection} between two members on the same host through
+ * a memory-mapped file instead of the loopback socket.
+ * <p>
+ * The file holds one single-producer single-consumer ring buffer for each direction. The socket
+ * is still used to connect, to exchange the handshake and to detect that the other side has gone
+ * away, and a reader that finds its ring empty blocks on it after asking the writer, through a
+ * flag in the file, to send a single wakeup byte once there is data. The messages in the rings are
+ * exactly the bytes that would have been written to the socket.
+ * <p>
+ * The initiator of a connection creates the file before sending its handshake, names it after a
+ * random nonce and stores the nonce in it, and offers it by appending the nonce to the handshake.
+ * The acceptor only maps the file named in a handshake it received on the socket, and only if it
+ * is a regular file owned by the user running this process that holds the same nonce and was
+ * created by the member it is talking to. It marks the file as accepted before replying. Both
+ * sides switch to the rings once the handshake is complete; a connection whose file could not be
+ * created or was not accepted keeps using the socket.
+ * <p>
+ * A file only exists while its handshake is in progress, since the acceptor deletes it once mapped
+ * and the initiator once the handshake has failed. Files left behind by an initiator that crashed
+ * in between are deleted by the next initiator on this host once they are older than
+ * {@link #STALE_FILE_AGE_MS}.
+ */
+class SharedMemoryChannel implements ReadableByteChannel {
+  private static final Logger logger = LogService.getLogger();
+
+  /**
+   * Whether NIO connections between members on the same host use shared memory. Not final so that
+   * tests can change it.
+   */
+  static boolean USE_SHARED_MEMORY = Boolean.getBoolean("p2p.sharedMemory");
+
+  /** The size of the ring buffer for each direction; rounded up to a power of two */
+  static final int SHARED_MEMORY_BUFFER_SIZE =
+      Integer.getInteger("p2p.sharedMemoryBufferSize", 1024 * 1024);
+
+  /**
+   * The directory holding the files of connections that are being established. Defaults to
+   * /dev/shm, which is backed by memory, where it exists, and to the temporary directory otherwise.
+   */
+  static final String SHARED_MEMORY_DIRECTORY =
+      System.getProperty("p2p.sharedMemoryDirectory", getDefaultDirectory());
+
+  /**
+   * The age after which a file is deleted as left behind by a crashed initiator. Much longer than a
+   * handshake may take.
+   */
+  static final long STALE_FILE_AGE_MS =
+      Long.getLong("p2p.sharedMemoryStaleFileAgeMs", TimeUnit.MINUTES.toMillis(10));
+
+  /**
+   * How many times a reader polls an empty ring before it starts parking between polls, and then
+   * blocks on the socket
+   */
+  static final int SHARED_MEMORY_SPINS = Integer.getInteger("p2p.sharedMemorySpins", 100);
+
+  /** The length of the nonce that names the file of a connection and is sent in its handshake */
+  static final int NONCE_LENGTH = 16;
+
+  private static final int MAGIC = 0x47534d31;
+
+  private static final int MAX_MEMBER_LENGTH = 960;
+
+  /* layout of the file */
+  private static final int MAGIC_OFFSET = 0;
+  private static final int CAPACITY_OFFSET = 4;
+  private static final int ACCEPTED_OFFSET = 8;
+  private static final int CLOSED_OFFSET = 16;
+  private static final int NONCE_OFFSET = 32;
+  private static final int MEMBER_OFFSET = 64;
+  /** the control words of each ring are kept on separate cache lines */
+  private static final int RING_CONTROL_OFFSET = 1024;
+  private static final int RING_CONTROL_SIZE = 256;
+  private static final int TAIL_OFFSET = 0;
+  private static final int HEAD_OFFSET = 64;
+  private static final int SLEEPING_OFFSET = 128;
+  private static final int DATA_OFFSET = 4096;
+
+  /** the ring written by the initiator of the connection */
+  private static final int INITIATOR_RING = 0;
+  /** the ring written by the acceptor of the connection */
+  private static final int ACCEPTOR_RING = 1;
+
+  private static final long MAX_WRITE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+  private static final long MAX_READ_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(64);
+
+  /**
+   * How long a writer waits for room in a full ring before probing the socket, which fails once the
+   * other side has died without closing the channel
+   */
+  private static final long PEER_PROBE_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+  private static final SecureRandom random = new SecureRandom();
+
+  private static final byte[] WAKEUP = new byte[] {1};
+
+  private static final String FILE_PREFIX = "geode-p2p-";
+
+  private static final String FILE_SUFFIX = ".shm";
+
+  /** the time at which an initiator next looks for stale files */
+  private static volatile long nextStaleFileCheck;
+
+  private final File file;
+
+  private final byte[] nonce;
+
+  /** referenced for as long as the channel is, so that the mapping stays valid */
+  private final MappedByteBuffer mapping;
+
+  private final long address;
+
+  private final int capacity;
+
+  private final SocketChannel socket;
+
+  private final long outTail;
+  private final long outHead;
+  private final long outSleeping;
+  private final long outData;
+
+  private final long inTail;
+  private final long inHead;
+  private final long inSleeping;
+  private final long inData;
+
+  /** the position up to which this side has written; only modified by the writer */
+  private long writePosition;
+
+  /** the position up to which this side has read; only modified by the reader */
+  private long readPosition;
+
+  private final ByteBuffer wakeupBuffer = ByteBuffer.allocate(64);
+
+  /** set once the socket has reached end of stream */
+  private boolean socketEOF;
+
+  private SharedMemoryChannel(File file, byte[] nonce, MappedByteBuffer mapping, long address,
+      int capacity, SocketChannel socket, int outRing) {
+    this.file = file;
+    this.nonce = nonce;
+    this.mapping = mapping;
+    this.address = address;
+    this.capacity = capacity;
+    this.socket = socket;
+    int inRing = outRing == INITIATOR_RING ? ACCEPTOR_RING : INITIATOR_RING;
+    long out = address + RING_CONTROL_OFFSET + outRing * RING_CONTROL_SIZE;
+    this.outTail = out + TAIL_OFFSET;
+    this.outHead = out + HEAD_OFFSET;
+    this.outSleeping = out + SLEEPING_OFFSET;
+    this.outData = address + DATA_OFFSET + (long) outRing * capacity;
+    long in = address + RING_CONTROL_OFFSET + inRing * RING_CONTROL_SIZE;
+    this.inTail = in + TAIL_OFFSET;
+    this.inHead = in + HEAD_OFFSET;
+    this.inSleeping = in + SLEEPING_OFFSET;
+    this.inData = address + DATA_OFFSET + (long) inRing * capacity;
+  }
+
+  /**
+   * Returns true if a connection from the local member to the remote member can be carried through
+   * shared memory.
+   */
+  static boolean isSupported(InternalDistributedMember local, InternalDistributedMember remote) {
+    return USE_SHARED_MEMORY && local != null && remote != null && local.getInetAddress() != null
+        && local.getInetAddress().equals(remote.getInetAddress());
+  }
+
+  /**
+   * Creates the file for a connection being initiated on the given socket by the given member, or
+   * returns null if it could not be created.
+   */
+  static SharedMemoryChannel create(SocketChannel socket, InternalDistributedMember member) {
+    return create(socket, member, SHARED_MEMORY_DIRECTORY, SHARED_MEMORY_BUFFER_SIZE);
+  }
+
+  static SharedMemoryChannel create(SocketChannel socket, InternalDistributedMember member,
+      String directory, int bufferSize) {
+    long now = System.currentTimeMillis();
+    if (now >= nextStaleFileCheck) {
+      nextStaleFileCheck = now + STALE_FILE_AGE_MS;
+      deleteStaleFiles(directory, now - STALE_FILE_AGE_MS);
+    }
+    byte[] nonce = new byte[NONCE_LENGTH];
+    random.nextBytes(nonce);
+    File file = getFile(directory, nonce);
+    int capacity = Integer.highestOneBit(Math.max(bufferSize, 4096) - 1) << 1;
+    byte[] memberBytes = getMemberKey(member).getBytes(StandardCharsets.UTF_8);
+    if (memberBytes.length > MAX_MEMBER_LENGTH) {
+      return null;
+    }
+    try {
+      // fails rather than opening a file someone else created under the same name
+      try {
+        Files.createFile(file.toPath(),
+            PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rw-------")));
+      } catch (UnsupportedOperationException e) {
+        Files.createFile(file.toPath());
+      }
+      MappedByteBuffer mapping = map(file, DATA_OFFSET + 2L * capacity);
+      long address = AddressableMemoryManager.getDirectByteBufferAddress(mapping);
+      if (address == 0L) {
+        file.delete();
+        return null;
+      }
+      AddressableMemoryManager.writeInt(address + CAPACITY_OFFSET, capacity);
+      AddressableMemoryManager.writeBytes(address + NONCE_OFFSET, nonce, 0, NONCE_LENGTH);
+      AddressableMemoryManager.writeInt(address + MEMBER_OFFSET, memberBytes.length);
+      AddressableMemoryManager.writeBytes(address + MEMBER_OFFSET + 4, memberBytes, 0,
+          memberBytes.length);
+      AddressableMemoryManager.writeIntVolatile(address + MAGIC_OFFSET, MAGIC);
+      return new SharedMemoryChannel(file, nonce, mapping, address, capacity, socket,
+          INITIATOR_RING);
+    } catch (IOException | RuntimeException e) {
+      file.delete();
+      if (logger.isDebugEnabled()) {
+        logger.debug("Unable to create shared memory file {}", file, e);
+      }
+      return null;
+    }
+  }
+
+  /**
+   * Maps and accepts the file offered with the given nonce in the handshake of a connection
+   * accepted on the given socket, returning null if it was not created by the given member.
+   */
+  static SharedMemoryChannel accept(SocketChannel socket, InternalDistributedMember member,
+      byte[] nonce) {
+    return accept(socket, member, nonce, SHARED_MEMORY_DIRECTORY);
+  }
+
+  static SharedMemoryChannel accept(SocketChannel socket, InternalDistributedMember member,
+      byte[] nonce, String directory) {
+    if (nonce == null || nonce.length != NONCE_LENGTH) {
+      return null;
+    }
+    File file = getFile(directory, nonce);
+    Path path = file.toPath();
+    try {
+      if (!Files.isRegularFile(path, LinkOption.NOFOLLOW_LINKS)
+          || !isOwnedByThisUser(path)) {
+        return null;
+      }
+      long length = Files.size(path);
+      if (length <= DATA_OFFSET) {
+        return null;
+      }
+      MappedByteBuffer mapping;
+      try (FileChannel fileChannel = FileChannel.open(path, StandardOpenOption.READ,
+          StandardOpenOption.WRITE, LinkOption.NOFOLLOW_LINKS)) {
+        if (fileChannel.size() != length) {
+          return null;
+        }
+        mapping = fileChannel.map(FileChannel.MapMode.READ_WRITE, 0, length);
+      }
+      long address = AddressableMemoryManager.getDirectByteBufferAddress(mapping);
+      if (address == 0L
+          || AddressableMemoryManager.readIntVolatile(address + MAGIC_OFFSET) != MAGIC) {
+        return null;
+      }
+      byte[] fileNonce = new byte[NONCE_LENGTH];
+      AddressableMemoryManager.readBytes(address + NONCE_OFFSET, fileNonce, 0, NONCE_LENGTH);
+      if (!MessageDigest.isEqual(nonce, fileNonce)) {
+        return null;
+      }
+      int capacity = AddressableMemoryManager.readInt(address + CAPACITY_OFFSET);
+      int memberLength = AddressableMemoryManager.readInt(address + MEMBER_OFFSET);
+      if (Integer.bitCount(capacity) != 1 || length != DATA_OFFSET + 2L * capacity
+          || memberLength < 0 || memberLength > MAX_MEMBER_LENGTH) {
+        return null;
+      }
+      byte[] memberBytes = new byte[memberLength];
+      AddressableMemoryManager.readBytes(address + MEMBER_OFFSET + 4, memberBytes, 0,
+          memberLength);
+      if (!getMemberKey(member).equals(new String(memberBytes, StandardCharsets.UTF_8))) {
+        return null;
+      }
+      AddressableMemoryManager.writeIntVolatile(address + ACCEPTED_OFFSET, 1);
+      file.delete();
+      return new SharedMemoryChannel(file, nonce, mapping, address, capacity, socket,
+          ACCEPTOR_RING);
+    } catch (IOException | RuntimeException e) {
+      if (logger.isDebugEnabled()) {
+        logger.debug("Unable to map shared memory file {}", file, e);
+      }
+      return null;
+    }
+  }
+
+  /**
+   * Returns true if the file at the given path is owned by the user running this process. The
+   * initiator runs as the same user, so a file owned by anyone else was not created by it.
+   */
+  private static boolean isOwnedByThisUser(Path path) throws IOException {
+    try {
+      UserPrincipal owner = Files.getOwner(path, LinkOption.NOFOLLOW_LINKS);
+      return owner.getName().equals(System.getProperty("user.name"));
+    } catch (UnsupportedOperationException e) {
+      return false;
+    }
+  }
+
+  private static String getDefaultDirectory() {
+    File shm = new File("/dev/shm");
+    if (shm.isDirectory() && shm.canWrite()) {
+      return shm.getPath();
+    }
+    return System.getProperty("java.io.tmpdir");
+  }
+
+  /**
+   * Deletes the connection files in the given directory that are owned by the user running this
+   * process and were last modified before the given time.
+   *
+   * @return the number of files deleted
+   */
+  static int deleteStaleFiles(String directory, long modifiedBefore) {
+    File[] files = new File(directory).listFiles(
+        (dir, name) -> name.startsWith(FILE_PREFIX) && name.endsWith(FILE_SUFFIX));
+    if (files == null) {
+      return 0;
+    }
+    int deleted = 0;
+    for (File file : files) {
+      Path path = file.toPath();
+      try {
+        if (Files.isRegularFile(path, LinkOption.NOFOLLOW_LINKS) && isOwnedByThisUser(path)
+            && Files.getLastModifiedTime(path, LinkOption.NOFOLLOW_LINKS)
+                .toMillis() < modifiedBefore
+            && file.delete()) {
+          deleted++;
+        }
+      } catch (IOException e) {
+        // deleted by its owner meanwhile
+      }
+    }
+    if (deleted > 0) {
+      logger.info("Deleted {} stale shared memory files from {}", deleted, directory);
+    }
+    return deleted;
+  }
+
+  private static MappedByteBuffer map(File file, long length) throws IOException {
+    try (RandomAccessFile raf = new RandomAccessFile(file, "rw");
+        FileChannel fileChannel = raf.getChannel()) {
+      if (raf.length() != length) {
+        raf.setLength(length);
+      }
+      // the mapping stays valid after the file channel is closed
+      return fileChannel.map(FileChannel.MapMode.READ_WRITE, 0, length);
+    }
+  }
+
+  static File getFile(String directory, byte[] nonce) {
+    StringBuilder name = new StringBuilder(FILE_PREFIX);
+    for (byte b : nonce) {
+      name.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+    }
+    return new File(directory, name.append(FILE_SUFFIX).toString());
+  }
+
+  /**
+   * Returns the nonce that the initiator sends in its handshake to offer this channel
+   */
+  byte[] getNonce() {
+    return this.nonce;
+  }
+
+  private static String getMemberKey(InternalDistributedMember member) {
+    return member.getInetAddress().getHostAddress() + ":" + member.getPort() + ":"
+        + member.getDirectChannelPort();
+  }
+
+  /**
+   * Returns true once the other side has accepted the file of a connection initiated by this side
+   */
+  boolean isAccepted() {
+    return AddressableMemoryManager.readIntVolatile(address + ACCEPTED_OFFSET) != 0;
+  }
+
+  /**
+   * Writes all of the bytes remaining in the given buffer, waiting for the reader to make room for
+   * them if necessary. Must not be called by more than one thread at a time.
+   */
+  void write(ByteBuffer src) throws IOException {
+    long parkNanos = 1000;
+    long probeTime = 0;
+    while (src.hasRemaining()) {
+      long head = AddressableMemoryManager.readLongVolatile(this.outHead);
+      int free = (int) (this.capacity - (this.writePosition - head));
+      if (free == 0) {
+        if (!isOpen()) {
+          throw new ClosedChannelException();
+        }
+        // a reader that was killed never empties the ring or marks the channel closed, but its
+        // socket is reset, which a write finds; the reader ignores the byte if it is alive
+        long now = System.nanoTime();
+        if (probeTime == 0) {
+          probeTime = now + PEER_PROBE_NANOS;
+        } else if (now - probeTime >= 0) {
+          probeTime = now + PEER_PROBE_NANOS;
+          wakeupReader();
+        }
+        LockSupport.parkNanos(parkNanos);
+        parkNanos = Math.min(parkNanos * 2, MAX_WRITE_PARK_NANOS);
+        continue;
+      }
+      parkNanos = 1000;
+      probeTime = 0;
+      int index = (int) this.writePosition & (this.capacity - 1);
+      int amount = Math.min(free, src.remaining());
+      int first = Math.min(amount, this.capacity - index);
+      copyIn(src, this.outData + index, first);
+      if (first < amount) {
+        copyIn(src, this.outData, amount - first);
+      }
+      this.writePosition += amount;
+      AddressableMemoryManager.writeLongVolatile(this.outTail, this.writePosition);
+      if (AddressableMemoryManager.readLongVolatile(this.outSleeping) != 0
+          && AddressableMemoryManager.writeLongVolatile(this.outSleeping, 1, 0)) {
+        wakeupReader();
+      }
+    }
+  }
+
+  private void wakeupReader() throws IOException {
+    ByteBuffer wakeup = ByteBuffer.wrap(WAKEUP);
+    while (wakeup.hasRemaining()) {
+      if (this.socket.write(wakeup) == 0) {
+        Thread.yield();
+      }
+    }
+  }
+
+  /**
+   * Reads the bytes available in the ring written by the other side, waiting for some if there are
+   * none. Returns -1 once the socket has been closed by the other side and the ring is empty.
+   * Must not be called by more than one thread at a time.
+   */
+  @Override
+  public int read(ByteBuffer dst) throws IOException {
+    if (!dst.hasRemaining()) {
+      return 0;
+    }
+    int spins = 0;
+    long parkNanos = 0;
+    while (true) {
+      long available = AddressableMemoryManager.readLongVolatile(this.inTail) - this.readPosition;
+      if (available > 0) {
+        int index = (int) this.readPosition & (this.capacity - 1);
+        int amount = (int) Math.min(available, dst.remaining());
+        int first = Math.min(amount, this.capacity - index);
+        copyOut(this.inData + index, dst, first);
+        if (first < amount) {
+          copyOut(this.inData, dst, amount - first);
+        }
+        this.readPosition += amount;
+        AddressableMemoryManager.writeLongVolatile(this.inHead, this.readPosition);
+        return amount;
+      }
+      if (this.socketEOF) {
+        return -1;
+      }
+      if (spins++ < SHARED_MEMORY_SPINS) {
+        continue;
+      }
+      if (parkNanos < MAX_READ_PARK_NANOS) {
+        parkNanos = parkNanos == 0 ? 1000 : parkNanos * 2;
+        LockSupport.parkNanos(parkNanos);
+        continue;
+      }
+      spins = 0;
+      parkNanos = 0;
+      AddressableMemoryManager.writeLongVolatile(this.inSleeping, 1);
+      if (AddressableMemoryManager.readLongVolatile(this.inTail) != this.readPosition) {
+        // the writer may have seen the flag and sent a wakeup, which is read and ignored later
+        AddressableMemoryManager.writeLongVolatile(this.inSleeping, 0);
+        continue;
+      }
+      this.wakeupBuffer.clear();
+      if (this.socket.read(this.wakeupBuffer) < 0) {
+        this.socketEOF = true;
+      }
+    }
+  }
+
+  private static void copyIn(ByteBuffer src, long dstAddress, int length) {
+    if (src.isDirect()) {
+      long srcAddress = AddressableMemoryManager.getDirectByteBufferAddress(src);
+      AddressableMemoryManager.copyMemory(srcAddress + src.position(), dstAddress, length);
+    } else if (src.hasArray()) {
+      AddressableMemoryManager.writeBytes(dstAddress, src.array(),
+          src.arrayOffset() + src.position(), length);
+    } else {
+      byte[] bytes = new byte[length];
+      src.duplicate().get(bytes);
+      AddressableMemoryManager.writeBytes(dstAddress, bytes, 0, length);
+    }
+    src.position(src.position() + length);
+  }
+
+  private static void copyOut(long srcAddress, ByteBuffer dst, int length) {
+    if (dst.isDirect()) {
+      long dstAddress = AddressableMemoryManager.getDirectByteBufferAddress(dst);
+      AddressableMemoryManager.copyMemory(srcAddress, dstAddress + dst.position(), length);
+      dst.position(dst.position() + length);
+    } else if (dst.hasArray()) {
+      AddressableMemoryManager.readBytes(srcAddress, dst.array(),
+          dst.arrayOffset() + dst.position(), length);
+      dst.position(dst.position() + length);
+    } else {
+      byte[] bytes = new byte[length];
+      AddressableMemoryManager.readBytes(srcAddress, bytes, 0, length);
+      dst.put(bytes);
+    }
+  }
+
+  @Override
+  public boolean isOpen() {
+    return this.socket.isOpen()
+        && AddressableMemoryManager.readIntVolatile(this.address + CLOSED_OFFSET) == 0;
+  }
+
+  /**
+   * Marks the channel closed so that a writer waiting for room on either side gives up, and removes
+   * the file if it is still there. The mapping is released once the channel is garbage collected,
+   * since threads may still be using it.
+   */
+  @Override
+  public void close() {
+    AddressableMemoryManager.writeIntVolatile(this.address + CLOSED_OFFSET, 1);
+    this.file.delete();
+  }
+
+  @Override
+  public String toString() {
+    return "SharedMemoryChannel[" + this.file.getName() + ", capacity=" + this.capacity + "]";
+  }
+}
@@ -0,0 +1,33 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.internal.util.concurrent;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * A {@link ConcurrentMap} that can also iterate its mappings without allocating a new
+ * {@link Map.Entry} for each of them. Implemented by the maps that can back a region's entries.
+ */
+public interface ConcurrentMapWithReusableEntries<K, V> extends ConcurrentMap<K, V> {
+
+  /**
+   * Returns a {@link Set} view of the mappings contained in this map whose iterator may reuse the
+   * same <code>Map.Entry</code> instance for each mapping, so callers cannot store the returned
+   * entries. The iterator supports <tt>remove</tt>.
+   */
+  Set<Map.Entry<K, V>> entrySetWithReusableEntries();
+}
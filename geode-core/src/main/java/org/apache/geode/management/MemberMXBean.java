@@ -146,6 +146,14 @@ public interface MemberMXBean {
    */
   String showLog(int numberOfLines);
 
+  /**
+   * Returns the profiles of the queries most recently executed on this member, most recent first.
+   * Each profile lists the time spent in, the number of invocations of and the rows going into and
+   * coming out of each operator of the query. Queries are profiled when they are traced with the
+   * &lt;trace&gt; hint or when the gemfire.Query.PROFILE system property is set.
+   */
+  String[] showQueryProfiles();
+
   /**
    * Returns the license string for this member.
    *
@@ -54,6 +54,11 @@ public class MemberMBean extends NotificationBroadcasterSupport implements Membe
     return bridge.fetchLog(numLines);
   }
 
+  @Override
+  public String[] showQueryProfiles() {
+    return bridge.getQueryProfiles();
+  }
+
   @Override
   public float getBytesReceivedRate() {
     return bridge.getBytesReceivedRate();
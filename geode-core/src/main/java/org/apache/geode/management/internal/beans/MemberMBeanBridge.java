@@ -49,6 +49,7 @@ import org.apache.geode.cache.DiskStore;
 import org.apache.geode.cache.Region;
 import org.apache.geode.cache.execute.FunctionService;
 import org.apache.geode.cache.persistence.PersistentID;
+import org.apache.geode.cache.query.internal.QueryProfile;
 import org.apache.geode.cache.wan.GatewayReceiver;
 import org.apache.geode.cache.wan.GatewaySender;
 import org.apache.geode.distributed.Locator;
@@ -1229,6 +1230,21 @@ public class MemberMBeanBridge {
     return ManagementConstants.NO_DATA_STRING;
   }
 
+  /**
+   * @return profiles of the queries recently executed on the member
+   */
+  public String[] getQueryProfiles() {
+    List<QueryProfile> profiles = QueryProfile.getRecentProfiles();
+    if (profiles.isEmpty()) {
+      return ManagementConstants.NO_DATA_STRING;
+    }
+    String[] profileStr = new String[profiles.size()];
+    for (int i = 0; i < profileStr.length; i++) {
+      profileStr[i] = profiles.get(i).toString();
+    }
+    return profileStr;
+  }
+
   /**
    * @return configuration data lock lease
    */
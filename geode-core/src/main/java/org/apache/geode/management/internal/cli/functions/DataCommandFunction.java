@@ -227,6 +227,9 @@ public class DataCommandFunction extends FunctionAdapter implements InternalEnti
       if (tracedQuery.isTraced()) {
         queryVerboseMsg = getLogMessage(queryObserver, startTime, queryString);
         queryObserver.reset2();
+        if (tracedQuery.getProfile() != null) {
+          queryVerboseMsg += "\n" + tracedQuery.getProfile();
+        }
       }
       if (results instanceof SelectResults) {
         select_SelectResults((SelectResults) results, principal, list, nestedObjectCount);
@@ -616,6 +616,43 @@ public class PdxReaderImpl implements InternalPdxReader, java.io.Serializable {
     return blobType.getPdxField(fieldName) != null;
   }
 
+  /**
+   * Returns the named field if it is a byte, short, int or long field that can be read with
+   * {@link #readIntegralField(PdxField)}; null otherwise.
+   */
+  public PdxField getIntegralField(String fieldName) {
+    PdxField ft = blobType.getPdxField(fieldName);
+    if (ft == null || ft.isDeleted()) {
+      return null;
+    }
+    switch (ft.getFieldType()) {
+      case BYTE:
+      case SHORT:
+      case INT:
+      case LONG:
+        return ft;
+      default:
+        return null;
+    }
+  }
+
+  /**
+   * Reads a field returned by {@link #getIntegralField(String)} straight from the serialized bytes
+   * without boxing it.
+   */
+  public long readIntegralField(PdxField ft) {
+    switch (ft.getFieldType()) {
+      case BYTE:
+        return readByte(ft);
+      case SHORT:
+        return readShort(ft);
+      case INT:
+        return readInt(ft);
+      default:
+        return readLong(ft);
+    }
+  }
+
   public boolean isIdentityField(String fieldName) {
     PdxField field = blobType.getPdxField(fieldName);
     return field != null && field.isIdentityField();
@@ -0,0 +1,157 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.cache.client.internal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Supplier;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import org.apache.geode.cache.Region;
+import org.apache.geode.cache.execute.Execution;
+import org.apache.geode.cache.execute.ResultCollector;
+import org.apache.geode.test.junit.categories.ClientServerTest;
+import org.apache.geode.test.junit.categories.UnitTest;
+
+@Category({UnitTest.class, ClientServerTest.class})
+public class AsyncRegionJUnitTest {
+
+  private Region<String, String> region;
+  private AsyncRegion<String, String> asyncRegion;
+
+  @Before
+  @SuppressWarnings("unchecked")
+  public void setUp() {
+    region = mock(Region.class);
+    PoolImpl pool = mock(PoolImpl.class);
+    when(pool.executeAsync(any())).thenAnswer(invocation -> {
+      CompletableFuture<Object> result = new CompletableFuture<>();
+      try {
+        result.complete(invocation.<Supplier<Object>>getArgument(0).get());
+      } catch (RuntimeException e) {
+        result.completeExceptionally(e);
+      }
+      return result;
+    });
+    asyncRegion = new AsyncRegion<>(region, pool, 0);
+  }
+
+  @Test
+  public void getCompletesWithRegionValue() throws Exception {
+    when(region.get("key")).thenReturn("value");
+
+    assertThat(asyncRegion.get("key").get()).isEqualTo("value");
+  }
+
+  @Test
+  public void putCompletesWithOldValue() throws Exception {
+    when(region.put("key", "value")).thenReturn("old");
+
+    assertThat(asyncRegion.put("key", "value").get()).isEqualTo("old");
+  }
+
+  @Test
+  public void getAllAndPutAllDelegateToRegion() throws Exception {
+    Map<String, String> map = Collections.singletonMap("key", "value");
+    when(region.getAll(Arrays.asList("key"))).thenReturn(map);
+
+    assertThat(asyncRegion.getAll(Arrays.asList("key")).get()).isEqualTo(map);
+    assertThat(asyncRegion.putAll(map).get()).isNull();
+    verify(region).putAll(map);
+  }
+
+  @Test
+  public void removeCompletesWithRemovedValue() throws Exception {
+    when(region.remove("key")).thenReturn("value");
+
+    assertThat(asyncRegion.remove("key").get()).isEqualTo("value");
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  public void executeCompletesWithFunctionResult() throws Exception {
+    Execution<Object, Object, Object> execution = mock(Execution.class);
+    ResultCollector<Object, Object> collector = mock(ResultCollector.class);
+    when(execution.execute("function")).thenReturn(collector);
+    when(collector.getResult()).thenReturn("result");
+
+    assertThat(asyncRegion.execute(execution, "function").get()).isEqualTo("result");
+  }
+
+  @Test
+  public void failedOperationCompletesExceptionally() {
+    IllegalStateException failure = new IllegalStateException("failed");
+    when(region.get("key")).thenThrow(failure);
+
+    Throwable thrown = catchThrowable(() -> asyncRegion.get("key").get());
+
+    assertThat(thrown).isInstanceOf(ExecutionException.class).hasCause(failure);
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  public void getsAreBatchedWhileRequestsAreInFlight() throws Exception {
+    List<Runnable> requests = new ArrayList<>();
+    PoolImpl pool = mock(PoolImpl.class);
+    when(pool.executeAsync(any())).thenAnswer(invocation -> {
+      CompletableFuture<Object> result = new CompletableFuture<>();
+      Supplier<Object> operation = invocation.getArgument(0);
+      requests.add(() -> result.complete(operation.get()));
+      return result;
+    });
+    Map<String, String> values = new HashMap<>();
+    values.put("key2", "value2");
+    values.put("key3", "value3");
+    when(region.get("key1")).thenReturn("value1");
+    when(region.getAll(any())).thenReturn(values);
+    AsyncRegion<String, String> batching = new AsyncRegion<>(region, pool, 1);
+
+    CompletableFuture<String> get1 = batching.get("key1");
+    CompletableFuture<String> get2 = batching.get("key2");
+    CompletableFuture<String> get3 = batching.get("key3");
+    CompletableFuture<String> get3Again = batching.get("key3");
+    assertThat(requests).hasSize(1);
+
+    requests.get(0).run();
+    assertThat(get1.get()).isEqualTo("value1");
+    assertThat(requests).hasSize(2);
+    assertThat(get2).isNotDone();
+
+    requests.get(1).run();
+    assertThat(get2.get()).isEqualTo("value2");
+    assertThat(get3.get()).isEqualTo("value3");
+    assertThat(get3Again.get()).isEqualTo("value3");
+    verify(region).getAll(new HashSet<>(Arrays.asList("key2", "key3")));
+    verify(region, never()).get("key2");
+  }
+}
@@ -85,6 +85,34 @@ public class PdxStringQueryJUnitTest {
     r.clear();
   }
 
+  @Test
+  public void testIntegralFieldComparisonsOnPdxInstances() throws Exception {
+    for (int i = 0; i < 10; i++) {
+      PdxInstanceFactory pf = PdxInstanceFactoryImpl.newCreator("Portfolio", false);
+      pf.writeInt("ID", i);
+      pf.writeLong("amount", i * 100L);
+      pf.writeString("secId", "sec" + i);
+      r.put("key" + i, pf.create());
+    }
+    String from = "select * from /exampleRegion p where ";
+    assertEquals(1, ((SelectResults) qs.newQuery(from + "p.ID = 3").execute()).size());
+    assertEquals(9, ((SelectResults) qs.newQuery(from + "p.ID <> 3").execute()).size());
+    assertEquals(3, ((SelectResults) qs.newQuery(from + "p.ID < 3").execute()).size());
+    assertEquals(4, ((SelectResults) qs.newQuery(from + "p.ID <= 3").execute()).size());
+    assertEquals(6, ((SelectResults) qs.newQuery(from + "p.ID > 3").execute()).size());
+    assertEquals(7, ((SelectResults) qs.newQuery(from + "p.ID >= 3").execute()).size());
+    assertEquals(2, ((SelectResults) qs.newQuery(from + "p.amount > $1")
+        .execute(new Object[] {700L})).size());
+    assertEquals(3, ((SelectResults) qs.newQuery(from + "p.amount >= $1")
+        .execute(new Object[] {700})).size());
+    // not an integral constant so the comparison is evaluated the general way
+    assertEquals(2, ((SelectResults) qs.newQuery(from + "p.amount > $1")
+        .execute(new Object[] {750.5d})).size());
+    // not an integral field
+    assertEquals(1, ((SelectResults) qs.newQuery(from + "p.secId = 'sec3'").execute()).size());
+    r.clear();
+  }
+
   @Test
   public void testQueriesWithCompactRangeIndexPdxInstances() throws Exception {
     Index index = qs.createIndex("index1", "secId", "/exampleRegion");
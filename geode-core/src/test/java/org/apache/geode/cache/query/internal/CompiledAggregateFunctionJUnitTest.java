@@ -31,6 +31,7 @@ import org.junit.experimental.categories.Category;
 import org.apache.geode.cache.query.Aggregator;
 import org.apache.geode.cache.query.internal.aggregate.Avg;
 import org.apache.geode.cache.query.internal.aggregate.AvgBucketNode;
+import org.apache.geode.cache.query.internal.aggregate.AvgBucketNodeCombiner;
 import org.apache.geode.cache.query.internal.aggregate.AvgDistinct;
 import org.apache.geode.cache.query.internal.aggregate.AvgDistinctPRQueryNode;
 import org.apache.geode.cache.query.internal.aggregate.AvgPRQueryNode;
@@ -39,6 +40,7 @@ import org.apache.geode.cache.query.internal.aggregate.CountDistinct;
 import org.apache.geode.cache.query.internal.aggregate.CountDistinctPRQueryNode;
 import org.apache.geode.cache.query.internal.aggregate.CountPRQueryNode;
 import org.apache.geode.cache.query.internal.aggregate.DistinctAggregator;
+import org.apache.geode.cache.query.internal.aggregate.DistinctBucketNodeCombiner;
 import org.apache.geode.cache.query.internal.aggregate.MaxMin;
 import org.apache.geode.cache.query.internal.aggregate.Sum;
 import org.apache.geode.cache.query.internal.aggregate.SumDistinct;
@@ -169,6 +171,27 @@ public class CompiledAggregateFunctionJUnitTest {
     assertTrue(caf6.evaluate(context6) instanceof DistinctAggregator);
   }
 
+  @Test
+  public void testBucketNodeCombiner() throws Exception {
+    QueryExecutionContext combinerContext = new QueryExecutionContext(null, cache);
+    combinerContext.setBucketList(this.bucketList);
+    combinerContext.setIsBucketNodeCombiner(true);
+
+    assertTrue(new CompiledAggregateFunction(null, OQLLexerTokenTypes.COUNT)
+        .evaluate(combinerContext) instanceof CountPRQueryNode);
+    assertTrue(new CompiledAggregateFunction(null, OQLLexerTokenTypes.SUM)
+        .evaluate(combinerContext) instanceof Sum);
+    assertTrue(new CompiledAggregateFunction(null, OQLLexerTokenTypes.AVG)
+        .evaluate(combinerContext) instanceof AvgBucketNodeCombiner);
+    assertTrue(new CompiledAggregateFunction(null, OQLLexerTokenTypes.MAX)
+        .evaluate(combinerContext) instanceof MaxMin);
+    for (int type : new int[] {OQLLexerTokenTypes.COUNT, OQLLexerTokenTypes.SUM,
+        OQLLexerTokenTypes.AVG}) {
+      assertTrue(new CompiledAggregateFunction(null, type, true)
+          .evaluate(combinerContext) instanceof DistinctBucketNodeCombiner);
+    }
+  }
+
   @Test
   public void testMaxMin() throws Exception {
     CompiledAggregateFunction caf1 = new CompiledAggregateFunction(null, OQLLexerTokenTypes.MAX);
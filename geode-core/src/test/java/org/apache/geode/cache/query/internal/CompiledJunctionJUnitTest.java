@@ -0,0 +1,131 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.cache.query.internal;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import org.apache.geode.cache.query.SelectResults;
+import org.apache.geode.cache.query.internal.parse.OQLLexerTokenTypes;
+import org.apache.geode.cache.query.internal.types.ObjectTypeImpl;
+import org.apache.geode.test.junit.categories.UnitTest;
+
+/**
+ * Tests when an AND junction stops intersecting the results of its filters and evaluates the
+ * remaining conditions on the intermediate results instead.
+ */
+@Category(UnitTest.class)
+public class CompiledJunctionJUnitTest {
+
+  private ExecutionContext context;
+
+  @Before
+  public void setUp() {
+    context = mock(ExecutionContext.class);
+    when(context.isCostBasedIndexSelection()).thenReturn(true);
+  }
+
+  @Test
+  public void intersectionIsAbortedWhenTheNextFilterIsTooExpensive() throws Exception {
+    CompiledComparison selective = mockFilter(200, 0, 200);
+    // more than four times the intermediate results
+    CompiledComparison expensive = mockFilter(801, 100, 901);
+
+    SelectResults results = evaluateAnd(expensive, selective);
+
+    assertEquals(200, results.size());
+    verify(expensive, never()).filterEvaluate(any(), any());
+  }
+
+  @Test
+  public void intersectionContinuesWhenTheNextFilterIsCheapEnough() throws Exception {
+    CompiledComparison selective = mockFilter(200, 0, 200);
+    CompiledComparison cheap = mockFilter(800, 100, 900);
+
+    SelectResults results = evaluateAnd(cheap, selective);
+
+    assertEquals(100, results.size());
+    verify(cheap).filterEvaluate(context, null);
+  }
+
+  @Test
+  public void intersectionIsNotAbortedWithoutCostBasedIndexSelection() throws Exception {
+    when(context.isCostBasedIndexSelection()).thenReturn(false);
+    CompiledComparison selective = mockFilter(200, 0, 200);
+    CompiledComparison expensive = mockFilter(801, 100, 901);
+
+    SelectResults results = evaluateAnd(expensive, selective);
+
+    assertEquals(100, results.size());
+    verify(expensive).filterEvaluate(context, null);
+  }
+
+  @Test
+  public void intersectionIsAbortedOnceTheResultsAreBelowTheThreshold() throws Exception {
+    CompiledComparison selective = mockFilter(50, 0, 50);
+    CompiledComparison cheap = mockFilter(100, 0, 100);
+
+    SelectResults results = evaluateAnd(cheap, selective);
+
+    assertEquals(50, results.size());
+    verify(cheap, never()).filterEvaluate(any(), any());
+  }
+
+  @Test
+  public void iterationIsCheaperThanAnIndexReturningManyMoreResults() throws Exception {
+    CompiledComparison filter = mockFilter(401, 0, 0);
+    assertTrue(QueryUtils.isIterationCheaperThanIndex(context, 100, filter));
+    assertFalse(QueryUtils.isIndexCheaperThanIteration(context, 100, filter));
+
+    filter = mockFilter(400, 0, 0);
+    assertFalse(QueryUtils.isIterationCheaperThanIndex(context, 100, filter));
+    assertTrue(QueryUtils.isIndexCheaperThanIteration(context, 100, filter));
+  }
+
+  @Test
+  public void indexesAreNotSelectedByCostWithHints() throws Exception {
+    QueryExecutionContext hinted = mock(QueryExecutionContext.class);
+    when(hinted.isCostBasedIndexSelection()).thenReturn(true);
+    when(hinted.hasHints()).thenReturn(true);
+    CompiledComparison filter = mockFilter(1000, 0, 0);
+
+    assertFalse(QueryUtils.isIterationCheaperThanIndex(hinted, 100, filter));
+    assertFalse(QueryUtils.isIndexCheaperThanIteration(hinted, 100, filter));
+  }
+
+  private SelectResults evaluateAnd(CompiledComparison... filters) throws Exception {
+    CompiledJunction junction = new CompiledJunction(filters, OQLLexerTokenTypes.LITERAL_and);
+    return junction.auxFilterEvaluate(context, null);
+  }
+
+  /**
+   * Returns a filter with the given size estimate whose index returns the integers from start up to
+   * but excluding end.
+   */
+  private CompiledComparison mockFilter(int sizeEstimate, int start, int end) throws Exception {
+    CompiledComparison filter = mock(CompiledComparison.class);
+    when(filter.getSizeEstimate(context)).thenReturn(sizeEstimate);
+    ResultsSet results = new ResultsSet(new ObjectTypeImpl(Integer.class));
+    for (int i = start; i < end; i++) {
+      results.add(i);
+    }
+    when(filter.filterEvaluate(context, null)).thenReturn(results);
+    return filter;
+  }
+}
@@ -0,0 +1,162 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.cache.query.internal;
+
+import static org.junit.Assert.*;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import org.apache.geode.cache.Region;
+import org.apache.geode.cache.query.CacheUtils;
+import org.apache.geode.cache.query.SelectResults;
+import org.apache.geode.cache.query.Struct;
+import org.apache.geode.cache.query.data.Portfolio;
+import org.apache.geode.test.junit.categories.IntegrationTest;
+
+/**
+ * Executes queries created from the same text concurrently on regions holding different types
+ * while the compiled query cache is enabled.
+ */
+@Category(IntegrationTest.class)
+public class CompiledQueryCacheIntegrationTest {
+
+  private static final int NUM_ENTRIES = 100;
+
+  private static final int NUM_THREADS = 8;
+
+  private static final int NUM_EXECUTIONS = 50;
+
+  private CompiledQueryCache oldCompiledQueryCache;
+  private Region portfolios;
+  private Region items;
+
+  @Before
+  public void setUp() throws Exception {
+    oldCompiledQueryCache = DefaultQuery.compiledQueryCache;
+    DefaultQuery.compiledQueryCache = new CompiledQueryCache(10);
+    CacheUtils.startCache();
+    portfolios = CacheUtils.createRegion("portfolios", Portfolio.class);
+    items = CacheUtils.createRegion("items", Item.class);
+    for (int i = 0; i < NUM_ENTRIES; i++) {
+      portfolios.put(i, new Portfolio(i));
+      items.put(i, new Item(i));
+    }
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    CacheUtils.closeCache();
+    DefaultQuery.compiledQueryCache = oldCompiledQueryCache;
+  }
+
+  @Test
+  public void orderedQueryIsSharedAcrossThreadsAndRegions() throws Exception {
+    String queryString = "select * from $1 p where p.ID > -1 order by p.ID desc";
+    executeConcurrently(queryString, false, (region, results) -> {
+      assertEquals(NUM_ENTRIES, results.size());
+      Class expectedType = region == portfolios ? Portfolio.class : Item.class;
+      int expectedId = NUM_ENTRIES - 1;
+      for (Object result : results) {
+        assertEquals(expectedType, result.getClass());
+        assertEquals(expectedId--, getId(result));
+      }
+    });
+  }
+
+  @Test
+  public void groupByQueryIsSharedAcrossThreadsAndRegions() throws Exception {
+    String queryString = "select p.status, count(*) from $1 p group by p.status";
+    executeConcurrently(queryString, false, (region, results) -> {
+      assertEquals(2, results.size());
+      for (Object result : results) {
+        assertEquals(NUM_ENTRIES / 2, ((Struct) result).getFieldValues()[1]);
+      }
+    });
+  }
+
+  @Test
+  public void remoteAndLocalQueriesDoNotShareTransformations() throws Exception {
+    String queryString = "select distinct p.status from $1 p order by p.status";
+    executeConcurrently(queryString, true, (region, results) -> {
+      assertEquals(2, results.size());
+      assertEquals("[active, inactive]", results.asList().toString());
+    });
+    assertEquals(1, DefaultQuery.compiledQueryCache.size());
+    assertTrue(DefaultQuery.compiledQueryCache.getHits() > 0);
+  }
+
+  /**
+   * Creates and executes a query from the same text in several threads at once, alternating
+   * between the two regions, and hands each result to the given verifier.
+   *
+   * @param alternateRemote whether every other query is created as if for a remote client
+   */
+  private void executeConcurrently(String queryString, boolean alternateRemote,
+      ResultsVerifier verifier) throws Exception {
+    ExecutorService executor = Executors.newFixedThreadPool(NUM_THREADS);
+    try {
+      List<Future<Object>> futures = new ArrayList<>();
+      for (int t = 0; t < NUM_THREADS; t++) {
+        final int thread = t;
+        futures.add(executor.submit((Callable<Object>) () -> {
+          for (int i = 0; i < NUM_EXECUTIONS; i++) {
+            Region region = (thread + i) % 2 == 0 ? portfolios : items;
+            boolean isForRemote = alternateRemote && (thread + i) % 3 == 0;
+            DefaultQuery query =
+                new DefaultQuery(queryString, CacheUtils.getCache(), isForRemote);
+            SelectResults results = (SelectResults) query.execute(new Object[] {region});
+            verifier.verify(region, results);
+          }
+          return null;
+        }));
+      }
+      for (Future<Object> future : futures) {
+        future.get(60, TimeUnit.SECONDS);
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  private static int getId(Object result) {
+    return result instanceof Portfolio ? ((Portfolio) result).ID : ((Item) result).ID;
+  }
+
+  private interface ResultsVerifier {
+    void verify(Region region, SelectResults results) throws Exception;
+  }
+
+  public static class Item implements Serializable {
+    public int ID;
+    public String status;
+
+    public Item(int id) {
+      this.ID = id;
+      this.status = id % 2 == 0 ? "active" : "inactive";
+    }
+  }
+}
@@ -0,0 +1,117 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.cache.query.internal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import org.apache.geode.cache.query.QueryInvalidException;
+import org.apache.geode.test.junit.categories.UnitTest;
+
+@Category(UnitTest.class)
+public class CompiledQueryCacheJUnitTest {
+
+  @Test
+  public void sameQueryTextIsParsedOnce() {
+    CompiledQueryCache cache = new CompiledQueryCache(10);
+
+    CompiledQueryCache.Entry first = cache.compile("select * from /portfolio where ID = $1");
+    CompiledQueryCache.Entry second = cache.compile("select  *  from /portfolio\twhere ID = $1 ");
+
+    assertThat(second.compiledQuery).isNotSameAs(first.compiledQuery);
+    assertThat(cache.size()).isEqualTo(1);
+    assertThat(cache.getMisses()).isEqualTo(1);
+    assertThat(cache.getHits()).isEqualTo(1);
+  }
+
+  @Test
+  public void whitespaceInsideLiteralsIsSignificant() {
+    CompiledQueryCache cache = new CompiledQueryCache(10);
+
+    cache.compile("select * from /portfolio where status = 'a b'");
+    cache.compile("select * from /portfolio where status = 'a  b'");
+
+    assertThat(cache.size()).isEqualTo(2);
+    assertThat(cache.getMisses()).isEqualTo(2);
+  }
+
+  @Test
+  public void normalizeKeepsLineBreaksSoCommentsStillEnd() {
+    assertThat(CompiledQueryCache.normalize(" select *  from /r -- c \n  where x = 1 "))
+        .isEqualTo("select * from /r -- c\nwhere x = 1");
+    assertThat(CompiledQueryCache.normalize("select * from /r where s = 'it''s  here'"))
+        .isEqualTo("select * from /r where s = 'it''s  here'");
+  }
+
+  @Test
+  public void leastRecentlyUsedQueryIsDroppedWhenFull() {
+    CompiledQueryCache cache = new CompiledQueryCache(2);
+
+    cache.compile("select * from /a");
+    cache.compile("select * from /b");
+    cache.compile("select * from /a");
+    cache.compile("select * from /c");
+    cache.compile("select * from /a");
+
+    assertThat(cache.size()).isEqualTo(2);
+    assertThat(cache.getMisses()).isEqualTo(3);
+    assertThat(cache.getHits()).isEqualTo(2);
+  }
+
+  @Test
+  public void traceHintIsRemembered() {
+    CompiledQueryCache cache = new CompiledQueryCache(10);
+
+    assertThat(cache.compile("<trace> select * from /a").traceRequested).isTrue();
+    assertThat(cache.compile("<trace> select * from /a").traceRequested).isTrue();
+    assertThat(cache.compile("select * from /a").traceRequested).isFalse();
+  }
+
+  @Test
+  public void disabledCacheCompilesEveryTime() {
+    CompiledQueryCache cache = new CompiledQueryCache(0);
+
+    cache.compile("select * from /a");
+    cache.compile("select * from /a");
+
+    assertThat(cache.size()).isEqualTo(0);
+    assertThat(cache.getMisses()).isEqualTo(0);
+  }
+
+  @Test
+  public void parsedQueryIsNotModifiedByCompiling() {
+    CompiledQueryCache cache = new CompiledQueryCache(10);
+    String queryString = "import java.lang.Integer; select * from /a p type Integer where p = -5";
+
+    for (int i = 0; i < 3; i++) {
+      CompiledSelect select = (CompiledSelect) cache.compile(queryString).compiledQuery;
+      CompiledComparison where = (CompiledComparison) select.getWhereClause();
+      assertThat(((CompiledLiteral) where.getChildren().get(1))._obj).isEqualTo(-5);
+    }
+    assertThat(cache.getHits()).isEqualTo(2);
+  }
+
+  @Test
+  public void invalidQueryIsNotCached() {
+    CompiledQueryCache cache = new CompiledQueryCache(10);
+
+    assertThatThrownBy(() -> cache.compile("select * fromm /a"))
+        .isInstanceOf(QueryInvalidException.class);
+    assertThat(cache.size()).isEqualTo(0);
+  }
+}
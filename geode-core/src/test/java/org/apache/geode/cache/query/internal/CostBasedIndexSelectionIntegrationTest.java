@@ -0,0 +1,133 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.cache.query.internal;
+
+import static org.junit.Assert.*;
+
+import java.io.Serializable;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import org.apache.geode.cache.Region;
+import org.apache.geode.cache.query.CacheUtils;
+import org.apache.geode.cache.query.Index;
+import org.apache.geode.cache.query.QueryService;
+import org.apache.geode.cache.query.SelectResults;
+import org.apache.geode.cache.query.internal.index.IndexManager;
+import org.apache.geode.test.junit.categories.IntegrationTest;
+
+/**
+ * Verifies which indexes the conditions of an AND junction use when indexes are selected by the
+ * estimated sizes of their results.
+ */
+@Category(IntegrationTest.class)
+public class CostBasedIndexSelectionIntegrationTest {
+
+  private static final int NUM_ENTRIES = 2000;
+
+  private boolean oldCostBasedIndexSelection;
+  private QueryObserver oldObserver;
+  private QueryService queryService;
+  private final Set<String> usedIndexes = new HashSet<>();
+
+  @Before
+  public void setUp() throws Exception {
+    oldCostBasedIndexSelection = IndexManager.TEST_COST_BASED_INDEX_SELECTION;
+    IndexManager.TEST_COST_BASED_INDEX_SELECTION = true;
+    CacheUtils.startCache();
+    Region region = CacheUtils.createRegion("values", Value.class);
+    for (int i = 0; i < NUM_ENTRIES; i++) {
+      region.put(i, new Value(i, i % 100));
+    }
+    queryService = CacheUtils.getQueryService();
+    queryService.createIndex("aIndex", "v.a", "/values v");
+    queryService.createIndex("bIndex", "v.b", "/values v");
+    oldObserver = QueryObserverHolder.setInstance(new QueryObserverAdapter() {
+      @Override
+      public void beforeIndexLookup(Index index, int oper, Object key) {
+        usedIndexes.add(index.getName());
+      }
+
+      @Override
+      public void beforeIndexLookup(Index index, int lowerBoundOperator, Object lowerBoundKey,
+          int upperBoundOperator, Object upperBoundKey, Set NotEqualKeys) {
+        usedIndexes.add(index.getName());
+      }
+    });
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    QueryObserverHolder.setInstance(oldObserver);
+    CacheUtils.closeCache();
+    IndexManager.TEST_COST_BASED_INDEX_SELECTION = oldCostBasedIndexSelection;
+  }
+
+  private SelectResults execute(String predicate) throws Exception {
+    usedIndexes.clear();
+    return (SelectResults) queryService.newQuery("select * from /values v where " + predicate)
+        .execute();
+  }
+
+  @Test
+  public void resultsOfAnotherSelectiveIndexAreIntersected() throws Exception {
+    // about 200 and 300 results, so fetching the second is cheaper than evaluating it
+    SelectResults results = execute("v.a < 300 and v.b < 10");
+
+    assertEquals(30, results.size());
+    assertEquals(2, usedIndexes.size());
+  }
+
+  @Test
+  public void conditionWithManyMoreResultsIsEvaluatedOnTheIntermediateResults() throws Exception {
+    SelectResults results = execute("v.a < 150 and v.b < 50");
+
+    assertEquals(100, results.size());
+    assertEquals(1, usedIndexes.size());
+    assertTrue(usedIndexes.contains("aIndex"));
+  }
+
+  @Test
+  public void rangeJunctionIsIntersectedWithAnotherSelectiveIndex() throws Exception {
+    SelectResults results = execute("v.a > 0 and v.a < 300 and v.b < 10");
+
+    assertEquals(29, results.size());
+    assertEquals(2, usedIndexes.size());
+  }
+
+  @Test
+  public void onlyTheBestIndexIsUsedWithoutCostBasedIndexSelection() throws Exception {
+    IndexManager.TEST_COST_BASED_INDEX_SELECTION = false;
+    SelectResults results = execute("v.a < 300 and v.b < 10");
+
+    assertEquals(30, results.size());
+    assertEquals(1, usedIndexes.size());
+  }
+
+  public static class Value implements Serializable {
+    public int a;
+    public int b;
+
+    public Value(int a, int b) {
+      this.a = a;
+      this.b = b;
+    }
+  }
+}
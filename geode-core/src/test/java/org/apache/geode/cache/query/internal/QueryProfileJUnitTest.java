@@ -0,0 +1,196 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.cache.query.internal;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import org.apache.geode.cache.AttributesFactory;
+import org.apache.geode.cache.PartitionAttributesFactory;
+import org.apache.geode.cache.Region;
+import org.apache.geode.cache.query.CacheUtils;
+import org.apache.geode.cache.query.SelectResults;
+import org.apache.geode.cache.query.data.Portfolio;
+import org.apache.geode.cache.query.internal.QueryProfile.Operator;
+import org.apache.geode.test.junit.categories.IntegrationTest;
+
+@Category(IntegrationTest.class)
+public class QueryProfileJUnitTest {
+
+  private Region region;
+
+  @Before
+  public void setUp() throws Exception {
+    CacheUtils.startCache();
+    QueryProfile.clearRecentProfiles();
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    QueryProfile.TEST_PROFILE_QUERIES = false;
+    QueryProfile.clearRecentProfiles();
+    CacheUtils.closeCache();
+  }
+
+  @Test
+  public void testTracedQueryRecordsFilterAndIndexLookup() throws Exception {
+    region = CacheUtils.createRegion("portfolio", Portfolio.class);
+    putPortfolios(100);
+    CacheUtils.getQueryService().createIndex("idIndex", "ID", "/portfolio");
+
+    DefaultQuery query = (DefaultQuery) CacheUtils.getQueryService()
+        .newQuery("<trace> select * from /portfolio where ID > 50");
+    SelectResults results = (SelectResults) query.execute();
+    assertEquals(50, results.size());
+
+    QueryProfile profile = query.getProfile();
+    assertNotNull(profile);
+    assertSame(profile, QueryProfile.getRecentProfiles().get(0));
+
+    Operator select = findOperator(profile.getRoot(), QueryProfile.SELECT);
+    assertEquals(1, select.getInvocations());
+    assertEquals(50, select.getRowsOut());
+    Operator filter = findOperator(select, "FILTER");
+    assertTrue(filter.getName(), filter.getName().endsWith("> 50"));
+    assertEquals(50, filter.getRowsOut());
+    Operator index = findOperator(filter, "INDEX idIndex");
+    assertEquals(50, index.getRowsOut());
+    assertTrue(profile.toString().contains("INDEX idIndex (calls=1"));
+  }
+
+  @Test
+  public void testIterationCountsRowsInAndOut() throws Exception {
+    QueryProfile.TEST_PROFILE_QUERIES = true;
+    region = CacheUtils.createRegion("portfolio", Portfolio.class);
+    putPortfolios(100);
+
+    DefaultQuery query = (DefaultQuery) CacheUtils.getQueryService()
+        .newQuery("select * from /portfolio where status = 'active'");
+    query.execute();
+
+    Operator select = findOperator(query.getProfile().getRoot(), QueryProfile.SELECT);
+    Operator iterate = findOperator(select, QueryProfile.ITERATE);
+    assertEquals(100, iterate.getRowsIn());
+    assertEquals(50, iterate.getRowsOut());
+  }
+
+  @Test
+  public void testQueryIsNotProfiledUnlessTraced() throws Exception {
+    region = CacheUtils.createRegion("portfolio", Portfolio.class);
+    putPortfolios(10);
+
+    DefaultQuery query =
+        (DefaultQuery) CacheUtils.getQueryService().newQuery("select * from /portfolio");
+    query.execute();
+
+    assertNull(query.getProfile());
+    assertTrue(QueryProfile.getRecentProfiles().isEmpty());
+  }
+
+  @Test
+  public void testIndexLookupOnPartitionedRegionRecordsBuckets() throws Exception {
+    PartitionAttributesFactory paf = new PartitionAttributesFactory();
+    paf.setTotalNumBuckets(10);
+    AttributesFactory af = new AttributesFactory();
+    af.setPartitionAttributes(paf.create());
+    region = CacheUtils.createRegion("portfolio", af.create(), false);
+    putPortfolios(100);
+    CacheUtils.getQueryService().createIndex("idIndex", "ID", "/portfolio");
+
+    DefaultQuery query = (DefaultQuery) CacheUtils.getQueryService()
+        .newQuery("<trace> select * from /portfolio where ID > 50");
+    query.execute();
+
+    Operator select = findOperator(query.getProfile().getRoot(), QueryProfile.SELECT);
+    Operator index = findOperator(findOperator(select, "FILTER"), "INDEX idIndex");
+    long bucketRows = 0;
+    for (Operator bucket : index.getChildren()) {
+      assertTrue(bucket.getName(), bucket.getName().startsWith("BUCKET "));
+      bucketRows += bucket.getRowsOut();
+    }
+    assertEquals(10, index.getChildren().size());
+    assertEquals(50, bucketRows);
+  }
+
+  @Test
+  public void testConcurrentExecutionsOfAQueryHaveTheirOwnProfiles() throws Exception {
+    QueryProfile.TEST_PROFILE_QUERIES = true;
+    region = CacheUtils.createRegion("portfolio", Portfolio.class);
+    putPortfolios(100);
+    final DefaultQuery query = (DefaultQuery) CacheUtils.getQueryService()
+        .newQuery("select * from /portfolio where status = 'active'");
+
+    final int threads = 4;
+    final int executionsPerThread = QueryProfile.RETAINED_PROFILES / threads;
+    final CyclicBarrier barrier = new CyclicBarrier(threads);
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    try {
+      List<Future<?>> futures = new ArrayList<>();
+      for (int t = 0; t < threads; t++) {
+        futures.add(executor.submit(() -> {
+          barrier.await();
+          for (int i = 0; i < executionsPerThread; i++) {
+            query.execute();
+          }
+          return null;
+        }));
+      }
+      for (Future<?> future : futures) {
+        future.get();
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+
+    List<QueryProfile> profiles = QueryProfile.getRecentProfiles();
+    assertEquals(threads * executionsPerThread, profiles.size());
+    for (QueryProfile profile : profiles) {
+      Operator select = findOperator(profile.getRoot(), QueryProfile.SELECT);
+      assertEquals(1, select.getInvocations());
+      assertEquals(50, select.getRowsOut());
+    }
+  }
+
+  private void putPortfolios(int count) {
+    for (int i = 1; i <= count; i++) {
+      region.put(Integer.toString(i), new Portfolio(i));
+    }
+  }
+
+  private Operator findOperator(Operator parent, String namePrefix) {
+    for (Operator child : parent.getChildren()) {
+      if (child.getName().startsWith(namePrefix)) {
+        return child;
+      }
+    }
+    throw new AssertionError("No operator " + namePrefix + " in " + parent.getChildren().size()
+        + " operators of " + parent.getName());
+  }
+}
@@ -0,0 +1,134 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.cache.query.internal;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import org.apache.geode.cache.Region;
+import org.apache.geode.cache.query.CacheUtils;
+import org.apache.geode.cache.query.SelectResults;
+import org.apache.geode.cache.query.Struct;
+import org.apache.geode.cache.query.data.Portfolio;
+import org.apache.geode.test.junit.categories.IntegrationTest;
+
+@Category(IntegrationTest.class)
+public class StreamingResultsJUnitTest {
+
+  private final List<Object> streamed = new ArrayList<>();
+  private final List<Integer> chunkSizes = new ArrayList<>();
+
+  @Before
+  public void setUp() throws Exception {
+    CacheUtils.startCache();
+    Region region = CacheUtils.createRegion("portfolios", Portfolio.class);
+    for (int i = 0; i < 250; i++) {
+      region.put(i, new Portfolio(i));
+    }
+    DefaultQuery.setStreamingResultsHandler(new StreamingResultsHandler() {
+      @Override
+      public int getChunkSize() {
+        return 100;
+      }
+
+      @Override
+      public void handleChunk(SelectResults chunk) {
+        chunkSizes.add(chunk.size());
+        streamed.addAll(chunk.asList());
+      }
+    });
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    DefaultQuery.setStreamingResultsHandler(null);
+    CacheUtils.closeCache();
+  }
+
+  @Test
+  public void testResultsAreStreamedInChunks() throws Exception {
+    SelectResults results = execute("select * from /portfolios where ID >= 0");
+
+    assertEquals(2, chunkSizes.size());
+    assertEquals(100, (int) chunkSizes.get(0));
+    assertEquals(100, (int) chunkSizes.get(1));
+    assertEquals(50, results.size());
+    streamed.addAll(results.asList());
+    assertEquals(250, streamed.size());
+  }
+
+  @Test
+  public void testStructResultsAreStreamedInChunks() throws Exception {
+    SelectResults results = execute("select ID, status from /portfolios");
+
+    assertEquals(2, chunkSizes.size());
+    assertEquals(50, results.size());
+    assertTrue(streamed.get(0) instanceof Struct);
+  }
+
+  @Test
+  public void testLimitIsAppliedAcrossChunks() throws Exception {
+    SelectResults results = execute("select * from /portfolios limit 120");
+
+    assertEquals(1, chunkSizes.size());
+    assertEquals(20, results.size());
+  }
+
+  @Test
+  public void testQueriesProcessingTheirResultsAreNotStreamed() throws Exception {
+    assertEquals(250, execute("select distinct * from /portfolios").size());
+    assertEquals(250, execute("select * from /portfolios order by ID").size());
+    assertEquals(2, execute("select status, count(*) from /portfolios group by status").size());
+    assertEquals(250, execute("select count(*) from /portfolios").asList().get(0));
+    assertTrue(chunkSizes.isEmpty());
+  }
+
+  @Test
+  public void testNestedSelectIsNotStreamed() throws Exception {
+    SelectResults results =
+        execute("select * from (select * from /portfolios p where p.ID < 150) q where q.ID >= 0");
+
+    assertEquals(1, chunkSizes.size());
+    assertEquals(50, results.size());
+  }
+
+  @Test
+  public void testOtherThreadsAreNotStreamed() throws Exception {
+    SelectResults[] results = new SelectResults[1];
+    Thread thread = new Thread(() -> {
+      try {
+        results[0] = execute("select * from /portfolios");
+      } catch (Exception e) {
+        throw new RuntimeException(e);
+      }
+    });
+    thread.start();
+    thread.join();
+
+    assertEquals(250, results[0].size());
+    assertTrue(chunkSizes.isEmpty());
+  }
+
+  private SelectResults execute(String queryString) throws Exception {
+    return (SelectResults) CacheUtils.getQueryService().newQuery(queryString).execute();
+  }
+}
@@ -202,4 +202,44 @@ public class AggregatorJUnitTest {
     assertEquals(1, ((Integer) min.terminate()).intValue());
   }
 
+  @Test
+  public void testAvgBucketNodeCombiner() throws Exception {
+    AvgBucketNode bucket1 = new AvgBucketNode();
+    bucket1.accumulate(new Integer(1));
+    bucket1.accumulate(new Integer(2));
+    AvgBucketNode bucket2 = new AvgBucketNode();
+    bucket2.accumulate(new Integer(6));
+
+    AvgBucketNodeCombiner combiner = new AvgBucketNodeCombiner();
+    combiner.accumulate(bucket1.terminate());
+    combiner.accumulate(bucket2.terminate());
+    Object[] partial = (Object[]) combiner.terminate();
+    assertEquals(3, ((Integer) partial[0]).intValue());
+    assertEquals(9, ((Number) partial[1]).intValue());
+
+    AvgPRQueryNode apqn = new AvgPRQueryNode();
+    apqn.accumulate(partial);
+    assertEquals(3, ((Number) apqn.terminate()).intValue());
+  }
+
+  @Test
+  public void testDistinctBucketNodeCombiner() throws Exception {
+    DistinctAggregator bucket1 = new DistinctAggregator();
+    bucket1.accumulate(new Integer(1));
+    bucket1.accumulate(new Integer(2));
+    DistinctAggregator bucket2 = new DistinctAggregator();
+    bucket2.accumulate(new Integer(2));
+    bucket2.accumulate(new Integer(3));
+
+    DistinctBucketNodeCombiner combiner = new DistinctBucketNodeCombiner();
+    combiner.accumulate(bucket1.terminate());
+    combiner.accumulate(bucket2.terminate());
+    Set partial = (Set) combiner.terminate();
+    assertEquals(3, partial.size());
+
+    CountDistinctPRQueryNode cdpr = new CountDistinctPRQueryNode();
+    cdpr.accumulate(partial);
+    assertEquals(3, ((Number) cdpr.terminate()).intValue());
+  }
+
 }
@@ -17,11 +17,15 @@
  */
 package org.apache.geode.cache.query.internal.index;
 
+import static org.awaitility.Awaitility.await;
 import static org.junit.Assert.*;
 
 import java.util.HashSet;
 import java.util.Set;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.junit.After;
 import org.junit.Before;
@@ -34,8 +38,10 @@ import org.apache.geode.cache.query.CacheUtils;
 import org.apache.geode.cache.query.Index;
 import org.apache.geode.cache.query.IndexType;
 import org.apache.geode.cache.query.QueryService;
+import org.apache.geode.cache.query.SelectResults;
 import org.apache.geode.cache.query.data.Portfolio;
 import org.apache.geode.distributed.internal.DistributionConfig;
+import org.apache.geode.internal.cache.LocalRegion;
 import org.apache.geode.test.dunit.ThreadUtils;
 import org.apache.geode.test.dunit.Wait;
 import org.apache.geode.test.dunit.WaitCriterion;
@@ -252,4 +258,61 @@ public class AsynchIndexMaintenanceJUnitTest {
     assertFalse(exceptionOccurred);
   }
 
+  @Test
+  public void testQueryWaitsForPendingIndexUpdates() throws Exception {
+    IndexManager.TEST_ASYNC_INDEX_UPDATE_QUERY_WAIT = 30000;
+    try {
+      qs.createIndex("idIndex", IndexType.FUNCTIONAL, "p.ID", "/portfolio p");
+      final int size = 1000;
+      for (int i = 0; i < size; ++i) {
+        region.put("" + i, new Portfolio(i));
+      }
+      SelectResults results =
+          (SelectResults) qs.newQuery("select * from /portfolio p where p.ID >= 0").execute();
+      assertEquals(size, results.size());
+      assertTrue(((LocalRegion) region).getIndexManager().getUpdaterThread().isDone());
+    } finally {
+      IndexManager.TEST_ASYNC_INDEX_UPDATE_QUERY_WAIT = 0;
+    }
+  }
+
+  @Test
+  public void testRepeatedUpdatesOfAnEntryAreAppliedOnce() throws Exception {
+    qs.createIndex("idIndex", IndexType.FUNCTIONAL, "p.ID", "/portfolio p");
+    final CountDownLatch applying = new CountDownLatch(1);
+    final CountDownLatch release = new CountDownLatch(1);
+    final AtomicInteger appliedTasks = new AtomicInteger();
+    IndexManager.testHook = spot -> {
+      if (spot == 6 && appliedTasks.incrementAndGet() == 1) {
+        applying.countDown();
+        try {
+          release.await(30, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+      }
+    };
+    try {
+      // the updater thread holds on to the create while the updates are queued
+      region.put("0", new Portfolio(0));
+      assertTrue(applying.await(30, TimeUnit.SECONDS));
+      for (int i = 1; i <= 100; i++) {
+        region.put("0", new Portfolio(i));
+      }
+      release.countDown();
+      IndexManager.IndexUpdaterThread updater =
+          ((LocalRegion) region).getIndexManager().getUpdaterThread();
+      await().atMost(30, TimeUnit.SECONDS).until(() -> updater.isDone());
+
+      // the create, then the removal and addition of the last update
+      assertEquals(3, appliedTasks.get());
+      assertEquals(1, ((SelectResults) qs.newQuery("select * from /portfolio p where p.ID = 100")
+          .execute()).size());
+      assertEquals(0, ((SelectResults) qs.newQuery("select * from /portfolio p where p.ID < 100")
+          .execute()).size());
+    } finally {
+      release.countDown();
+      IndexManager.testHook = null;
+    }
+  }
 }
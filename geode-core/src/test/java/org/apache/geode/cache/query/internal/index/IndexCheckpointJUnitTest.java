@@ -0,0 +1,213 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.cache.query.internal.index;
+
+import static org.apache.geode.distributed.ConfigurationProperties.MCAST_PORT;
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.Serializable;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.rules.TemporaryFolder;
+
+import org.apache.geode.cache.Cache;
+import org.apache.geode.cache.CacheFactory;
+import org.apache.geode.cache.Region;
+import org.apache.geode.cache.RegionShortcut;
+import org.apache.geode.cache.query.Index;
+import org.apache.geode.cache.query.SelectResults;
+import org.apache.geode.test.junit.categories.IntegrationTest;
+
+@Category(IntegrationTest.class)
+public class IndexCheckpointJUnitTest {
+
+  private static final String REGION_NAME = "portfolios";
+
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  private File diskDir;
+  private Cache cache;
+
+  @Before
+  public void setUp() throws Exception {
+    IndexManager.TEST_PERSIST_INDEX_CHECKPOINTS = true;
+    diskDir = temporaryFolder.newFolder();
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    IndexManager.TEST_PERSIST_INDEX_CHECKPOINTS = false;
+    if (cache != null && !cache.isClosed()) {
+      cache.close();
+    }
+  }
+
+  @Test
+  public void testIndexIsLoadedFromCheckpointAfterRecovery() throws Exception {
+    Region region = createRegion();
+    createIndex();
+    for (int i = 0; i < 100; i++) {
+      region.put(i, new Value(i));
+    }
+    cache.close();
+    assertTrue(checkpointFile().exists());
+
+    createRegion();
+    Value.evaluations.set(0);
+    Index index = createIndex();
+    assertEquals(0, Value.evaluations.get());
+    assertFalse(checkpointFile().exists());
+    assertTrue(index instanceof CompactRangeIndex);
+    assertEquals(100, index.getStatistics().getNumberOfKeys());
+    assertEquals(10, query("id < 10").size());
+    assertEquals(1, query("id = 99").size());
+  }
+
+  @Test
+  public void testEntriesModifiedBeforeIndexCreationAreReevaluated() throws Exception {
+    Region region = createRegion();
+    createIndex();
+    for (int i = 0; i < 100; i++) {
+      region.put(i, new Value(i));
+    }
+    cache.close();
+
+    region = createRegion();
+    region.put(5, new Value(500));
+    region.destroy(6);
+    Value.evaluations.set(0);
+    createIndex();
+    assertEquals(1, Value.evaluations.get());
+    assertFalse(checkpointFile().exists());
+    assertEquals(0, query("id = 5").size());
+    assertEquals(0, query("id = 6").size());
+    assertEquals(1, query("id = 500").size());
+    assertEquals(99, query("id >= 0").size());
+  }
+
+  @Test
+  public void testCheckpointMissingEntriesIsDiscarded() throws Exception {
+    Region region = createRegion();
+    createIndex();
+    for (int i = 0; i < 100; i++) {
+      region.put(i, new Value(i));
+    }
+    cache.close();
+
+    region = createRegion();
+    region.put(100, new Value(100));
+    Value.evaluations.set(0);
+    createIndex();
+    assertEquals(101, Value.evaluations.get());
+    assertFalse(checkpointFile().exists());
+    assertEquals(1, query("id = 100").size());
+    assertEquals(101, query("id >= 0").size());
+  }
+
+  @Test
+  public void testCheckpointOfAnotherDiskStoreIsIgnored() throws Exception {
+    Region region = createRegion();
+    createIndex();
+    for (int i = 0; i < 100; i++) {
+      region.put(i, new Value(i));
+    }
+    cache.close();
+    for (File file : diskDir.listFiles()) {
+      if (!file.equals(checkpointFile())) {
+        assertTrue(file.delete());
+      }
+    }
+
+    // the new disk store gives the entries the same versions as the checkpointed ones
+    region = createRegion();
+    for (int i = 0; i < 100; i++) {
+      region.put(i, new Value(i + 1000));
+    }
+    Value.evaluations.set(0);
+    createIndex();
+    assertEquals(100, Value.evaluations.get());
+    assertFalse(checkpointFile().exists());
+    assertEquals(0, query("id < 100").size());
+    assertEquals(100, query("id >= 1000").size());
+  }
+
+  @Test
+  public void testCheckpointIsDeletedWhenRegionIsDestroyed() throws Exception {
+    Region region = createRegion();
+    createIndex();
+    for (int i = 0; i < 100; i++) {
+      region.put(i, new Value(i));
+    }
+    cache.close();
+    assertTrue(checkpointFile().exists());
+
+    createRegion().destroyRegion();
+    assertFalse(checkpointFile().exists());
+
+    region = createRegion();
+    for (int i = 0; i < 100; i++) {
+      region.put(i, new Value(i + 1000));
+    }
+    Value.evaluations.set(0);
+    createIndex();
+    assertEquals(100, Value.evaluations.get());
+    assertEquals(100, query("id >= 1000").size());
+  }
+
+  private Region createRegion() {
+    cache = new CacheFactory().set(MCAST_PORT, "0").create();
+    cache.createDiskStoreFactory().setDiskDirs(new File[] {diskDir}).create("store");
+    return cache.createRegionFactory(RegionShortcut.REPLICATE_PERSISTENT).setDiskStoreName("store")
+        .create(REGION_NAME);
+  }
+
+  private Index createIndex() throws Exception {
+    return cache.getQueryService().createIndex("idIndex", "id", "/" + REGION_NAME);
+  }
+
+  private SelectResults query(String predicate) throws Exception {
+    return (SelectResults) cache.getQueryService()
+        .newQuery("select * from /" + REGION_NAME + " where " + predicate).execute();
+  }
+
+  private File checkpointFile() {
+    return new File(diskDir, "OQLINDEX_store_" + REGION_NAME + "_idIndex.chk");
+  }
+
+  /**
+   * Counts the evaluations of the indexed expression.
+   */
+  public static class Value implements Serializable {
+    static final AtomicInteger evaluations = new AtomicInteger();
+
+    private final int id;
+
+    public Value(int id) {
+      this.id = id;
+    }
+
+    public int getId() {
+      evaluations.incrementAndGet();
+      return id;
+    }
+  }
+}
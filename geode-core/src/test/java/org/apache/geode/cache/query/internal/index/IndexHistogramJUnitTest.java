@@ -0,0 +1,197 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.cache.query.internal.index;
+
+import static org.junit.Assert.*;
+
+import java.util.Comparator;
+
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import org.apache.geode.cache.query.internal.parse.OQLLexerTokenTypes;
+import org.apache.geode.cache.query.internal.types.TypeUtils;
+import org.apache.geode.test.junit.categories.UnitTest;
+
+@Category(UnitTest.class)
+public class IndexHistogramJUnitTest {
+
+  private static final Comparator COMPARATOR = TypeUtils.getExtendedNumericComparator();
+
+  @Test
+  public void testEmptyHistogramEstimatesNoEntries() {
+    IndexHistogram histogram = new IndexHistogram.Builder(COMPARATOR, 0).build();
+    assertEquals(0, histogram.getTotalCount());
+    assertEquals(0, histogram.estimate(5, OQLLexerTokenTypes.TOK_LT));
+    assertEquals(0, histogram.estimate(5, OQLLexerTokenTypes.TOK_GE));
+    assertEquals(0, histogram.estimate(1, true, 10, true));
+  }
+
+  @Test
+  public void testUniformKeys() {
+    IndexHistogram histogram = buildUniform(1000);
+    assertEquals(1000, histogram.getTotalCount());
+
+    assertEquals(0, histogram.estimate(0, OQLLexerTokenTypes.TOK_LT));
+    assertEquals(1, histogram.estimate(0, OQLLexerTokenTypes.TOK_LE));
+    assertEquals(0, histogram.estimate(999, OQLLexerTokenTypes.TOK_GT));
+    assertEquals(1, histogram.estimate(999, OQLLexerTokenTypes.TOK_GE));
+    assertEquals(1000, histogram.estimate(-1, OQLLexerTokenTypes.TOK_GT));
+    assertEquals(1000, histogram.estimate(1000, OQLLexerTokenTypes.TOK_LT));
+
+    assertEstimate(500, histogram.estimate(500, OQLLexerTokenTypes.TOK_LT));
+    assertEstimate(250, histogram.estimate(750, OQLLexerTokenTypes.TOK_GE));
+    assertEstimate(100, histogram.estimate(100, true, 200, false));
+    assertEquals(0, histogram.estimate(200, true, 100, true));
+  }
+
+  @Test
+  public void testNonIntegralKeysAreInterpolated() {
+    IndexHistogram histogram = buildUniform(1000);
+    assertEstimate(500, histogram.estimate(499.5d, OQLLexerTokenTypes.TOK_LT));
+    assertEstimate(10, histogram.estimate(10.5f, true, 20L, true));
+  }
+
+  @Test
+  public void testSkewedKeys() {
+    IndexHistogram.Builder builder = new IndexHistogram.Builder(COMPARATOR, 1000);
+    builder.add(1, 900);
+    for (int i = 2; i <= 101; i++) {
+      builder.add(i, 1);
+    }
+    IndexHistogram histogram = builder.build();
+
+    assertEquals(900, histogram.estimate(1, OQLLexerTokenTypes.TOK_LE));
+    assertEquals(100, histogram.estimate(1, OQLLexerTokenTypes.TOK_GT));
+    assertEquals(0, histogram.estimate(1, OQLLexerTokenTypes.TOK_LT));
+    assertEstimate(50, histogram.estimate(51, OQLLexerTokenTypes.TOK_GE));
+  }
+
+  @Test
+  public void testRepeatedKeysAreMerged() {
+    IndexHistogram.Builder builder = new IndexHistogram.Builder(COMPARATOR, 30);
+    for (int i = 0; i < 10; i++) {
+      builder.add(i, 1);
+      builder.add(i, 2);
+    }
+    IndexHistogram histogram = builder.build();
+    assertEquals(30, histogram.getTotalCount());
+    assertEquals(3, histogram.estimate(9, OQLLexerTokenTypes.TOK_GE));
+    assertEquals(15, histogram.estimate(5, OQLLexerTokenTypes.TOK_LT));
+  }
+
+  @Test
+  public void testStringKeys() {
+    IndexHistogram.Builder builder = new IndexHistogram.Builder(COMPARATOR, 26 * 10);
+    for (char c = 'a'; c <= 'z'; c++) {
+      builder.add(String.valueOf(c), 10);
+    }
+    IndexHistogram histogram = builder.build();
+    assertEquals(10, histogram.estimate("a", OQLLexerTokenTypes.TOK_LE));
+    assertEquals(250, histogram.estimate("y", OQLLexerTokenTypes.TOK_LE));
+    assertEstimate(130, histogram.estimate("n", OQLLexerTokenTypes.TOK_LT));
+  }
+
+  @Test
+  public void testUpdatesAreCountedInTheirBuckets() {
+    IndexHistogram histogram = buildUniform(1000);
+    for (int i = 0; i < 1000; i += 2) {
+      histogram.update(i, -1);
+    }
+    histogram.update(0, 1);
+    histogram.update(999, 3);
+    histogram.update(499.5d, 1);
+
+    assertEquals(505, histogram.getTotalCount());
+    assertEquals(1, histogram.estimate(0, OQLLexerTokenTypes.TOK_LE));
+    assertEquals(4, histogram.estimate(999, OQLLexerTokenTypes.TOK_GE));
+    assertEstimate(251, histogram.estimate(500, OQLLexerTokenTypes.TOK_LT));
+    assertFalse(histogram.isUnbalanced());
+  }
+
+  @Test
+  public void testKeysOutsideOfTheBoundsAreCounted() {
+    IndexHistogram histogram = buildUniform(1000);
+    for (int i = 0; i < 10; i++) {
+      histogram.update(-1 - i, 1);
+      histogram.update(1000 + i, 1);
+    }
+
+    assertEquals(1020, histogram.getTotalCount());
+    assertEquals(10, histogram.estimate(0, OQLLexerTokenTypes.TOK_LT));
+    assertEquals(1010, histogram.estimate(999, OQLLexerTokenTypes.TOK_LE));
+    assertEquals(10, histogram.estimate(999, OQLLexerTokenTypes.TOK_GT));
+    assertFalse(histogram.isUnbalanced());
+  }
+
+  @Test
+  public void testHistogramIsUnbalancedOnceABucketGrowsTooMuch() {
+    IndexHistogram histogram = buildUniform(1000);
+    int bucketSize = 1000 / IndexHistogram.NUM_BUCKETS;
+    for (int i = 0; i < bucketSize * IndexHistogram.UNBALANCED_FACTOR; i++) {
+      histogram.update(2000 + i, 1);
+    }
+    assertFalse(histogram.isUnbalanced());
+    histogram.update(5000, 1);
+    assertTrue(histogram.isUnbalanced());
+  }
+
+  @Test
+  public void testManyEntriesOfOneKeyDoNotUnbalanceHistogram() {
+    IndexHistogram histogram = buildUniform(1000);
+    // the largest key is the bound of the last bucket so its count is exact
+    histogram.update(999, 1000);
+    assertFalse(histogram.isUnbalanced());
+    assertEquals(2000, histogram.getTotalCount());
+    assertEquals(1001, histogram.estimate(999, true, 999, true));
+  }
+
+  @Test
+  public void testEmptyHistogramIsUnbalancedByTheFirstKey() {
+    IndexHistogram histogram = new IndexHistogram.Builder(COMPARATOR, 0).build();
+    histogram.update(1, -1);
+    assertFalse(histogram.isUnbalanced());
+    histogram.update(1, 1);
+    assertTrue(histogram.isUnbalanced());
+  }
+
+  @Test
+  public void testIncomparableKeysAreNotCounted() {
+    IndexHistogram histogram = buildUniform(100);
+    histogram.update("a", 1);
+    assertEquals(100, histogram.getTotalCount());
+  }
+
+  @Test(expected = ClassCastException.class)
+  public void testIncomparableKeyThrowsClassCastException() {
+    buildUniform(100).estimate("a", OQLLexerTokenTypes.TOK_LT);
+  }
+
+  private IndexHistogram buildUniform(int numKeys) {
+    IndexHistogram.Builder builder = new IndexHistogram.Builder(COMPARATOR, numKeys);
+    for (int i = 0; i < numKeys; i++) {
+      builder.add(i, 1);
+    }
+    return builder.build();
+  }
+
+  /**
+   * Asserts that an estimate is within the size of a histogram bucket of the expected count.
+   */
+  private void assertEstimate(long expected, long estimate) {
+    assertTrue("expected about " + expected + " but was " + estimate,
+        Math.abs(expected - estimate) <= 1000 / IndexHistogram.NUM_BUCKETS);
+  }
+}
@@ -0,0 +1,148 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.cache.query.internal.index;
+
+import static org.junit.Assert.*;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import org.apache.geode.cache.Region;
+import org.apache.geode.cache.query.CacheUtils;
+import org.apache.geode.cache.query.data.Portfolio;
+import org.apache.geode.cache.query.internal.parse.OQLLexerTokenTypes;
+import org.apache.geode.test.junit.categories.IntegrationTest;
+
+/**
+ * Verifies that the histograms used for cost based index selection are kept up to date by the
+ * index maintenance, and only rebuilt once they are unbalanced.
+ */
+@Category(IntegrationTest.class)
+public class IndexHistogramMaintenanceIntegrationTest {
+
+  private static final int NUM_ENTRIES = 1000;
+
+  private boolean oldCostBasedIndexSelection;
+  private boolean oldPrimitiveIndexStore;
+  private Region region;
+
+  @Before
+  public void setUp() throws Exception {
+    oldCostBasedIndexSelection = IndexManager.TEST_COST_BASED_INDEX_SELECTION;
+    IndexManager.TEST_COST_BASED_INDEX_SELECTION = true;
+    oldPrimitiveIndexStore = IndexManager.TEST_PRIMITIVE_INDEX_STORE;
+    CacheUtils.startCache();
+    region = CacheUtils.createRegion("portfolios", Portfolio.class);
+    for (int i = 0; i < NUM_ENTRIES; i++) {
+      region.put(i, new Portfolio(i));
+    }
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    CacheUtils.closeCache();
+    IndexManager.TEST_COST_BASED_INDEX_SELECTION = oldCostBasedIndexSelection;
+    IndexManager.TEST_PRIMITIVE_INDEX_STORE = oldPrimitiveIndexStore;
+  }
+
+  @Test
+  public void compactRangeIndexMaintainsHistogram() throws Exception {
+    AbstractIndex index = (AbstractIndex) CacheUtils.getQueryService().createIndex("idIndex",
+        "p.ID", "/portfolios p");
+    assertTrue(index instanceof CompactRangeIndex);
+    verifyHistogramIsMaintained(index);
+  }
+
+  @Test
+  public void rangeIndexMaintainsHistogram() throws Exception {
+    AbstractIndex index = (AbstractIndex) CacheUtils.getQueryService().createIndex("idIndex",
+        "p.ID", "/portfolios p, p.positions.values pos");
+    assertTrue(index instanceof RangeIndex);
+    verifyHistogramIsMaintained(index);
+  }
+
+  @Test
+  public void primitiveIndexStoreMaintainsHistogram() throws Exception {
+    IndexManager.TEST_PRIMITIVE_INDEX_STORE = true;
+    AbstractIndex index = (AbstractIndex) CacheUtils.getQueryService().createIndex("idIndex",
+        "p.ID", "/portfolios p");
+    assertTrue(((CompactRangeIndex) index).getIndexStorage() instanceof PrimitiveLongIndexStore);
+    verifyHistogramIsMaintained(index);
+  }
+
+  @Test
+  public void primitiveIndexStoreMaintainsHistogramAfterInflating() throws Exception {
+    IndexManager.TEST_PRIMITIVE_INDEX_STORE = true;
+    Region numbers = CacheUtils.createRegion("numbers", Number.class);
+    for (int i = 0; i < NUM_ENTRIES; i++) {
+      numbers.put(i, i);
+    }
+    AbstractIndex index = (AbstractIndex) CacheUtils.getQueryService().createIndex("numberIndex",
+        "n", "/numbers n");
+    PrimitiveLongIndexStore store =
+        (PrimitiveLongIndexStore) ((CompactRangeIndex) index).getIndexStorage();
+    IndexHistogram histogram = index.getHistogram();
+    assertEquals(NUM_ENTRIES, histogram.getTotalCount());
+
+    // a long key in an index of int keys moves the mappings to the skip list
+    numbers.put(NUM_ENTRIES, (long) NUM_ENTRIES);
+    assertTrue(store.isInflated());
+    assertSame(histogram, index.getHistogram());
+    assertEquals(NUM_ENTRIES + 1, histogram.getTotalCount());
+
+    for (int i = 0; i < 100; i++) {
+      numbers.destroy(i);
+    }
+    assertEquals(getNumberOfValues(index), histogram.getTotalCount());
+  }
+
+  private void verifyHistogramIsMaintained(AbstractIndex index) {
+    // built along with the index
+    IndexHistogram histogram = index.getHistogram();
+    assertNotNull(histogram);
+    assertEquals(getNumberOfValues(index), histogram.getTotalCount());
+
+    for (int i = 0; i < 100; i++) {
+      region.destroy(i);
+    }
+    for (int i = 100; i < 200; i++) {
+      region.put(i, new Portfolio(i + 500));
+    }
+    for (int i = NUM_ENTRIES; i < NUM_ENTRIES + 50; i++) {
+      region.put(i, new Portfolio(i));
+    }
+
+    assertSame(histogram, index.getHistogram());
+    assertFalse(histogram.isUnbalanced());
+    assertEquals(getNumberOfValues(index), histogram.getTotalCount());
+    assertEquals(0, histogram.estimate(100, OQLLexerTokenTypes.TOK_LT));
+
+    // far more entries above the largest key than a bucket held when built
+    for (int i = NUM_ENTRIES + 50; i < NUM_ENTRIES * 2; i++) {
+      region.put(i, new Portfolio(i));
+    }
+    assertTrue(histogram.isUnbalanced());
+    IndexHistogram rebuilt = index.getHistogram();
+    assertNotSame(histogram, rebuilt);
+    assertFalse(rebuilt.isUnbalanced());
+    assertEquals(getNumberOfValues(index), rebuilt.getTotalCount());
+  }
+
+  private long getNumberOfValues(AbstractIndex index) {
+    return index.getStatistics().getNumberOfValues();
+  }
+}
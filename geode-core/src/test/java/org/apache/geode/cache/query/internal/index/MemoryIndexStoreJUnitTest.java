@@ -53,6 +53,10 @@ public class MemoryIndexStoreJUnitTest {
     return mock(LocalRegion.class);
   }
 
+  protected MemoryIndexStore createIndexStore(Region region, InternalIndexStatistics stats) {
+    return new MemoryIndexStore(region, stats);
+  }
+
   @Before
   public void setup() {
     subclassPreSetup();
@@ -61,7 +65,7 @@ public class MemoryIndexStoreJUnitTest {
     actualInstance = GemFireCacheImpl.setInstanceForTests(cache);
     mockStats = mock(AbstractIndex.InternalIndexStatistics.class);
 
-    store = new MemoryIndexStore(region, mockStats);
+    store = createIndexStore(region, mockStats);
     store.setIndexOnValues(true);
     mockEntries = new RegionEntry[numMockEntries];
     IntStream.range(0, numMockEntries).forEach(i -> {
@@ -347,12 +351,12 @@ public class MemoryIndexStoreJUnitTest {
     assertEquals(0, numObjectsInStore(store));
   }
 
-  private int numObjectsInStore(MemoryIndexStore store) {
+  protected int numObjectsInStore(MemoryIndexStore store) {
     Iterator iterator = store.iterator(null);
     return numObjectsIterated(iterator);
   }
 
-  private int numObjectsIterated(Iterator iterator) {
+  protected int numObjectsIterated(Iterator iterator) {
     int count = 0;
     while (iterator.hasNext()) {
       iterator.next();
@@ -385,7 +389,7 @@ public class MemoryIndexStoreJUnitTest {
     });
   }
 
-  private RegionEntry createRegionEntry(Object key, Object value) {
+  protected RegionEntry createRegionEntry(Object key, Object value) {
     RegionEntry mockEntry = mock(RegionEntry.class);
     when(mockEntry.getValue(any())).thenReturn(value);
     when(mockEntry.getKey()).thenReturn(key);
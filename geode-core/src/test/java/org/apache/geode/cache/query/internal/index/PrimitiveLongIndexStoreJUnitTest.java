@@ -0,0 +1,207 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.cache.query.internal.index;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import org.apache.geode.cache.Region;
+import org.apache.geode.cache.query.QueryService;
+import org.apache.geode.cache.query.internal.index.AbstractIndex.InternalIndexStatistics;
+import org.apache.geode.cache.query.internal.index.IndexStore.IndexStoreEntry;
+import org.apache.geode.internal.cache.RegionEntry;
+import org.apache.geode.internal.cache.persistence.query.CloseableIterator;
+import org.apache.geode.test.junit.categories.UnitTest;
+
+@Category(UnitTest.class)
+public class PrimitiveLongIndexStoreJUnitTest extends MemoryIndexStoreJUnitTest {
+
+  @Override
+  protected MemoryIndexStore createIndexStore(Region region, InternalIndexStatistics stats) {
+    return new PrimitiveLongIndexStore(region, stats);
+  }
+
+  private PrimitiveLongIndexStore primitiveStore() {
+    return (PrimitiveLongIndexStore) store;
+  }
+
+  @Test
+  public void testIteratorMergesRunAndDeltaInKeyOrder() throws Exception {
+    for (int i = 0; i < 20; i++) {
+      store.addMapping(i % 5, createRegionEntry(i, new Object()));
+    }
+    primitiveStore().merge();
+    for (int i = 0; i < 10; i++) {
+      store.addMapping(i, createRegionEntry(i, new Object()));
+    }
+
+    List<Object> keys = keysOf(store.iterator(null));
+    assertEquals(30, keys.size());
+    for (int i = 1; i < keys.size(); i++) {
+      assertTrue((Integer) keys.get(i - 1) <= (Integer) keys.get(i));
+    }
+    List<Object> descendingKeys = keysOf(store.descendingIterator(null));
+    for (int i = 1; i < descendingKeys.size(); i++) {
+      assertTrue((Integer) descendingKeys.get(i - 1) >= (Integer) descendingKeys.get(i));
+    }
+    assertEquals(10, store.size());
+    assertEquals(5, store.size(2));
+    assertFalse(primitiveStore().isInflated());
+  }
+
+  @Test
+  public void testRemoveMappingFromMergedRun() throws Exception {
+    RegionEntry[] entries = new RegionEntry[10];
+    for (int i = 0; i < entries.length; i++) {
+      entries[i] = createRegionEntry(i, new Object());
+      store.addMapping(i % 2, entries[i]);
+    }
+    primitiveStore().merge();
+
+    for (int i = 0; i < entries.length; i += 2) {
+      store.removeMapping(0, entries[i]);
+    }
+    assertEquals(0, numObjectsIterated(store.get(0)));
+    assertEquals(5, numObjectsIterated(store.get(1)));
+    assertEquals(1, store.size());
+
+    primitiveStore().merge();
+    assertEquals(5, numObjectsInStore(store));
+  }
+
+  @Test
+  public void testUpdateMappingMovesEntryBetweenKeys() throws Exception {
+    RegionEntry entry = createRegionEntry(1, new Object());
+    store.addMapping(1L, entry);
+    primitiveStore().merge();
+    store.updateMapping(2L, 1L, entry, null);
+
+    assertEquals(0, numObjectsIterated(store.get(1L)));
+    assertEquals(1, numObjectsIterated(store.get(2L)));
+    assertEquals(1, store.size());
+  }
+
+  @Test
+  public void testNonIntegralBoundsSelectIntKeys() throws Exception {
+    for (int i = 0; i < 10; i++) {
+      store.addMapping(i, createRegionEntry(i, new Object()));
+    }
+    assertEquals(3, numObjectsIterated(store.iterator(2.5d, true, 6.0d, false, null)));
+    assertEquals(4, numObjectsIterated(store.iterator(2.5f, false, 6L, true, null)));
+    assertEquals(3, numObjectsIterated(store.descendingIterator(6.5d, true, null)));
+    assertEquals(1, numObjectsIterated(store.get(3L)));
+    assertEquals(0, numObjectsIterated(store.get(3.5d)));
+  }
+
+  @Test
+  public void testUndefinedAndNullKeysAreNotReturnedByRangeIterators() throws Exception {
+    store.addMapping(QueryService.UNDEFINED, createRegionEntry(0, new Object()));
+    store.addMapping(IndexManager.NULL, createRegionEntry(2, new Object()));
+    store.addMapping(5, createRegionEntry(3, new Object()));
+
+    assertEquals(1, numObjectsInStore(store));
+    assertEquals(1, numObjectsIterated(store.iterator(IndexManager.NULL, true, null)));
+    assertEquals(0, numObjectsIterated(store.iterator(null, true, IndexManager.NULL, true, null)));
+    assertEquals(1, numObjectsIterated(store.get(IndexManager.NULL)));
+    assertEquals(1, numObjectsIterated(store.get(QueryService.UNDEFINED)));
+    assertEquals(3, store.size());
+  }
+
+  @Test
+  public void testNonIntegralKeyInflatesStore() throws Exception {
+    for (int i = 0; i < 10; i++) {
+      store.addMapping(i, createRegionEntry(i, new Object()));
+    }
+    primitiveStore().merge();
+    store.addMapping(QueryService.UNDEFINED, createRegionEntry(10, new Object()));
+    store.addMapping(10L, createRegionEntry(11, new Object()));
+
+    assertTrue(primitiveStore().isInflated());
+    assertEquals(11, numObjectsInStore(store));
+    assertEquals(1, numObjectsIterated(store.get(QueryService.UNDEFINED)));
+    assertEquals(12, store.size());
+  }
+
+  @Test
+  public void testRepeatedAddOfAMappingIsIgnored() throws Exception {
+    RegionEntry merged = createRegionEntry(1, new Object());
+    RegionEntry pending = createRegionEntry(2, new Object());
+    RegionEntry nullEntry = createRegionEntry(3, new Object());
+    store.addMapping(1, merged);
+    primitiveStore().merge();
+    store.addMapping(1, merged);
+    store.addMapping(1, pending);
+    store.addMapping(1, pending);
+    store.addMapping(IndexManager.NULL, nullEntry);
+    store.addMapping(IndexManager.NULL, nullEntry);
+
+    assertEquals(2, numObjectsIterated(store.get(1)));
+    assertEquals(2, store.size(1));
+    assertEquals(1, numObjectsIterated(store.get(IndexManager.NULL)));
+    verify(mockStats, times(3)).incNumValues(1);
+    primitiveStore().merge();
+    assertEquals(2, numObjectsIterated(store.get(1)));
+  }
+
+  @Test
+  public void testMappingsAreFoundWhileTheStoreIsInflated() throws Exception {
+    for (int i = 0; i < 10000; i++) {
+      store.addMapping(i, createRegionEntry(i, new Object()));
+    }
+    primitiveStore().merge();
+    AtomicBoolean done = new AtomicBoolean();
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    Future<Integer> reader = executor.submit(() -> {
+      int misses = 0;
+      while (!done.get()) {
+        if (numObjectsIterated(store.get(5000)) != 1) {
+          misses++;
+        }
+      }
+      return misses;
+    });
+    Thread.sleep(50);
+    // a long key in an int index
+    store.addMapping(10000L, createRegionEntry(10000, new Object()));
+    Thread.sleep(50);
+    done.set(true);
+
+    assertTrue(primitiveStore().isInflated());
+    try {
+      assertEquals(0, (int) reader.get(30, TimeUnit.SECONDS));
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  private List<Object> keysOf(CloseableIterator<IndexStoreEntry> iterator) {
+    List<Object> keys = new ArrayList<>();
+    while (iterator.hasNext()) {
+      keys.add(iterator.next().getDeserializedKey());
+    }
+    return keys;
+  }
+}
@@ -16,15 +16,21 @@ package org.apache.geode.cache.query.partitioned;
 
 import static org.junit.Assert.fail;
 
+import java.io.Serializable;
 import java.util.HashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.experimental.categories.Category;
 
+import org.apache.geode.InternalGemFireException;
 import org.apache.geode.LogWriter;
 import org.apache.geode.cache.Region;
 import org.apache.geode.cache.query.Query;
+import org.apache.geode.cache.query.QueryInvocationTargetException;
 import org.apache.geode.cache.query.SelectResults;
 import org.apache.geode.cache.query.data.PortfolioData;
 import org.apache.geode.internal.Assert;
@@ -137,6 +143,134 @@ public class PRQueryNumThreadsJUnitTest {
     }
   }
 
+  @Test
+  public void testQueryWithForkJoin() throws Exception {
+    Region region = PartitionedRegionTestHelper.createPartitionedRegion(regionName, "100", 0);
+    PortfolioData[] portfolios = new PortfolioData[100];
+    for (int j = 0; j < 100; j++) {
+      portfolios[j] = new PortfolioData(j);
+    }
+    PRQueryProcessor.TEST_FORK_JOIN = true;
+    try {
+      populateData(region, portfolios);
+
+      SelectResults resSet = region.query("ID < 5");
+      Assert.assertTrue(resSet.size() == 5);
+
+      resSet = region.query("ID > 5 and ID <=15");
+      Assert.assertTrue(resSet.size() == 10);
+    } finally {
+      PRQueryProcessor.TEST_FORK_JOIN = false;
+      region.close();
+    }
+  }
+
+  @Test
+  public void testOrderByQueryWithForkJoin() throws Exception {
+    Region region = PartitionedRegionTestHelper.createPartitionedRegion(regionName, "100", 0);
+    String[] values = new String[100];
+    for (int j = 0; j < 100; j++) {
+      values[j] = "" + j;
+    }
+    PRQueryProcessor.TEST_FORK_JOIN = true;
+    try {
+      populateData(region, values);
+
+      String queryString = "Select distinct p from /" + region.getName() + " p order by p";
+      Query query = region.getCache().getQueryService().newQuery(queryString);
+      SelectResults sr = (SelectResults) query.execute();
+
+      Assert.assertTrue(sr.size() == 100);
+      String previous = null;
+      for (Object r : sr.asList()) {
+        Assert.assertTrue(previous == null || previous.compareTo((String) r) < 0);
+        previous = (String) r;
+      }
+    } finally {
+      PRQueryProcessor.TEST_FORK_JOIN = false;
+      region.close();
+    }
+  }
+
+  @Test
+  public void testFailingBucketWithForkJoin() throws Exception {
+    Region region = PartitionedRegionTestHelper.createPartitionedRegion(regionName, "100", 0);
+    Value[] values = new Value[100];
+    for (int j = 0; j < 100; j++) {
+      values[j] = new Value(j);
+    }
+    values[50].fail = true;
+    PRQueryProcessor.TEST_FORK_JOIN = true;
+    try {
+      populateData(region, values);
+
+      region.query("id >= 0");
+      fail("Expected the failure of the bucket holding entry 50");
+    } catch (QueryInvocationTargetException e) {
+      Assert.assertTrue(e.getCause() instanceof IllegalStateException);
+      Assert.assertTrue("entry 50".equals(e.getCause().getMessage()));
+    } finally {
+      PRQueryProcessor.TEST_FORK_JOIN = false;
+      region.close();
+    }
+  }
+
+  @Test
+  public void testTimeoutWithForkJoin() throws Exception {
+    Region region = PartitionedRegionTestHelper.createPartitionedRegion(regionName, "100", 0);
+    Value[] values = new Value[100];
+    for (int j = 0; j < 100; j++) {
+      values[j] = new Value(j);
+    }
+    PRQueryProcessor.TEST_FORK_JOIN = true;
+    PRQueryProcessor.TEST_PARALLEL_QUERY_TIMEOUT = 1;
+    Value.blocked = new CountDownLatch(1);
+    try {
+      populateData(region, values);
+      Value.blockedId = 50;
+
+      long start = System.nanoTime();
+      try {
+        region.query("id >= 0");
+        fail("Expected the query to time out while the bucket holding entry 50 is blocked");
+      } catch (InternalGemFireException expected) {
+        Assert.assertTrue(expected.getCause() instanceof TimeoutException);
+      }
+      Assert.assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(30));
+    } finally {
+      Value.blockedId = -1;
+      Value.blocked.countDown();
+      PRQueryProcessor.TEST_PARALLEL_QUERY_TIMEOUT = 0;
+      PRQueryProcessor.TEST_FORK_JOIN = false;
+      region.close();
+    }
+  }
+
+  /**
+   * A value whose id fails or blocks when it is read by a query.
+   */
+  public static class Value implements Serializable {
+    static volatile int blockedId = -1;
+    static volatile CountDownLatch blocked;
+
+    private final int id;
+    boolean fail;
+
+    public Value(int id) {
+      this.id = id;
+    }
+
+    public int getId() throws InterruptedException {
+      if (fail) {
+        throw new IllegalStateException("entry " + id);
+      }
+      if (id == blockedId) {
+        blocked.await(60, TimeUnit.SECONDS);
+      }
+      return id;
+    }
+  }
+
   /**
    * Populates the region with the Objects stores in the data Object array.
    * 
@@ -0,0 +1,250 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.distributed.internal;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import org.apache.geode.test.junit.categories.UnitTest;
+
+@Category(UnitTest.class)
+public class MessageSchedulerJUnitTest {
+
+  private MessageScheduler scheduler;
+  private List<String> executed;
+  private CountDownLatch done;
+
+  @Before
+  public void setUp() {
+    executed = new ArrayList<>();
+  }
+
+  @After
+  public void tearDown() {
+    if (scheduler != null) {
+      scheduler.shutdownNow();
+    }
+  }
+
+  @Test
+  public void testHigherPriorityLaneRunsFirst() throws Exception {
+    GatedThreadFactory threadFactory = new GatedThreadFactory();
+    scheduler = new MessageScheduler(100, 0, threadFactory, 1000);
+    MessageScheduler.Lane low = scheduler.addLane("low", 1, 10, 0, null, null);
+    MessageScheduler.Lane high = scheduler.addLane("high", 2, 10, 0, null, null);
+
+    // the first thread is held so that all messages are queued before it takes one
+    done = new CountDownLatch(3);
+    low.execute(record("low1"));
+    low.execute(record("low2"));
+    high.execute(record("high"));
+    assertEquals(2, low.getQueueSize());
+    threadFactory.open(0);
+
+    assertTrue(done.await(30, TimeUnit.SECONDS));
+    assertEquals(Arrays.asList("high", "low1", "low2"), executed);
+  }
+
+  @Test
+  public void testLaneWithFewestRunningMessagesGoesFirst() throws Exception {
+    GatedThreadFactory threadFactory = new GatedThreadFactory();
+    scheduler = new MessageScheduler(100, 0, threadFactory, 1000);
+    MessageScheduler.Lane first = scheduler.addLane("first", 1, 10, 0, null, null);
+    MessageScheduler.Lane second = scheduler.addLane("second", 1, 10, 0, null, null);
+    CountDownLatch release = new CountDownLatch(1);
+    CountDownLatch blocked = new CountDownLatch(1);
+    first.execute(block(blocked, release));
+    threadFactory.open(0);
+    assertTrue(blocked.await(30, TimeUnit.SECONDS));
+
+    done = new CountDownLatch(2);
+    first.execute(record("first1"));
+    second.execute(record("second1"));
+    threadFactory.open(1);
+
+    assertTrue(done.await(30, TimeUnit.SECONDS));
+    // the second lane had nothing running, so it went first
+    assertEquals(Arrays.asList("second1", "first1"), executed);
+    release.countDown();
+  }
+
+  @Test
+  public void testLaneAtItsLimitDoesNotHoldBackOtherLanes() throws Exception {
+    scheduler = new MessageScheduler(100, 0, Executors.defaultThreadFactory(), 1000);
+    MessageScheduler.Lane standard = scheduler.addLane("standard", 1, 1, 0, null, null);
+    MessageScheduler.Lane partitioned = scheduler.addLane("partitioned", 1, 2, 0, null, null);
+    CountDownLatch release = new CountDownLatch(1);
+    CountDownLatch blocked = new CountDownLatch(1);
+    standard.execute(block(blocked, release));
+    assertTrue(blocked.await(30, TimeUnit.SECONDS));
+
+    done = new CountDownLatch(4);
+    standard.execute(record("standard"));
+    for (int i = 0; i < 3; i++) {
+      partitioned.execute(record("partitioned" + i));
+    }
+    waitUntilExecuted(3);
+    assertEquals(1, standard.getQueueSize());
+    assertEquals(1, standard.getRunning());
+    synchronized (executed) {
+      assertFalse(executed.contains("standard"));
+    }
+    release.countDown();
+
+    assertTrue(done.await(30, TimeUnit.SECONDS));
+    assertEquals(4, executed.size());
+  }
+
+  @Test
+  public void testReservedThreadsAreKeptForHighPriorityLane() throws Exception {
+    scheduler = new MessageScheduler(3, 1, Executors.defaultThreadFactory(), 1000);
+    MessageScheduler.Lane standard = scheduler.addLane("standard", 1, 10, 0, null, null);
+    MessageScheduler.Lane high = scheduler.addLane("high", 2, 10, 0, null, null);
+    CountDownLatch release = new CountDownLatch(1);
+    CountDownLatch blocked = new CountDownLatch(2);
+    standard.execute(block(blocked, release));
+    standard.execute(block(blocked, release));
+    assertTrue(blocked.await(30, TimeUnit.SECONDS));
+
+    done = new CountDownLatch(2);
+    standard.execute(record("standard"));
+    high.execute(record("high"));
+    waitUntilExecuted(1);
+    // the standard lane has taken all but the reserved thread
+    synchronized (executed) {
+      assertEquals(Arrays.asList("high"), executed);
+    }
+    assertEquals(1, standard.getQueueSize());
+    release.countDown();
+
+    assertTrue(done.await(30, TimeUnit.SECONDS));
+    assertEquals(Arrays.asList("high", "standard"), executed);
+  }
+
+  @Test
+  public void testSharedLimitHoldsBackAllLanes() throws Exception {
+    scheduler = new MessageScheduler(2, 0, Executors.defaultThreadFactory(), 1000);
+    MessageScheduler.Lane standard = scheduler.addLane("standard", 1, 10, 0, null, null);
+    MessageScheduler.Lane partitioned = scheduler.addLane("partitioned", 1, 10, 0, null, null);
+    CountDownLatch release = new CountDownLatch(1);
+    CountDownLatch blocked = new CountDownLatch(2);
+    standard.execute(block(blocked, release));
+    partitioned.execute(block(blocked, release));
+    assertTrue(blocked.await(30, TimeUnit.SECONDS));
+
+    done = new CountDownLatch(1);
+    partitioned.execute(record("partitioned"));
+    assertEquals(1, partitioned.getQueueSize());
+    assertEquals(1, partitioned.getRunning());
+    release.countDown();
+
+    assertTrue(done.await(30, TimeUnit.SECONDS));
+    assertEquals(Arrays.asList("partitioned"), executed);
+  }
+
+  @Test
+  public void testShutdownRejectsMessages() throws Exception {
+    scheduler = new MessageScheduler(100, 0, Executors.defaultThreadFactory(), 1000);
+    MessageScheduler.Lane lane = scheduler.addLane("lane", 1, 10, 0, null, null);
+    done = new CountDownLatch(1);
+    lane.execute(record("before"));
+    assertTrue(done.await(30, TimeUnit.SECONDS));
+
+    scheduler.shutdown();
+    try {
+      lane.execute(record("after"));
+      fail("expected RejectedExecutionException");
+    } catch (RejectedExecutionException expected) {
+    }
+    assertTrue(scheduler.awaitTermination(30, TimeUnit.SECONDS));
+    assertEquals(Arrays.asList("before"), executed);
+  }
+
+  private Runnable record(String name) {
+    return () -> {
+      synchronized (executed) {
+        executed.add(name);
+      }
+      done.countDown();
+    };
+  }
+
+  private Runnable block(CountDownLatch blocked, CountDownLatch release) {
+    return () -> {
+      blocked.countDown();
+      try {
+        release.await(30, TimeUnit.SECONDS);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    };
+  }
+
+  /**
+   * Creates threads that each wait for their gate to be opened before they start running.
+   */
+  private static class GatedThreadFactory implements ThreadFactory {
+    private final List<CountDownLatch> gates = new CopyOnWriteArrayList<>();
+
+    public Thread newThread(Runnable r) {
+      CountDownLatch gate = new CountDownLatch(1);
+      gates.add(gate);
+      Thread thread = new Thread(() -> {
+        try {
+          gate.await();
+        } catch (InterruptedException e) {
+          return;
+        }
+        r.run();
+      });
+      thread.setDaemon(true);
+      return thread;
+    }
+
+    void open(int thread) throws InterruptedException {
+      long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+      while (gates.size() <= thread && System.nanoTime() < deadline) {
+        Thread.sleep(10);
+      }
+      gates.get(thread).countDown();
+    }
+  }
+
+  private void waitUntilExecuted(int count) throws InterruptedException {
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+    while (System.nanoTime() < deadline) {
+      synchronized (executed) {
+        if (executed.size() >= count) {
+          return;
+        }
+      }
+      Thread.sleep(10);
+    }
+  }
+}
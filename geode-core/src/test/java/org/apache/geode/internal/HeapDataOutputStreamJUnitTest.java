@@ -26,6 +26,7 @@ import org.junit.experimental.categories.Category;
 
 import org.apache.geode.DataSerializer;
 import org.apache.geode.internal.cache.UnitTestValueHolder;
+import org.apache.geode.internal.net.BufferPool;
 import org.apache.geode.test.junit.categories.UnitTest;
 
 /**
@@ -153,4 +154,44 @@ public class HeapDataOutputStreamJUnitTest {
     }
   }
 
+  @Test
+  public void testPooledBuffersAreReleasedOnClose() throws IOException {
+    BufferPool pool = BufferPool.createHeapPool();
+    HeapDataOutputStream out = new HeapDataOutputStream(1024, Version.CURRENT, false, pool);
+    out.write(new byte[3000]);
+    ByteBuffer sent = ByteBuffer.allocate(3000);
+    out.sendTo(sent);
+    assertEquals(3000, sent.position());
+    out.close();
+
+    // the stream expanded from its first buffer to one large enough for the rest
+    assertNotNull(pool.poll(1024));
+    assertNotNull(pool.poll(2048));
+    assertNull(pool.poll(1024));
+    assertNull(pool.poll(2048));
+  }
+
+  @Test
+  public void testPooledBuffersHandedOutAreNotReleased() {
+    BufferPool pool = BufferPool.createHeapPool();
+    HeapDataOutputStream out = new HeapDataOutputStream(1024, Version.CURRENT, false, pool);
+    out.writeInt(7);
+    ByteBuffer bb = out.toByteBuffer();
+    out.close();
+
+    assertNull(pool.poll(1024));
+    assertEquals(7, bb.getInt(0));
+  }
+
+  @Test
+  public void testPooledStreamCanBeWrittenAfterClose() {
+    BufferPool pool = BufferPool.createHeapPool();
+    HeapDataOutputStream out = new HeapDataOutputStream(1024, Version.CURRENT, false, pool);
+    out.writeInt(7);
+    out.close();
+    out.writeInt(8);
+
+    assertEquals(8, out.toByteBuffer().getInt(0));
+  }
+
 }
@@ -0,0 +1,67 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.internal;
+
+import static org.junit.Assert.*;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import org.apache.geode.test.junit.categories.UnitTest;
+
+@Category(UnitTest.class)
+public class VirtualThreadsJUnitTest {
+
+  @Test
+  public void testNewThreadRunsTaskWithName() throws Exception {
+    ThreadGroup group = new ThreadGroup("VirtualThreadsJUnitTest");
+    AtomicBoolean ran = new AtomicBoolean();
+
+    Thread thread = VirtualThreads.newThread(group, () -> ran.set(true), "test thread");
+    assertEquals("test thread", thread.getName());
+    assertEquals(Thread.State.NEW, thread.getState());
+    if (!VirtualThreads.isSupported()) {
+      // a thread leaves its group once it has terminated
+      assertSame(group, thread.getThreadGroup());
+    }
+    thread.start();
+    thread.join(30000);
+
+    assertTrue(ran.get());
+  }
+
+  @Test
+  public void testGroupHandlesUncaughtException() throws Exception {
+    AtomicReference<Throwable> uncaught = new AtomicReference<>();
+    ThreadGroup group = new ThreadGroup("VirtualThreadsJUnitTest") {
+      @Override
+      public void uncaughtException(Thread t, Throwable e) {
+        uncaught.set(e);
+      }
+    };
+    RuntimeException failure = new RuntimeException("expected");
+
+    Thread thread = VirtualThreads.newThread(group, () -> {
+      throw failure;
+    }, "test thread");
+    thread.start();
+    thread.join(30000);
+
+    assertSame(failure, uncaught.get());
+  }
+}
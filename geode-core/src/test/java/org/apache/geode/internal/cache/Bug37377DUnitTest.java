@@ -282,6 +282,14 @@ public class Bug37377DUnitTest extends JUnit4CacheTestCase {
       public RegionEntryFactory makeOnHeap() {
         return this;
       }
+
+      public RegionEntryFactory makeUnlinked() {
+        return this;
+      }
+
+      public RegionEntryFactory makeSerializedKeys() {
+        return this;
+      }
     };
 
     /**
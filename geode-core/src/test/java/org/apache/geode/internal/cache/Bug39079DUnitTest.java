@@ -323,6 +323,16 @@ public class Bug39079DUnitTest extends JUnit4CacheTestCase {
       public RegionEntryFactory makeOnHeap() {
         return this;
       }
+
+      @Override
+      public RegionEntryFactory makeUnlinked() {
+        return this;
+      }
+
+      @Override
+      public RegionEntryFactory makeSerializedKeys() {
+        return this;
+      }
     };
 
     /**
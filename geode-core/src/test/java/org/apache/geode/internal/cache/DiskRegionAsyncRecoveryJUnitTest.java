@@ -442,6 +442,77 @@ public class DiskRegionAsyncRecoveryJUnitTest extends DiskRegionTestingBase {
     checkEntries(region, 0, 50, "A");
   }
 
+  @Test
+  public void testValuesRecoveredFromSeveralOplogsInParallel() throws InterruptedException {
+    createParallelRecoveryDiskStore();
+    Region region = createRegion();
+    Region other = createRegion("otherRegion");
+    DiskStoreImpl store = (DiskStoreImpl) cache.findDiskStore("store");
+    for (int i = 0; i < 4; i++) {
+      putEntries(region, i * 20, (i + 1) * 20, "A");
+      putEntries(other, i * 20, (i + 1) * 20, "A");
+      store.forceRoll();
+    }
+    // newer values and destroys in later oplogs have to win over the older records
+    putEntries(region, 0, 10, "B");
+    putEntries(other, 70, 80, "B");
+    store.forceRoll();
+    removeEntries(region, 10, 20);
+    invalidateEntries(other, 60, 70);
+
+    cache.close();
+    Set<String> crfs = new HashSet<String>();
+    getCrfsAndKrfs(crfs, new HashSet<String>());
+    assertTrue("only " + crfs.size() + " oplogs", crfs.size() > 2);
+
+    cache = createCache();
+    final CountDownLatch suspendRecovery = new CountDownLatch(1);
+    final CountDownLatch recoveryDone = new CountDownLatch(1);
+    DiskStoreObserver.setInstance(new DiskStoreObserver() {
+
+      @Override
+      public void beforeAsyncValueRecovery(DiskStoreImpl store) {
+        try {
+          suspendRecovery.await();
+        } catch (InterruptedException e) {
+          fail("interrupted");
+        }
+      }
+
+      @Override
+      public void afterAsyncValueRecovery(DiskStoreImpl store) {
+        recoveryDone.countDown();
+      }
+    });
+    try {
+      createParallelRecoveryDiskStore();
+      assertEquals(4, cache.findDiskStore("store").getRecoveryParallelism());
+      // one region is created before its values are recovered, the other one after
+      region = createRegion();
+      checkEntriesInMemory(region, 0, 10, null, false);
+      checkEntriesInMemory(region, 20, 80, null, false);
+
+      suspendRecovery.countDown();
+      assertTrue(recoveryDone.await(30, TimeUnit.SECONDS));
+      other = createRegion("otherRegion");
+
+      checkEntriesInMemory(region, 0, 10, "B", true);
+      checkEntries(region, 10, 20, null);
+      assertEquals(70, region.size());
+      checkEntriesInMemory(region, 20, 80, "A", true);
+      checkEntriesInMemory(other, 0, 60, "A", true);
+      checkEntriesInMemory(other, 60, 70, Token.INVALID, true);
+      checkEntriesInMemory(other, 70, 80, "B", true);
+    } finally {
+      suspendRecovery.countDown();
+    }
+  }
+
+  private void createParallelRecoveryDiskStore() {
+    cache.createDiskStoreFactory().setMaxOplogSize(1).setDiskDirs(dirs).setRecoveryParallelism(4)
+        .create("store");
+  }
+
   /**
    * Validate that values are, or are not, in memory
    */
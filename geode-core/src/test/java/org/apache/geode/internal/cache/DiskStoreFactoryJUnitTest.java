@@ -166,6 +166,23 @@ public class DiskStoreFactoryJUnitTest {
     }
   }
 
+  @Test
+  public void testRecoveryParallelism() {
+    DiskStoreFactory dsf = cache.createDiskStoreFactory();
+    String name = "testRecoveryParallelism";
+    DiskStore ds = dsf.create(name);
+    assertEquals(DiskStoreFactory.DEFAULT_RECOVERY_PARALLELISM, ds.getRecoveryParallelism());
+    name = "testRecoveryParallelism2";
+    ds = dsf.setRecoveryParallelism(8).create(name);
+    assertEquals(8, ds.getRecoveryParallelism());
+    // check illegal stuff
+    try {
+      dsf.setRecoveryParallelism(0);
+      fail("expected IllegalArgumentException");
+    } catch (IllegalArgumentException expected) {
+    }
+  }
+
   @Test
   public void testWriteBufferSize() {
     DiskStoreFactory dsf = cache.createDiskStoreFactory();
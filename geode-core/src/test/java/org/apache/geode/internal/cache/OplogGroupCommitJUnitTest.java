@@ -0,0 +1,240 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.internal.cache;
+
+import static org.awaitility.Awaitility.await;
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+
+import java.io.IOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.mockito.Mockito;
+
+import org.apache.geode.cache.DiskAccessException;
+import org.apache.geode.cache.Scope;
+import org.apache.geode.internal.cache.persistence.UninterruptibleFileChannel;
+import org.apache.geode.test.junit.categories.IntegrationTest;
+
+/**
+ * Tests the group commit of synchronous oplog writes enabled by {@link Oplog#GROUP_COMMIT}.
+ */
+@Category(IntegrationTest.class)
+public class OplogGroupCommitJUnitTest extends DiskRegionTestingBase {
+
+  private final DiskRegionProperties diskProps = new DiskRegionProperties();
+
+  private boolean oldGroupCommit;
+  private boolean oldSyncWrites;
+  private ExecutorService executor;
+
+  /** counts down when the first sync of the crf starts */
+  private final CountDownLatch leaderSyncing = new CountDownLatch(1);
+  /** holds the first sync of the crf until it counts down */
+  private final CountDownLatch releaseLeader = new CountDownLatch(1);
+  private final AtomicInteger crfSyncs = new AtomicInteger();
+
+  @Override
+  protected final void postSetUp() throws Exception {
+    oldGroupCommit = Oplog.GROUP_COMMIT;
+    oldSyncWrites = Oplog.SYNC_WRITES;
+    Oplog.GROUP_COMMIT = true;
+    Oplog.SYNC_WRITES = true;
+    diskProps.setDiskDirs(dirs);
+    diskProps.setRolling(false);
+    executor = Executors.newCachedThreadPool();
+  }
+
+  @Override
+  protected final void postTearDown() throws Exception {
+    releaseLeader.countDown();
+    executor.shutdownNow();
+    Oplog.GROUP_COMMIT = oldGroupCommit;
+    Oplog.SYNC_WRITES = oldSyncWrites;
+  }
+
+  private void createRegion() {
+    region = DiskRegionHelperFactory.getSyncPersistOnlyRegion(cache, diskProps, Scope.LOCAL);
+  }
+
+  private Oplog getChild() {
+    return ((LocalRegion) region).getDiskStore().persistentOplogs.getChild();
+  }
+
+  /**
+   * Replaces the crf channel of the current oplog with a spy whose first sync waits for
+   * {@link #releaseLeader}.
+   */
+  private UninterruptibleFileChannel blockFirstCrfSync(boolean failFirstSync) throws IOException {
+    Oplog oplog = getChild();
+    UninterruptibleFileChannel realChannel = oplog.getFileChannel();
+    UninterruptibleFileChannel channel = spy(realChannel);
+    doAnswer(invocation -> {
+      if (crfSyncs.incrementAndGet() == 1) {
+        leaderSyncing.countDown();
+        releaseLeader.await();
+        if (failFirstSync) {
+          throw new IOException("failed sync");
+        }
+      }
+      // not callRealMethod which would wrap the IOException of a closed channel
+      realChannel.force(true);
+      return null;
+    }).when(channel).force(true);
+    oplog.testSetCrfChannel(channel);
+    return channel;
+  }
+
+  private Future<?> putInBackground(final String key) {
+    return executor.submit(() -> region.put(key, "value-" + key));
+  }
+
+  /**
+   * Writes a synchronous modify of an existing entry straight to the disk store so that a failure
+   * reaches the test instead of closing the cache.
+   */
+  private Future<?> modifyInBackground(final String key) {
+    return executor.submit(() -> {
+      LocalRegion lr = (LocalRegion) region;
+      DiskEntry entry = (DiskEntry) lr.getRegionEntry(key);
+      try {
+        lr.getDiskStore().put(lr, entry, new DiskEntry.Helper.ByteArrayValueWrapper(true,
+            EntryEventImpl.serialize("modified-" + key)), false);
+      } finally {
+        assertFalse(Oplog.hasPendingGroupCommit());
+      }
+      return null;
+    });
+  }
+
+  private void awaitAppended(final Oplog oplog, final long writeSeq) {
+    await().atMost(30, TimeUnit.SECONDS).until(() -> oplog.getAppendedWriteSeq() >= writeSeq);
+  }
+
+  private void recreateRegionAndVerify(String... keys) {
+    region.close();
+    createRegion();
+    for (String key : keys) {
+      assertEquals("value-" + key, region.get(key));
+    }
+  }
+
+  @Test
+  public void writersThatArriveDuringASyncShareTheNextOne() throws Exception {
+    createRegion();
+    UninterruptibleFileChannel channel = blockFirstCrfSync(false);
+    Oplog oplog = getChild();
+    long appended = oplog.getAppendedWriteSeq();
+
+    Future<?> leader = putInBackground("leader");
+    assertTrue(leaderSyncing.await(30, TimeUnit.SECONDS));
+    // the leader syncs without the oplog lock so the followers can append
+    Future<?> follower1 = putInBackground("follower1");
+    Future<?> follower2 = putInBackground("follower2");
+    awaitAppended(oplog, appended + 3);
+    assertFalse(follower1.isDone());
+    assertFalse(follower2.isDone());
+
+    releaseLeader.countDown();
+    leader.get(30, TimeUnit.SECONDS);
+    follower1.get(30, TimeUnit.SECONDS);
+    follower2.get(30, TimeUnit.SECONDS);
+
+    // one sync for the leader and one shared by both followers
+    // qualified since DiskRegionTestingBase has its own verify
+    Mockito.verify(channel, times(2)).force(true);
+    recreateRegionAndVerify("leader", "follower1", "follower2");
+  }
+
+  @Test
+  public void followerOfASwitchedAndClosedOplogIsCommitted() throws Exception {
+    createRegion();
+    blockFirstCrfSync(false);
+    Oplog oplog = getChild();
+    long appended = oplog.getAppendedWriteSeq();
+
+    Future<?> leader = putInBackground("leader");
+    assertTrue(leaderSyncing.await(30, TimeUnit.SECONDS));
+    Future<?> follower = putInBackground("follower");
+    awaitAppended(oplog, appended + 2);
+
+    // the switch syncs the old oplog before the follower gets to commit
+    oplog.forceRolling(((LocalRegion) region).getDiskRegion());
+    assertNotSame(oplog, getChild());
+    oplog.close();
+
+    releaseLeader.countDown();
+    leader.get(30, TimeUnit.SECONDS);
+    follower.get(30, TimeUnit.SECONDS);
+    assertFalse(Oplog.hasPendingGroupCommit());
+    recreateRegionAndVerify("leader", "follower");
+  }
+
+  @Test
+  public void failedSyncHandsLeadershipToTheNextWriter() throws Exception {
+    createRegion();
+    region.put("leader", "value-leader");
+    region.put("follower", "value-follower");
+    UninterruptibleFileChannel channel = blockFirstCrfSync(true);
+    Oplog oplog = getChild();
+    long appended = oplog.getAppendedWriteSeq();
+
+    Future<?> leader = modifyInBackground("leader");
+    assertTrue(leaderSyncing.await(30, TimeUnit.SECONDS));
+    Future<?> follower = modifyInBackground("follower");
+    awaitAppended(oplog, appended + 2);
+
+    releaseLeader.countDown();
+    try {
+      leader.get(30, TimeUnit.SECONDS);
+      fail("expected the failed sync to be reported to the leader");
+    } catch (ExecutionException expected) {
+      assertTrue(expected.getCause() instanceof DiskAccessException);
+    }
+    // the follower is not covered by the failed sync so it retries it
+    follower.get(30, TimeUnit.SECONDS);
+    Mockito.verify(channel, times(2)).force(true);
+  }
+
+  @Test
+  public void writesOutsideAGroupCommitAreFlushedRightAway() throws Exception {
+    createRegion();
+    region.put("key", "value-key");
+    UninterruptibleFileChannel channel = blockFirstCrfSync(false);
+    releaseLeader.countDown();
+    Oplog oplog = getChild();
+    long appended = oplog.getAppendedWriteSeq();
+
+    // the path the compactor and conflict version tags take when not called by the disk store
+    LocalRegion lr = (LocalRegion) region;
+    oplog.saveConflictVersionTag(lr,
+        ((DiskEntry) lr.getRegionEntry("key")).getVersionStamp().asVersionTag(), false);
+
+    assertFalse(Oplog.hasPendingGroupCommit());
+    assertEquals(appended, oplog.getAppendedWriteSeq());
+    Mockito.verify(channel, atLeastOnce()).force(true);
+  }
+}
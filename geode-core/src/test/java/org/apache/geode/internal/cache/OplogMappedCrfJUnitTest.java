@@ -0,0 +1,134 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.internal.cache;
+
+import static org.junit.Assert.*;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import org.apache.geode.cache.Scope;
+import org.apache.geode.test.junit.categories.IntegrationTest;
+
+/**
+ * Tests reading values through the read only mapping of crf files enabled by
+ * {@link Oplog#MAP_READ_ONLY_CRF}.
+ */
+@Category(IntegrationTest.class)
+public class OplogMappedCrfJUnitTest extends DiskRegionTestingBase {
+
+  private static final int NUM_ENTRIES = 100;
+
+  private final DiskRegionProperties diskProps = new DiskRegionProperties();
+
+  private final Map<Integer, String> expected = new HashMap<>();
+
+  @Override
+  protected final void postSetUp() throws Exception {
+    Oplog.TEST_MAP_READ_ONLY_CRF = true;
+    diskProps.setDiskDirs(dirs);
+    diskProps.setRolling(false);
+    diskProps.setAllowForceCompaction(true);
+  }
+
+  @Override
+  protected final void postTearDown() throws Exception {
+    Oplog.TEST_MAP_READ_ONLY_CRF = false;
+  }
+
+  private void createRegion() {
+    region = DiskRegionHelperFactory.getSyncPersistOnlyRegion(cache, diskProps, Scope.LOCAL);
+  }
+
+  private Oplog getChild() {
+    return ((LocalRegion) region).getDiskStore().persistentOplogs.getChild();
+  }
+
+  private void rollOplog() {
+    Oplog oplog = getChild();
+    oplog.forceRolling(((LocalRegion) region).getDiskRegion());
+    assertNotSame(oplog, getChild());
+  }
+
+  private void put(int key, String value) {
+    region.put(key, value);
+    expected.put(key, value);
+  }
+
+  private void destroy(int key) {
+    region.destroy(key);
+    expected.remove(key);
+  }
+
+  /**
+   * Reads every value from its oplog rather than from memory.
+   */
+  private void verifyValuesOnDisk() {
+    LocalRegion lr = (LocalRegion) region;
+    assertEquals(expected.size(), region.size());
+    for (Map.Entry<Integer, String> entry : expected.entrySet()) {
+      assertEquals(entry.getValue(), lr.getValueOnDisk(entry.getKey()));
+    }
+  }
+
+  @Test
+  public void valuesAreReadThroughTheMappingBeforeAndAfterRollAndCompaction() throws Exception {
+    createRegion();
+    for (int i = 0; i < NUM_ENTRIES; i++) {
+      put(i, "value-" + i);
+    }
+    Oplog first = getChild();
+    // the crf is still appended to so it is read with its RandomAccessFile
+    verifyValuesOnDisk();
+    assertFalse(first.hasMappedCrf());
+
+    rollOplog();
+    verifyValuesOnDisk();
+    assertTrue(first.hasMappedCrf());
+
+    // leave most of the first oplog as garbage so that it is compacted
+    for (int i = 0; i < NUM_ENTRIES; i += 2) {
+      put(i, "modified-" + i);
+    }
+    for (int i = 1; i < NUM_ENTRIES / 2; i += 2) {
+      destroy(i);
+    }
+    Oplog second = getChild();
+    rollOplog();
+    assertTrue(((LocalRegion) region).getDiskStore().forceCompaction());
+    assertFalse(first.hasMappedCrf());
+
+    // the live values of the first oplog were copied into the current one
+    Oplog compacted = getChild();
+    verifyValuesOnDisk();
+    assertTrue(second.hasMappedCrf());
+    assertFalse(compacted.hasMappedCrf());
+
+    rollOplog();
+    verifyValuesOnDisk();
+    assertTrue(compacted.hasMappedCrf());
+
+    // recovery reads the crfs through a mapping as well
+    region.close();
+    createRegion();
+    verifyValuesOnDisk();
+    for (Map.Entry<Integer, String> entry : expected.entrySet()) {
+      assertEquals(entry.getValue(), region.get(entry.getKey()));
+    }
+  }
+}
@@ -0,0 +1,249 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.internal.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import org.apache.geode.internal.size.ObjectGraphSizer;
+import org.apache.geode.internal.util.concurrent.CustomEntryConcurrentHashMap;
+import org.apache.geode.internal.util.concurrent.CustomEntryConcurrentHashMap.HashEntry;
+import org.apache.geode.test.junit.categories.UnitTest;
+
+@Category(UnitTest.class)
+public class PrimitiveKeyRegionEntryMapJUnitTest {
+
+  @Test
+  public void supportsOnlyIntegerLongAndStringKeys() {
+    assertThat(PrimitiveKeyRegionEntryMap.isSupportedKeyClass(Integer.class)).isTrue();
+    assertThat(PrimitiveKeyRegionEntryMap.isSupportedKeyClass(Long.class)).isTrue();
+    assertThat(PrimitiveKeyRegionEntryMap.isSupportedKeyClass(String.class)).isTrue();
+    assertThat(PrimitiveKeyRegionEntryMap.isSupportedKeyClass(Object.class)).isFalse();
+    assertThat(PrimitiveKeyRegionEntryMap.isSupportedKeyClass(null)).isFalse();
+    assertThatThrownBy(() -> new PrimitiveKeyRegionEntryMap(Object.class, 16, 0.75f, 16))
+        .isInstanceOf(IllegalArgumentException.class);
+  }
+
+  @Test
+  public void putGetAndRemoveIntegerKeysPastResize() {
+    PrimitiveKeyRegionEntryMap map = new PrimitiveKeyRegionEntryMap(Integer.class, 16, 0.75f, 4);
+    for (int i = 0; i < 10000; i++) {
+      assertThat(map.put(i, new TestEntry(i))).isNull();
+    }
+    assertThat(map.size()).isEqualTo(10000);
+    for (int i = 0; i < 10000; i++) {
+      assertThat(((TestEntry) map.get(i)).getKey()).isEqualTo(i);
+    }
+    for (int i = 0; i < 10000; i += 2) {
+      assertThat(map.remove(i)).isNotNull();
+    }
+    assertThat(map.size()).isEqualTo(5000);
+    assertThat(map.get(2)).isNull();
+    assertThat(map.get(3)).isNotNull();
+  }
+
+  @Test
+  public void integerAndLongKeysWithTheSameValueAreDistinct() {
+    PrimitiveKeyRegionEntryMap map = new PrimitiveKeyRegionEntryMap(Long.class, 16, 0.75f, 16);
+    TestEntry longEntry = new TestEntry(1L);
+    // keys of other classes are kept in a CustomEntryConcurrentHashMap, which needs region entries
+    RegionEntry intEntry =
+        VMThinRegionEntryHeap.getEntryFactory().createEntry(null, 1, Token.INVALID);
+    map.put(1L, longEntry);
+    map.put(1, intEntry);
+
+    assertThat(map.get(1L)).isSameAs(longEntry);
+    assertThat(map.get(1)).isSameAs(intEntry);
+    assertThat(map.size()).isEqualTo(2);
+  }
+
+  @Test
+  public void stringKeysWithCollidingHashCodesAreDistinct() {
+    PrimitiveKeyRegionEntryMap map = new PrimitiveKeyRegionEntryMap(String.class, 16, 0.75f, 16);
+    // "Aa" and "BB" have the same hash code
+    TestEntry aa = new TestEntry("Aa");
+    TestEntry bb = new TestEntry("BB");
+    map.put("Aa", aa);
+    map.put("BB", bb);
+
+    assertThat(map.get("Aa")).isSameAs(aa);
+    assertThat(map.get("BB")).isSameAs(bb);
+    assertThat(map.remove("Aa", bb)).isFalse();
+    assertThat(map.remove("Aa", aa)).isTrue();
+    assertThat(map.get("Aa")).isNull();
+    assertThat(map.get("BB")).isSameAs(bb);
+  }
+
+  @Test
+  public void putIfAbsentAndReplaceFollowConcurrentMapContract() {
+    PrimitiveKeyRegionEntryMap map = new PrimitiveKeyRegionEntryMap(Integer.class, 16, 0.75f, 16);
+    TestEntry first = new TestEntry(7);
+    TestEntry second = new TestEntry(7);
+
+    assertThat(map.putIfAbsent(7, first)).isNull();
+    assertThat(map.putIfAbsent(7, second)).isSameAs(first);
+    assertThat(map.replace(7, second, first)).isFalse();
+    assertThat(map.replace(7, first, second)).isTrue();
+    assertThat(map.get(7)).isSameAs(second);
+    assertThat(map.replace(8, first)).isNull();
+    assertThat(map.containsKey(8)).isFalse();
+  }
+
+  @Test
+  public void iteratorVisitsEveryEntryAndSupportsRemove() {
+    PrimitiveKeyRegionEntryMap map = new PrimitiveKeyRegionEntryMap(Integer.class, 16, 0.75f, 4);
+    Map<Object, Object> expected = new HashMap<>();
+    for (int i = 0; i < 1000; i++) {
+      TestEntry entry = new TestEntry(i);
+      map.put(i, entry);
+      expected.put(i, entry);
+    }
+    RegionEntry other =
+        VMThinRegionEntryHeap.getEntryFactory().createEntry(null, "other", Token.INVALID);
+    map.put("other", other);
+    expected.put("other", other);
+
+    Map<Object, Object> actual = new HashMap<>();
+    for (Map.Entry<Object, Object> entry : map.entrySet()) {
+      actual.put(entry.getKey(), entry.getValue());
+    }
+    assertThat(actual).isEqualTo(expected);
+
+    Iterator<Map.Entry<Object, Object>> it = map.entrySetWithReusableEntries().iterator();
+    while (it.hasNext()) {
+      it.next();
+      it.remove();
+    }
+    assertThat(map.isEmpty()).isTrue();
+  }
+
+  @Test
+  public void clearRemovesAllEntries() {
+    PrimitiveKeyRegionEntryMap map = new PrimitiveKeyRegionEntryMap(Long.class, 16, 0.75f, 16);
+    for (long i = 0; i < 100; i++) {
+      map.put(i, new TestEntry(i));
+    }
+    map.clear();
+    assertThat(map.size()).isZero();
+    assertThat(map.get(1L)).isNull();
+    map.put(1L, new TestEntry(1L));
+    assertThat(map.size()).isEqualTo(1);
+  }
+
+  @Test
+  public void unlinkedEntriesHashTheirInlinedKeyLikeTheKeyObject() {
+    RegionEntryFactory factory = VMThinRegionEntryHeap.getEntryFactory().makeUnlinked();
+    Object[] keys = {-5, 1 << 20, 7L, Long.MIN_VALUE + 3, "abc", "abcdefghijk", "\u00e9\u00e8",
+        "\u00e9abcde"};
+    for (Object key : keys) {
+      RegionEntry entry = factory.createEntry(null, key, Token.INVALID);
+      assertThat(entry).isInstanceOf(UnlinkedRegionEntry.class);
+      assertThat(((HashEntry<?, ?>) entry).getEntryHash()).isEqualTo(key.hashCode());
+      assertThat(((HashEntry<?, ?>) entry).getNextEntry()).isNull();
+      assertThat(entry.getKey()).isEqualTo(key);
+    }
+    assertThat(factory.makeVersioned().createEntry(null, 1, Token.INVALID))
+        .isInstanceOf(UnlinkedRegionEntry.class);
+    assertThat(VMThinRegionEntryHeap.getEntryFactory().createEntry(null, 1, Token.INVALID))
+        .isNotInstanceOf(UnlinkedRegionEntry.class);
+  }
+
+  @Test
+  public void unlinkedEntriesAreFoundPastResize() {
+    RegionEntryFactory factory = VMThinRegionEntryHeap.getEntryFactory().makeUnlinked();
+    PrimitiveKeyRegionEntryMap map = new PrimitiveKeyRegionEntryMap(String.class, 16, 0.75f, 4);
+    for (int i = 0; i < 10000; i++) {
+      String key = "k" + i;
+      assertThat(map.put(key, factory.createEntry(null, key, Token.INVALID))).isNull();
+    }
+    for (int i = 0; i < 10000; i++) {
+      assertThat(((RegionEntry) map.get("k" + i)).getKey()).isEqualTo("k" + i);
+    }
+    assertThat(map.get("k10000")).isNull();
+  }
+
+  /**
+   * Measures the heap used by the map structure and entries of 100000 Integer keys, which is what
+   * replicated regions with many numeric keys spend beyond their values.
+   */
+  @Test
+  public void usesLessHeapPerEntryThanChainedMap() throws Exception {
+    final int entries = 100000;
+    RegionEntryFactory factory = VMThinRegionEntryHeap.getEntryFactory();
+    RegionEntryFactory unlinkedFactory = factory.makeUnlinked();
+    CustomEntryConcurrentHashMap<Object, Object> chained = new CustomEntryConcurrentHashMap<>(16,
+        0.75f, 16, false, new AbstractRegionEntry.HashRegionEntryCreator());
+    PrimitiveKeyRegionEntryMap unlinked =
+        new PrimitiveKeyRegionEntryMap(Integer.class, 16, 0.75f, 16);
+    for (int i = 0; i < entries; i++) {
+      chained.put(i, factory.createEntry(null, i, Token.INVALID));
+      unlinked.put(i, unlinkedFactory.createEntry(null, i, Token.INVALID));
+    }
+
+    // the values and classes are shared, so only count the maps and their entries
+    ObjectGraphSizer.ObjectFilter filter =
+        (parent, object) -> !(object instanceof Token) && !(object instanceof Class);
+    long chainedBytesPerEntry = ObjectGraphSizer.size(chained, filter, false) / entries;
+    long unlinkedBytesPerEntry = ObjectGraphSizer.size(unlinked, filter, false) / entries;
+
+    assertThat(unlinkedBytesPerEntry).isLessThan(chainedBytesPerEntry);
+  }
+
+  private static class TestEntry implements HashEntry<Object, Object> {
+    private final Object key;
+
+    TestEntry(Object key) {
+      this.key = key;
+    }
+
+    @Override
+    public Object getKey() {
+      return this.key;
+    }
+
+    @Override
+    public boolean isKeyEqual(Object k) {
+      return this.key.equals(k);
+    }
+
+    @Override
+    public Object getMapValue() {
+      return this;
+    }
+
+    @Override
+    public void setMapValue(Object newValue) {}
+
+    @Override
+    public int getEntryHash() {
+      return 0;
+    }
+
+    @Override
+    public HashEntry<Object, Object> getNextEntry() {
+      return null;
+    }
+
+    @Override
+    public void setNextEntry(HashEntry<Object, Object> n) {}
+  }
+}
@@ -21,6 +21,11 @@ import static org.junit.Assert.fail;
 
 import org.apache.geode.cache.CacheException;
 import org.apache.geode.cache.CacheFactory;
+import org.apache.geode.cache.client.Pool;
+import org.apache.geode.cache.client.PoolManager;
+import org.apache.geode.cache.execute.Function;
+import org.apache.geode.cache.execute.FunctionContext;
+import org.apache.geode.cache.execute.FunctionService;
 import org.apache.geode.cache.server.CacheServer;
 import org.apache.geode.distributed.DistributedSystem;
 import org.apache.geode.distributed.internal.DistributionConfig;
@@ -37,8 +42,14 @@ import org.junit.experimental.categories.Category;
 
 import java.io.IOException;
 import java.net.BindException;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.List;
 import java.util.Properties;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 @Category({IntegrationTest.class, ClientServerTest.class})
 public class AcceptorImplJUnitTest {
@@ -132,4 +143,59 @@ public class AcceptorImplJUnitTest {
     }
   }
 
+
+  /**
+   * With a single pool thread the selector defers the requests of concurrent clients, and stops
+   * reading from them once as many are deferred as the pool can queue. All of them must still be
+   * served as the pool thread frees up.
+   */
+  @Test
+  public void testSelectorServesRequestsDeferredForAFullPool() throws Exception {
+    CacheServer server = this.cache.addCacheServer();
+    server.setPort(AvailablePortHelper.getRandomAvailableTCPPort());
+    server.setMaxThreads(1);
+    server.start();
+    Pool pool = PoolManager.createFactory().addServer("localhost", server.getPort())
+        .setReadTimeout(60000).create("pool");
+    FunctionService.registerFunction(new SlowFunction());
+
+    ExecutorService executor = Executors.newFixedThreadPool(16);
+    try {
+      List<Future<Object>> results = new ArrayList<>();
+      for (int i = 0; i < 48; i++) {
+        results.add(executor.submit(
+            () -> FunctionService.onServer(pool).execute(SlowFunction.ID).getResult()));
+      }
+      for (Future<Object> result : results) {
+        assertEquals(Collections.singletonList(Boolean.TRUE), result.get(60, TimeUnit.SECONDS));
+      }
+    } finally {
+      executor.shutdownNow();
+      FunctionService.unregisterFunction(SlowFunction.ID);
+    }
+  }
+
+  private static class SlowFunction implements Function {
+    static final String ID = "SlowFunction";
+
+    @Override
+    public void execute(FunctionContext context) {
+      try {
+        Thread.sleep(10);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      context.getResultSender().lastResult(Boolean.TRUE);
+    }
+
+    @Override
+    public String getId() {
+      return ID;
+    }
+
+    @Override
+    public boolean isHA() {
+      return false;
+    }
+  }
 }
@@ -15,10 +15,15 @@
 package org.apache.geode.internal.cache.tier.sockets;
 
 import static org.junit.Assert.*;
+import static org.awaitility.Awaitility.await;
 import static org.mockito.Mockito.*;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.net.Socket;
 import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
 
 import org.apache.geode.test.junit.categories.ClientServerTest;
 import org.junit.Before;
@@ -112,4 +117,33 @@ public class MessageJUnitTest {
     verify(mockPart1, times(2)).clear();
   }
 
+  @Test
+  public void sendWaitsForTheSharedCommBufferLock() throws Exception {
+    Socket mockSocket = mock(Socket.class);
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    when(mockSocket.getOutputStream()).thenReturn(out);
+    ReentrantLock sharedLock = new ReentrantLock();
+    this.message.setComms(mock(ServerConnection.class), mockSocket, ByteBuffer.allocate(1000),
+        sharedLock, mock(MessageStats.class));
+    this.message.addIntPart(1);
+
+    sharedLock.lock();
+    Thread sender = new Thread(() -> {
+      try {
+        this.message.send(false);
+      } catch (IOException e) {
+        throw new RuntimeException(e);
+      }
+    });
+    try {
+      sender.start();
+      await().atMost(30, TimeUnit.SECONDS).until(() -> sharedLock.hasQueuedThread(sender));
+      assertEquals(0, out.size());
+    } finally {
+      sharedLock.unlock();
+    }
+    sender.join(30000);
+    assertFalse(sender.isAlive());
+    assertTrue(out.size() > 0);
+  }
 }
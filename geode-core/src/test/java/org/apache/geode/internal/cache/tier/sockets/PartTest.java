@@ -14,16 +14,21 @@
  */
 package org.apache.geode.internal.cache.tier.sockets;
 
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Matchers.any;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 import org.apache.geode.test.junit.categories.UnitTest;
 import org.junit.Test;
 import org.junit.experimental.categories.Category;
 
+import java.io.ByteArrayOutputStream;
 import java.io.OutputStream;
 import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
 
 @Category(UnitTest.class)
 public class PartTest {
@@ -38,4 +43,37 @@ public class PartTest {
 
     verify(mockPart, times(1)).writeTo(mockOutputStream, mockByteBuffer);
   }
+
+  @Test
+  public void writeToChannelSendsBufferedBytesAheadOfPart() throws Exception {
+    byte[] bytes = new byte[100];
+    for (int i = 0; i < bytes.length; i++) {
+      bytes[i] = (byte) i;
+    }
+    Part part = new Part();
+    part.setPartState(bytes, false);
+
+    ByteArrayOutputStream written = new ByteArrayOutputStream();
+    SocketChannel channel = mock(SocketChannel.class);
+    when(channel.write(any(ByteBuffer.class))).thenAnswer(invocation -> {
+      ByteBuffer bb = invocation.getArgument(0);
+      int count = bb.remaining();
+      while (bb.hasRemaining()) {
+        written.write(bb.get());
+      }
+      return count;
+    });
+
+    ByteBuffer buf = ByteBuffer.allocate(32);
+    buf.put(new byte[] {-1, -2, -3});
+    part.writeTo(channel, buf);
+
+    byte[] result = written.toByteArray();
+    assertThat(result).hasSize(103);
+    assertThat(result).startsWith((byte) -1, (byte) -2, (byte) -3);
+    for (int i = 0; i < bytes.length; i++) {
+      assertThat(result[i + 3]).isEqualTo(bytes[i]);
+    }
+    assertThat(buf.position()).isEqualTo(0);
+  }
 }
@@ -0,0 +1,152 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.internal.cache.tier.sockets;
+
+import static org.apache.geode.distributed.ConfigurationProperties.LOCATORS;
+import static org.apache.geode.distributed.ConfigurationProperties.MCAST_PORT;
+import static org.junit.Assert.*;
+
+import java.util.HashSet;
+import java.util.Properties;
+import java.util.Set;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import org.apache.geode.cache.Cache;
+import org.apache.geode.cache.CacheFactory;
+import org.apache.geode.cache.Region;
+import org.apache.geode.cache.RegionShortcut;
+import org.apache.geode.cache.client.Pool;
+import org.apache.geode.cache.client.PoolManager;
+import org.apache.geode.cache.query.SelectResults;
+import org.apache.geode.cache.query.Struct;
+import org.apache.geode.cache.query.data.Portfolio;
+import org.apache.geode.cache.query.internal.QueryObserver;
+import org.apache.geode.cache.query.internal.QueryObserverAdapter;
+import org.apache.geode.cache.query.internal.QueryObserverHolder;
+import org.apache.geode.cache.server.CacheServer;
+import org.apache.geode.internal.AvailablePortHelper;
+import org.apache.geode.test.junit.categories.ClientServerTest;
+import org.apache.geode.test.junit.categories.IntegrationTest;
+
+/**
+ * Verifies that a cache server sends the results of queries to the client in chunks while the
+ * query is evaluated when {@link BaseCommandQuery#STREAM_QUERY_RESULTS} is set.
+ */
+@Category({IntegrationTest.class, ClientServerTest.class})
+public class QueryResultsStreamingIntegrationTest {
+
+  private static final int NUM_ENTRIES = 1050;
+
+  private boolean oldStreamQueryResults;
+  private QueryObserver oldObserver;
+  private Cache cache;
+  private Pool pool;
+
+  /** the size of the results the server was left with once the query was evaluated */
+  private volatile int serverResultsSize;
+
+  @Before
+  public void setUp() throws Exception {
+    oldStreamQueryResults = BaseCommandQuery.STREAM_QUERY_RESULTS;
+    BaseCommandQuery.STREAM_QUERY_RESULTS = true;
+    Properties props = new Properties();
+    props.setProperty(MCAST_PORT, "0");
+    props.setProperty(LOCATORS, "");
+    cache = new CacheFactory(props).create();
+    Region<Integer, Portfolio> region =
+        cache.<Integer, Portfolio>createRegionFactory(RegionShortcut.REPLICATE).create("portfolios");
+    for (int i = 0; i < NUM_ENTRIES; i++) {
+      region.put(i, new Portfolio(i));
+    }
+    CacheServer server = cache.addCacheServer();
+    server.setPort(AvailablePortHelper.getRandomAvailableTCPPort());
+    server.start();
+    pool = PoolManager.createFactory().addServer("localhost", server.getPort())
+        .setReadTimeout(60000).create("pool");
+    oldObserver = QueryObserverHolder.setInstance(new QueryObserverAdapter() {
+      @Override
+      public void afterQueryEvaluation(Object result) {
+        serverResultsSize = ((SelectResults) result).size();
+      }
+    });
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    QueryObserverHolder.setInstance(oldObserver);
+    if (pool != null) {
+      pool.destroy();
+    }
+    if (cache != null) {
+      cache.close();
+    }
+    BaseCommandQuery.STREAM_QUERY_RESULTS = oldStreamQueryResults;
+  }
+
+  private SelectResults execute(String queryString) throws Exception {
+    serverResultsSize = -1;
+    return (SelectResults) pool.getQueryService().newQuery(queryString).execute();
+  }
+
+  @Test
+  public void resultsAreStreamedInChunks() throws Exception {
+    SelectResults results = execute("select * from /portfolios p");
+
+    assertEquals(NUM_ENTRIES, results.size());
+    Set<Integer> ids = new HashSet<>();
+    for (Object result : results) {
+      ids.add(((Portfolio) result).ID);
+    }
+    assertEquals(NUM_ENTRIES, ids.size());
+    // all but the last partial chunk was sent while the query was evaluated
+    assertEquals(NUM_ENTRIES % BaseCommand.MAXIMUM_CHUNK_SIZE, serverResultsSize);
+  }
+
+  @Test
+  public void structResultsAreStreamedInChunks() throws Exception {
+    SelectResults results = execute("select p.ID, p.status from /portfolios p");
+
+    assertEquals(NUM_ENTRIES, results.size());
+    assertTrue(results.getCollectionType().getElementType().isStructType());
+    Set<Integer> ids = new HashSet<>();
+    for (Object result : results) {
+      ids.add((Integer) ((Struct) result).get("ID"));
+    }
+    assertEquals(NUM_ENTRIES, ids.size());
+    assertEquals(NUM_ENTRIES % BaseCommand.MAXIMUM_CHUNK_SIZE, serverResultsSize);
+  }
+
+  @Test
+  public void distinctResultsAreNotStreamed() throws Exception {
+    SelectResults results = execute("select distinct p.ID from /portfolios p");
+
+    assertEquals(NUM_ENTRIES, results.size());
+    assertEquals(NUM_ENTRIES, serverResultsSize);
+  }
+
+  @Test
+  public void resultsOfAnIndexLookupAreNotStreamed() throws Exception {
+    cache.getQueryService().createIndex("idIndex", "p.ID", "/portfolios p");
+
+    SelectResults results = execute("select * from /portfolios p where p.ID >= 0");
+
+    assertEquals(NUM_ENTRIES, results.size());
+    assertEquals(NUM_ENTRIES, serverResultsSize);
+  }
+}
@@ -22,7 +22,10 @@ import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyLong;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import org.apache.geode.cache.Cache;
@@ -42,9 +45,12 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 
+import java.io.EOFException;
 import java.io.IOException;
 import java.net.InetAddress;
 import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
 import java.util.Locale;
 
 @Category(UnitTest.class)
@@ -70,6 +76,8 @@ public class ServerConnectionTest {
   @InjectMocks
   private ServerConnection serverConnection;
 
+  private Socket socket;
+
   @Before
   public void setUp() throws IOException {
     AcceptorImpl acceptor = mock(AcceptorImpl.class);
@@ -77,7 +85,7 @@ public class ServerConnectionTest {
     InetAddress inetAddress = mock(InetAddress.class);
     when(inetAddress.getHostAddress()).thenReturn("localhost");
 
-    Socket socket = mock(Socket.class);
+    socket = mock(Socket.class);
     when(socket.getInetAddress()).thenReturn(inetAddress);
 
     InternalCache cache = mock(InternalCache.class);
@@ -138,4 +146,51 @@ public class ServerConnectionTest {
         .hasMessage(HandShake_NO_SECURITY_CREDENTIALS_ARE_PROVIDED.getRawText());
   }
 
+  @Test
+  public void headerReadWithoutBlockingIsHandedToRequestMessage() throws IOException {
+    SocketChannel channel = mock(SocketChannel.class);
+    when(socket.getChannel()).thenReturn(channel);
+    when(requestMsg.getHeaderLength()).thenReturn(17);
+    doAnswer(invocation -> {
+      ByteBuffer bb = invocation.getArgument(0);
+      bb.put(new byte[5]);
+      return 5;
+    }).doAnswer(invocation -> {
+      ByteBuffer bb = invocation.getArgument(0);
+      int remaining = bb.remaining();
+      bb.put(new byte[remaining]);
+      return remaining;
+    }).when(channel).read(any(ByteBuffer.class));
+
+    assertThat(serverConnection.readHeaderNonBlocking()).isFalse();
+    assertThat(serverConnection.readHeaderNonBlocking()).isTrue();
+
+    ByteBuffer cb = ByteBuffer.allocate(32);
+    assertThat(serverConnection.takePrefetchedHeader(cb)).isEqualTo(17);
+    assertThat(cb.position()).isEqualTo(17);
+    assertThat(serverConnection.takePrefetchedHeader(cb)).isEqualTo(0);
+  }
+
+  @Test
+  public void headerReadWithoutBlockingThrowsWhenClientCloses() throws IOException {
+    SocketChannel channel = mock(SocketChannel.class);
+    when(socket.getChannel()).thenReturn(channel);
+    when(requestMsg.getHeaderLength()).thenReturn(17);
+    when(channel.read(any(ByteBuffer.class))).thenReturn(-1);
+
+    assertThatThrownBy(serverConnection::readHeaderNonBlocking)
+        .isExactlyInstanceOf(EOFException.class);
+  }
+
+  @Test
+  public void handshakeIsNotReadAsAHeader() throws IOException {
+    SocketChannel channel = mock(SocketChannel.class);
+    when(socket.getChannel()).thenReturn(channel);
+    serverConnection.handshake = null;
+
+    assertThat(serverConnection.readHeaderNonBlocking()).isTrue();
+    verify(channel, never()).read(any(ByteBuffer.class));
+    assertThat(serverConnection.takePrefetchedHeader(ByteBuffer.allocate(32))).isEqualTo(0);
+  }
+
 }
@@ -0,0 +1,193 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.internal.net;
+
+import static org.junit.Assert.*;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import org.apache.geode.test.junit.categories.UnitTest;
+
+@Category(UnitTest.class)
+public class BufferPoolJUnitTest {
+
+  private List<Integer> dropped;
+  private ExecutorService executor;
+
+  @Before
+  public void setUp() {
+    dropped = new ArrayList<>();
+    executor = Executors.newSingleThreadExecutor();
+  }
+
+  @After
+  public void tearDown() {
+    executor.shutdownNow();
+  }
+
+  private BufferPool createPool(int threadCacheMaxSize) {
+    return new BufferPool((capacity, tag) -> dropped.add(capacity), threadCacheMaxSize, true);
+  }
+
+  @Test
+  public void testPooledSizesSplitPowersOfTwoInQuarters() {
+    assertEquals(1024, BufferPool.getPooledSize(1));
+    assertEquals(1024, BufferPool.getPooledSize(1024));
+    assertEquals(1280, BufferPool.getPooledSize(1025));
+    assertEquals(2048, BufferPool.getPooledSize(2048));
+    assertEquals(2560, BufferPool.getPooledSize(2049));
+    assertEquals(32768, BufferPool.getPooledSize(32768));
+    assertEquals(40960, BufferPool.getPooledSize(40000));
+    assertEquals(65536, BufferPool.getPooledSize(57345));
+    assertEquals(1 << 30, BufferPool.getPooledSize((1 << 30) - 1));
+    assertEquals((1 << 30) + 1, BufferPool.getPooledSize((1 << 30) + 1));
+  }
+
+  @Test
+  public void testPooledSizeWastesAtMostAQuarter() {
+    for (int size = 1025; size < (1 << 24); size += 997) {
+      int pooledSize = BufferPool.getPooledSize(size);
+      assertTrue(pooledSize >= size);
+      assertTrue("pooled size " + pooledSize + " for " + size, pooledSize - size < size / 4);
+      // a buffer of the pooled size is released to the class it was acquired from
+      assertEquals(pooledSize, BufferPool.getPooledSize(pooledSize));
+    }
+  }
+
+  @Test
+  public void testAcquireReturnsDirectBufferLimitedToSize() {
+    BufferPool pool = createPool(65536);
+    ByteBuffer bb = pool.acquire(3000);
+
+    assertTrue(bb.isDirect());
+    assertEquals(3072, bb.capacity());
+    assertEquals(0, bb.position());
+    assertEquals(3000, bb.limit());
+  }
+
+  @Test
+  public void testReleasedBufferIsReusedForSameSizeClass() {
+    BufferPool pool = createPool(65536);
+    ByteBuffer bb = pool.acquire(3000);
+    bb.position(100);
+    pool.release(bb);
+
+    ByteBuffer reused = pool.acquire(2900);
+    assertSame(bb, reused);
+    assertEquals(0, reused.position());
+    assertEquals(2900, reused.limit());
+    assertNull(pool.poll(2900));
+    pool.release(reused);
+    assertNotSame(bb, pool.acquire(2500));
+    assertNotSame(bb, pool.acquire(8000));
+  }
+
+  @Test
+  public void testBufferCachedByThreadIsNotSharedUntilItExits() throws Exception {
+    BufferPool pool = createPool(65536);
+    ByteBuffer first = pool.acquire(1000);
+    ByteBuffer second = pool.acquire(1000);
+    pool.release(first);
+    // replaces first in the cache of this thread, moving it to the shared queue
+    pool.release(second);
+
+    ByteBuffer other = executor.submit(() -> pool.poll(1000)).get(30, TimeUnit.SECONDS);
+    assertSame(first, other);
+    assertNull(executor.submit(() -> pool.poll(1000)).get(30, TimeUnit.SECONDS));
+    assertSame(second, pool.poll(1000));
+  }
+
+  @Test
+  public void testLargeBuffersAreShared() throws Exception {
+    BufferPool pool = createPool(1024);
+    ByteBuffer bb = pool.acquire(100000);
+    pool.release(bb);
+
+    assertSame(bb, executor.submit(() -> pool.poll(110000)).get(30, TimeUnit.SECONDS));
+  }
+
+  @Test
+  public void testPoolWithoutThreadCacheSharesAllBuffers() throws Exception {
+    BufferPool pool = new BufferPool(null, 0);
+    ByteBuffer bb = executor.submit(() -> pool.acquire(1000)).get(30, TimeUnit.SECONDS);
+    pool.release(bb);
+
+    assertSame(bb, executor.submit(() -> pool.poll(1000)).get(30, TimeUnit.SECONDS));
+  }
+
+  @Test
+  public void testClearDropsPooledBuffers() {
+    BufferPool pool = createPool(65536);
+    pool.release(pool.acquire(1000));
+    pool.release(pool.acquire(100000));
+
+    pool.clear();
+    assertEquals(2, dropped.size());
+    assertTrue(dropped.contains(1024));
+    assertTrue(dropped.contains(114688));
+    assertNull(pool.poll(1000));
+    assertNull(pool.poll(100000));
+  }
+
+  @Test
+  public void testForEachPooledIncludesBuffersCachedByThreads() throws Exception {
+    BufferPool pool = createPool(65536);
+    executor.submit(() -> pool.release(pool.acquire(1000))).get(30, TimeUnit.SECONDS);
+    pool.release(pool.acquire(2000));
+    pool.release(pool.acquire(100000));
+
+    List<Integer> pooled = new ArrayList<>();
+    pool.forEachPooled((capacity, tag) -> pooled.add(capacity));
+    assertEquals(3, pooled.size());
+    assertTrue(pooled.contains(1024));
+    assertTrue(pooled.contains(2048));
+    assertTrue(pooled.contains(114688));
+  }
+
+  @Test
+  public void testHeapPoolPoolsHeapBuffers() {
+    BufferPool pool = BufferPool.createHeapPool();
+    ByteBuffer bb = pool.acquire(3000);
+    assertFalse(bb.isDirect());
+    assertEquals(3072, bb.capacity());
+    pool.release(bb);
+    assertSame(bb, pool.acquire(3000));
+
+    // a direct buffer is not pooled with the heap buffers
+    pool.release(ByteBuffer.allocateDirect(3072));
+    assertNull(pool.poll(3000));
+  }
+
+  @Test
+  public void testBufferReleasedTwiceIsPooledOnce() {
+    BufferPool pool = createPool(0);
+    ByteBuffer bb = pool.acquire(1000);
+    pool.release(bb);
+    pool.release(bb);
+
+    assertSame(bb, pool.poll(1000));
+    assertNull(pool.poll(1000));
+  }
+}
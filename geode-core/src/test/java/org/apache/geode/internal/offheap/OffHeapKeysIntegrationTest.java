@@ -0,0 +1,229 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.internal.offheap;
+
+import static org.apache.geode.distributed.ConfigurationProperties.LOCATORS;
+import static org.apache.geode.distributed.ConfigurationProperties.MCAST_PORT;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import org.apache.geode.cache.Cache;
+import org.apache.geode.cache.CacheFactory;
+import org.apache.geode.cache.EntryNotFoundException;
+import org.apache.geode.cache.Region;
+import org.apache.geode.cache.RegionShortcut;
+import org.apache.geode.distributed.ConfigurationProperties;
+import org.apache.geode.internal.cache.LocalRegion;
+import org.apache.geode.internal.cache.OffHeapKeyRegionEntry;
+import org.apache.geode.internal.cache.RegionEntry;
+import org.apache.geode.test.junit.categories.IntegrationTest;
+
+/**
+ * Verifies that off-heap keys are freed on every path that drops an entry, using the used memory
+ * of the real allocator rather than mocks.
+ */
+@Category(IntegrationTest.class)
+public class OffHeapKeysIntegrationTest {
+
+  private static final int KEY_COUNT = 500;
+  private static final int THREAD_COUNT = 8;
+
+  private String oldOffHeapKeys;
+  private Cache cache;
+  private Region<String, String> region;
+  private ExecutorService executor;
+
+  @Before
+  public void setUp() {
+    oldOffHeapKeys =
+        System.setProperty(OffHeapRegionEntryHelper.OFF_HEAP_KEYS_PROPERTY, "true");
+    Properties props = new Properties();
+    props.setProperty(MCAST_PORT, "0");
+    props.setProperty(LOCATORS, "");
+    props.setProperty(ConfigurationProperties.OFF_HEAP_MEMORY_SIZE, "8m");
+    cache = new CacheFactory(props).create();
+    // without concurrency checks a destroyed entry is removed instead of becoming a tombstone
+    region = cache.<String, String>createRegionFactory(RegionShortcut.LOCAL).setOffHeap(true)
+        .setConcurrencyChecksEnabled(false).create("region");
+    executor = Executors.newFixedThreadPool(THREAD_COUNT);
+  }
+
+  @After
+  public void tearDown() {
+    executor.shutdownNow();
+    if (cache != null) {
+      cache.close();
+    }
+    if (oldOffHeapKeys == null) {
+      System.clearProperty(OffHeapRegionEntryHelper.OFF_HEAP_KEYS_PROPERTY);
+    } else {
+      System.setProperty(OffHeapRegionEntryHelper.OFF_HEAP_KEYS_PROPERTY, oldOffHeapKeys);
+    }
+  }
+
+  private static String key(int i) {
+    // too long to be inlined into the entry so it is stored serialized
+    return "a key that can not be inlined " + i;
+  }
+
+  private long getUsedMemory() {
+    return MemoryAllocatorImpl.getAllocator().getUsedMemory();
+  }
+
+  private void runConcurrently(Task task) throws Exception {
+    CyclicBarrier barrier = new CyclicBarrier(THREAD_COUNT);
+    List<Future<?>> futures = new ArrayList<>();
+    for (int t = 0; t < THREAD_COUNT; t++) {
+      final int thread = t;
+      futures.add(executor.submit(() -> {
+        barrier.await();
+        task.run(thread);
+        return null;
+      }));
+    }
+    for (Future<?> future : futures) {
+      future.get();
+    }
+  }
+
+  private interface Task {
+    void run(int thread) throws Exception;
+  }
+
+  @Test
+  public void keysAreStoredOffHeapAndFoundBySerializedForm() {
+    for (int i = 0; i < KEY_COUNT; i++) {
+      region.put(key(i), "value");
+    }
+
+    RegionEntry re = ((LocalRegion) region).getRegionEntry(key(0));
+    assertThat(re).isInstanceOf(OffHeapKeyRegionEntry.class);
+    assertThat(((OffHeapKeyRegionEntry) re).getKeyAddress()).isNotZero();
+    assertThat(re.getKey()).isEqualTo(key(0));
+    for (int i = 0; i < KEY_COUNT; i++) {
+      assertThat(region.get(key(i))).isEqualTo("value");
+    }
+    assertThat(region.containsKey("a key that was never put")).isFalse();
+  }
+
+  @Test
+  public void keysThatCanNotBeSerializedStayOnTheHeap() {
+    Region<Object, String> objects =
+        cache.<Object, String>createRegionFactory(RegionShortcut.LOCAL).setOffHeap(true)
+            .create("objects");
+    NotSerializableKey key = new NotSerializableKey(1);
+
+    objects.put(key, "value");
+
+    RegionEntry re = ((LocalRegion) objects).getRegionEntry(key);
+    assertThat(re).isNotInstanceOf(OffHeapKeyRegionEntry.class);
+    assertThat(objects.get(new NotSerializableKey(1))).isEqualTo("value");
+  }
+
+  @Test
+  public void destroyedEntryKeepsItsKey() {
+    region.put(key(0), "value");
+    RegionEntry re = ((LocalRegion) region).getRegionEntry(key(0));
+
+    region.destroy(key(0));
+
+    assertThat(((OffHeapKeyRegionEntry) re).getKeyAddress()).isZero();
+    assertThat(re.getKey()).isEqualTo(key(0));
+  }
+
+  @Test
+  public void contendedCreatesAndDestroysFreeAllKeys() throws Exception {
+    long usedBefore = getUsedMemory();
+
+    // every thread creates every key so most creates lose the putIfAbsent race
+    runConcurrently(thread -> {
+      for (int i = 0; i < KEY_COUNT; i++) {
+        region.putIfAbsent(key(i), "value");
+      }
+    });
+    assertThat(region.size()).isEqualTo(KEY_COUNT);
+    assertThat(getUsedMemory()).isGreaterThan(usedBefore);
+
+    // destroys and invalidates racing with creates of the same keys
+    runConcurrently(thread -> {
+      for (int i = 0; i < KEY_COUNT; i++) {
+        try {
+          if (thread % 3 == 0) {
+            region.destroy(key(i));
+          } else if (thread % 3 == 1) {
+            region.invalidate(key(i));
+          } else {
+            region.putIfAbsent(key(i), "value");
+          }
+        } catch (EntryNotFoundException ignore) {
+        }
+      }
+    });
+    for (int i = 0; i < KEY_COUNT; i++) {
+      region.remove(key(i));
+    }
+
+    assertThat(region.size()).isZero();
+    assertThat(getUsedMemory()).isEqualTo(usedBefore);
+  }
+
+  @Test
+  public void closingTheRegionFreesAllKeys() throws Exception {
+    long usedBefore = getUsedMemory();
+    runConcurrently(thread -> {
+      for (int i = 0; i < KEY_COUNT; i++) {
+        region.create(key(i) + " " + thread, "value");
+      }
+    });
+
+    region.close();
+
+    // the cleared entries are released by a background thread
+    await().atMost(30, TimeUnit.SECONDS)
+        .until(() -> assertThat(getUsedMemory()).isEqualTo(usedBefore));
+  }
+
+  private static class NotSerializableKey {
+    private final int id;
+
+    NotSerializableKey(int id) {
+      this.id = id;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+      return other instanceof NotSerializableKey && ((NotSerializableKey) other).id == id;
+    }
+
+    @Override
+    public int hashCode() {
+      return id;
+    }
+  }
+}
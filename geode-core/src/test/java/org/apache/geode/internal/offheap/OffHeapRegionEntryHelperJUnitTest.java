@@ -17,7 +17,12 @@ package org.apache.geode.internal.offheap;
 import static org.assertj.core.api.Assertions.*;
 import static org.mockito.Mockito.*;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.junit.After;
 import org.junit.AfterClass;
@@ -32,12 +37,14 @@ import org.powermock.core.classloader.annotations.PowerMockIgnore;
 import org.powermock.core.classloader.annotations.PrepareForTest;
 import org.powermock.modules.junit4.PowerMockRunner;
 
+import org.apache.geode.DataSerializable;
 import org.apache.geode.compression.Compressor;
 import org.apache.geode.internal.DSCODE;
 import org.apache.geode.internal.cache.CachePerfStats;
 import org.apache.geode.internal.cache.DiskEntry;
 import org.apache.geode.internal.cache.DiskId;
 import org.apache.geode.internal.cache.EntryEventImpl;
+import org.apache.geode.internal.cache.OffHeapKeyRegionEntry;
 import org.apache.geode.internal.cache.OffHeapRegionEntry;
 import org.apache.geode.internal.cache.RegionEntryContext;
 import org.apache.geode.internal.cache.Token;
@@ -942,4 +949,153 @@ public class OffHeapRegionEntryHelperJUnitTest {
     // verify that threadlocal is reset after offheap is cleared
     assertThat(OffHeapRegionEntryHelper.doesClearNeedToCheckForOffHeap()).isFalse();
   }
+
+  /**
+   * Returns a mock entry whose key address can be read and compared-and-set like a real one.
+   */
+  private OffHeapKeyRegionEntry mockEntryWithKeyAddress(long address) {
+    AtomicLong keyAddress = new AtomicLong(address);
+    OffHeapKeyRegionEntry re = mock(OffHeapKeyRegionEntry.class);
+    when(re.getKeyAddress()).thenAnswer(invocation -> keyAddress.get());
+    when(re.setKeyAddress(anyLong(), anyLong())).thenAnswer(invocation -> keyAddress
+        .compareAndSet(invocation.<Long>getArgument(0), invocation.<Long>getArgument(1)));
+    return re;
+  }
+
+  @Test
+  public void serializeKeyShouldStoreKeyOffHeap() {
+    String key = "a key that is too long to be encoded in an address";
+
+    long keyAddress = OffHeapRegionEntryHelper.serializeKey(key);
+
+    assertThat(OffHeapRegionEntryHelper.isOffHeap(keyAddress)).isTrue();
+    OffHeapKeyRegionEntry re = mockEntryWithKeyAddress(keyAddress);
+    assertThat(OffHeapRegionEntryHelper.getKey(re)).isEqualTo(key);
+    OffHeapRegionEntryHelper.releaseKey(re);
+  }
+
+  @Test
+  public void serializeKeyShouldReturnNullAddressIfKeyCanNotBeSerialized() {
+    assertThat(OffHeapRegionEntryHelper.serializeKey(new Object()))
+        .isEqualTo(OffHeapRegionEntryHelper.NULL_ADDRESS);
+  }
+
+  @Test
+  public void getKeyShouldDeserializeKeyStoredOffHeap() {
+    String key = "a key that is too long to be encoded in an address";
+    OffHeapStoredObject chunk = createChunk(key);
+    OffHeapKeyRegionEntry re = mock(OffHeapKeyRegionEntry.class);
+    when(re.getKeyAddress()).thenReturn(chunk.getAddress());
+
+    assertThat(OffHeapRegionEntryHelper.getKey(re)).isEqualTo(key);
+    // the key is retained only while it is being read
+    assertThat(chunk.getRefCount()).isEqualTo(1);
+  }
+
+  @Test
+  public void getKeyShouldDecodeKeyEncodedInAddress() {
+    long encodedAddress =
+        OffHeapRegionEntryHelper.encodeDataAsAddress(EntryEventImpl.serialize(7), true, false);
+    OffHeapKeyRegionEntry re = mock(OffHeapKeyRegionEntry.class);
+    when(re.getKeyAddress()).thenReturn(encodedAddress);
+
+    assertThat(OffHeapRegionEntryHelper.getKey(re)).isEqualTo(7);
+  }
+
+  @Test
+  public void setValueToRemovedPhase2ShouldKeepKeyReadableAndReleaseOffHeapKey() {
+    String key = "a key that is too long to be encoded in an address";
+    OffHeapStoredObject chunk = createChunk(key);
+    OffHeapKeyRegionEntry re = mockEntryWithKeyAddress(chunk.getAddress());
+    long removedAddress = OffHeapRegionEntryHelper.REMOVED_PHASE2_ADDRESS;
+    when(re.getAddress()).thenReturn(OffHeapRegionEntryHelper.NULL_ADDRESS);
+    when(re.setAddress(OffHeapRegionEntryHelper.NULL_ADDRESS, removedAddress)).thenReturn(true);
+
+    OffHeapRegionEntryHelper.setValue(re, Token.REMOVED_PHASE2);
+
+    assertThat(re.getKeyAddress()).isEqualTo(OffHeapRegionEntryHelper.NULL_ADDRESS);
+    assertThat(chunk.getRefCount()).isZero();
+    assertThat(OffHeapRegionEntryHelper.getKey(re)).isEqualTo(key);
+    assertThat(OffHeapRegionEntryHelper.isKeyEqual(re, key)).isTrue();
+  }
+
+  @Test
+  public void releaseEntryWithExpectedValueShouldKeepKeyReadableAndReleaseOffHeapKey() {
+    String key = "a key that is too long to be encoded in an address";
+    OffHeapStoredObject keyChunk = createChunk(key);
+    OffHeapStoredObject value = createChunk(Long.MAX_VALUE);
+    long removedAddress = OffHeapRegionEntryHelper.REMOVED_PHASE2_ADDRESS;
+    OffHeapKeyRegionEntry re = mockEntryWithKeyAddress(keyChunk.getAddress());
+    when(re.setAddress(value.getAddress(), removedAddress)).thenReturn(true);
+    when(re.getAddress()).thenReturn(removedAddress);
+
+    OffHeapRegionEntryHelper.releaseEntry(re, value);
+
+    assertThat(value.getRefCount()).isZero();
+    assertThat(keyChunk.getRefCount()).isZero();
+    assertThat(OffHeapRegionEntryHelper.getKey(re)).isEqualTo(key);
+  }
+
+  @Test
+  public void releaseEntryShouldReleaseOffHeapKeyWithoutKeepingIt() {
+    String key = "a key that is too long to be encoded in an address";
+    OffHeapStoredObject keyChunk = createChunk(key);
+    OffHeapKeyRegionEntry re = mockEntryWithKeyAddress(keyChunk.getAddress());
+    when(re.getAddress()).thenReturn(OffHeapRegionEntryHelper.NULL_ADDRESS);
+    when(re.setAddress(anyLong(), anyLong())).thenReturn(true);
+
+    OffHeapRegionEntryHelper.releaseEntry(re);
+
+    assertThat(keyChunk.getRefCount()).isZero();
+    assertThat(OffHeapRegionEntryHelper.getKey(re)).isNull();
+  }
+
+  @Test
+  public void isKeyEqualShouldCompareKeyStoredOffHeapBySerializedForm() {
+    String key = "a key that is too long to be encoded in an address";
+    OffHeapStoredObject chunk = createChunk(key);
+    OffHeapKeyRegionEntry re = mock(OffHeapKeyRegionEntry.class);
+    when(re.getKeyAddress()).thenReturn(chunk.getAddress());
+
+    assertThat(OffHeapRegionEntryHelper.isKeyEqual(re, key)).isTrue();
+    assertThat(OffHeapRegionEntryHelper.isKeyEqual(re, key + "x")).isFalse();
+    assertThat(chunk.getRefCount()).isEqualTo(1);
+  }
+
+  @Test
+  public void isKeyEqualShouldCompareKeyEncodedInAddressBySerializedForm() {
+    long encodedAddress =
+        OffHeapRegionEntryHelper.encodeDataAsAddress(EntryEventImpl.serialize(7), true, false);
+    OffHeapKeyRegionEntry re = mock(OffHeapKeyRegionEntry.class);
+    when(re.getKeyAddress()).thenReturn(encodedAddress);
+
+    assertThat(OffHeapRegionEntryHelper.isKeyEqual(re, 7)).isTrue();
+    assertThat(OffHeapRegionEntryHelper.isKeyEqual(re, 8)).isFalse();
+  }
+
+  @Test
+  public void isKeyEqualShouldSerializeTheSameLookupKeyOnlyOnce() {
+    CountingKey key = new CountingKey();
+    OffHeapStoredObject chunk = createChunk(key);
+    OffHeapKeyRegionEntry re = mockEntryWithKeyAddress(chunk.getAddress());
+    CountingKey.serializations.set(0);
+
+    for (int i = 0; i < 3; i++) {
+      assertThat(OffHeapRegionEntryHelper.isKeyEqual(re, key)).isTrue();
+    }
+
+    assertThat(CountingKey.serializations.get()).isEqualTo(1);
+  }
+
+  public static class CountingKey implements DataSerializable {
+    static final AtomicInteger serializations = new AtomicInteger();
+
+    @Override
+    public void toData(DataOutput out) throws IOException {
+      serializations.incrementAndGet();
+    }
+
+    @Override
+    public void fromData(DataInput in) throws IOException, ClassNotFoundException {}
+  }
 }
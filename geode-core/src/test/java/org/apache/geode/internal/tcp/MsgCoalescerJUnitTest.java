@@ -0,0 +1,174 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.internal.tcp;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import org.apache.geode.test.junit.categories.UnitTest;
+
+@Category(UnitTest.class)
+public class MsgCoalescerJUnitTest {
+
+  private static final int BUFFER_SIZE = 1024;
+
+  private Connection connection;
+  private List<byte[]> writes;
+  private ExecutorService executor;
+
+  @Before
+  public void setUp() throws Exception {
+    connection = mock(Connection.class);
+    writes = new ArrayList<>();
+    executor = Executors.newCachedThreadPool();
+    recordWrites(null);
+  }
+
+  @After
+  public void tearDown() {
+    executor.shutdownNow();
+  }
+
+  @Test
+  public void testMessageIsWrittenBeforeSendReturns() throws Exception {
+    MsgCoalescer coalescer = new MsgCoalescer(connection, BUFFER_SIZE, 0);
+    ByteBuffer message = message(1, 40);
+
+    coalescer.send(message);
+
+    assertEquals(0, message.remaining());
+    assertEquals(1, writes.size());
+    assertArrayEquals(message.array(), writes.get(0));
+  }
+
+  @Test
+  public void testOnlySmallMessagesAreAccepted() {
+    MsgCoalescer coalescer = new MsgCoalescer(connection, BUFFER_SIZE, 0);
+
+    assertTrue(coalescer.accepts(message(1, BUFFER_SIZE / 8)));
+    assertFalse(coalescer.accepts(message(1, BUFFER_SIZE / 8 + 1)));
+  }
+
+  @Test
+  public void testMessagesSentDuringWriteAreCoalesced() throws Exception {
+    CountDownLatch firstWriteStarted = new CountDownLatch(1);
+    CountDownLatch releaseFirstWrite = new CountDownLatch(1);
+    recordWrites(() -> {
+      if (firstWriteStarted.getCount() > 0) {
+        firstWriteStarted.countDown();
+        releaseFirstWrite.await();
+      }
+    });
+    MsgCoalescer coalescer = new MsgCoalescer(connection, BUFFER_SIZE, 0);
+
+    List<Future<?>> sends = new ArrayList<>();
+    sends.add(send(coalescer, message(0, 50)));
+    assertTrue(firstWriteStarted.await(30, TimeUnit.SECONDS));
+    for (int i = 1; i <= 4; i++) {
+      sends.add(send(coalescer, message(i, 50)));
+    }
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+    while (coalescer.getPendingBytes() < 200 && System.nanoTime() < deadline) {
+      Thread.sleep(10);
+    }
+    releaseFirstWrite.countDown();
+    for (Future<?> send : sends) {
+      send.get(30, TimeUnit.SECONDS);
+    }
+
+    assertEquals(2, writes.size());
+    assertEquals(50, writes.get(0).length);
+    byte[] batch = writes.get(1);
+    assertEquals(200, batch.length);
+    for (int i = 0; i < 4; i++) {
+      byte[] coalesced = Arrays.copyOfRange(batch, i * 50, (i + 1) * 50);
+      // every message is copied whole, in whichever order the senders added them
+      for (byte b : coalesced) {
+        assertEquals(coalesced[0], b);
+      }
+    }
+  }
+
+  @Test
+  public void testWriteFailureIsReportedToLaterSends() throws Exception {
+    doThrow(new IOException("broken pipe")).when(connection).writeCoalesced(any(ByteBuffer.class));
+    MsgCoalescer coalescer = new MsgCoalescer(connection, BUFFER_SIZE, 0);
+
+    try {
+      coalescer.send(message(1, 40));
+      fail("expected IOException");
+    } catch (IOException expected) {
+      assertEquals("broken pipe", expected.getMessage());
+    }
+    try {
+      coalescer.send(message(2, 40));
+      fail("expected IOException");
+    } catch (IOException expected) {
+      assertEquals("broken pipe", expected.getMessage());
+    }
+    verify(connection, times(1)).writeCoalesced(any(ByteBuffer.class));
+  }
+
+  private Future<?> send(MsgCoalescer coalescer, ByteBuffer message) {
+    return executor.submit(() -> {
+      coalescer.send(message);
+      return null;
+    });
+  }
+
+  private void recordWrites(BeforeWrite beforeWrite) throws Exception {
+    doAnswer(invocation -> {
+      if (beforeWrite != null) {
+        beforeWrite.run();
+      }
+      ByteBuffer batch = (ByteBuffer) invocation.getArguments()[0];
+      ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+      while (batch.hasRemaining()) {
+        bytes.write(batch.get());
+      }
+      synchronized (writes) {
+        writes.add(bytes.toByteArray());
+      }
+      return null;
+    }).when(connection).writeCoalesced(any(ByteBuffer.class));
+  }
+
+  private static ByteBuffer message(int id, int size) {
+    byte[] bytes = new byte[size];
+    Arrays.fill(bytes, (byte) id);
+    return ByteBuffer.wrap(bytes);
+  }
+
+  private interface BeforeWrite {
+    void run() throws Exception;
+  }
+}
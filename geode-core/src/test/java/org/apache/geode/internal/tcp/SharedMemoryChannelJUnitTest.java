@@ -0,0 +1,266 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.internal.tcp;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.rules.TemporaryFolder;
+
+import org.apache.geode.distributed.internal.membership.InternalDistributedMember;
+import org.apache.geode.test.junit.categories.IntegrationTest;
+
+@Category(IntegrationTest.class)
+public class SharedMemoryChannelJUnitTest {
+
+  private static final int BUFFER_SIZE = 4096;
+
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  private String directory;
+  private ServerSocketChannel serverSocket;
+  private SocketChannel initiatorSocket;
+  private SocketChannel acceptorSocket;
+  private InternalDistributedMember initiator;
+  private ExecutorService executor;
+
+  @Before
+  public void setUp() throws Exception {
+    directory = temporaryFolder.getRoot().getAbsolutePath();
+    InetAddress localHost = InetAddress.getLoopbackAddress();
+    serverSocket = ServerSocketChannel.open();
+    serverSocket.bind(new InetSocketAddress(localHost, 0));
+    initiatorSocket = SocketChannel.open(serverSocket.getLocalAddress());
+    acceptorSocket = serverSocket.accept();
+    initiator = createMember(localHost, 1000);
+    executor = Executors.newCachedThreadPool();
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    executor.shutdownNow();
+    initiatorSocket.close();
+    acceptorSocket.close();
+    serverSocket.close();
+  }
+
+  private InternalDistributedMember createMember(InetAddress address, int port) {
+    InternalDistributedMember member = mock(InternalDistributedMember.class);
+    when(member.getInetAddress()).thenReturn(address);
+    when(member.getPort()).thenReturn(port);
+    when(member.getDirectChannelPort()).thenReturn(port + 1);
+    return member;
+  }
+
+  /** accepts the given channel offered by {@link #initiator} on {@link #acceptorSocket} */
+  private SharedMemoryChannel accept(SharedMemoryChannel offered) {
+    return SharedMemoryChannel.accept(acceptorSocket, initiator, offered.getNonce(), directory);
+  }
+
+  @Test
+  public void testAcceptorAttachesToFileOfInitiator() throws Exception {
+    SharedMemoryChannel offered =
+        SharedMemoryChannel.create(initiatorSocket, initiator, directory, BUFFER_SIZE);
+    assertNotNull(offered);
+    assertFalse(offered.isAccepted());
+    assertEquals(1, temporaryFolder.getRoot().list().length);
+
+    SharedMemoryChannel accepted = accept(offered);
+    assertNotNull(accepted);
+    assertTrue(offered.isAccepted());
+    assertEquals(0, temporaryFolder.getRoot().list().length);
+  }
+
+  @Test
+  public void testAcceptorIgnoresFileOfAnotherMember() throws Exception {
+    SharedMemoryChannel offered =
+        SharedMemoryChannel.create(initiatorSocket, initiator, directory, BUFFER_SIZE);
+    InternalDistributedMember other = createMember(InetAddress.getLoopbackAddress(), 2000);
+
+    assertNull(SharedMemoryChannel.accept(acceptorSocket, other, offered.getNonce(), directory));
+    assertFalse(offered.isAccepted());
+
+    offered.close();
+    assertEquals(0, temporaryFolder.getRoot().list().length);
+    assertNull(accept(offered));
+  }
+
+  @Test
+  public void testBytesLargerThanRingArriveInOrder() throws Exception {
+    SharedMemoryChannel offered =
+        SharedMemoryChannel.create(initiatorSocket, initiator, directory, BUFFER_SIZE);
+    SharedMemoryChannel accepted = accept(offered);
+    final int total = BUFFER_SIZE * 10 + 17;
+
+    Future<?> writer = executor.submit(() -> {
+      for (int written = 0; written < total;) {
+        ByteBuffer buffer = ByteBuffer.allocate(Math.min(1000, total - written));
+        while (buffer.hasRemaining()) {
+          buffer.put((byte) written++);
+        }
+        buffer.flip();
+        offered.write(buffer);
+      }
+      return null;
+    });
+
+    ByteBuffer direct = ByteBuffer.allocateDirect(777);
+    for (int read = 0; read < total;) {
+      direct.clear();
+      int amount = accepted.read(direct);
+      assertTrue(amount > 0);
+      direct.flip();
+      while (direct.hasRemaining()) {
+        assertEquals((byte) read++, direct.get());
+      }
+    }
+    writer.get(30, TimeUnit.SECONDS);
+  }
+
+  @Test
+  public void testRepliesFlowFromAcceptorToInitiator() throws Exception {
+    SharedMemoryChannel offered =
+        SharedMemoryChannel.create(initiatorSocket, initiator, directory, BUFFER_SIZE);
+    SharedMemoryChannel accepted = accept(offered);
+
+    Future<Integer> reader = executor.submit(() -> offered.read(ByteBuffer.allocate(16)));
+    // give the reader time to block on the socket before the reply is written
+    Thread.sleep(100);
+    accepted.write(ByteBuffer.wrap(new byte[] {1, 2, 3}));
+
+    assertEquals(3, reader.get(30, TimeUnit.SECONDS).intValue());
+  }
+
+  @Test
+  public void testReadReturnsEndOfStreamAfterDrainingOnceSocketIsClosed() throws Exception {
+    SharedMemoryChannel offered =
+        SharedMemoryChannel.create(initiatorSocket, initiator, directory, BUFFER_SIZE);
+    SharedMemoryChannel accepted = accept(offered);
+
+    offered.write(ByteBuffer.wrap(new byte[] {1, 2, 3, 4}));
+    initiatorSocket.close();
+
+    ByteBuffer buffer = ByteBuffer.allocate(16);
+    assertEquals(4, accepted.read(buffer));
+    assertEquals(-1, accepted.read(buffer));
+    assertFalse(offered.isOpen());
+  }
+
+  @Test
+  public void testAcceptorIgnoresFileNotOfferedInHandshake() throws Exception {
+    SharedMemoryChannel offered =
+        SharedMemoryChannel.create(initiatorSocket, initiator, directory, BUFFER_SIZE);
+    byte[] otherNonce = offered.getNonce().clone();
+    otherNonce[0]++;
+
+    assertNull(SharedMemoryChannel.accept(acceptorSocket, initiator, otherNonce, directory));
+    assertNull(SharedMemoryChannel.accept(acceptorSocket, initiator, null, directory));
+    assertFalse(offered.isAccepted());
+  }
+
+  @Test
+  public void testAcceptorIgnoresFileWhoseNonceDoesNotMatch() throws Exception {
+    SharedMemoryChannel offered =
+        SharedMemoryChannel.create(initiatorSocket, initiator, directory, BUFFER_SIZE);
+    byte[] otherNonce = offered.getNonce().clone();
+    otherNonce[0]++;
+    // a file planted under the name of another nonce
+    Files.copy(SharedMemoryChannel.getFile(directory, offered.getNonce()).toPath(),
+        SharedMemoryChannel.getFile(directory, otherNonce).toPath());
+
+    assertNull(SharedMemoryChannel.accept(acceptorSocket, initiator, otherNonce, directory));
+    assertFalse(offered.isAccepted());
+  }
+
+  @Test
+  public void testStaleFilesAreDeleted() throws Exception {
+    SharedMemoryChannel stale =
+        SharedMemoryChannel.create(initiatorSocket, initiator, directory, BUFFER_SIZE);
+    File staleFile = SharedMemoryChannel.getFile(directory, stale.getNonce());
+    assertTrue(staleFile.setLastModified(System.currentTimeMillis() - 60000));
+    SharedMemoryChannel fresh =
+        SharedMemoryChannel.create(initiatorSocket, initiator, directory, BUFFER_SIZE);
+    File otherFile = temporaryFolder.newFile();
+    assertTrue(otherFile.setLastModified(System.currentTimeMillis() - 60000));
+
+    assertEquals(1,
+        SharedMemoryChannel.deleteStaleFiles(directory, System.currentTimeMillis() - 30000));
+    assertFalse(staleFile.exists());
+    assertTrue(SharedMemoryChannel.getFile(directory, fresh.getNonce()).exists());
+    assertTrue(otherFile.exists());
+  }
+
+  @Test
+  public void testAcceptorIgnoresSymbolicLink() throws Exception {
+    SharedMemoryChannel offered =
+        SharedMemoryChannel.create(initiatorSocket, initiator, directory, BUFFER_SIZE);
+    File file = SharedMemoryChannel.getFile(directory, offered.getNonce());
+    File target = temporaryFolder.newFile();
+    Files.move(file.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    Files.createSymbolicLink(file.toPath(), target.toPath());
+
+    assertNull(accept(offered));
+    assertFalse(offered.isAccepted());
+  }
+
+  @Test
+  public void testWriterToFullRingFailsOnceReaderIsKilled() throws Exception {
+    SharedMemoryChannel offered =
+        SharedMemoryChannel.create(initiatorSocket, initiator, directory, BUFFER_SIZE);
+    SharedMemoryChannel accepted = accept(offered);
+    assertNotNull(accepted);
+
+    Future<?> writer = executor.submit(() -> {
+      while (true) {
+        offered.write(ByteBuffer.allocate(1000));
+      }
+    });
+    // the ring fills up since nobody reads it
+    Thread.sleep(200);
+    assertFalse(writer.isDone());
+
+    // a killed process neither reads nor marks the channel closed but its socket goes away
+    acceptorSocket.socket().setSoLinger(true, 0);
+    acceptorSocket.close();
+
+    try {
+      writer.get(30, TimeUnit.SECONDS);
+      fail("expected the write to fail");
+    } catch (ExecutionException expected) {
+      assertTrue(expected.getCause() instanceof IOException);
+    }
+  }
+}
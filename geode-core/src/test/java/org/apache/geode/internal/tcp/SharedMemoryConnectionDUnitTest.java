@@ -0,0 +1,112 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.internal.tcp;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import org.apache.geode.cache.Region;
+import org.apache.geode.cache.RegionShortcut;
+import org.apache.geode.test.dunit.Host;
+import org.apache.geode.test.dunit.Invoke;
+import org.apache.geode.test.dunit.VM;
+import org.apache.geode.test.dunit.cache.internal.JUnit4CacheTestCase;
+import org.apache.geode.test.junit.categories.DistributedTest;
+
+/**
+ * Verifies that p2p connections between members on the same host switch to shared memory during
+ * their handshake, and that they keep using the socket when the receiver does not accept it.
+ */
+@Category(DistributedTest.class)
+public class SharedMemoryConnectionDUnitTest extends JUnit4CacheTestCase {
+
+  private static final String REGION_NAME = "region";
+
+  /** larger than the default ring so that messages wrap around it */
+  private static final int LARGE_VALUE_SIZE = SharedMemoryChannel.SHARED_MEMORY_BUFFER_SIZE * 2;
+
+  @Override
+  public final void postSetUp() throws Exception {
+    disconnectAllFromDS();
+  }
+
+  @Override
+  public final void postTearDownCacheTestCase() throws Exception {
+    disconnectAllFromDS();
+    Invoke.invokeInEveryVM(() -> SharedMemoryChannel.USE_SHARED_MEMORY =
+        Boolean.getBoolean("p2p.sharedMemory"));
+  }
+
+  private void createRegion() {
+    getCache().createRegionFactory(RegionShortcut.REPLICATE).create(REGION_NAME);
+  }
+
+  private void putEntries() {
+    Region<Integer, byte[]> region = getCache().getRegion(REGION_NAME);
+    for (int i = 0; i < 100; i++) {
+      region.put(i, new byte[i * 100]);
+    }
+    byte[] large = new byte[LARGE_VALUE_SIZE];
+    Arrays.fill(large, (byte) 7);
+    region.put(-1, large);
+  }
+
+  private void verifyEntries() {
+    Region<Integer, byte[]> region = getCache().getRegion(REGION_NAME);
+    for (int i = 0; i < 100; i++) {
+      assertEquals(i * 100, region.get(i).length);
+    }
+    byte[] large = region.get(-1);
+    assertEquals(LARGE_VALUE_SIZE, large.length);
+    assertEquals(7, large[LARGE_VALUE_SIZE - 1]);
+  }
+
+  @Test
+  public void testConnectionSwitchesToSharedMemoryDuringHandshake() {
+    VM vm0 = Host.getHost(0).getVM(0);
+    VM vm1 = Host.getHost(0).getVM(1);
+    vm0.invoke(() -> SharedMemoryChannel.USE_SHARED_MEMORY = true);
+    vm1.invoke(() -> SharedMemoryChannel.USE_SHARED_MEMORY = true);
+    vm0.invoke(() -> createRegion());
+    vm1.invoke(() -> createRegion());
+
+    vm0.invoke(() -> putEntries());
+
+    vm1.invoke(() -> verifyEntries());
+    vm1.invoke(() -> assertTrue(ConnectionTable.getNumberOfSharedMemoryReceiversForTest() > 0));
+    // connections initiated by the other member switch as well
+    vm1.invoke(() -> putEntries());
+    vm0.invoke(() -> verifyEntries());
+  }
+
+  @Test
+  public void testConnectionKeepsSocketWhenReceiverDoesNotAccept() {
+    VM vm0 = Host.getHost(0).getVM(0);
+    VM vm1 = Host.getHost(0).getVM(1);
+    vm0.invoke(() -> SharedMemoryChannel.USE_SHARED_MEMORY = true);
+    vm1.invoke(() -> SharedMemoryChannel.USE_SHARED_MEMORY = false);
+    vm0.invoke(() -> createRegion());
+    vm1.invoke(() -> createRegion());
+
+    vm0.invoke(() -> putEntries());
+
+    vm1.invoke(() -> verifyEntries());
+    vm1.invoke(() -> assertEquals(0, ConnectionTable.getNumberOfSharedMemoryReceiversForTest()));
+  }
+}